@@ -60,4 +60,10 @@ public class DremioConnectionConfig extends ConnectionConfigImpl {
   public boolean isServerMetadataDisabled() {
     return Boolean.valueOf(props.getProperty("server.metadata.disabled"));
   }
+
+  // True if result sets load upcoming batches on a background thread, the given default if unset
+  public boolean isPipelinedCursorEnabled(boolean defaultValue) {
+    final String value = props.getProperty("cursor.pipelined");
+    return value == null ? defaultValue : Boolean.parseBoolean(value);
+  }
 }
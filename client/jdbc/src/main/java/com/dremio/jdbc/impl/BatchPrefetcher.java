@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.jdbc.impl;
+
+import com.dremio.common.exceptions.UserException;
+import com.dremio.exec.record.RecordBatchLoader;
+import com.dremio.jdbc.impl.DremioCursor.ResultsListener;
+import com.dremio.sabot.rpc.user.QueryDataBatch;
+import com.google.common.base.Throwables;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeoutException;
+import org.apache.arrow.memory.BufferAllocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the query data batches received by a {@link ResultsListener} into vectors on a background
+ * thread, so that the application thread reading a {@link DremioCursor} finds the next batch ready
+ * to be read when it crosses a batch boundary.
+ *
+ * <p>The batches loaded ahead of the application, together with the one being read, are bounded by
+ * their size in bytes rather than by their count. A batch larger than the bound is still loaded
+ * when nothing else is held, so that it cannot stall the cursor.
+ */
+class BatchPrefetcher implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(BatchPrefetcher.class);
+
+  private final ResultsListener resultsListener;
+  private final BufferAllocator allocator;
+  private final long prefetchBytes;
+  private final Thread thread;
+
+  /** Loaded batches not yet returned by {@link #next()}. */
+  private final Deque<LoadedBatch> readyBatches = new ArrayDeque<>();
+
+  /** Batch last returned by {@link #next()}, released on the following call. */
+  private LoadedBatch current;
+
+  /** Bytes held by the ready batches and the current one. */
+  private long heldBytes;
+
+  /** Whether the background thread is done loading, at end of stream or on failure. */
+  private boolean done;
+
+  private Throwable failure;
+  private boolean closed;
+
+  /**
+   * @param resultsListener the listener to get the query data batches from
+   * @param allocator the allocator for the vectors of the loaded batches
+   * @param prefetchBytes the number of bytes of loaded batches above which loading pauses
+   * @param name the name of the background thread
+   */
+  BatchPrefetcher(
+      ResultsListener resultsListener, BufferAllocator allocator, long prefetchBytes, String name) {
+    this.resultsListener = resultsListener;
+    this.allocator = allocator;
+    this.prefetchBytes = prefetchBytes;
+    this.thread = new Thread(this::run, name);
+    thread.setDaemon(true);
+  }
+
+  void start() {
+    thread.start();
+  }
+
+  /**
+   * Gets the next loaded batch, releasing the one returned by the previous call.
+   *
+   * @return the loaded batch, or {@code null} after last batch has been returned
+   * @throws UserException if the query failed
+   * @throws TimeoutException if data was not received before timeout expiration
+   * @throws InterruptedException if waiting for the batch was interrupted
+   */
+  synchronized RecordBatchLoader next()
+      throws UserException, TimeoutException, InterruptedException {
+    releaseCurrent();
+    while (readyBatches.isEmpty() && !done) {
+      wait();
+    }
+    if (readyBatches.isEmpty()) {
+      if (failure != null) {
+        Throwables.throwIfInstanceOf(failure, TimeoutException.class);
+        Throwables.throwIfUnchecked(failure);
+        throw new RuntimeException(failure);
+      }
+      return null;
+    }
+    current = readyBatches.poll();
+    return current.loader;
+  }
+
+  private void run() {
+    // Skip any spurious empty batches, other than the first one carrying the initial schema, as
+    // the cursor does when loading batches itself.
+    boolean afterFirstBatch = false;
+    try {
+      while (true) {
+        QueryDataBatch qrb = resultsListener.getNext();
+        if (afterFirstBatch) {
+          while (qrb != null && (qrb.getHeader().getRowCount() == 0 || qrb.getData() == null)) {
+            logger.warn("Spurious batch read: {}", qrb);
+            qrb.release();
+            qrb = resultsListener.getNext();
+          }
+        }
+        afterFirstBatch = true;
+
+        if (qrb == null) {
+          return;
+        }
+
+        final long bytes = qrb.hasData() ? qrb.getData().readableBytes() : 0;
+        final RecordBatchLoader loader;
+        try {
+          if (!reserve(bytes)) {
+            return;
+          }
+          loader = new RecordBatchLoader(allocator);
+          try {
+            loader.load(qrb.getHeader().getDef(), qrb.getData());
+          } catch (RuntimeException e) {
+            loader.close();
+            unreserve(bytes);
+            throw e;
+          }
+        } finally {
+          qrb.release();
+        }
+
+        if (!offer(new LoadedBatch(loader, bytes))) {
+          loader.close();
+          return;
+        }
+      }
+    } catch (Throwable t) {
+      synchronized (this) {
+        failure = t;
+      }
+    } finally {
+      synchronized (this) {
+        done = true;
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Waits until the given number of bytes can be held.
+   *
+   * @return false if closed while waiting
+   */
+  private synchronized boolean reserve(long bytes) throws InterruptedException {
+    while (!closed && heldBytes > 0 && heldBytes + bytes > prefetchBytes) {
+      wait();
+    }
+    if (closed) {
+      return false;
+    }
+    heldBytes += bytes;
+    return true;
+  }
+
+  private synchronized void unreserve(long bytes) {
+    heldBytes -= bytes;
+    notifyAll();
+  }
+
+  private synchronized boolean offer(LoadedBatch batch) {
+    if (closed) {
+      unreserve(batch.bytes);
+      return false;
+    }
+    readyBatches.add(batch);
+    notifyAll();
+    return true;
+  }
+
+  private void releaseCurrent() {
+    if (current != null) {
+      current.loader.close();
+      unreserve(current.bytes);
+      current = null;
+    }
+  }
+
+  /**
+   * Releases all the loaded batches and waits for the background thread to finish. The results
+   * listener is expected to be closed first, so that the thread is not left waiting for data.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      closed = true;
+      releaseCurrent();
+      for (LoadedBatch batch : readyBatches) {
+        batch.loader.close();
+        unreserve(batch.bytes);
+      }
+      readyBatches.clear();
+      notifyAll();
+    }
+
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static final class LoadedBatch {
+    private final RecordBatchLoader loader;
+    private final long bytes;
+
+    private LoadedBatch(RecordBatchLoader loader, long bytes) {
+      this.loader = loader;
+      this.bytes = bytes;
+    }
+  }
+}
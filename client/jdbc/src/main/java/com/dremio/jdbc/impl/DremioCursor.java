@@ -45,6 +45,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.calcite.avatica.AvaticaStatement;
 import org.apache.calcite.avatica.ColumnMetaData;
 import org.apache.calcite.avatica.Meta;
@@ -59,6 +60,17 @@ class DremioCursor implements Cursor {
   public static final String JDBC_BATCH_QUEUE_THROTTLING_THRESHOLD =
       "dremio.jdbc.batch_queue_throttling_threshold";
 
+  /** Size of JDBC batch queue (in bytes) above which throttling begins. */
+  public static final String JDBC_BATCH_QUEUE_THROTTLING_THRESHOLD_BYTES =
+      "dremio.jdbc.batch_queue_throttling_threshold_bytes";
+
+  /** Whether batches are loaded ahead of the application on a background thread by default. */
+  public static final String JDBC_PIPELINED_CURSOR = "dremio.jdbc.pipelined_cursor";
+
+  /** Size (in bytes) of the batches loaded ahead of the application by a pipelined cursor. */
+  public static final String JDBC_PIPELINED_CURSOR_PREFETCH_BYTES =
+      "dremio.jdbc.pipelined_cursor_prefetch_bytes";
+
   public static final String IS_CATALOG_NAME = "DREMIO";
   // END_OF_STREAM_MESSAGE gets added to batchQueue to signal the waiting threads
   // that there is no more data in the queue, therefore aborting the operations waiting
@@ -75,11 +87,18 @@ class DremioCursor implements Cursor {
 
     private static final AtomicInteger INSTANCE_ID_COUNTER = new AtomicInteger(1);
 
+    static final long DEFAULT_BATCH_QUEUE_POLL_TIMEOUT_MS = 50;
+
     /** (Just for logging.) */
     private final int instanceId;
 
     private final int batchQueueThrottlingThreshold;
 
+    private final long batchQueueThrottlingThresholdBytes;
+
+    /** Size in bytes of the data of the batches in the queue. */
+    private final AtomicLong batchQueueBytes = new AtomicLong();
+
     /** (Just for logging.) */
     private volatile QueryId queryId;
 
@@ -115,12 +134,16 @@ class DremioCursor implements Cursor {
      * ...
      *
      * @param batchQueueThrottlingThreshold queue size threshold for throttling server
+     * @param batchQueueThrottlingThresholdBytes queue size threshold in bytes for throttling server
      * @param batchQueuePollTimeoutMs timeout for batchQueue.Poll() in ms
      */
-    @VisibleForTesting
-    ResultsListener(int batchQueueThrottlingThreshold, long batchQueuePollTimeoutMs) {
+    ResultsListener(
+        int batchQueueThrottlingThreshold,
+        long batchQueueThrottlingThresholdBytes,
+        long batchQueuePollTimeoutMs) {
       instanceId = INSTANCE_ID_COUNTER.getAndIncrement();
       this.batchQueueThrottlingThreshold = batchQueueThrottlingThreshold;
+      this.batchQueueThrottlingThresholdBytes = batchQueueThrottlingThresholdBytes;
       this.batchQueuePollTimeoutMs = batchQueuePollTimeoutMs;
       logger.debug("[#{}] Query listener created.", instanceId);
     }
@@ -129,9 +152,15 @@ class DremioCursor implements Cursor {
      * ...
      *
      * @param batchQueueThrottlingThreshold queue size threshold for throttling server
+     * @param batchQueuePollTimeoutMs timeout for batchQueue.Poll() in ms
      */
-    ResultsListener(int batchQueueThrottlingThreshold) {
-      this(batchQueueThrottlingThreshold, 50);
+    @VisibleForTesting
+    ResultsListener(int batchQueueThrottlingThreshold, long batchQueuePollTimeoutMs) {
+      this(batchQueueThrottlingThreshold, Long.MAX_VALUE, batchQueuePollTimeoutMs);
+    }
+
+    private static long getDataBytes(QueryDataBatch qdb) {
+      return qdb.hasData() ? qdb.getData().readableBytes() : 0;
     }
 
     /**
@@ -209,12 +238,18 @@ class DremioCursor implements Cursor {
       }
 
       // We're active; let's add to the queue.
+      final long queueBytes = batchQueueBytes.addAndGet(getDataBytes(result));
       batchQueue.add(result);
 
       // Throttle server if queue size has exceed threshold.
-      if (batchQueue.size() > batchQueueThrottlingThreshold) {
+      if (batchQueue.size() > batchQueueThrottlingThreshold
+          || queueBytes > batchQueueThrottlingThresholdBytes) {
         if (startThrottlingIfNot(throttle)) {
-          logger.debug("[#{}] Throttling started at queue size {}.", instanceId, batchQueue.size());
+          logger.debug(
+              "[#{}] Throttling started at queue size {} ({} bytes).",
+              instanceId,
+              batchQueue.size(),
+              queueBytes);
         }
       }
 
@@ -265,6 +300,7 @@ class DremioCursor implements Cursor {
             return null;
           }
           if (qdb != null) {
+            final long queueBytes = batchQueueBytes.addAndGet(-getDataBytes(qdb));
             lastDequeuedBatchNumber++;
             logger.debug(
                 "[#{}] Dequeued query data batch #{}: {}.",
@@ -272,8 +308,9 @@ class DremioCursor implements Cursor {
                 lastDequeuedBatchNumber,
                 qdb);
 
-            // Unthrottle server if queue size has dropped enough below threshold:
-            if (batchQueue.size() < batchQueueThrottlingThreshold / 2
+            // Unthrottle server if queue size has dropped enough below thresholds:
+            if ((batchQueue.size() < batchQueueThrottlingThreshold / 2
+                    && queueBytes < batchQueueThrottlingThresholdBytes / 2)
                 || batchQueue.size() == 0 // (in case threshold < 2)
             ) {
               if (stopThrottlingIfSo()) {
@@ -307,6 +344,7 @@ class DremioCursor implements Cursor {
           qdb.getData().close();
         }
       }
+      batchQueueBytes.set(0);
 
       completed = true;
       // Add an END_OF_STREAM_MESSAGE batch to the queue to signify no more data in a race condition
@@ -332,10 +370,17 @@ class DremioCursor implements Cursor {
   private final AvaticaStatement statement;
   private final Meta.Signature signature;
 
-  /** Holds current batch of records (none before first load). */
-  private final RecordBatchLoader currentBatchHolder;
+  /**
+   * Holds current batch of records (none before first load). Replaced by each batch loaded by
+   * {@link #prefetcher}, if any.
+   */
+  private RecordBatchLoader currentBatchHolder;
 
   private final ResultsListener resultsListener;
+
+  /** Loads batches ahead of the application for a pipelined cursor, null otherwise. */
+  private final BatchPrefetcher prefetcher;
+
   private SchemaChangeListener changeListener;
 
   private final DremioAccessorList accessors = new DremioAccessorList();
@@ -384,8 +429,27 @@ class DremioCursor implements Cursor {
     DremioClient client = connection.getClient();
     final int batchQueueThrottlingThreshold =
         client.getConfig().getInt(JDBC_BATCH_QUEUE_THROTTLING_THRESHOLD);
-    resultsListener = new ResultsListener(batchQueueThrottlingThreshold);
+    final long batchQueueThrottlingThresholdBytes =
+        client.getConfig().getBytes(JDBC_BATCH_QUEUE_THROTTLING_THRESHOLD_BYTES);
+    resultsListener =
+        new ResultsListener(
+            batchQueueThrottlingThreshold,
+            batchQueueThrottlingThresholdBytes,
+            ResultsListener.DEFAULT_BATCH_QUEUE_POLL_TIMEOUT_MS);
     currentBatchHolder = new RecordBatchLoader(client.getRecordAllocator());
+
+    if (connection
+        .getConfig()
+        .isPipelinedCursorEnabled(client.getConfig().getBoolean(JDBC_PIPELINED_CURSOR))) {
+      prefetcher =
+          new BatchPrefetcher(
+              resultsListener,
+              client.getRecordAllocator(),
+              client.getConfig().getBytes(JDBC_PIPELINED_CURSOR_PREFETCH_BYTES),
+              "jdbc-cursor-prefetch");
+    } else {
+      prefetcher = null;
+    }
   }
 
   protected int getCurrentRecordNumber() {
@@ -424,6 +488,9 @@ class DremioCursor implements Cursor {
       connection.getClient().cancelQuery(resultsListener.getQueryId());
     }
     resultsListener.close();
+    if (prefetcher != null) {
+      prefetcher.close();
+    }
     currentBatchHolder.clear();
   }
 
@@ -473,6 +540,10 @@ class DremioCursor implements Cursor {
       // (First call always takes this branch.)
 
       try {
+        if (prefetcher != null) {
+          return nextBatchFromPrefetcher();
+        }
+
         QueryDataBatch qrb = resultsListener.getNext();
 
         // (Apparently:)  Skip any spurious empty batches (batches that have
@@ -547,6 +618,44 @@ class DremioCursor implements Cursor {
     }
   }
 
+  /**
+   * Switches to the next batch loaded by {@link #prefetcher}.
+   *
+   * @return whether cursor is positioned at a row (false when after end of results)
+   */
+  private boolean nextBatchFromPrefetcher()
+      throws UserException, TimeoutException, InterruptedException {
+    final RecordBatchLoader loader = prefetcher.next();
+    afterFirstBatch = true;
+
+    if (loader == null) {
+      // End of batches--the prefetcher released the last one, report after last row.
+      currentBatchHolder.clear();
+      afterLastRow = true;
+      return false;
+    }
+
+    // (Clears the initial holder; batches from the prefetcher were already released by it.)
+    currentBatchHolder.clear();
+    currentBatchHolder = loader;
+    currentRecordNumber = 0;
+
+    // Each batch is loaded into its own vectors, so the accessors are bound to them again even
+    // when the schema did not change.
+    final BatchSchema previousSchema = schema;
+    schema = loader.getSchema();
+    if (!schema.equals(previousSchema)) {
+      updateColumns();
+    } else {
+      accessors.generateAccessors(this, currentBatchHolder, connection.getTimeZone());
+    }
+
+    if (returnTrueForNextCallToNext && currentBatchHolder.getRecordCount() == 0) {
+      returnTrueForNextCallToNext = false;
+    }
+    return true;
+  }
+
   /**
    * Advances to first batch to load schema data into result set metadata.
    *
@@ -595,6 +704,10 @@ class DremioCursor implements Cursor {
       connection.getClient().runQuery(QueryType.SQL, signature.sql, resultsListener);
     }
 
+    if (prefetcher != null) {
+      prefetcher.start();
+    }
+
     try {
       resultsListener.awaitFirstMessage();
     } catch (TimeoutException e) {
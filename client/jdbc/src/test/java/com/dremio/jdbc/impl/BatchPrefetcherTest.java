@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.jdbc.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.dremio.common.exceptions.UserException;
+import com.dremio.exec.proto.UserBitShared.QueryData;
+import com.dremio.exec.proto.UserBitShared.QueryResult.QueryState;
+import com.dremio.exec.record.RecordBatchLoader;
+import com.dremio.exec.record.WritableBatch;
+import com.dremio.jdbc.impl.DremioCursor.ResultsListener;
+import com.dremio.sabot.rpc.user.QueryDataBatch;
+import com.dremio.test.DremioTest;
+import com.google.common.collect.ImmutableList;
+import io.netty.buffer.NettyArrowBuf;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.IntVector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Class-level unit test for {@link BatchPrefetcher}. */
+public class BatchPrefetcherTest extends DremioTest {
+  private static final int THROTTLING_THRESHOLD = 100;
+  private static final int ROWS = 1000;
+
+  private BufferAllocator allocator;
+  private ResultsListener resultsListener;
+
+  @Before
+  public void setup() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    resultsListener = new ResultsListener(THROTTLING_THRESHOLD, 10);
+  }
+
+  @After
+  public void teardown() {
+    resultsListener.close();
+    allocator.close();
+  }
+
+  @Test
+  public void testBatchesLoadedInOrder() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      resultsListener.dataArrived(newBatch(i * ROWS), null);
+    }
+    resultsListener.queryCompleted(QueryState.COMPLETED);
+
+    try (BatchPrefetcher prefetcher =
+        new BatchPrefetcher(resultsListener, allocator, Long.MAX_VALUE, "test-prefetch")) {
+      prefetcher.start();
+      for (int i = 0; i < 3; i++) {
+        assertBatch(prefetcher.next(), i * ROWS);
+      }
+      assertNull(prefetcher.next());
+    }
+    assertEquals(0, allocator.getAllocatedMemory());
+  }
+
+  @Test
+  public void testPrefetchBoundedByBytes() throws Exception {
+    final QueryDataBatch first = newBatch(0);
+    final long batchBytes = first.getData().readableBytes();
+    resultsListener.dataArrived(first, null);
+    for (int i = 1; i < 4; i++) {
+      resultsListener.dataArrived(newBatch(i * ROWS), null);
+    }
+    resultsListener.queryCompleted(QueryState.COMPLETED);
+
+    try (BatchPrefetcher prefetcher =
+        new BatchPrefetcher(resultsListener, allocator, batchBytes, "test-prefetch")) {
+      prefetcher.start();
+      // only a single batch fits in the bound, so the last two batches and the end of stream
+      // message stay queued until the application releases the first one
+      Thread.sleep(100);
+      assertTrue(resultsListener.batchQueue.size() >= 3);
+
+      for (int i = 0; i < 4; i++) {
+        assertBatch(prefetcher.next(), i * ROWS);
+      }
+      assertNull(prefetcher.next());
+    }
+    assertEquals(0, allocator.getAllocatedMemory());
+  }
+
+  @Test
+  public void testCloseReleasesPrefetchedBatches() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      resultsListener.dataArrived(newBatch(i * ROWS), null);
+    }
+
+    final BatchPrefetcher prefetcher =
+        new BatchPrefetcher(resultsListener, allocator, Long.MAX_VALUE, "test-prefetch");
+    prefetcher.start();
+    assertBatch(prefetcher.next(), 0);
+
+    resultsListener.close();
+    prefetcher.close();
+    assertEquals(0, allocator.getAllocatedMemory());
+  }
+
+  @Test
+  public void testQueryFailure() throws Exception {
+    resultsListener.dataArrived(newBatch(0), null);
+    resultsListener.submissionFailed(
+        UserException.dataReadError().message("failed").buildSilently());
+
+    try (BatchPrefetcher prefetcher =
+        new BatchPrefetcher(resultsListener, allocator, Long.MAX_VALUE, "test-prefetch")) {
+      prefetcher.start();
+      prefetcher.next();
+      fail("Expected the query failure");
+    } catch (UserException e) {
+      assertTrue(e.getMessage().contains("failed"));
+    }
+    assertEquals(0, allocator.getAllocatedMemory());
+  }
+
+  private static void assertBatch(RecordBatchLoader loader, int start) {
+    assertEquals(ROWS, loader.getRecordCount());
+    final IntVector vector = loader.getValueAccessorById(IntVector.class, 0).getValueVector();
+    for (int i = 0; i < ROWS; i++) {
+      assertEquals(start + i, vector.get(i));
+    }
+  }
+
+  /** Builds a batch of consecutive ints as sent by the server. */
+  private QueryDataBatch newBatch(int start) {
+    final IntVector vector = new IntVector("i", allocator);
+    vector.allocateNew(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      vector.set(i, start + i);
+    }
+    vector.setValueCount(ROWS);
+
+    try (WritableBatch writableBatch =
+        WritableBatch.getBatchNoHV(ROWS, ImmutableList.of(vector), false)) {
+      final NettyArrowBuf[] buffers = writableBatch.getBuffers();
+      int bytes = 0;
+      for (NettyArrowBuf buf : buffers) {
+        bytes += buf.writerIndex();
+      }
+      try (ArrowBuf data = allocator.buffer(bytes)) {
+        int index = 0;
+        for (NettyArrowBuf buf : buffers) {
+          buf.readBytes(NettyArrowBuf.unwrapBuffer(data), index, buf.writerIndex());
+          index += buf.writerIndex();
+        }
+        data.writerIndex(bytes);
+        final QueryData header =
+            QueryData.newBuilder().setRowCount(ROWS).setDef(writableBatch.getDef()).build();
+        return new QueryDataBatch(header, data);
+      }
+    }
+  }
+}
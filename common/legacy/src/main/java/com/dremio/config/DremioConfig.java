@@ -102,6 +102,7 @@ public class DremioConfig extends NestedConfig {
   public static final String EXECUTOR_NODE_LIFECYCLE_SERVICE_ENABLED =
       "services.executor.node_lifecycle_service_enabled";
   public static final String JOBS_ENABLED_BOOL = "services.jobs.enabled";
+  public static final String JOBS_RESULTS_CACHE_SIZE_BYTES = "services.jobs.results_cache_size";
   public static final String NO_OP_CLUSTER_COORDINATOR_ENABLED =
       "debug.noop.cluster" + ".coordinator.enabled";
 
@@ -155,6 +156,9 @@ public class DremioConfig extends NestedConfig {
   public static final String GANDIVA_CACHE_PATH_STRING = "paths.gandiva";
   public static final String SYSTEM_ICEBERG_TABLES_PATH_STRING = "paths.system_iceberg_tables";
   public static final String NODE_HISTORY_PATH_STRING = "paths.node_history";
+  public static final String FRAGMENT_RESULT_CACHE_PATH_STRING = "paths.fragment_result_cache";
+  public static final String COMPILED_CLASS_CACHE_PATH_STRING = "paths.compiled_class_cache";
+  public static final String BLOCK_CACHE_PATH_STRING = "paths.block_cache";
 
   public static final Set<String> DEPRECATED_PATHS = ImmutableSet.of("paths.copyintoerrors");
 
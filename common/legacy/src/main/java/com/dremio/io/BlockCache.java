@@ -0,0 +1,385 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.io;
+
+import com.google.common.base.Preconditions;
+import io.netty.buffer.ByteBuf;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Node local cache of fixed size blocks of remote files, stored as files on local disk.
+ *
+ * <p>Blocks are aligned on the block size, and identified by the path and version of the file they
+ * belong to, so that a new version of a file never reads the blocks of an older one. Each owner,
+ * usually a source, has its own quota, and its blocks are evicted in least recently used order when
+ * they go over it. An owner without a quota doesn't cache anything. The blocks of each owner are
+ * kept in a {@link DiskLruStore}.
+ *
+ * <p>The index of the cached blocks is only kept in memory. The cache is not persisted across
+ * restarts: the block files left by a previous process are deleted the first time the cache is
+ * used. Other files of the directory are left alone.
+ *
+ * <p>Blocks are fetched into direct memory before being written to disk. The number of blocks
+ * fetched at once is bounded, and the misses over the bound are not cached.
+ *
+ * <p>Thread safe.
+ */
+public class BlockCache {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(BlockCache.class);
+
+  public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+  public static final int DEFAULT_MAX_CONCURRENT_FETCHES = 16;
+
+  private static final String BLOCK_PREFIX = "block-";
+  private static final ConcurrentMap<Path, BlockCache> CACHES = new ConcurrentHashMap<>();
+
+  private final Path directory;
+  private final int blockSize;
+  private final Semaphore fetches;
+  private final Map<String, Partition> partitions = new HashMap<>();
+
+  private boolean initialized;
+  private long nextFileId;
+  private long evictions;
+
+  /**
+   * @param directory local directory holding the cache files, owned by the cache
+   * @param blockSize size of the cached blocks
+   */
+  public BlockCache(Path directory, int blockSize) {
+    this(directory, blockSize, DEFAULT_MAX_CONCURRENT_FETCHES);
+  }
+
+  /**
+   * @param directory local directory holding the cache files, owned by the cache
+   * @param blockSize size of the cached blocks
+   * @param maxConcurrentFetches maximum number of blocks being fetched at once
+   */
+  public BlockCache(Path directory, int blockSize, int maxConcurrentFetches) {
+    Preconditions.checkArgument(blockSize > 0, "Block size must be positive");
+    Preconditions.checkArgument(maxConcurrentFetches > 0, "Concurrent fetches must be positive");
+    this.directory = directory;
+    this.blockSize = blockSize;
+    this.fetches = new Semaphore(maxConcurrentFetches);
+  }
+
+  /** Returns the cache of the process stored in the given directory, creating it if needed. */
+  public static BlockCache forDirectory(Path directory) {
+    return CACHES.computeIfAbsent(
+        directory.toAbsolutePath(), d -> new BlockCache(d, DEFAULT_BLOCK_SIZE));
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Sets the maximum total size of the blocks of an owner, evicting its blocks over the new quota.
+   */
+  public synchronized void setQuota(String owner, long quotaBytes) {
+    final Partition partition = partitions.computeIfAbsent(owner, o -> new Partition(directory));
+    partition.quota = quotaBytes;
+    evict(partition);
+  }
+
+  /** Returns the length of the given file if one of its blocks is cached, -1 otherwise. */
+  synchronized long getFileLength(String owner, FileId file) {
+    final Partition partition = partitions.get(owner);
+    final CachedFile cachedFile = partition == null ? null : partition.files.get(file);
+    return cachedFile == null ? -1 : cachedFile.length;
+  }
+
+  /**
+   * Copies a range of a cached block, and marks the block as the most recently used.
+   *
+   * @return false if the block is not cached
+   */
+  boolean read(String owner, BlockKey key, int blockOffset, ByteBuf dst, int dstOffset, int len)
+      throws IOException {
+    final FileChannel channel;
+    synchronized (this) {
+      initialize();
+      final Partition partition = partitions.get(owner);
+      channel = partition == null ? null : partition.store.open(key);
+      if (channel == null) {
+        return false;
+      }
+    }
+
+    try (FileChannel input = channel) {
+      int read = 0;
+      while (read < len) {
+        final int n = dst.setBytes(dstOffset + read, input, blockOffset + read, len - read);
+        if (n < 0) {
+          throw new EOFException(
+              String.format(
+                  "Cached block of %s is shorter than %d bytes", key.file.path, blockOffset + len));
+        }
+        read += n;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Fetches and caches a block, unless it is already being fetched, in which case the pending fetch
+   * is returned.
+   *
+   * @param fileLength length of the file the block belongs to
+   * @param fetch fetches the content of the block into a buffer that the cache releases
+   * @param executor executor writing the block to disk
+   * @return a future completed with whether the block was cached, false without fetching it if too
+   *     many blocks are already being fetched
+   */
+  CompletableFuture<Boolean> load(
+      String owner,
+      BlockKey key,
+      long fileLength,
+      Supplier<CompletableFuture<ByteBuf>> fetch,
+      Executor executor) {
+    final Partition partition;
+    synchronized (this) {
+      partition = partitions.get(owner);
+    }
+    if (partition == null) {
+      return CompletableFuture.completedFuture(false);
+    }
+    final CompletableFuture<Boolean> result = new CompletableFuture<>();
+    final CompletableFuture<Boolean> pending = partition.loading.putIfAbsent(key, result);
+    if (pending != null) {
+      return pending;
+    }
+    synchronized (this) {
+      // cached by a fetch that completed after the caller looked the block up
+      if (partition.store.contains(key)) {
+        partition.loading.remove(key, result);
+        result.complete(true);
+        return result;
+      }
+    }
+    if (!fetches.tryAcquire()) {
+      partition.loading.remove(key, result);
+      result.complete(false);
+      return result;
+    }
+
+    CompletableFuture<ByteBuf> content;
+    try {
+      content = fetch.get();
+    } catch (RuntimeException e) {
+      content = new CompletableFuture<>();
+      content.completeExceptionally(e);
+    }
+    content
+        .thenApplyAsync(
+            buf -> {
+              try {
+                return put(owner, key, buf, fileLength);
+              } finally {
+                buf.release();
+              }
+            },
+            executor)
+        .whenComplete(
+            (cached, e) -> {
+              fetches.release();
+              partition.loading.remove(key, result);
+              if (e != null) {
+                result.completeExceptionally(e);
+              } else {
+                result.complete(cached);
+              }
+            });
+    return result;
+  }
+
+  private boolean put(String owner, BlockKey key, ByteBuf buf, long fileLength) {
+    final int length = buf.readableBytes();
+    final Path tempPath;
+    synchronized (this) {
+      final Partition partition = partitions.get(owner);
+      if (partition == null || partition.quota < length) {
+        return false;
+      }
+      try {
+        initialize();
+      } catch (IOException e) {
+        logger.warn("Failure while initializing block cache in {}", directory, e);
+        return false;
+      }
+      tempPath = partition.store.newTempFile();
+    }
+
+    try (FileChannel output =
+        FileChannel.open(tempPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      int written = 0;
+      while (written < length) {
+        written += buf.getBytes(buf.readerIndex() + written, output, written, length - written);
+      }
+    } catch (IOException e) {
+      logger.warn("Failure while writing block cache file {}", tempPath, e);
+      DiskLruStore.deleteQuietly(tempPath);
+      return false;
+    }
+    return commit(owner, key, tempPath, length, fileLength);
+  }
+
+  private synchronized boolean commit(
+      String owner, BlockKey key, Path tempPath, int length, long fileLength) {
+    final Partition partition = partitions.get(owner);
+    try {
+      if (partition.store.commit(key, tempPath, Long.toString(nextFileId++), length)) {
+        partition.files.computeIfAbsent(key.file, f -> new CachedFile(fileLength)).blocks++;
+        evict(partition);
+      }
+    } catch (IOException e) {
+      logger.warn("Failure while adding block cache file {}", tempPath, e);
+      return false;
+    }
+    return partition.store.contains(key);
+  }
+
+  private void evict(Partition partition) {
+    evictions += partition.store.evict(partition.quota);
+  }
+
+  private void initialize() throws IOException {
+    if (initialized) {
+      return;
+    }
+    // the blocks of all the owners share the directory and the names of their files
+    DiskLruStore.cleanup(directory, BLOCK_PREFIX, "", false);
+    initialized = true;
+  }
+
+  public synchronized long getCachedBytes(String owner) {
+    final Partition partition = partitions.get(owner);
+    return partition == null ? 0 : partition.store.getCachedBytes();
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /** Blocks and quota of one owner. */
+  private static final class Partition {
+    private final DiskLruStore<BlockKey> store;
+    private final Map<FileId, CachedFile> files = new HashMap<>();
+    // blocks being fetched, so that concurrent misses on the same block only fetch it once
+    private final ConcurrentMap<BlockKey, CompletableFuture<Boolean>> loading =
+        new ConcurrentHashMap<>();
+    private long quota;
+
+    private Partition(Path directory) {
+      this.store = new DiskLruStore<>(directory, BLOCK_PREFIX, "", this::removed);
+    }
+
+    private void removed(BlockKey key) {
+      final CachedFile file = files.get(key.file);
+      if (--file.blocks == 0) {
+        files.remove(key.file);
+      }
+    }
+  }
+
+  private static final class CachedFile {
+    private final long length;
+    private int blocks;
+
+    private CachedFile(long length) {
+      this.length = length;
+    }
+  }
+
+  /** A version of a remote file. */
+  static final class FileId {
+    private final String path;
+    private final String version;
+
+    FileId(String path, String version) {
+      this.path = Objects.requireNonNull(path);
+      this.version = Objects.requireNonNull(version);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof FileId)) {
+        return false;
+      }
+      final FileId other = (FileId) o;
+      return path.equals(other.path) && version.equals(other.version);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, version);
+    }
+
+    @Override
+    public String toString() {
+      return path + " (version " + version + ")";
+    }
+  }
+
+  /** A block of a version of a remote file. */
+  static final class BlockKey {
+    private final FileId file;
+    private final long index;
+
+    BlockKey(FileId file, long index) {
+      this.file = file;
+      this.index = index;
+    }
+
+    long getIndex() {
+      return index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof BlockKey)) {
+        return false;
+      }
+      final BlockKey other = (BlockKey) o;
+      return index == other.index && file.equals(other.file);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * file.hashCode() + Long.hashCode(index);
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.io;
+
+import com.dremio.io.BlockCache.BlockKey;
+import com.dremio.io.BlockCache.FileId;
+import com.google.common.collect.ImmutableList;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Decorator over AsyncByteReader that reads a version of a file through a {@link BlockCache}.
+ *
+ * <p>Reads are split on the blocks of the cache. Blocks that are not cached are fetched whole from
+ * the inner reader and added to the cache before being read. When a block can't be cached, the
+ * requested range is read from the inner reader instead.
+ */
+public class CachingAsyncByteReader extends ReusableAsyncByteReader {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(CachingAsyncByteReader.class);
+
+  public static final String CACHE_HIT_BYTES = "BlockCacheHitBytes";
+  public static final String CACHE_MISS_BYTES = "BlockCacheMissBytes";
+
+  private final AsyncByteReader inner;
+  private final BlockCache cache;
+  private final String owner;
+  private final FileId file;
+  private final Supplier<CompletableFuture<Long>> fileLengthSupplier;
+  private final Executor executor;
+  private final AtomicLong hitBytes = new AtomicLong();
+  private final AtomicLong missBytes = new AtomicLong();
+
+  private CompletableFuture<Long> fileLength;
+
+  /**
+   * @param inner reader of the file
+   * @param cache cache the blocks are read from and added to
+   * @param owner owner of the blocks added to the cache
+   * @param path path of the file
+   * @param version version of the file read by the inner reader
+   * @param fileLengthSupplier returns the length of the file, or -1 if the file is not of the
+   *     expected version, only called on a miss when no block of the file is cached
+   * @param executor executor reading and writing the local files of the cache
+   */
+  public CachingAsyncByteReader(
+      AsyncByteReader inner,
+      BlockCache cache,
+      String owner,
+      String path,
+      String version,
+      Supplier<CompletableFuture<Long>> fileLengthSupplier,
+      Executor executor) {
+    this.inner = inner;
+    this.cache = cache;
+    this.owner = owner;
+    this.file = new FileId(path, version);
+    this.fileLengthSupplier = fileLengthSupplier;
+    this.executor = executor;
+  }
+
+  @Override
+  public CompletableFuture<Void> readFully(long offset, ByteBuf dst, int dstOffset, int len) {
+    final int blockSize = cache.getBlockSize();
+    final List<CompletableFuture<Void>> reads = new ArrayList<>();
+    final long end = offset + len;
+    long position = offset;
+    while (position < end) {
+      final long block = position / blockSize;
+      final int blockOffset = (int) (position - block * blockSize);
+      final int length = (int) Math.min(end - position, blockSize - blockOffset);
+      reads.add(readBlock(block, blockOffset, dst, dstOffset + (int) (position - offset), length));
+      position += length;
+    }
+    return CompletableFuture.allOf(reads.toArray(new CompletableFuture[0]));
+  }
+
+  private CompletableFuture<Void> readBlock(
+      long block, int blockOffset, ByteBuf dst, int dstOffset, int len) {
+    final BlockKey key = new BlockKey(file, block);
+    return CompletableFuture.supplyAsync(
+            () -> readCached(key, blockOffset, dst, dstOffset, len), executor)
+        .thenCompose(
+            hit -> {
+              if (hit) {
+                hitBytes.addAndGet(len);
+                return completedFuture;
+              }
+              missBytes.addAndGet(len);
+              return loadBlock(key)
+                  .thenApplyAsync(
+                      cached -> cached && readCached(key, blockOffset, dst, dstOffset, len),
+                      executor)
+                  .thenCompose(
+                      read ->
+                          read
+                              ? completedFuture
+                              : inner.readFully(
+                                  block * cache.getBlockSize() + blockOffset, dst, dstOffset, len));
+            });
+  }
+
+  private boolean readCached(BlockKey key, int blockOffset, ByteBuf dst, int dstOffset, int len) {
+    try {
+      return cache.read(owner, key, blockOffset, dst, dstOffset, len);
+    } catch (IOException e) {
+      logger.warn("Failure while reading block cache, reading {} from the source", file, e);
+      return false;
+    }
+  }
+
+  private CompletableFuture<Boolean> loadBlock(BlockKey key) {
+    return getFileLength()
+        .thenCompose(
+            fileLength -> {
+              if (fileLength < 0) {
+                return CompletableFuture.completedFuture(false);
+              }
+              return cache.load(
+                  owner, key, fileLength, () -> fetchBlock(key.getIndex(), fileLength), executor);
+            });
+  }
+
+  private CompletableFuture<ByteBuf> fetchBlock(long block, long fileLength) {
+    final long start = block * cache.getBlockSize();
+    final int length = (int) Math.min(cache.getBlockSize(), fileLength - start);
+    if (length <= 0) {
+      final CompletableFuture<ByteBuf> failed = new CompletableFuture<>();
+      failed.completeExceptionally(
+          new EOFException(
+              String.format("Read past the end of a file of %d bytes at %d", fileLength, start)));
+      return failed;
+    }
+
+    // the cache bounds the number of blocks fetched at once, and so the memory held here
+    final ByteBuf buf = Unpooled.directBuffer(length);
+    return inner
+        .readFully(start, buf, 0, length)
+        .handle(
+            (v, e) -> {
+              if (e != null) {
+                buf.release();
+                throw e instanceof CompletionException
+                    ? (CompletionException) e
+                    : new CompletionException(e);
+              }
+              buf.setIndex(0, length);
+              return buf;
+            });
+  }
+
+  private synchronized CompletableFuture<Long> getFileLength() {
+    if (fileLength == null) {
+      final long cachedLength = cache.getFileLength(owner, file);
+      if (cachedLength >= 0) {
+        return CompletableFuture.completedFuture(cachedLength);
+      }
+      fileLength = fileLengthSupplier.get();
+    }
+    return fileLength;
+  }
+
+  @Override
+  public CompletableFuture<Void> checkVersion(String version) {
+    return inner.checkVersion(version);
+  }
+
+  @Override
+  protected void onClose() throws Exception {
+    inner.close();
+  }
+
+  @Override
+  public List<ReaderStat> getStats() {
+    return ImmutableList.<ReaderStat>builder()
+        .addAll(inner.getStats())
+        .add(new ReaderStat(CACHE_HIT_BYTES, hitBytes.get()))
+        .add(new ReaderStat(CACHE_MISS_BYTES, missBytes.get()))
+        .build();
+  }
+}
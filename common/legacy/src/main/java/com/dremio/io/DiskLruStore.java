@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.io;
+
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Entries of a cache stored as files of a local directory, evicted in least recently used order.
+ *
+ * <p>The file of an entry is named by the store after a prefix, the name of the entry and a suffix.
+ * A new entry is written to a temporary file, and only becomes visible once committed. The store
+ * only touches the files it names, so the directory may be shared with other files, or with other
+ * stores using a different prefix or suffix.
+ *
+ * <p>Not thread safe, except {@link #newTempFile()}: the caches built on the store synchronize the
+ * other calls.
+ *
+ * @param <K> key of the entries
+ */
+public final class DiskLruStore<K> {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(DiskLruStore.class);
+
+  private static final String TEMP_PREFIX = ".tmp-";
+
+  private final Path directory;
+  private final String prefix;
+  private final String suffix;
+  private final Consumer<? super K> removalListener;
+  // entries in access order, the first entry is the least recently used
+  private final LinkedHashMap<K, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long cachedBytes;
+
+  /**
+   * @param directory local directory holding the files of the store
+   * @param prefix prefix of the names of the files of the store
+   * @param suffix suffix of the names of the files of the store
+   */
+  public DiskLruStore(Path directory, String prefix, String suffix) {
+    this(directory, prefix, suffix, key -> {});
+  }
+
+  /**
+   * @param directory local directory holding the files of the store
+   * @param prefix prefix of the names of the files of the store
+   * @param suffix suffix of the names of the files of the store
+   * @param removalListener called with the key of every entry removed or evicted from the store
+   */
+  public DiskLruStore(
+      Path directory, String prefix, String suffix, Consumer<? super K> removalListener) {
+    Preconditions.checkArgument(
+        !prefix.isEmpty() || !suffix.isEmpty(), "Store files need a prefix or a suffix");
+    this.directory = directory;
+    this.prefix = prefix;
+    this.suffix = suffix;
+    this.removalListener = removalListener;
+  }
+
+  /**
+   * Creates the directory if needed, and deletes the files of the store left by a previous process.
+   *
+   * @param keepEntries whether the committed entries of the previous process are kept, rather than
+   *     deleted
+   * @return the files of the kept entries, the least recently modified first
+   */
+  public List<Path> cleanup(boolean keepEntries) throws IOException {
+    return cleanup(directory, prefix, suffix, keepEntries);
+  }
+
+  /**
+   * Creates the directory if needed, and deletes the files named after the given prefix and suffix
+   * left by a previous process. Other files are left alone.
+   *
+   * @param keepEntries whether the committed entries of the previous process are kept, rather than
+   *     deleted
+   * @return the files of the kept entries, the least recently modified first
+   */
+  public static List<Path> cleanup(
+      Path directory, String prefix, String suffix, boolean keepEntries) throws IOException {
+    Files.createDirectories(directory);
+    final List<Path> kept = new ArrayList<>();
+    try (DirectoryStream<Path> files =
+        Files.newDirectoryStream(
+            directory,
+            path ->
+                (nameOf(path, prefix, suffix) != null
+                        || nameOf(path, TEMP_PREFIX + prefix, suffix) != null)
+                    && Files.isRegularFile(path))) {
+      for (Path path : files) {
+        if (keepEntries && nameOf(path, prefix, suffix) != null) {
+          kept.add(path);
+        } else {
+          Files.deleteIfExists(path);
+        }
+      }
+    }
+    kept.sort(Comparator.comparingLong(DiskLruStore::lastModified));
+    return kept;
+  }
+
+  /** Returns the name of the entry stored in the file, or null if the store didn't name it. */
+  public String nameOf(Path path) {
+    return nameOf(path, prefix, suffix);
+  }
+
+  private static String nameOf(Path path, String prefix, String suffix) {
+    final String fileName = path.getFileName().toString();
+    if (fileName.length() <= prefix.length() + suffix.length()
+        || !fileName.startsWith(prefix)
+        || !fileName.endsWith(suffix)) {
+      return null;
+    }
+    final String name = fileName.substring(prefix.length(), fileName.length() - suffix.length());
+    // the temporary files of a store without a prefix are not entries
+    return prefix.isEmpty() && name.startsWith(TEMP_PREFIX) ? null : name;
+  }
+
+  /** Returns a new temporary file name, for an entry to be committed. Thread safe. */
+  public Path newTempFile() {
+    return directory.resolve(TEMP_PREFIX + prefix + UUID.randomUUID() + suffix);
+  }
+
+  /**
+   * Moves a temporary file in place as the file of an entry, the most recently used one. The
+   * temporary file is deleted if the key already has an entry, or if it can't be moved.
+   *
+   * @param name name of the entry, part of the name of its file
+   * @param size size of the entry
+   * @return false if the key already has an entry
+   */
+  public boolean commit(K key, Path tempPath, String name, long size) throws IOException {
+    if (entries.containsKey(key)) {
+      deleteQuietly(tempPath);
+      return false;
+    }
+    final Path path = directory.resolve(prefix + name + suffix);
+    try {
+      Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      deleteQuietly(tempPath);
+      throw e;
+    }
+    add(key, path, size);
+    return true;
+  }
+
+  /** Adds the file of an entry kept by {@link #cleanup(boolean)}, as the most recently used one. */
+  public void restore(K key, Path path) throws IOException {
+    Preconditions.checkState(!entries.containsKey(key), "Entry %s already in the store", key);
+    add(key, path, Files.size(path));
+  }
+
+  private void add(K key, Path path, long size) {
+    entries.put(key, new Entry(path, size));
+    cachedBytes += size;
+  }
+
+  /**
+   * Opens the file of an entry, and marks the entry as the most recently used.
+   *
+   * @return a channel that the caller must close, or null if there is no entry for the key
+   */
+  public FileChannel open(K key) throws IOException {
+    final Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    // opened while the caller holds its lock, so that the file can't be evicted before it is
+    // opened: once open, the file remains readable even if it gets deleted
+    try {
+      return FileChannel.open(entry.path, StandardOpenOption.READ);
+    } catch (NoSuchFileException e) {
+      remove(key);
+      return null;
+    }
+  }
+
+  /** Returns the file of an entry, without marking the entry as used, or null if there is none. */
+  public Path getPath(K key) {
+    final Entry entry = entries.get(key);
+    return entry == null ? null : entry.path;
+  }
+
+  public boolean contains(K key) {
+    return entries.containsKey(key);
+  }
+
+  /**
+   * Removes an entry and deletes its file.
+   *
+   * @return false if there was no entry for the key
+   */
+  public boolean remove(K key) {
+    final Entry entry = entries.remove(key);
+    if (entry == null) {
+      return false;
+    }
+    removed(key, entry);
+    return true;
+  }
+
+  /**
+   * Evicts the least recently used entries until the total size of the store is at most the given
+   * size.
+   *
+   * @return the number of entries evicted
+   */
+  public int evict(long maxSizeBytes) {
+    int evicted = 0;
+    final Iterator<Map.Entry<K, Entry>> lru = entries.entrySet().iterator();
+    while (cachedBytes > maxSizeBytes && lru.hasNext()) {
+      final Map.Entry<K, Entry> entry = lru.next();
+      lru.remove();
+      removed(entry.getKey(), entry.getValue());
+      evicted++;
+    }
+    return evicted;
+  }
+
+  private void removed(K key, Entry entry) {
+    cachedBytes -= entry.size;
+    deleteQuietly(entry.path);
+    removalListener.accept(key);
+  }
+
+  public long getCachedBytes() {
+    return cachedBytes;
+  }
+
+  public int getEntryCount() {
+    return entries.size();
+  }
+
+  private static long lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path).toMillis();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  /** Deletes a file, logging instead of throwing on failure. */
+  public static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      logger.warn("Failure while deleting cache file {}", path, e);
+    }
+  }
+
+  private static final class Entry {
+    private final Path path;
+    private final long size;
+
+    private Entry(Path path, long size) {
+      this.path = path;
+      this.size = size;
+    }
+  }
+}
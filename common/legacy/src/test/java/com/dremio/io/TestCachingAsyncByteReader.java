@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link CachingAsyncByteReader} and {@link BlockCache}. */
+public class TestCachingAsyncByteReader {
+  private static final int BLOCK_SIZE = 64;
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final byte[] data = new byte[BLOCK_SIZE * 10 + 17];
+  private ExecutorService executor;
+  private BlockCache cache;
+  private MemoryReader source;
+
+  @Before
+  public void setup() throws Exception {
+    new Random(42).nextBytes(data);
+    executor = Executors.newFixedThreadPool(4);
+    cache = new BlockCache(folder.newFolder("cache").toPath(), BLOCK_SIZE);
+    cache.setQuota("source", 4 * BLOCK_SIZE);
+    source = new MemoryReader();
+  }
+
+  @After
+  public void teardown() {
+    executor.shutdownNow();
+  }
+
+  /** Serves the test data, and records the ranges requested. */
+  private class MemoryReader extends ReusableAsyncByteReader {
+    private final List<long[]> reads = new ArrayList<>();
+    private final AtomicInteger lengthRequests = new AtomicInteger();
+    private CompletableFuture<Void> gate = completedFuture;
+
+    @Override
+    public CompletableFuture<Void> readFully(long offset, ByteBuf dst, int dstOffset, int len) {
+      synchronized (this) {
+        reads.add(new long[] {offset, len});
+      }
+      return gate.thenRun(() -> dst.setBytes(dstOffset, data, (int) offset, len));
+    }
+
+    synchronized int readCount() {
+      return reads.size();
+    }
+  }
+
+  private CachingAsyncByteReader newReader(String owner, String version) {
+    return new CachingAsyncByteReader(
+        source,
+        cache,
+        owner,
+        "/bucket/file",
+        version,
+        () -> {
+          source.lengthRequests.incrementAndGet();
+          return CompletableFuture.completedFuture((long) data.length);
+        },
+        executor);
+  }
+
+  private static byte[] read(AsyncByteReader reader, long offset, int len) {
+    final ByteBuf buf = Unpooled.buffer(len + 3);
+    try {
+      reader.readFully(offset, buf, 3, len).join();
+      final byte[] bytes = new byte[len];
+      buf.getBytes(3, bytes);
+      return bytes;
+    } finally {
+      buf.release();
+    }
+  }
+
+  private byte[] expected(int offset, int len) {
+    return Arrays.copyOfRange(data, offset, offset + len);
+  }
+
+  private static double stat(AsyncByteReader reader, String name) {
+    return reader.getStats().stream()
+        .filter(s -> s.getName().equals(name))
+        .findFirst()
+        .get()
+        .getValue();
+  }
+
+  @Test
+  public void testReadThroughCache() {
+    final CachingAsyncByteReader reader = newReader("source", "1");
+    // spans the end of block 0, block 1 and the start of block 2
+    assertArrayEquals(expected(50, 100), read(reader, 50, 100));
+    assertEquals(3, source.readCount());
+    assertEquals(100, stat(reader, CachingAsyncByteReader.CACHE_MISS_BYTES), 0);
+
+    assertArrayEquals(expected(60, 70), read(reader, 60, 70));
+    assertArrayEquals(expected(BLOCK_SIZE, BLOCK_SIZE), read(reader, BLOCK_SIZE, BLOCK_SIZE));
+    assertEquals(3, source.readCount());
+    assertEquals(70 + BLOCK_SIZE, stat(reader, CachingAsyncByteReader.CACHE_HIT_BYTES), 0);
+    assertEquals(3 * BLOCK_SIZE, cache.getCachedBytes("source"));
+  }
+
+  @Test
+  public void testLastBlock() {
+    final CachingAsyncByteReader reader = newReader("source", "1");
+    final int offset = data.length - 10;
+    assertArrayEquals(expected(offset, 10), read(reader, offset, 10));
+    // only the bytes of the file are fetched for the last block
+    assertEquals(17, source.reads.get(0)[1]);
+    assertArrayEquals(expected(offset, 10), read(newReader("source", "1"), offset, 10));
+    assertEquals(1, source.readCount());
+    // the length of the file is known from its cached blocks
+    assertEquals(1, source.lengthRequests.get());
+  }
+
+  @Test
+  public void testNewVersion() {
+    read(newReader("source", "1"), 0, 10);
+    read(newReader("source", "2"), 0, 10);
+    assertEquals(2, source.readCount());
+  }
+
+  @Test
+  public void testConcurrentMisses() {
+    source.gate = new CompletableFuture<>();
+    final List<CompletableFuture<Void>> reads = new ArrayList<>();
+    final List<ByteBuf> bufs = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      final ByteBuf buf = Unpooled.buffer(BLOCK_SIZE);
+      bufs.add(buf);
+      reads.add(newReader("source", "1").readFully(BLOCK_SIZE + i, buf, 0, 10));
+    }
+    source.gate.complete(null);
+    CompletableFuture.allOf(reads.toArray(new CompletableFuture[0])).join();
+
+    assertEquals(1, source.readCount());
+    for (int i = 0; i < 8; i++) {
+      final byte[] bytes = new byte[10];
+      bufs.get(i).getBytes(0, bytes);
+      assertArrayEquals(expected(BLOCK_SIZE + i, 10), bytes);
+      bufs.get(i).release();
+    }
+  }
+
+  @Test
+  public void testEviction() {
+    final CachingAsyncByteReader reader = newReader("source", "1");
+    for (int block = 0; block < 6; block++) {
+      read(reader, block * BLOCK_SIZE, 1);
+    }
+    assertEquals(4 * BLOCK_SIZE, cache.getCachedBytes("source"));
+    assertEquals(2, cache.getEvictions());
+
+    // blocks 0 and 1 were the least recently used
+    read(reader, 2 * BLOCK_SIZE, 1);
+    assertEquals(6, source.readCount());
+    read(reader, 0, 1);
+    assertEquals(7, source.readCount());
+  }
+
+  @Test
+  public void testQuotaPerOwner() {
+    cache.setQuota("other", BLOCK_SIZE);
+    read(newReader("source", "1"), 0, 1);
+    read(newReader("other", "1"), 0, BLOCK_SIZE);
+    read(newReader("other", "1"), BLOCK_SIZE, 1);
+    assertEquals(BLOCK_SIZE, cache.getCachedBytes("source"));
+    assertEquals(BLOCK_SIZE, cache.getCachedBytes("other"));
+
+    // the blocks of an owner without quota are read from the source
+    final CachingAsyncByteReader reader = newReader("unknown", "1");
+    assertArrayEquals(expected(5, 10), read(reader, 5, 10));
+    assertArrayEquals(expected(5, 10), read(reader, 5, 10));
+    assertEquals(5, source.readCount());
+  }
+
+  @Test
+  public void testBoundedFetches() throws Exception {
+    cache = new BlockCache(folder.newFolder("bounded").toPath(), BLOCK_SIZE, 1);
+    cache.setQuota("source", 4 * BLOCK_SIZE);
+    source.gate = new CompletableFuture<>();
+    final ByteBuf first = Unpooled.buffer(10);
+    final ByteBuf second = Unpooled.buffer(10);
+    try {
+      final CompletableFuture<Void> firstRead = newReader("source", "1").readFully(0, first, 0, 10);
+      final CompletableFuture<Void> secondRead =
+          newReader("source", "1").readFully(BLOCK_SIZE, second, 0, 10);
+      // one block is fetched, the other range is read directly from the source
+      while (source.readCount() < 2) {
+        Thread.sleep(10);
+      }
+      source.gate.complete(null);
+      CompletableFuture.allOf(firstRead, secondRead).join();
+
+      final byte[] bytes = new byte[10];
+      first.getBytes(0, bytes);
+      assertArrayEquals(expected(0, 10), bytes);
+      second.getBytes(0, bytes);
+      assertArrayEquals(expected(BLOCK_SIZE, 10), bytes);
+      assertEquals(BLOCK_SIZE, cache.getCachedBytes("source"));
+    } finally {
+      first.release();
+      second.release();
+    }
+  }
+
+  @Test
+  public void testStaleFilesDeleted() throws Exception {
+    final Path directory = folder.newFolder("stale").toPath();
+    final Path block = Files.write(directory.resolve("block-12"), new byte[] {1});
+    final Path temp = Files.write(directory.resolve(".tmp-block-13"), new byte[] {1});
+    final Path other = Files.write(directory.resolve("notes.txt"), new byte[] {1});
+    final Path otherTemp = Files.write(directory.resolve(".tmp-notes"), new byte[] {1});
+
+    cache = new BlockCache(directory, BLOCK_SIZE);
+    cache.setQuota("source", 4 * BLOCK_SIZE);
+    assertArrayEquals(expected(0, 10), read(newReader("source", "1"), 0, 10));
+
+    assertFalse(Files.exists(block));
+    assertFalse(Files.exists(temp));
+    assertTrue(Files.exists(other));
+    assertTrue(Files.exists(otherTemp));
+  }
+}
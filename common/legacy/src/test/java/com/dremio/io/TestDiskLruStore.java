@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link DiskLruStore}. */
+public class TestDiskLruStore {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final List<String> removed = new ArrayList<>();
+  private Path directory;
+  private DiskLruStore<String> store;
+
+  @Before
+  public void setup() throws Exception {
+    directory = folder.newFolder("store").toPath();
+    store = new DiskLruStore<>(directory, "entry-", ".bin", removed::add);
+  }
+
+  @Test
+  public void testCommitAndOpen() throws Exception {
+    final Path temp = write(store.newTempFile(), 10);
+    assertTrue(store.commit("a", temp, "a", 10));
+    assertFalse(Files.exists(temp));
+    assertTrue(Files.exists(directory.resolve("entry-a.bin")));
+    assertEquals(10, store.getCachedBytes());
+
+    try (FileChannel channel = store.open("a")) {
+      final ByteBuffer buffer = ByteBuffer.allocate(10);
+      assertEquals(10, channel.read(buffer));
+      assertArrayEquals(bytes(10), buffer.array());
+    }
+    assertNull(store.open("b"));
+  }
+
+  @Test
+  public void testCommitExistingKey() throws Exception {
+    assertTrue(store.commit("a", write(store.newTempFile(), 10), "a", 10));
+    final Path temp = write(store.newTempFile(), 20);
+    assertFalse(store.commit("a", temp, "a2", 20));
+    assertFalse(Files.exists(temp));
+    assertEquals(10, store.getCachedBytes());
+    assertEquals(1, store.getEntryCount());
+  }
+
+  @Test
+  public void testEvictLeastRecentlyUsed() throws Exception {
+    for (String key : Arrays.asList("a", "b", "c")) {
+      store.commit(key, write(store.newTempFile(), 10), key, 10);
+    }
+    store.open("a").close();
+
+    assertEquals(1, store.evict(20));
+    assertEquals(Arrays.asList("b"), removed);
+    assertFalse(Files.exists(directory.resolve("entry-b.bin")));
+    assertTrue(store.contains("a"));
+    assertTrue(store.contains("c"));
+    assertEquals(20, store.getCachedBytes());
+  }
+
+  @Test
+  public void testOpenDeletedFile() throws Exception {
+    store.commit("a", write(store.newTempFile(), 10), "a", 10);
+    Files.delete(directory.resolve("entry-a.bin"));
+
+    assertNull(store.open("a"));
+    assertFalse(store.contains("a"));
+    assertEquals(0, store.getCachedBytes());
+    assertEquals(Arrays.asList("a"), removed);
+  }
+
+  @Test
+  public void testCleanupDeletesOnlyStoreFiles() throws Exception {
+    final Path entry = write(directory.resolve("entry-a.bin"), 1);
+    final Path temp = write(directory.resolve(".tmp-entry-1234.bin"), 1);
+    final Path other = write(directory.resolve("notes.txt"), 1);
+    final Path otherTemp = write(directory.resolve(".tmp-notes"), 1);
+    final Path otherPrefix = write(directory.resolve("entry-a.txt"), 1);
+    final Path otherDirectory = Files.createDirectory(directory.resolve("entry-dir.bin"));
+
+    assertTrue(store.cleanup(false).isEmpty());
+    assertFalse(Files.exists(entry));
+    assertFalse(Files.exists(temp));
+    assertTrue(Files.exists(other));
+    assertTrue(Files.exists(otherTemp));
+    assertTrue(Files.exists(otherPrefix));
+    assertTrue(Files.isDirectory(otherDirectory));
+  }
+
+  @Test
+  public void testCleanupKeepsEntries() throws Exception {
+    final Path newer = write(directory.resolve("entry-a.bin"), 1);
+    final Path older = write(directory.resolve("entry-b.bin"), 2);
+    final Path temp = write(directory.resolve(".tmp-entry-1234.bin"), 1);
+    Files.setLastModifiedTime(older, FileTime.fromMillis(1000));
+    Files.setLastModifiedTime(newer, FileTime.fromMillis(2000));
+
+    final List<Path> kept = store.cleanup(true);
+    assertEquals(Arrays.asList(older, newer), kept);
+    assertFalse(Files.exists(temp));
+
+    for (Path path : kept) {
+      store.restore(store.nameOf(path), path);
+    }
+    assertEquals(3, store.getCachedBytes());
+    assertEquals(1, store.evict(1));
+    assertEquals(Arrays.asList("b"), removed);
+  }
+
+  @Test
+  public void testCleanupWithoutPrefix() throws Exception {
+    final DiskLruStore<String> suffixOnly = new DiskLruStore<>(directory, "", ".bin");
+    final Path entry = write(directory.resolve("a.bin"), 1);
+    final Path temp = write(directory.resolve(".tmp-1234.bin"), 1);
+    final Path other = write(directory.resolve(".tmp-notes"), 1);
+
+    assertEquals(Arrays.asList(entry), suffixOnly.cleanup(true));
+    assertFalse(Files.exists(temp));
+    assertTrue(Files.exists(other));
+  }
+
+  private static Path write(Path path, int size) throws Exception {
+    return Files.write(path, bytes(size));
+  }
+
+  private static byte[] bytes(int size) {
+    final byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) i;
+    }
+    return bytes;
+  }
+}
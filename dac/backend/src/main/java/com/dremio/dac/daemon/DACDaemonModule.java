@@ -1085,7 +1085,10 @@ public class DACDaemonModule implements DACModule {
       BufferAllocator allocator = getChildBufferAllocator(bootstrap.getAllocator());
       Provider<JobResultsStore> jobResultsStoreProvider =
           getJobResultsStoreProvider(
-              jobResultsStoreConfigProvider, kvStoreProviderProvider, allocator);
+              jobResultsStoreConfigProvider,
+              kvStoreProviderProvider,
+              allocator,
+              config.getBytes(DremioConfig.JOBS_RESULTS_CACHE_SIZE_BYTES));
 
       JobsAndDependenciesCleaner jobsAndDependenciesCleaner =
           new JobsAndDependenciesCleanerImpl(
@@ -1989,13 +1992,15 @@ public class DACDaemonModule implements DACModule {
   protected Provider<JobResultsStore> getJobResultsStoreProvider(
       Provider<JobResultsStoreConfig> jobResultsStoreConfigProvider,
       Provider<LegacyKVStoreProvider> kvStoreProviderProvider,
-      BufferAllocator allocator) {
+      BufferAllocator allocator,
+      long resultsCacheSizeBytes) {
     return () -> {
       try {
         return new JobResultsStore(
             jobResultsStoreConfigProvider.get(),
             getIndexedJobsStore(kvStoreProviderProvider),
-            allocator);
+            allocator,
+            resultsCacheSizeBytes);
       } catch (IOException e) {
         throw new RuntimeException(e);
       }
@@ -16,6 +16,7 @@
 package com.dremio.service.jobs;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import com.dremio.common.exceptions.UserException;
@@ -23,6 +24,8 @@ import com.dremio.common.util.concurrent.DremioFutures;
 import com.dremio.dac.model.job.JobDetailsUI;
 import com.dremio.dac.server.BaseTestServer;
 import com.dremio.exec.client.DremioClient;
+import com.dremio.exec.planner.physical.PlannerSettings;
+import com.dremio.exec.planner.plancache.LegacyPlanCache;
 import com.dremio.exec.proto.UserBitShared.QueryId;
 import com.dremio.exec.proto.UserBitShared.QueryResult.QueryState;
 import com.dremio.exec.proto.UserBitShared.QueryType;
@@ -31,15 +34,19 @@ import com.dremio.exec.proto.UserProtos.GetCatalogsResp;
 import com.dremio.exec.proto.UserProtos.LikeFilter;
 import com.dremio.exec.rpc.ConnectionThrottle;
 import com.dremio.exec.rpc.RpcException;
+import com.dremio.exec.work.protector.ForemenWorkManager;
 import com.dremio.options.OptionManager;
 import com.dremio.options.OptionValue;
 import com.dremio.proto.model.attempts.RequestType;
 import com.dremio.sabot.rpc.user.QueryDataBatch;
 import com.dremio.sabot.rpc.user.UserResultsListener;
 import com.dremio.service.Pointer;
+import com.dremio.service.job.JobDetails;
 import com.dremio.service.job.JobDetailsRequest;
 import com.dremio.service.job.proto.JobId;
+import com.dremio.service.job.proto.JobProtobuf;
 import com.dremio.service.users.UserService;
+import com.google.common.collect.ImmutableList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
@@ -168,6 +175,56 @@ public class TestJobMetadataCollection extends BaseTestServer {
         OptionValue.createLong(OptionValue.OptionType.SYSTEM, "jobs.sql.truncate.length", 0));
   }
 
+  @Test
+  public void runSqlFromPlanTemplate() throws Exception {
+    final LegacyPlanCache planCache = l(ForemenWorkManager.class).getLegacyPlanCache();
+    planCache.invalidateAll();
+    optionManager.setOption(
+        OptionValue.createBoolean(
+            OptionValue.OptionType.SYSTEM,
+            PlannerSettings.QUERY_PLAN_CACHE_PARAMETERIZED.getOptionName(),
+            true));
+    try {
+      final String query = "SELECT \"user\" FROM cp.\"datasets/users.json\" WHERE b > %d";
+      releaseBatches(rpc.runQuery(QueryType.SQL, String.format(query, 0)));
+      final List<QueryDataBatch> resp = rpc.runQuery(QueryType.SQL, String.format(query, 1));
+      final QueryId queryId = resp.get(0).getHeader().getQueryId();
+      releaseBatches(resp);
+
+      // the second query is planned from the template of the first one
+      assertTrue(
+          planCache.getCachePlans().asMap().values().stream()
+              .anyMatch(plan -> plan.getTemplate() != null && plan.getUseCount() == 1));
+
+      final JobDetails details =
+          jobs.getJobDetails(
+              JobDetailsRequest.newBuilder().setJobId(JobsProtoUtil.toBuf(toId(queryId))).build());
+      final JobProtobuf.JobInfo info =
+          details.getAttempts(details.getAttemptsCount() - 1).getInfo();
+      assertFalse(info.hasFailureInfo());
+      assertEquals(1, info.getParentsCount());
+      assertEquals(
+          ImmutableList.of("cp", "datasets/users.json"), info.getParents(0).getDatasetPathList());
+      assertEquals(1, info.getFieldOriginsCount());
+      assertEquals("user", info.getFieldOrigins(0).getName());
+      assertEquals(
+          ImmutableList.of("cp", "datasets/users.json"),
+          info.getFieldOrigins(0).getOrigins(0).getTableList());
+    } finally {
+      optionManager.setOption(
+          OptionValue.createBoolean(
+              OptionValue.OptionType.SYSTEM,
+              PlannerSettings.QUERY_PLAN_CACHE_PARAMETERIZED.getOptionName(),
+              false));
+    }
+  }
+
+  private static void releaseBatches(List<QueryDataBatch> batches) {
+    for (QueryDataBatch batch : batches) {
+      batch.release();
+    }
+  }
+
   private JobDetailsUI getDetails(QueryId id) throws JobNotFoundException {
     JobDetailsRequest request =
         JobDetailsRequest.newBuilder().setJobId(JobsProtoUtil.toBuf(toId(id))).build();
@@ -20,6 +20,7 @@ import com.dremio.connector.metadata.DatasetSplitAffinity;
 import com.dremio.connector.metadata.PartitionChunk;
 import com.dremio.connector.metadata.PartitionChunkListing;
 import com.dremio.elastic.proto.ElasticReaderProto.ElasticSplitXattr;
+import com.dremio.exec.ExecConstants;
 import com.dremio.plugins.elastic.ElasticActions.Count;
 import com.dremio.plugins.elastic.ElasticActions.CountResult;
 import com.dremio.plugins.elastic.ElasticActions.NodesInfo;
@@ -116,6 +117,7 @@ class ElasticPartitionChunkListing implements PartitionChunkListing {
                     + "]. Please make sure that the user has [indices:admin/shards/search_shards] privilege.");
 
     JsonArray shards = result.getAsJsonObject().getAsJsonArray("shards");
+    final int slices = getSlicesPerShard();
 
     Set<String> indexes = new HashSet<>();
 
@@ -142,21 +144,27 @@ class ElasticPartitionChunkListing implements PartitionChunkListing {
 
       indexes.add(onlyIndex);
 
-      final ElasticSplitXattr splitAttributes =
-          ElasticSplitXattr.newBuilder()
-              .setResource(RESOURCE_JOINER.join(onlyIndex, typeName))
-              .setShard(onlyShard)
-              .build();
-
+      final double splitSize = SPLIT_DEFAULT_SIZE / slices;
       List<DatasetSplitAffinity> affinity = new ArrayList<>();
       for (String host : hosts) {
-        affinity.add(DatasetSplitAffinity.of(host, SPLIT_DEFAULT_SIZE));
+        affinity.add(DatasetSplitAffinity.of(host, splitSize));
       }
 
-      partitionChunks.add(
-          PartitionChunk.of(
-              DatasetSplit.of(
-                  affinity, (long) SPLIT_DEFAULT_SIZE, 0, os -> splitAttributes.writeTo(os))));
+      // each slice of the shard is scrolled separately, so that it can be read in parallel
+      for (int slice = 0; slice < slices; slice++) {
+        final ElasticSplitXattr.Builder builder =
+            ElasticSplitXattr.newBuilder()
+                .setResource(RESOURCE_JOINER.join(onlyIndex, typeName))
+                .setShard(onlyShard);
+        if (slices > 1) {
+          builder.setSliceId(slice).setSliceMax(slices);
+        }
+        final ElasticSplitXattr splitAttributes = builder.build();
+
+        partitionChunks.add(
+            PartitionChunk.of(
+                DatasetSplit.of(affinity, (long) splitSize, 0, os -> splitAttributes.writeTo(os))));
+      }
 
       partitionChunkList = partitionChunks;
     }
@@ -183,4 +191,23 @@ class ElasticPartitionChunkListing implements PartitionChunkListing {
 
     return partitionChunks.iterator();
   }
+
+  /**
+   * Slices are only computed within the shard a search is restricted to from Elasticsearch 7, older
+   * versions compute them over all the shards of the index.
+   */
+  private int getSlicesPerShard() {
+    if (datasetHandle
+            .getConnection()
+            .getESVersionInCluster()
+            .compareTo(ElasticsearchConstants.ELASTICSEARCH_VERSION_7_0_X)
+        < 0) {
+      return 1;
+    }
+    return (int)
+        datasetHandle
+            .getContext()
+            .getOptionManager()
+            .getOption(ExecConstants.ELASTIC_SLICES_PER_SHARD);
+  }
 }
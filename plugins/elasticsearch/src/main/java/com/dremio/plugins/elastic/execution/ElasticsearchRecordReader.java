@@ -23,6 +23,7 @@ import com.dremio.common.exceptions.UserException;
 import com.dremio.common.expression.SchemaPath;
 import com.dremio.elastic.proto.ElasticReaderProto.ElasticSplitXattr;
 import com.dremio.elastic.proto.ElasticReaderProto.ElasticTableXattr;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.proto.UserBitShared.DremioPBError.ErrorType;
 import com.dremio.exec.store.AbstractRecordReader;
 import com.dremio.exec.store.SplitAndPartitionInfo;
@@ -32,7 +33,6 @@ import com.dremio.exec.vector.complex.fn.JsonWriter;
 import com.dremio.plugins.elastic.ElasticActions.DeleteScroll;
 import com.dremio.plugins.elastic.ElasticActions.Search;
 import com.dremio.plugins.elastic.ElasticActions.SearchBytes;
-import com.dremio.plugins.elastic.ElasticActions.SearchScroll;
 import com.dremio.plugins.elastic.ElasticConnectionPool.ElasticConnection;
 import com.dremio.plugins.elastic.ElasticVersionBehaviorProvider;
 import com.dremio.plugins.elastic.ElasticsearchConf;
@@ -43,8 +43,11 @@ import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.op.scan.OutputMutator;
 import com.fasterxml.jackson.core.JsonGenerationException;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -73,6 +76,7 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
   public static final String MATCH_ALL_REQUEST = String.format("{\"query\": %s }", MATCH_ALL_QUERY);
   private static final int STREAM_COUNT_BREAK_MULTIPLIER = 3;
   private static final String TIMED_OUT = "\"timed_out\": true";
+  private static final JsonParser PARSER = new JsonParser();
 
   enum State {
     INIT,
@@ -99,10 +103,12 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
   private final boolean metaIndexSelected;
   private final boolean metaTypeSelected;
   private final ElasticsearchStoragePlugin plugin;
+  private final ScrollPageFetcher pages;
 
   private long totalSize;
   private long totalCount;
   private String scrollId;
+  private int searchSize;
   private VectorContainerWriter complexWriter;
   private BaseJsonProcessor jsonReader;
   private State state = State.INIT;
@@ -164,6 +170,13 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
     if (spec.getFetch() > 0) {
       this.numRowsPerBatch = Math.min(this.numRowsPerBatch, spec.getFetch());
     }
+    this.pages =
+        new ScrollPageFetcher(
+            connection,
+            config.getScrollTimeoutFormatted(),
+            elasticVersionBehaviorProvider.geMajorVersion(),
+            context != null
+                && context.getOptions().getOption(ExecConstants.ELASTIC_SCROLL_PREFETCH));
   }
 
   @Override
@@ -203,7 +216,7 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
 
   private void getFirstPage() {
     assert state == State.INIT;
-    int searchSize = config.getScrollSize();
+    searchSize = config.getScrollSize();
     int fetch = spec.getFetch();
     if (fetch >= 0 && fetch < searchSize) {
       searchSize = fetch;
@@ -211,7 +224,15 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
 
     final Search<byte[]> search;
     final String newQuery;
-    newQuery = elasticVersionBehaviorProvider.processElasticSearchQuery(query);
+    if (splitAttributes != null && splitAttributes.getSliceMax() > 1) {
+      newQuery =
+          addSlice(
+              elasticVersionBehaviorProvider.processElasticSearchQuery(query),
+              splitAttributes.getSliceId(),
+              splitAttributes.getSliceMax());
+    } else {
+      newQuery = elasticVersionBehaviorProvider.processElasticSearchQuery(query);
+    }
     search =
         new SearchBytes()
             .setQuery(newQuery)
@@ -250,6 +271,7 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
 
       scrollId = scrollIdAndTotalSize.getKey();
       totalSize = scrollIdAndTotalSize.getValue();
+      prefetchIfMore();
     } catch (IOException e) {
       String bestEffortMessage = bestEffortMessageForUnknownException(e.getCause());
       if (bestEffortMessage != null) {
@@ -272,11 +294,7 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
       if (stats != null) {
         stats.startWait();
       }
-      SearchScroll searchScroll =
-          new SearchScroll()
-              .setScrollId(scrollId)
-              .setScrollTimeout(config.getScrollTimeoutFormatted());
-      return connection.execute(searchScroll, elasticVersionBehaviorProvider.geMajorVersion());
+      return pages.fetch(scrollId);
     } finally {
       if (stats != null) {
         stats.stopWait();
@@ -284,6 +302,35 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
     }
   }
 
+  /**
+   * Requests the next page of the scroll in the background while the current one is read, unless
+   * the current page already holds the last of the expected records, or of the records to fetch
+   * when the query has a limit.
+   */
+  private void prefetchIfMore() {
+    long expected = totalSize;
+    if (spec.getFetch() >= 0) {
+      expected = Math.min(expected, spec.getFetch());
+    }
+    if (scrollId != null && totalCount + searchSize < expected) {
+      pages.prefetch(scrollId);
+    }
+  }
+
+  /**
+   * Restricts the given search request to one slice of a sliced scroll, so that several readers can
+   * scroll through the same shard in parallel.
+   */
+  @VisibleForTesting
+  public static String addSlice(String query, int sliceId, int sliceMax) {
+    final JsonObject request = PARSER.parse(query).getAsJsonObject();
+    final JsonObject slice = new JsonObject();
+    slice.addProperty("id", sliceId);
+    slice.addProperty("max", sliceMax);
+    request.add("slice", slice);
+    return request.toString();
+  }
+
   @Override
   public int next() {
     if (state == State.DEPLETED || state == State.CLOSED) {
@@ -334,6 +381,7 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
         if (!badStreamBreak) {
           jsonReader.setSource(bytes);
           scrollId = jsonReader.getScrollAndTotalSizeThenSeekToHits().getKey();
+          prefetchIfMore();
           continue;
         }
 
@@ -403,6 +451,8 @@ public class ElasticsearchRecordReader extends AbstractRecordReader {
       return;
     }
 
+    pages.close();
+
     if (state == State.INIT) {
       state = State.CLOSED;
       return; // scroll id is not yet set
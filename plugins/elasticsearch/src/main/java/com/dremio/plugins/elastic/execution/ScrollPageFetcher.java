@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.plugins.elastic.execution;
+
+import com.dremio.common.exceptions.UserException;
+import com.dremio.plugins.elastic.ElasticActions.SearchScroll;
+import com.dremio.plugins.elastic.ElasticConnectionPool.ElasticConnection;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.concurrent.ExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fetches the pages of an Elasticsearch scroll. With prefetching, the page following the current
+ * one is requested as soon as the scroll id of the current page is known, so that the round trip
+ * overlaps with the parsing of the current page. Pages of a scroll are still requested one at a
+ * time, a page is only requested once the previous one was received.
+ */
+public class ScrollPageFetcher implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(ScrollPageFetcher.class);
+
+  private final ElasticConnection connection;
+  private final String scrollTimeout;
+  private final int version;
+  private final boolean prefetch;
+
+  private String prefetchedScrollId;
+  private ListenableFuture<byte[]> prefetchedPage;
+
+  public ScrollPageFetcher(
+      ElasticConnection connection, String scrollTimeout, int version, boolean prefetch) {
+    this.connection = connection;
+    this.scrollTimeout = scrollTimeout;
+    this.version = version;
+    this.prefetch = prefetch;
+  }
+
+  /** Requests the page following the given scroll id in the background, if prefetching. */
+  public synchronized void prefetch(String scrollId) {
+    if (!prefetch || prefetchedPage != null) {
+      return;
+    }
+    prefetchedScrollId = scrollId;
+    prefetchedPage = connection.executeAsync(newSearchScroll(scrollId));
+  }
+
+  /** Returns the page following the given scroll id, waiting for it if it was prefetched. */
+  public byte[] fetch(String scrollId) {
+    final ListenableFuture<byte[]> page;
+    final String pageScrollId;
+    synchronized (this) {
+      page = prefetchedPage;
+      pageScrollId = prefetchedScrollId;
+      prefetchedPage = null;
+      prefetchedScrollId = null;
+    }
+
+    if (page != null && scrollId.equals(pageScrollId)) {
+      try {
+        return page.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw UserException.dataReadError(e)
+            .message("Interrupted while waiting for the next page of Elasticsearch results.")
+            .build(logger);
+      } catch (ExecutionException e) {
+        // requested again below, with retries
+        logger.warn("Failure while prefetching the next page of Elasticsearch results", e);
+      }
+    } else if (page != null) {
+      page.cancel(true);
+    }
+    return connection.execute(newSearchScroll(scrollId), version);
+  }
+
+  private SearchScroll newSearchScroll(String scrollId) {
+    return new SearchScroll().setScrollId(scrollId).setScrollTimeout(scrollTimeout);
+  }
+
+  /** Cancels the page being prefetched, if any. */
+  @Override
+  public synchronized void close() {
+    if (prefetchedPage != null) {
+      prefetchedPage.cancel(true);
+      prefetchedPage = null;
+      prefetchedScrollId = null;
+    }
+  }
+}
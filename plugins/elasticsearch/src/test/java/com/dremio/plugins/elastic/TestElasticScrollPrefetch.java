@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.plugins.elastic;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.dremio.connector.metadata.DatasetSplit;
+import com.dremio.connector.metadata.EntityPath;
+import com.dremio.connector.metadata.PartitionChunk;
+import com.dremio.elastic.proto.ElasticReaderProto.ElasticSplitXattr;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.catalog.conf.Host;
+import com.dremio.exec.server.SabotContext;
+import com.dremio.options.OptionManager;
+import com.dremio.plugins.Version;
+import com.dremio.plugins.elastic.ElasticActions.CountResult;
+import com.dremio.plugins.elastic.ElasticActions.JsonResult;
+import com.dremio.plugins.elastic.ElasticActions.NodesInfo;
+import com.dremio.plugins.elastic.ElasticActions.SearchShards;
+import com.dremio.plugins.elastic.ElasticConnectionPool.ElasticConnection;
+import com.dremio.plugins.elastic.ElasticConnectionPool.TLSValidationMode;
+import com.dremio.plugins.elastic.ElasticsearchConf.AuthenticationType;
+import com.dremio.plugins.elastic.execution.ElasticsearchRecordReader;
+import com.dremio.plugins.elastic.execution.ScrollPageFetcher;
+import com.dremio.test.DremioTest;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for prefetching scroll pages and slicing scrolls, against a mock Elasticsearch node. */
+public class TestElasticScrollPrefetch extends DremioTest {
+
+  private HttpServer server;
+  private ElasticConnectionPool pool;
+  private final BlockingQueue<String> scrollRequests = new LinkedBlockingQueue<>();
+  // scroll ids whose next request fails once
+  private final Set<String> failingScrollIds = ConcurrentHashMap.newKeySet();
+
+  @Before
+  public void setup() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    final int port = server.getAddress().getPort();
+    server.createContext(
+        "/_nodes",
+        exchange ->
+            respond(
+                exchange,
+                "{\"nodes\": {\"node1\": {\"host\": \"127.0.0.1\", \"version\": \"7.10.2\","
+                    + " \"http\": {\"publish_address\": \"127.0.0.1:"
+                    + port
+                    + "\"}}}}"));
+    server.createContext(
+        "/_search/scroll",
+        exchange -> {
+          final String body = new String(ByteStreams.toByteArray(exchange.getRequestBody()), UTF_8);
+          final String scrollId =
+              JsonParser.parseString(body).getAsJsonObject().get("scroll_id").getAsString();
+          scrollRequests.add(scrollId);
+          if (failingScrollIds.remove(scrollId)) {
+            respond(exchange, 500, "{\"error\": \"failed\"}");
+            return;
+          }
+          // page n is returned with the scroll id "n", and is followed by page n + 1
+          respond(exchange, "{\"_scroll_id\": \"" + (Integer.parseInt(scrollId) + 1) + "\"}");
+        });
+    server.start();
+
+    final List<Host> hosts = ImmutableList.of(new Host("127.0.0.1", port));
+    pool =
+        new ElasticConnectionPool(
+            hosts,
+            TLSValidationMode.OFF,
+            new ElasticsearchAuthentication(
+                hosts, AuthenticationType.NONE, null, null, null, null, null, null),
+            10000,
+            false);
+    pool.connect();
+  }
+
+  @After
+  public void teardown() throws Exception {
+    pool.close();
+    server.stop(0);
+  }
+
+  private static void respond(HttpExchange exchange, String response) throws IOException {
+    respond(exchange, 200, response);
+  }
+
+  private static void respond(HttpExchange exchange, int status, String response)
+      throws IOException {
+    final byte[] bytes = response.getBytes(UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static String scrollId(byte[] page) {
+    return JsonParser.parseString(new String(page, UTF_8))
+        .getAsJsonObject()
+        .get("_scroll_id")
+        .getAsString();
+  }
+
+  @Test
+  public void testPrefetch() throws Exception {
+    final ElasticConnection connection = pool.getRandomConnection();
+    try (ScrollPageFetcher pages = new ScrollPageFetcher(connection, "60s", 7, true)) {
+      String scrollId = "0";
+      for (int i = 0; i < 5; i++) {
+        pages.prefetch(scrollId);
+        // the next page is requested without waiting for the caller to ask for it
+        assertEquals(scrollId, scrollRequests.poll(10, TimeUnit.SECONDS));
+        scrollId = scrollId(pages.fetch(scrollId));
+        assertEquals(Integer.toString(i + 1), scrollId);
+      }
+    }
+    assertTrue(scrollRequests.isEmpty());
+  }
+
+  @Test
+  public void testFetchOtherScrollId() throws Exception {
+    final ElasticConnection connection = pool.getRandomConnection();
+    try (ScrollPageFetcher pages = new ScrollPageFetcher(connection, "60s", 7, true)) {
+      pages.prefetch("0");
+      assertEquals("0", scrollRequests.poll(10, TimeUnit.SECONDS));
+      // the prefetched page is for another scroll id, so it is requested again
+      assertEquals("8", scrollId(pages.fetch("7")));
+      assertEquals("7", scrollRequests.poll(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void testPrefetchFailure() throws Exception {
+    final ElasticConnection connection = pool.getRandomConnection();
+    try (ScrollPageFetcher pages = new ScrollPageFetcher(connection, "60s", 7, true)) {
+      failingScrollIds.add("0");
+      pages.prefetch("0");
+      assertEquals("0", scrollRequests.poll(10, TimeUnit.SECONDS));
+      // the failed prefetch is requested again synchronously
+      assertEquals("1", scrollId(pages.fetch("0")));
+      assertEquals("0", scrollRequests.poll(10, TimeUnit.SECONDS));
+      assertTrue(scrollRequests.isEmpty());
+    }
+  }
+
+  @Test
+  public void testNoPrefetch() throws Exception {
+    final ElasticConnection connection = pool.getRandomConnection();
+    try (ScrollPageFetcher pages = new ScrollPageFetcher(connection, "60s", 7, false)) {
+      pages.prefetch("0");
+      assertEquals("1", scrollId(pages.fetch("0")));
+      assertEquals("0", scrollRequests.poll(10, TimeUnit.SECONDS));
+      assertTrue(scrollRequests.isEmpty());
+    }
+  }
+
+  @Test
+  public void testAddSlice() {
+    final JsonObject request =
+        JsonParser.parseString(
+                ElasticsearchRecordReader.addSlice(
+                    "{\"query\": {\"match_all\": {}}, \"sort\": [\"_doc\"]}", 2, 4))
+            .getAsJsonObject();
+    assertTrue(request.getAsJsonObject("query").has("match_all"));
+    assertEquals(2, request.getAsJsonObject("slice").get("id").getAsInt());
+    assertEquals(4, request.getAsJsonObject("slice").get("max").getAsInt());
+  }
+
+  @Test
+  public void testSlicedSplits() throws Exception {
+    final List<ElasticSplitXattr> splits = listSplits(new Version(7, 10, 2), 3);
+    // one split per slice of each of the two shards
+    assertEquals(6, splits.size());
+    for (int i = 0; i < splits.size(); i++) {
+      final ElasticSplitXattr split = splits.get(i);
+      assertEquals("index/type", split.getResource());
+      assertEquals(i / 3, split.getShard());
+      assertEquals(i % 3, split.getSliceId());
+      assertEquals(3, split.getSliceMax());
+    }
+  }
+
+  @Test
+  public void testNoSlicesBeforeVersion7() throws Exception {
+    final List<ElasticSplitXattr> splits = listSplits(new Version(6, 8, 0), 3);
+    assertEquals(2, splits.size());
+    for (ElasticSplitXattr split : splits) {
+      assertFalse(split.hasSliceId());
+      assertFalse(split.hasSliceMax());
+    }
+  }
+
+  /** Lists the splits of an index with two shards, with the given number of slices per shard. */
+  private static List<ElasticSplitXattr> listSplits(Version version, long slicesPerShard)
+      throws IOException {
+    final ElasticConnection connection = mock(ElasticConnection.class);
+    when(connection.getESVersionInCluster()).thenReturn(version);
+    when(connection.executeAndHandleResponseCode(any(), anyBoolean(), anyString()))
+        .thenAnswer(
+            invocation -> {
+              final Object action = invocation.getArgument(0);
+              if (action instanceof NodesInfo) {
+                return new JsonResult(
+                    "{\"nodes\": {\"node1\": {\"host\": \"127.0.0.1\"}}}".getBytes(UTF_8));
+              }
+              if (action instanceof SearchShards) {
+                return new JsonResult(
+                    ("{\"shards\": ["
+                            + "[{\"shard\": 0, \"index\": \"index\", \"node\": \"node1\"}],"
+                            + "[{\"shard\": 1, \"index\": \"index\", \"node\": \"node1\"}]]}")
+                        .getBytes(UTF_8));
+              }
+              return new CountResult(10);
+            });
+    final OptionManager options = mock(OptionManager.class);
+    when(options.getOption(ExecConstants.ELASTIC_SLICES_PER_SHARD)).thenReturn(slicesPerShard);
+    final SabotContext context = mock(SabotContext.class);
+    when(context.getOptionManager()).thenReturn(options);
+
+    final ElasticDatasetHandle handle =
+        new ElasticDatasetHandle(
+            new EntityPath(ImmutableList.of("elastic", "index", "type")),
+            connection,
+            context,
+            null,
+            null,
+            null,
+            false);
+    final List<ElasticSplitXattr> splits = new ArrayList<>();
+    final Iterator<? extends PartitionChunk> chunks =
+        new ElasticPartitionChunkListing(handle).iterator();
+    while (chunks.hasNext()) {
+      final Iterator<? extends DatasetSplit> chunkSplits = chunks.next().getSplits().iterator();
+      while (chunkSplits.hasNext()) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chunkSplits.next().getExtraInfo().writeTo(out);
+        splits.add(ElasticSplitXattr.parseFrom(out.toByteArray()));
+      }
+    }
+    return splits;
+  }
+}
@@ -40,6 +40,8 @@ import com.dremio.exec.hadoop.MayProvideAsyncStream;
 import com.dremio.exec.store.dfs.DremioFileSystemCache;
 import com.dremio.exec.store.dfs.FileSystemConf;
 import com.dremio.io.AsyncByteReader;
+import com.dremio.io.BlockCache;
+import com.dremio.io.CachingAsyncByteReader;
 import com.dremio.io.FSOutputStream;
 import com.dremio.plugins.util.AwsCredentialProviderUtils;
 import com.dremio.plugins.util.CloseableRef;
@@ -60,6 +62,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
@@ -69,6 +72,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -107,6 +112,9 @@ public class S3FileSystem extends ContainerFileSystem implements MayProvideAsync
   public static final String S3_PERMISSION_ERROR_MSG = "Access was denied by S3";
   public static final String COMPATIBILITY_MODE = "dremio.s3.compat";
   static final String REGION_OVERRIDE = "dremio.s3.region";
+  static final String BLOCK_CACHE_PATH = "dremio.s3.block_cache.path";
+  static final String BLOCK_CACHE_QUOTA_BYTES = "dremio.s3.block_cache.quota_bytes";
+  static final String BLOCK_CACHE_OWNER = "dremio.s3.block_cache.owner";
 
   private static final Logger logger = LoggerFactory.getLogger(S3FileSystem.class);
   private static final String S3_URI_SCHEMA = "s3a://";
@@ -195,6 +203,8 @@ public class S3FileSystem extends ContainerFileSystem implements MayProvideAsync
   private S3ClientKey clientKey;
   private final DremioFileSystemCache fsCache = new DremioFileSystemCache();
   private boolean useWhitelistedBuckets;
+  private BlockCache blockCache;
+  private String blockCacheOwner;
 
   public S3FileSystem() {
     super(
@@ -246,6 +256,12 @@ public class S3FileSystem extends ContainerFileSystem implements MayProvideAsync
   protected void setup(Configuration conf) throws IOException {
     clientKey = S3ClientKey.create(conf);
     useWhitelistedBuckets = !conf.get(S3StoragePlugin.WHITELISTED_BUCKETS, "").isEmpty();
+    final String blockCachePath = conf.get(BLOCK_CACHE_PATH, "");
+    if (!blockCachePath.isEmpty()) {
+      blockCache = BlockCache.forDirectory(Paths.get(blockCachePath));
+      blockCacheOwner = conf.get(BLOCK_CACHE_OWNER, "");
+      blockCache.setQuota(blockCacheOwner, conf.getLong(BLOCK_CACHE_QUOTA_BYTES, 0));
+    }
     if (!NONE_PROVIDER.equals(conf.get(Constants.AWS_CREDENTIALS_PROVIDER))
         && !conf.getBoolean(COMPATIBILITY_MODE, false)) {
       verifyCredentials(conf);
@@ -393,31 +409,60 @@ public class S3FileSystem extends ContainerFileSystem implements MayProvideAsync
     pathStr = (pathStr.startsWith("/")) ? pathStr.substring(1) : pathStr;
     boolean ssecUsed = isSsecUsed();
     String sseCustomerKey = getCustomerSSEKey(ssecUsed);
+    final boolean shouldCheckTimestamp =
+        "true".equals(options.get(ENABLE_STORE_PARQUET_ASYNC_TIMESTAMP_CHECK.getOptionName()));
     // If proxy is enabled.
     // Use SyncClient to do async byte read.
     // Once AWS-SDK-2.x upgrade happened with aws-sdk-2.17+, This can be handled with S3AsyncClient.
     // https://dremio.atlassian.net/browse/DX-49510?focusedCommentId=545929
+    final AsyncByteReader reader;
     if (ApacheHttpConnectionUtil.isProxyEnabled(getConf())
         || "false".equals(options.get(S3_NATIVE_ASYNC_CLIENT.getOptionName()))) {
-      return new S3AsyncByteReaderUsingSyncClient(
-          getSyncClient(bucket),
-          bucket,
-          pathStr,
-          version,
-          isRequesterPays(),
-          ssecUsed,
-          sseCustomerKey,
-          "true".equals(options.get(ENABLE_STORE_PARQUET_ASYNC_TIMESTAMP_CHECK.getOptionName())));
+      reader =
+          new S3AsyncByteReaderUsingSyncClient(
+              getSyncClient(bucket),
+              bucket,
+              pathStr,
+              version,
+              isRequesterPays(),
+              ssecUsed,
+              sseCustomerKey,
+              shouldCheckTimestamp);
+    } else {
+      reader =
+          new S3AsyncByteReader(
+              getAsyncClient(bucket),
+              bucket,
+              pathStr,
+              version,
+              isRequesterPays(),
+              ssecUsed,
+              sseCustomerKey,
+              shouldCheckTimestamp);
     }
-    return new S3AsyncByteReader(
-        getAsyncClient(bucket),
-        bucket,
-        pathStr,
+
+    // the version of an S3 object is its modification time, which is unknown when 0
+    if (blockCache == null || Long.parseLong(version) == 0) {
+      return reader;
+    }
+    return new CachingAsyncByteReader(
+        reader,
+        blockCache,
+        blockCacheOwner,
+        path.toString(),
         version,
-        isRequesterPays(),
-        ssecUsed,
-        sseCustomerKey,
-        "true".equals(options.get(ENABLE_STORE_PARQUET_ASYNC_TIMESTAMP_CHECK.getOptionName())));
+        () -> CompletableFuture.supplyAsync(() -> getLengthOfVersion(path, version), threadPool),
+        threadPool);
+  }
+
+  /** Returns the length of the object, or -1 if it was modified since the given version. */
+  private long getLengthOfVersion(Path path, String version) {
+    try {
+      final FileStatus status = getFileStatus(path);
+      return status.getModificationTime() == Long.parseLong(version) ? status.getLen() : -1;
+    } catch (IOException e) {
+      throw new CompletionException(e);
+    }
   }
 
   @Override
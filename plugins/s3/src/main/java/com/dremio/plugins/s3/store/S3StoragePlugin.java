@@ -28,7 +28,9 @@ import static org.apache.hadoop.fs.s3a.Constants.SERVER_SIDE_ENCRYPTION_KEY;
 
 import com.dremio.common.exceptions.UserException;
 import com.dremio.common.util.S3ConnectionConstants;
+import com.dremio.config.DremioConfig;
 import com.dremio.connector.metadata.DatasetMetadata;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.catalog.StoragePluginId;
 import com.dremio.exec.catalog.conf.Property;
 import com.dremio.exec.physical.base.WriterOptions;
@@ -38,6 +40,7 @@ import com.dremio.exec.store.SchemaConfig;
 import com.dremio.exec.store.dfs.DirectorySupportLackingFileSystemPlugin;
 import com.dremio.exec.store.dfs.IcebergTableProps;
 import com.dremio.io.file.Path;
+import com.dremio.options.OptionManager;
 import com.dremio.plugins.util.ContainerFileSystem.ContainerFailure;
 import com.dremio.plugins.util.awsauth.AWSCredentialsConfigurator;
 import com.dremio.sabot.exec.context.OperatorContext;
@@ -178,6 +181,22 @@ public class S3StoragePlugin
         new Property(CREATE_FILE_STATUS_CHECK, Boolean.toString(config.enableFileStatusCheck)));
     logger.debug("getProperties: Create file status check: {}", config.enableFileStatusCheck);
 
+    final DremioConfig dremioConfig = getContext().getDremioConfig();
+    final OptionManager options = getContext().getOptionManager();
+    if (options.getOption(ExecConstants.OBJECT_STORE_BLOCK_CACHE_ENABLED)
+        && dremioConfig.hasPath(DremioConfig.BLOCK_CACHE_PATH_STRING)) {
+      finalProperties.add(
+          new Property(
+              S3FileSystem.BLOCK_CACHE_PATH,
+              dremioConfig.getString(DremioConfig.BLOCK_CACHE_PATH_STRING)));
+      finalProperties.add(
+          new Property(
+              S3FileSystem.BLOCK_CACHE_QUOTA_BYTES,
+              Long.toString(
+                  options.getOption(ExecConstants.OBJECT_STORE_BLOCK_CACHE_QUOTA_BYTES))));
+      finalProperties.add(new Property(S3FileSystem.BLOCK_CACHE_OWNER, getName()));
+    }
+
     return finalProperties;
   }
 
@@ -233,6 +233,9 @@ public interface ExecConstants {
       new BooleanValidator("exec.operator.join.vectorize", true);
   BooleanValidator ENABLE_VECTORIZED_HASHJOIN_SPECIFIC =
       new BooleanValidator("exec.operator.join.vectorize.specific", false);
+  // hash and probe keys of 8 or 16 bytes in batches, instead of one key at a time
+  BooleanValidator ENABLE_VECTORIZED_HASHJOIN_BATCHED_PROBE =
+      new BooleanValidator("exec.operator.join.vectorize.batched_probe", false);
   BooleanValidator ENABLE_VECTORIZED_COPIER =
       new BooleanValidator("exec.operator.copier.vectorize", true);
   BooleanValidator ENABLE_VECTORIZED_COMPLEX_COPIER =
@@ -294,6 +297,13 @@ public interface ExecConstants {
   LongValidator PARQUET_MAX_FOOTER_LEN_VALIDATOR =
       new LongValidator(PARQUET_MAX_FOOTER_LEN, 16 * 1024 * 1024);
 
+  // node-wide cache of decoded parquet footers, shared by all the readers of an executor
+  BooleanValidator PARQUET_FOOTER_CACHE_ENABLED =
+      new BooleanValidator("store.parquet.footer_cache.enabled", true);
+  PositiveLongValidator PARQUET_FOOTER_CACHE_MAX_SIZE_BYTES =
+      new PositiveLongValidator(
+          "store.parquet.footer_cache.max_size_bytes", Long.MAX_VALUE, 256 * 1024 * 1024L);
+
   String PARQUET_MEMORY_THRESHOLD = "store.parquet.memory_threshold";
   LongValidator PARQUET_MEMORY_THRESHOLD_VALIDATOR =
       new LongValidator(PARQUET_MEMORY_THRESHOLD, 512 * 1024 * 1024);
@@ -357,6 +367,13 @@ public interface ExecConstants {
   DoubleValidator TEXT_ESTIMATED_ROW_SIZE =
       new RangeDoubleValidator("store.text.estimated_row_size_bytes", 1, Long.MAX_VALUE, 10.0);
 
+  /**
+   * Index the positions of delimiters in each buffer of text input a word at a time, and append
+   * unquoted values in bulk from it rather than one byte at a time.
+   */
+  BooleanValidator TEXT_STRUCTURAL_INDEX =
+      new BooleanValidator("store.text.structural_index.enabled", true);
+
   /**
    * The column label (for directory levels) in results when querying files in a directory E.g.
    * labels: dir0 dir1 structure: foo |- bar - a.parquet |- baz - b.parquet
@@ -370,6 +387,13 @@ public interface ExecConstants {
   BooleanValidator JSON_READ_NUMBERS_AS_DOUBLE_VALIDATOR =
       new BooleanValidator(JSON_READ_NUMBERS_AS_DOUBLE, false);
 
+  /**
+   * Parse flat JSON documents of scalar values straight into the output vectors from an index of
+   * their structural characters, rather than token by token through the complex writers.
+   */
+  BooleanValidator JSON_STRUCTURAL_INDEX =
+      new BooleanValidator("store.json.structural_index.enabled", false);
+
   /* Mongo configurations */
   // option used to enable/disable conversions of complex types or incompatible data types to
   // varchar
@@ -403,6 +427,17 @@ public interface ExecConstants {
   String ELASTIC_ACTION_RETRIES = "store.elastic.action_retries";
   LongValidator ELASTIC_ACTION_RETRIES_VALIDATOR = new LongValidator(ELASTIC_ACTION_RETRIES, 0);
 
+  /**
+   * Number of sliced scrolls each shard is read with, each slice being a split of its own. Only
+   * applies to Elasticsearch 7 and above, and to datasets whose metadata is refreshed afterwards.
+   */
+  RangeLongValidator ELASTIC_SLICES_PER_SHARD =
+      new RangeLongValidator("store.elastic.slices_per_shard", 1, 1024, 1);
+
+  /** Request the next page of a scroll while the current one is being read. */
+  BooleanValidator ELASTIC_SCROLL_PREFETCH =
+      new BooleanValidator("store.elastic.scroll_prefetch.enabled", true);
+
   BooleanValidator ENABLE_UNION_TYPE = new BooleanValidator("exec.enable_union_type", true);
 
   BooleanValidator ACCELERATION_VERBOSE_LOGGING =
@@ -653,6 +688,9 @@ public interface ExecConstants {
       new BooleanValidator("exec.operator.sort.external.direct_write", true);
   BooleanValidator EXTERNAL_SORT_VECTOR_COPIER =
       new BooleanValidator("exec.operator.sort.external.vector_copier", true);
+  // map uncompressed local spill files in memory instead of reading them when merging
+  BooleanValidator EXTERNAL_SORT_MMAP_READ =
+      new BooleanValidator("exec.operator.sort.external.mmap_read", false);
   DoubleValidator EXTERNAL_SORT_SPILL_ALLOCATION_DENSITY =
       new RangeDoubleValidator(
           "exec.operator.sort.external.spill.allocation_density", 0.0, Double.MAX_VALUE, 0.01);
@@ -864,6 +902,15 @@ public interface ExecConstants {
   PositiveLongValidator SLICING_THREAD_SPINDOWN_MULTIPLE =
       new com.dremio.options.TypeValidators.PositiveLongValidator(
           "dremio.sliced.spindown_multiple", Long.MAX_VALUE, 100);
+  // number of slicing threads per available core; read once when the task pool starts
+  RangeDoubleValidator SLICING_THREADS_PER_CORE =
+      new RangeDoubleValidator("dremio.sliced.threads_per_core", 0.25, 8.0, 1.0);
+  // time a slicing thread keeps running the same task before it considers switching to another one
+  PositiveLongValidator SLICING_QUANTUM_MS =
+      new PositiveLongValidator("dremio.sliced.quantum_ms", 10_000, 20);
+  // interval at which the slicing task monitor notifies its observers and collects stats
+  PositiveLongValidator SLICING_MONITOR_INTERVAL_MS =
+      new PositiveLongValidator("dremio.sliced.monitor_interval_ms", 60_000, 1000);
 
   // warning threshold for spilling
   PositiveLongValidator SPILL_IO_WARN_MAX_RUNTIME_MS =
@@ -917,6 +964,9 @@ public interface ExecConstants {
       new RangeLongValidator("exec.runtime_filter.max_key_size", 32, 1_024, 128);
   BooleanValidator ENABLE_ROW_LEVEL_RUNTIME_FILTERING =
       new BooleanValidator("exec.row_level.runtime_filter.enable", true);
+  // skip parquet row groups whose statistics or page index exclude every value of a runtime filter
+  BooleanValidator ENABLE_RUNTIME_FILTER_ROW_GROUP_PRUNING =
+      new BooleanValidator("exec.row_group.runtime_filter.pruning.enable", true);
   String ENABLE_PARQUET_VECTORIZED_COMPLEX_READERS_KEY = "exec.parquet.enable_vectorized_complex";
   BooleanValidator ENABLE_PARQUET_VECTORIZED_COMPLEX_READERS =
       new BooleanValidator(ENABLE_PARQUET_VECTORIZED_COMPLEX_READERS_KEY, true);
@@ -1260,4 +1310,32 @@ public interface ExecConstants {
 
   BooleanValidator SOURCE_CREATION_ASYNC_ENABLED =
       new BooleanValidator("source.creation.async.enable", false);
+
+  /**
+   * Caches the results of leaf fragments on the local disk of the executors, and serves repeated
+   * executions of the same fragment on the same data from the cache.
+   */
+  BooleanValidator FRAGMENT_RESULT_CACHE_ENABLED =
+      new BooleanValidator("exec.fragment_result_cache.enabled", false);
+
+  PositiveLongValidator FRAGMENT_RESULT_CACHE_MAX_SIZE_BYTES =
+      new PositiveLongValidator(
+          "exec.fragment_result_cache.max_size_bytes", Long.MAX_VALUE, 10L * 1024 * 1024 * 1024);
+
+  /** Results larger than this are not cached. */
+  PositiveLongValidator FRAGMENT_RESULT_CACHE_MAX_ENTRY_BYTES =
+      new PositiveLongValidator(
+          "exec.fragment_result_cache.max_entry_bytes", Long.MAX_VALUE, 256L * 1024 * 1024);
+
+  /**
+   * Caches the blocks of the files read asynchronously from object storage sources on the local
+   * disk of the executors. Read when a source is started.
+   */
+  BooleanValidator OBJECT_STORE_BLOCK_CACHE_ENABLED =
+      new BooleanValidator("store.block_cache.enabled", false);
+
+  /** Maximum size of the blocks cached for each source. */
+  PositiveLongValidator OBJECT_STORE_BLOCK_CACHE_QUOTA_BYTES =
+      new PositiveLongValidator(
+          "store.block_cache.quota_bytes_per_source", Long.MAX_VALUE, 10L * 1024 * 1024 * 1024);
 }
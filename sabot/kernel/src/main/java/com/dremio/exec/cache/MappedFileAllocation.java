@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.cache;
+
+import io.netty.util.internal.PlatformDependent;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.ForeignAllocation;
+import org.apache.arrow.memory.util.MemoryUtil;
+
+/**
+ * A region of a file mapped in memory, exposed as an ArrowBuf. The region is unmapped once all the
+ * ArrowBufs referencing it are released.
+ *
+ * <p>The region is mapped privately (copy on write), so that a write to the buffer can't crash the
+ * process or change the file, but it is expected to be read only.
+ *
+ * <p>The mapped pages are file pages of the page cache, that the kernel reclaims under memory
+ * pressure, not direct memory. They are therefore expected to be accounted to an unbounded
+ * allocator dedicated to mapped reads rather than to the allocators of the operators reading them.
+ * The allocator must share the root of the allocators of the vectors the buffer is loaded into.
+ */
+final class MappedFileAllocation extends ForeignAllocation {
+  private MappedByteBuffer mapped;
+
+  private MappedFileAllocation(MappedByteBuffer mapped) {
+    super(mapped.capacity(), MemoryUtil.getByteBufferAddress(mapped));
+    this.mapped = mapped;
+  }
+
+  /**
+   * Maps a region of the file, and wraps it as an ArrowBuf.
+   *
+   * @param allocator allocator the mapped region is accounted to
+   * @param channel file to map, opened for reading and writing as required by private mappings. The
+   *     file is never modified.
+   * @param position start of the region in the file
+   * @param length length of the region, must be greater than 0
+   * @return buffer backed by the mapped region, the caller must release it
+   */
+  static ArrowBuf map(BufferAllocator allocator, FileChannel channel, long position, int length)
+      throws IOException {
+    final MappedFileAllocation allocation =
+        new MappedFileAllocation(channel.map(FileChannel.MapMode.PRIVATE, position, length));
+    try {
+      return allocator.wrapForeignAllocation(allocation);
+    } catch (RuntimeException e) {
+      allocation.release0();
+      throw e;
+    }
+  }
+
+  @Override
+  protected void release0() {
+    if (mapped != null) {
+      PlatformDependent.freeDirectBuffer(mapped);
+      mapped = null;
+    }
+  }
+}
@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -61,6 +62,8 @@ public class VectorAccessibleFlatBufSerializable extends AbstractStreamSerializa
   private VectorAccessible va;
   private Function<Integer, ArrowBuf> bufferAllocFunc;
   private OperatorStats operatorStats;
+  // body of the last batch loaded from a mapped file
+  private ArrowBuf mappedBody;
 
   private boolean writeDirect;
 
@@ -131,6 +134,86 @@ public class VectorAccessibleFlatBufSerializable extends AbstractStreamSerializa
     }
   }
 
+  /**
+   * Loads the batch starting at the given position of a file written by {@link
+   * #writeToStream(OutputStream)}. The body of the batch is mapped in memory instead of being read
+   * into a new buffer, and the loaded vectors reference the mapped pages until they are released.
+   * The mapped pages are accounted to the given allocator rather than to the allocator the
+   * serializable is set up with, see {@link MappedFileAllocation}.
+   *
+   * <p>The serializable holds the mapped body until the next batch is loaded or {@link
+   * #releaseMappedBody()} is called, which should only happen once the vectors are released.
+   * Otherwise the ownership of the mapped pages moves to the allocator of the vectors.
+   *
+   * @param channel uncompressed file to read from, opened for reading and writing
+   * @param position position of the batch in the file
+   * @param mappedAllocator allocator for the mapped body, under the root of the allocator of the
+   *     vectors
+   * @return position of the next batch in the file
+   */
+  public long readFromMappedFile(
+      FileChannel channel, long position, BufferAllocator mappedAllocator) throws IOException {
+    try {
+      readFully(channel, position, ByteBuffer.wrap(lengths));
+      int schemaLen = PlatformDependent.getInt(lengths, 0);
+      int headerLen = PlatformDependent.getInt(lengths, 4);
+      int bodyLen = PlatformDependent.getInt(lengths, 8);
+      int sv2Present = PlatformDependent.getInt(lengths, 12);
+
+      Preconditions.checkArgument(schemaLen == 0 && (va != null && va.getSchema() != null));
+      Preconditions.checkArgument(sv2Present == 0);
+
+      // read header (RecordBatch)
+      final long headerPosition = position + lengths.length;
+      ByteBuffer header = ByteBuffer.allocate(headerLen);
+      readFully(channel, headerPosition, header);
+      header.flip();
+      RecordBatch recordBatch = RecordBatch.getRootAsRecordBatch(header);
+
+      // map body
+      final long bodyPosition = headerPosition + headerLen;
+      Preconditions.checkArgument(
+          bodyPosition + bodyLen <= channel.size(), "Unexpected end of file while mapping batch");
+      final ArrowBuf body =
+          bodyLen == 0
+              ? bufferAllocFunc.apply(0)
+              : MappedFileAllocation.map(mappedAllocator, channel, bodyPosition, bodyLen);
+      try {
+        ArrowRecordBatchLoader.load(recordBatch, va, body);
+      } catch (Exception e) {
+        body.close();
+        throw e;
+      }
+      releaseMappedBody();
+      mappedBody = body;
+      int recordCount = (int) recordBatch.length();
+      ((VectorContainer) va).setAllCount(recordCount);
+      return bodyPosition + bodyLen;
+    } catch (Exception ex) {
+      throw new IOException("Failed to load data into vector container", ex);
+    }
+  }
+
+  /** Releases the body of the last batch loaded by {@link #readFromMappedFile}, if any. */
+  public void releaseMappedBody() {
+    if (mappedBody != null) {
+      mappedBody.close();
+      mappedBody = null;
+    }
+  }
+
+  private void readFully(FileChannel channel, long position, ByteBuffer target) throws IOException {
+    try (OperatorStats.WaitRecorder waitRecorder = OperatorStats.getWaitRecorder(operatorStats)) {
+      while (target.hasRemaining()) {
+        final int read = channel.read(target, position);
+        if (read < 0) {
+          throw new EOFException("Unexpected end of file while reading.");
+        }
+        position += read;
+      }
+    }
+  }
+
   private void readFully(byte[] target, InputStream input) throws IOException {
     try (OperatorStats.WaitRecorder waitRecorder = OperatorStats.getWaitRecorder(operatorStats)) {
       readFully(target, 0, target.length, input);
@@ -19,8 +19,11 @@ import com.dremio.common.util.DremioStringUtils;
 import com.dremio.common.util.FileUtils;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.exception.ClassTransformationException;
+import com.dremio.exec.expr.CodeGenerator;
 import com.dremio.options.OptionManager;
 import com.dremio.options.Options;
+import com.dremio.options.TypeValidators.BooleanValidator;
+import com.dremio.options.TypeValidators.PositiveLongValidator;
 import com.google.common.base.Preconditions;
 import java.io.IOException;
 import org.codehaus.commons.compiler.CompileException;
@@ -30,10 +33,25 @@ public class ClassTransformer {
   private static final org.slf4j.Logger logger =
       org.slf4j.LoggerFactory.getLogger(ClassTransformer.class);
 
+  /** Loads compiled classes from the persistent class cache, when the node has one. */
+  public static final BooleanValidator CLASS_CACHE_ENABLED =
+      new BooleanValidator("exec.compile.class_cache.enabled", false);
+
+  public static final PositiveLongValidator CLASS_CACHE_MAX_SIZE_BYTES =
+      new PositiveLongValidator(
+          "exec.compile.class_cache.max_size_bytes", Long.MAX_VALUE, 1024L * 1024 * 1024);
+
   private final OptionManager optionManager;
+  private final PersistentClassCache classCache;
 
   public ClassTransformer(final OptionManager optionManager) {
+    this(optionManager, null);
+  }
+
+  public ClassTransformer(
+      final OptionManager optionManager, final PersistentClassCache classCache) {
     this.optionManager = optionManager;
+    this.classCache = classCache;
   }
 
   public static class ClassSet {
@@ -173,22 +191,54 @@ public class ClassTransformer {
       final String materializedClassName)
       throws ClassTransformationException {
     return getExtendedImplementationClass(
-        classLoader, templateDefinition, entireClass, materializedClassName);
+        classLoader, templateDefinition, entireClass, materializedClassName, null);
+  }
+
+  /**
+   * Same as {@link #getImplementationClass(QueryClassLoader, TemplateClassDefinition, String,
+   * String)}, but goes through the persistent class cache if it is enabled.
+   */
+  public Class<?> getImplementationClass(
+      final QueryClassLoader classLoader, final CodeGenerator.CodeDefinition<?> cgd)
+      throws ClassTransformationException {
+    final String cacheKey =
+        classCache != null && optionManager.getOption(CLASS_CACHE_ENABLED)
+            ? classCache.key(cgd.getDefinition().getTemplateClassName(), cgd.getGenerifiedCode())
+            : null;
+    return getExtendedImplementationClass(
+        classLoader,
+        cgd.getDefinition(),
+        cgd.getGeneratedCode(),
+        cgd.getMaterializedClassName(),
+        cacheKey);
   }
 
   private Class<?> getExtendedImplementationClass(
       final QueryClassLoader classLoader,
       final TemplateClassDefinition<?> templateDefinition,
       final String entireClass,
-      final String materializedClassName)
+      final String materializedClassName,
+      final String cacheKey)
       throws ClassTransformationException {
 
     try {
       final long t1 = System.nanoTime();
       final ClassSet set =
           new ClassSet(null, templateDefinition.getTemplateClassName(), materializedClassName);
-      final ClassBytes[] implementationClasses =
-          classLoader.getClassByteCode(set.generated, entireClass);
+      final PersistentClassCache.Entry cached = cacheKey != null ? classCache.get(cacheKey) : null;
+      final ClassBytes[] implementationClasses;
+      final String generatedClassName;
+      if (cached != null) {
+        implementationClasses = cached.getClasses();
+        generatedClassName = cached.getClassName();
+      } else {
+        implementationClasses = classLoader.getClassByteCode(set.generated, entireClass);
+        generatedClassName = set.generated.dot;
+        if (cacheKey != null) {
+          classCache.put(
+              cacheKey, generatedClassName, implementationClasses, System.nanoTime() - t1);
+        }
+      }
 
       long totalBytecodeSize = 0;
       for (ClassBytes clazz : implementationClasses) {
@@ -196,7 +246,7 @@ public class ClassTransformer {
         classLoader.injectByteCode(clazz.getName(), clazz.getBytes());
       }
 
-      Class<?> c = classLoader.findClass(set.generated.dot);
+      Class<?> c = classLoader.findClass(generatedClassName);
       if (templateDefinition.getExternalInterface().isAssignableFrom(c)) {
         if (logger.isDebugEnabled()) {
           logger.debug(
@@ -47,9 +47,19 @@ public class CodeCompiler {
   private final LoadingCache<ExpressionsHolder, GeneratedClassEntryWithFunctionErrorContextSizeInfo>
       expressionsToCompiledClazzCache;
 
-  @SuppressWarnings("NoGuavaCacheUsage") // TODO: fix as part of DX-51884
   public CodeCompiler(final SabotConfig config, final OptionManager optionManager) {
-    transformer = new ClassTransformer(optionManager);
+    this(config, optionManager, null);
+  }
+
+  /**
+   * @param classCache persistent cache of compiled classes, below the in memory caches, or null
+   */
+  @SuppressWarnings("NoGuavaCacheUsage") // TODO: fix as part of DX-51884
+  public CodeCompiler(
+      final SabotConfig config,
+      final OptionManager optionManager,
+      final PersistentClassCache classCache) {
+    transformer = new ClassTransformer(optionManager, classCache);
     selector = new ClassCompilerSelector(config, optionManager);
     final int cacheMaxSize = config.getInt(ExecConstants.MAX_LOADING_CACHE_SIZE_CONFIG);
     generatedCodeToCompiledClazzCache =
@@ -151,9 +161,7 @@ public class CodeCompiler {
       cg.getRoot().evaluateAllLazyExps();
       cg.generate();
       final CodeGenerator.CodeDefinition<?> cgd = cg.getCodeDefinition();
-      final Class<?> c =
-          transformer.getImplementationClass(
-              loader, cgd.getDefinition(), cgd.getGeneratedCode(), cgd.getMaterializedClassName());
+      final Class<?> c = transformer.getImplementationClass(loader, cgd);
       final GeneratedClassEntryWithFunctionErrorContextSizeInfo ce =
           new GeneratedClassEntryWithFunctionErrorContextSizeInfo(
               c, rootGenerator.getFunctionErrorContextsCount() - currentCount);
@@ -168,9 +176,7 @@ public class CodeCompiler {
     public GeneratedClassEntry load(final CodeGenerator.CodeDefinition<?> cgd) throws Exception {
       logger.debug("In Cache load; Compile code");
       final QueryClassLoader loader = new QueryClassLoader(selector);
-      final Class<?> c =
-          transformer.getImplementationClass(
-              loader, cgd.getDefinition(), cgd.getGeneratedCode(), cgd.getMaterializedClassName());
+      final Class<?> c = transformer.getImplementationClass(loader, cgd);
       logger.debug("Exit Cache load");
       return new GeneratedClassEntry(c);
     }
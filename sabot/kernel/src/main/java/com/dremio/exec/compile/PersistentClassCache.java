@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.compile;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.dremio.io.DiskLruStore;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of compiled classes on local disk, that survives restarts of the process.
+ *
+ * <p>Entries are keyed by a hash of the generated code, with the name of its class left generic,
+ * and of the Dremio version. The classes of an entry keep the name they were compiled with, which
+ * doesn't matter since every generated class is loaded by its own class loader.
+ *
+ * <p>The files of a previous process are indexed the first time the cache is used, in the order
+ * they were last used. Only the files named by the cache are indexed or deleted, the other files of
+ * the directory are left alone. Entries are kept in a {@link DiskLruStore}, and evicted in least
+ * recently used order when the total size of the cache goes over its limit.
+ *
+ * <p>Thread safe.
+ */
+public class PersistentClassCache {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(PersistentClassCache.class);
+
+  private static final String PREFIX = "dremio.exec.compile.class_cache.";
+  private static final String SUFFIX = ".classes";
+  private static final int VERSION = 1;
+
+  private final Path directory;
+  private final DiskLruStore<String> store;
+  private final LongSupplier maxSizeBytes;
+  private final String dremioVersion;
+
+  private boolean initialized;
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long compileNanosSaved;
+
+  /**
+   * @param directory local directory holding the cache files, owned by the cache
+   * @param maxSizeBytes maximum total size of the cache, read every time an entry is added
+   * @param dremioVersion version of the process, part of every key
+   */
+  public PersistentClassCache(Path directory, LongSupplier maxSizeBytes, String dremioVersion) {
+    this.directory = directory;
+    this.store = new DiskLruStore<>(directory, "", SUFFIX);
+    this.maxSizeBytes = maxSizeBytes;
+    this.dremioVersion = dremioVersion;
+  }
+
+  /** Publishes the counters of the cache to the global metrics registry. */
+  public void registerMetrics() {
+    FunctionCounter.builder(PREFIX + "hits", this, PersistentClassCache::getHits)
+        .description("Number of classes loaded from the compiled class cache")
+        .register(Metrics.globalRegistry);
+    FunctionCounter.builder(PREFIX + "misses", this, PersistentClassCache::getMisses)
+        .description("Number of classes compiled because they weren't in the compiled class cache")
+        .register(Metrics.globalRegistry);
+    FunctionCounter.builder(
+            PREFIX + "compile_time_saved",
+            this,
+            c -> TimeUnit.NANOSECONDS.toMillis(c.getCompileNanosSaved()))
+        .description("Time spent compiling the classes loaded from the compiled class cache")
+        .baseUnit("milliseconds")
+        .register(Metrics.globalRegistry);
+    Gauge.builder(PREFIX + "bytes", this, PersistentClassCache::getCachedBytes)
+        .description("Size of the compiled class cache on disk")
+        .register(Metrics.globalRegistry);
+  }
+
+  /**
+   * @param templateClassName name of the template the code extends
+   * @param generifiedCode generated code, before the name of its class is materialized
+   * @return the key of the code in the cache
+   */
+  public String key(String templateClassName, String generifiedCode) {
+    return Hashing.sha256()
+        .newHasher()
+        .putInt(VERSION)
+        .putString(dremioVersion, UTF_8)
+        .putString(templateClassName, UTF_8)
+        .putString(generifiedCode, UTF_8)
+        .hash()
+        .toString();
+  }
+
+  /**
+   * Reads an entry, and marks it as the most recently used.
+   *
+   * @return the entry, or null if there is no valid entry for the key
+   */
+  public Entry get(String key) {
+    final FileChannel channel;
+    final Path path;
+    synchronized (this) {
+      initialize();
+      try {
+        channel = store.open(key);
+      } catch (IOException e) {
+        logger.debug("Failure while opening compiled class cache entry {}", key, e);
+        store.remove(key);
+        misses++;
+        return null;
+      }
+      if (channel == null) {
+        misses++;
+        return null;
+      }
+      path = store.getPath(key);
+    }
+
+    final Entry entry;
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)))) {
+      entry = Entry.read(input);
+    } catch (IOException e) {
+      // left corrupted by a crash
+      logger.debug("Failure while reading compiled class cache entry {}", path, e);
+      synchronized (this) {
+        store.remove(key);
+        misses++;
+      }
+      return null;
+    }
+
+    synchronized (this) {
+      hits++;
+      compileNanosSaved += entry.compileNanos;
+    }
+    try {
+      // keeps the order of the entries across restarts
+      Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      logger.debug("Failure while touching compiled class cache entry {}", path, e);
+    }
+    return entry;
+  }
+
+  /**
+   * Adds an entry, evicting the least recently used entries if the cache goes over its size.
+   *
+   * @param className name of the generated class, as compiled
+   * @param classes the generated class and its inner classes
+   * @param compileNanos time it took to compile the classes
+   */
+  public void put(String key, String className, ClassBytes[] classes, long compileNanos) {
+    synchronized (this) {
+      initialize();
+      if (store.contains(key)) {
+        return;
+      }
+    }
+
+    final Path tempPath = store.newTempFile();
+    final long size;
+    try (DataOutputStream output =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+      new Entry(className, classes, compileNanos).write(output);
+      size = output.size();
+    } catch (IOException e) {
+      logger.warn("Failure while writing compiled class cache entry", e);
+      DiskLruStore.deleteQuietly(tempPath);
+      return;
+    }
+
+    synchronized (this) {
+      try {
+        store.commit(key, tempPath, key, size);
+      } catch (IOException e) {
+        logger.warn("Failure while adding compiled class cache entry", e);
+        return;
+      }
+      evictions += store.evict(maxSizeBytes.getAsLong());
+    }
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  public synchronized long getCompileNanosSaved() {
+    return compileNanosSaved;
+  }
+
+  public synchronized long getCachedBytes() {
+    return store.getCachedBytes();
+  }
+
+  @VisibleForTesting
+  synchronized int getEntryCount() {
+    return store.getEntryCount();
+  }
+
+  private void initialize() {
+    if (initialized) {
+      return;
+    }
+    initialized = true;
+    try {
+      // the last modified time of an entry is the last time it was used
+      for (Path path : store.cleanup(true)) {
+        store.restore(store.nameOf(path), path);
+      }
+      evictions += store.evict(maxSizeBytes.getAsLong());
+      logger.info(
+          "Compiled class cache indexed {} entries ({} bytes) in {}",
+          store.getEntryCount(),
+          store.getCachedBytes(),
+          directory);
+    } catch (IOException e) {
+      logger.warn("Failure while indexing compiled class cache in {}", directory, e);
+    }
+  }
+
+  /** The classes compiled for some generated code. */
+  public static final class Entry {
+    private final String className;
+    private final ClassBytes[] classes;
+    private final long compileNanos;
+
+    private Entry(String className, ClassBytes[] classes, long compileNanos) {
+      this.className = className;
+      this.classes = classes;
+      this.compileNanos = compileNanos;
+    }
+
+    /** Name of the generated class, as compiled. */
+    public String getClassName() {
+      return className;
+    }
+
+    public ClassBytes[] getClasses() {
+      return classes;
+    }
+
+    private void write(DataOutputStream output) throws IOException {
+      output.writeInt(VERSION);
+      output.writeUTF(className);
+      output.writeLong(compileNanos);
+      output.writeInt(classes.length);
+      for (ClassBytes clazz : classes) {
+        output.writeUTF(clazz.getName());
+        output.writeInt(clazz.getBytes().length);
+        output.write(clazz.getBytes());
+      }
+    }
+
+    private static Entry read(DataInputStream input) throws IOException {
+      if (input.readInt() != VERSION) {
+        throw new IOException("Unexpected compiled class cache entry version");
+      }
+      final String className = input.readUTF();
+      final long compileNanos = input.readLong();
+      final ClassBytes[] classes = new ClassBytes[input.readInt()];
+      for (int i = 0; i < classes.length; i++) {
+        final String name = input.readUTF();
+        final byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        classes[i] = new ClassBytes(name, bytes);
+      }
+      return new Entry(className, classes, compileNanos);
+    }
+  }
+}
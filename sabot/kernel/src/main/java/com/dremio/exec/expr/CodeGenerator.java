@@ -53,6 +53,9 @@ public class CodeGenerator<T> {
 
     String getGeneratedCode();
 
+    /** The generated code, with a generic class name. */
+    String getGenerifiedCode();
+
     String getMaterializedClassName();
   }
 
@@ -217,6 +220,11 @@ public class CodeGenerator<T> {
       return definition;
     }
 
+    @Override
+    public String getGenerifiedCode() {
+      return generifiedCode;
+    }
+
     @Override
     public String getGeneratedCode() {
       return generifiedCode.replaceAll("GenericGenerated", this.className);
@@ -31,6 +31,7 @@ import com.dremio.sabot.op.project.ProjectorStats;
 import com.dremio.sabot.op.receiver.BridgeFileReaderReceiverOperator;
 import com.dremio.sabot.op.receiver.merging.MergingReceiverOperator;
 import com.dremio.sabot.op.receiver.unordered.UnorderedReceiverOperator;
+import com.dremio.sabot.op.resultcache.FragmentResultCacheStats;
 import com.dremio.sabot.op.scan.ScanOperator;
 import com.dremio.sabot.op.screen.ScreenOperator;
 import com.dremio.sabot.op.sender.BridgeFileWriterSenderOperator;
@@ -112,6 +113,10 @@ public class OperatorMetricRegistry {
     register(builder, CoreOperatorType.TEXT_SUB_SCAN_VALUE, ScanOperator.Metric.class);
     register(builder, CoreOperatorType.ICEBERG_SNAPSHOTS_SUB_SCAN_VALUE, IcebergExpiryMetric.class);
     register(builder, CoreOperatorType.NESSIE_COMMITS_SUB_SCAN_VALUE, IcebergExpiryMetric.class);
+    register(
+        builder,
+        CoreOperatorType.FRAGMENT_RESULT_CACHE_VALUE,
+        FragmentResultCacheStats.Metric.class);
     CORE_OPERATOR_TYPE_METRICS_MAP = builder.build();
   }
 
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.physical.config;
+
+import com.dremio.exec.physical.base.AbstractBase;
+import com.dremio.exec.physical.base.OpProps;
+import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.physical.base.PhysicalVisitor;
+import com.dremio.exec.proto.UserBitShared.CoreOperatorType;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Configuration of the operators reading and writing the node local fragment result cache. It is
+ * never part of a plan, it is created on the executors when building the pipeline of a fragment.
+ */
+@JsonTypeName("fragment-result-cache")
+public class FragmentResultCachePOP extends AbstractBase {
+
+  @JsonCreator
+  public FragmentResultCachePOP(@JsonProperty("props") OpProps props) {
+    super(props);
+  }
+
+  @Override
+  public <T, X, E extends Throwable> T accept(PhysicalVisitor<T, X, E> physicalVisitor, X value)
+      throws E {
+    return physicalVisitor.visitOp(this, value);
+  }
+
+  @Override
+  public PhysicalOperator getNewWithChildren(List<PhysicalOperator> children) {
+    assert children.isEmpty();
+    return new FragmentResultCachePOP(props);
+  }
+
+  @Override
+  public int getOperatorType() {
+    return CoreOperatorType.FRAGMENT_RESULT_CACHE_VALUE;
+  }
+
+  @Override
+  public Iterator<PhysicalOperator> iterator() {
+    return Collections.emptyIterator();
+  }
+}
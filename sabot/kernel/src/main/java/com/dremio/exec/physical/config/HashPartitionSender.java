@@ -41,6 +41,19 @@ public class HashPartitionSender extends AbstractSender implements OpWithMinorSp
 
   private final boolean adaptiveHash;
 
+  private final SkewJoinRole skewJoinRole;
+  private final int skewJoinPeerMajorFragmentId;
+
+  /** Side of a skew aware hash join fed by the sender. */
+  public enum SkewJoinRole {
+    /** Plain hash distribution. */
+    NONE,
+    /** Probe side: rows of the confirmed heavy hitter keys are spread across all receivers. */
+    PROBE,
+    /** Build side: rows of the confirmed heavy hitter keys are sent to all receivers. */
+    BUILD
+  }
+
   public HashPartitionSender(
       OpProps props,
       BatchSchema schema,
@@ -48,11 +61,35 @@ public class HashPartitionSender extends AbstractSender implements OpWithMinorSp
       int receiverMajorFragmentId,
       List<MinorFragmentIndexEndpoint> destinations,
       LogicalExpression expr,
-      boolean adaptiveHash) {
+      boolean adaptiveHash,
+      SkewJoinRole skewJoinRole,
+      int skewJoinPeerMajorFragmentId) {
     super(props, schema, child, receiverMajorFragmentId);
     this.destinations = destinations;
     this.expr = expr;
     this.adaptiveHash = adaptiveHash;
+    this.skewJoinRole = skewJoinRole == null ? SkewJoinRole.NONE : skewJoinRole;
+    this.skewJoinPeerMajorFragmentId = skewJoinPeerMajorFragmentId;
+  }
+
+  public HashPartitionSender(
+      OpProps props,
+      BatchSchema schema,
+      PhysicalOperator child,
+      int receiverMajorFragmentId,
+      List<MinorFragmentIndexEndpoint> destinations,
+      LogicalExpression expr,
+      boolean adaptiveHash) {
+    this(
+        props,
+        schema,
+        child,
+        receiverMajorFragmentId,
+        destinations,
+        expr,
+        adaptiveHash,
+        SkewJoinRole.NONE,
+        -1);
   }
 
   public HashPartitionSender(
@@ -72,14 +109,33 @@ public class HashPartitionSender extends AbstractSender implements OpWithMinorSp
       @JsonProperty("child") PhysicalOperator child,
       @JsonProperty("receiverMajorFragmentId") int receiverMajorFragmentId,
       @JsonProperty("expr") LogicalExpression expr,
-      @JsonProperty("adaptiveHash") boolean adaptiveHash) {
-    this(props, schema, child, receiverMajorFragmentId, null, expr, adaptiveHash);
+      @JsonProperty("adaptiveHash") boolean adaptiveHash,
+      @JsonProperty("skewJoinRole") SkewJoinRole skewJoinRole,
+      @JsonProperty("skewJoinPeerMajorFragmentId") int skewJoinPeerMajorFragmentId) {
+    this(
+        props,
+        schema,
+        child,
+        receiverMajorFragmentId,
+        null,
+        expr,
+        adaptiveHash,
+        skewJoinRole,
+        skewJoinPeerMajorFragmentId);
   }
 
   @Override
   protected PhysicalOperator getNewWithChild(PhysicalOperator child) {
     return new HashPartitionSender(
-        props, schema, child, receiverMajorFragmentId, destinations, expr, adaptiveHash);
+        props,
+        schema,
+        child,
+        receiverMajorFragmentId,
+        destinations,
+        expr,
+        adaptiveHash,
+        skewJoinRole,
+        skewJoinPeerMajorFragmentId);
   }
 
   public LogicalExpression getExpr() {
@@ -90,6 +146,15 @@ public class HashPartitionSender extends AbstractSender implements OpWithMinorSp
     return adaptiveHash;
   }
 
+  public SkewJoinRole getSkewJoinRole() {
+    return skewJoinRole;
+  }
+
+  /** Major fragment of the sender feeding the other side of the skew aware hash join. */
+  public int getSkewJoinPeerMajorFragmentId() {
+    return skewJoinPeerMajorFragmentId;
+  }
+
   @Override
   public <T, X, E extends Throwable> T accept(PhysicalVisitor<T, X, E> physicalVisitor, X value)
       throws E {
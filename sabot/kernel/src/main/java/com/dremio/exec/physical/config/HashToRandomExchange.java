@@ -22,13 +22,16 @@ import com.dremio.exec.physical.base.PhysicalOperator;
 import com.dremio.exec.physical.base.PhysicalOperatorUtil;
 import com.dremio.exec.physical.base.Receiver;
 import com.dremio.exec.physical.base.Sender;
+import com.dremio.exec.physical.config.HashPartitionSender.SkewJoinRole;
 import com.dremio.exec.physical.config.HashSenderCalculator.BucketOptions;
 import com.dremio.exec.planner.fragment.EndpointsIndex;
 import com.dremio.exec.proto.CoordExecRPC.MinorFragmentIndexEndpoint;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.options.OptionManager;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 public class HashToRandomExchange extends AbstractExchange {
 
@@ -43,6 +46,8 @@ public class HashToRandomExchange extends AbstractExchange {
   private final LogicalExpression expr;
   private final OptionManager optionManager;
   private final boolean adaptiveHash;
+  private final SkewJoinRole skewJoinRole;
+  private final int skewJoinPeerMajorFragmentId;
 
   public HashToRandomExchange(
       OpProps props,
@@ -53,12 +58,40 @@ public class HashToRandomExchange extends AbstractExchange {
       PhysicalOperator child,
       LogicalExpression expr,
       OptionManager optionManager,
-      boolean adaptiveHash) {
+      boolean adaptiveHash,
+      SkewJoinRole skewJoinRole,
+      int skewJoinPeerMajorFragmentId) {
     super(props, senderProps, receiverProps, schema, child, optionManager);
     this.options = options;
     this.expr = expr;
     this.optionManager = optionManager;
     this.adaptiveHash = adaptiveHash;
+    this.skewJoinRole = skewJoinRole;
+    this.skewJoinPeerMajorFragmentId = skewJoinPeerMajorFragmentId;
+  }
+
+  public HashToRandomExchange(
+      OpProps props,
+      OpProps senderProps,
+      OpProps receiverProps,
+      BucketOptions options,
+      BatchSchema schema,
+      PhysicalOperator child,
+      LogicalExpression expr,
+      OptionManager optionManager,
+      boolean adaptiveHash) {
+    this(
+        props,
+        senderProps,
+        receiverProps,
+        options,
+        schema,
+        child,
+        expr,
+        optionManager,
+        adaptiveHash,
+        SkewJoinRole.NONE,
+        -1);
   }
 
   public HashToRandomExchange(
@@ -90,7 +123,9 @@ public class HashToRandomExchange extends AbstractExchange {
         receiverMajorFragmentId,
         dest,
         expr,
-        adaptiveHash);
+        adaptiveHash,
+        skewJoinRole,
+        skewJoinPeerMajorFragmentId);
   }
 
   @Override
@@ -114,7 +149,46 @@ public class HashToRandomExchange extends AbstractExchange {
         child,
         expr,
         optionManager,
-        adaptiveHash);
+        adaptiveHash,
+        skewJoinRole,
+        skewJoinPeerMajorFragmentId);
+  }
+
+  /**
+   * Returns a copy of this exchange feeding one side of a skew aware hash join.
+   *
+   * @param peerMajorFragmentId major fragment of the exchange feeding the other side of the join
+   */
+  public HashToRandomExchange withSkewJoin(SkewJoinRole role, int peerMajorFragmentId) {
+    return new HashToRandomExchange(
+        props,
+        senderProps,
+        receiverProps,
+        options,
+        schema,
+        child,
+        expr,
+        optionManager,
+        adaptiveHash,
+        role,
+        peerMajorFragmentId);
+  }
+
+  public boolean isAdaptiveHash() {
+    return adaptiveHash;
+  }
+
+  public SkewJoinRole getSkewJoinRole() {
+    return skewJoinRole;
+  }
+
+  @Override
+  public Set<Integer> getExtCommunicableMajorFragments() {
+    if (skewJoinRole == SkewJoinRole.NONE) {
+      return Collections.emptySet();
+    }
+    // the senders of both sides of the join exchange the heavy hitter keys
+    return Collections.singleton(skewJoinPeerMajorFragmentId);
   }
 
   @JsonProperty("expr")
@@ -256,6 +256,18 @@ public class PlanCaptureAttemptObserver extends AbstractAttemptObserver {
             .build());
   }
 
+  @Override
+  public void planMaterializationCandidates(int candidateCount, long microsTaken) {
+    planPhases.add(
+        PlanPhaseProfile.newBuilder()
+            .setPhaseName(PlannerPhase.PLAN_SELECT_MATERIALIZATION_CANDIDATES)
+            .setDurationMillis(TimeUnit.MICROSECONDS.toMillis(microsTaken))
+            .setPlan(
+                String.format(
+                    "%d materialization candidates selected in %d us", candidateCount, microsTaken))
+            .build());
+  }
+
   @Override
   public void planNormalized(long millisTaken, List<RelWithInfo> normalizedQueryPlans) {
     normalizationMillis = millisTaken;
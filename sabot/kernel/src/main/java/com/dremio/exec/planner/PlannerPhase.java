@@ -726,6 +726,8 @@ public enum PlannerPhase {
   public static final String PLAN_VALIDATED = "Validation";
   public static final String PLAN_CONVERTED_TO_REL = "Convert To Rel";
   public static final String PLAN_FIND_MATERIALIZATIONS = "Find Materializations";
+  public static final String PLAN_SELECT_MATERIALIZATION_CANDIDATES =
+      "Select Materialization Candidates";
   public static final String PLAN_NORMALIZED =
       "Normalize User Query Alternatives and Materializations";
   public static final String PLAN_MATCH_MATERIALIZATIONS = "Generate Replacements";
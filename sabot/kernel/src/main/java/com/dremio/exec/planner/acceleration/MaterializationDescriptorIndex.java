@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.acceleration;
+
+import com.dremio.catalog.model.dataset.TableVersionContext;
+import com.dremio.exec.calcite.logical.ScanCrel;
+import com.dremio.exec.planner.RoutingShuttle;
+import com.dremio.exec.planner.acceleration.substitution.SubstitutionUtils;
+import com.dremio.exec.planner.acceleration.substitution.SubstitutionUtils.ExternalQueryDescriptor;
+import com.dremio.exec.planner.acceleration.substitution.SubstitutionUtils.VersionedPath;
+import com.dremio.exec.tablefunctions.ExternalQueryScanCrel;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.TableScan;
+
+/**
+ * Inverted index from the tables, views and external queries referenced by materializations to the
+ * materializations themselves, so that the materializations that may accelerate a query are found
+ * with a lookup per table of the query instead of a walk of every materialization plan.
+ *
+ * <p>Instances are immutable, updates go through a {@link Builder} obtained from {@link
+ * #toBuilder()} so that the index can be swapped atomically alongside the materialization cache.
+ */
+public final class MaterializationDescriptorIndex {
+
+  public static final MaterializationDescriptorIndex EMPTY =
+      new MaterializationDescriptorIndex(
+          ImmutableMap.of(),
+          HashMultimap.create(),
+          HashMultimap.create(),
+          HashMultimap.create(),
+          HashMultimap.create());
+
+  private final Map<String, Entry> entries;
+  private final SetMultimap<VersionedPath, String> byTable;
+  private final SetMultimap<VersionedPath, String> byVds;
+  private final SetMultimap<ExternalQueryDescriptor, String> byExternalQuery;
+  private final SetMultimap<String, String> byReflection;
+
+  private MaterializationDescriptorIndex(
+      Map<String, Entry> entries,
+      SetMultimap<VersionedPath, String> byTable,
+      SetMultimap<VersionedPath, String> byVds,
+      SetMultimap<ExternalQueryDescriptor, String> byExternalQuery,
+      SetMultimap<String, String> byReflection) {
+    this.entries = entries;
+    this.byTable = byTable;
+    this.byVds = byVds;
+    this.byExternalQuery = byExternalQuery;
+    this.byReflection = byReflection;
+  }
+
+  /**
+   * Returns the ids of the materializations of every reflection that has at least one
+   * materialization referencing one of the given tables, views or external queries. All the
+   * materializations of such a reflection are returned so that callers can still pick the latest
+   * one.
+   */
+  public Set<String> getCandidates(
+      Set<VersionedPath> tables,
+      Set<VersionedPath> vdsPaths,
+      Set<ExternalQueryDescriptor> externalQueries) {
+    final Set<String> reflections = new HashSet<>();
+    addReflections(reflections, byTable, tables);
+    addReflections(reflections, byVds, vdsPaths);
+    addReflections(reflections, byExternalQuery, externalQueries);
+
+    final Set<String> candidates = new HashSet<>();
+    for (String reflectionId : reflections) {
+      candidates.addAll(byReflection.get(reflectionId));
+    }
+    return candidates;
+  }
+
+  private <K> void addReflections(
+      Set<String> reflections, SetMultimap<K, String> index, Set<K> keys) {
+    for (K key : keys) {
+      for (String id : index.get(key)) {
+        reflections.add(entries.get(id).reflectionId);
+      }
+    }
+  }
+
+  public boolean contains(String id) {
+    return entries.containsKey(id);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  /**
+   * Builds a new index from a copy of an existing one. The new index takes over the builder state,
+   * so a builder can only be built once.
+   */
+  public static final class Builder {
+    private final Map<String, Entry> entries;
+    private final SetMultimap<VersionedPath, String> byTable;
+    private final SetMultimap<VersionedPath, String> byVds;
+    private final SetMultimap<ExternalQueryDescriptor, String> byExternalQuery;
+    private final SetMultimap<String, String> byReflection;
+    private boolean built;
+
+    private Builder(MaterializationDescriptorIndex index) {
+      this.entries = Maps.newHashMap(index.entries);
+      this.byTable = HashMultimap.create(index.byTable);
+      this.byVds = HashMultimap.create(index.byVds);
+      this.byExternalQuery = HashMultimap.create(index.byExternalQuery);
+      this.byReflection = HashMultimap.create(index.byReflection);
+    }
+
+    /** Adds, or replaces, the materialization with the given id. */
+    public Builder put(String id, String reflectionId, References references) {
+      remove(id);
+      entries.put(id, new Entry(reflectionId, references));
+      for (VersionedPath table : references.tables) {
+        byTable.put(table, id);
+      }
+      for (VersionedPath vdsPath : references.vdsPaths) {
+        byVds.put(vdsPath, id);
+      }
+      for (ExternalQueryDescriptor externalQuery : references.externalQueries) {
+        byExternalQuery.put(externalQuery, id);
+      }
+      byReflection.put(reflectionId, id);
+      return this;
+    }
+
+    public Builder remove(String id) {
+      Preconditions.checkState(!built, "index already built");
+      final Entry entry = entries.remove(id);
+      if (entry == null) {
+        return this;
+      }
+      for (VersionedPath table : entry.references.tables) {
+        byTable.remove(table, id);
+      }
+      for (VersionedPath vdsPath : entry.references.vdsPaths) {
+        byVds.remove(vdsPath, id);
+      }
+      for (ExternalQueryDescriptor externalQuery : entry.references.externalQueries) {
+        byExternalQuery.remove(externalQuery, id);
+      }
+      byReflection.remove(entry.reflectionId, id);
+      return this;
+    }
+
+    public MaterializationDescriptorIndex build() {
+      Preconditions.checkState(!built, "index already built");
+      built = true;
+      return new MaterializationDescriptorIndex(
+          ImmutableMap.copyOf(entries), byTable, byVds, byExternalQuery, byReflection);
+    }
+  }
+
+  /**
+   * Tables, views and external queries referenced by a materialization plan. These are the keys
+   * {@link SubstitutionUtils#usesTableOrVds} looks for when deciding if a materialization applies
+   * to a query.
+   */
+  public static final class References {
+    private final Set<VersionedPath> tables;
+    private final Set<VersionedPath> vdsPaths;
+    private final Set<ExternalQueryDescriptor> externalQueries;
+
+    private References(
+        Set<VersionedPath> tables,
+        Set<VersionedPath> vdsPaths,
+        Set<ExternalQueryDescriptor> externalQueries) {
+      this.tables = ImmutableSet.copyOf(tables);
+      this.vdsPaths = ImmutableSet.copyOf(vdsPaths);
+      this.externalQueries = ImmutableSet.copyOf(externalQueries);
+    }
+
+    public static References of(
+        Set<VersionedPath> tables,
+        Set<VersionedPath> vdsPaths,
+        Set<ExternalQueryDescriptor> externalQueries) {
+      return new References(tables, vdsPaths, externalQueries);
+    }
+
+    /** Collects the references of the given materialization query plan. */
+    public static References of(RelNode queryRel) {
+      Preconditions.checkNotNull(queryRel, "query plan required");
+      final Set<VersionedPath> tables = new HashSet<>();
+      final Set<VersionedPath> vdsPaths = new HashSet<>();
+      final Set<ExternalQueryDescriptor> externalQueries = new HashSet<>();
+      queryRel.accept(
+          new RoutingShuttle() {
+            @Override
+            public RelNode visit(TableScan scan) {
+              TableVersionContext versionContext = null;
+              if (scan instanceof ScanCrel) {
+                versionContext = ((ScanCrel) scan).getTableMetadata().getVersionContext();
+              }
+              tables.add(VersionedPath.of(scan.getTable().getQualifiedName(), versionContext));
+              return scan;
+            }
+
+            @Override
+            public RelNode visit(RelNode other) {
+              if (other instanceof ExternalQueryScanCrel) {
+                externalQueries.add(SubstitutionUtils.descriptor((ExternalQueryScanCrel) other));
+              }
+              if (other instanceof ExpansionNode) {
+                vdsPaths.add(VersionedPath.of((ExpansionNode) other));
+              }
+              return super.visit(other);
+            }
+          });
+      return new References(tables, vdsPaths, externalQueries);
+    }
+
+    public Set<VersionedPath> getTables() {
+      return tables;
+    }
+
+    public Set<VersionedPath> getVdsPaths() {
+      return vdsPaths;
+    }
+
+    public Set<ExternalQueryDescriptor> getExternalQueries() {
+      return externalQueries;
+    }
+  }
+
+  private static final class Entry {
+    private final String reflectionId;
+    private final References references;
+
+    private Entry(String reflectionId, References references) {
+      this.reflectionId = reflectionId;
+      this.references = references;
+    }
+  }
+}
@@ -19,12 +19,14 @@ import com.dremio.exec.planner.acceleration.descriptor.MaterializationDescriptor
 import com.dremio.exec.planner.acceleration.substitution.MaterializationProvider;
 import com.dremio.exec.planner.acceleration.substitution.SubstitutionUtils;
 import com.dremio.exec.planner.logical.ViewTable;
+import com.dremio.exec.planner.observer.AttemptObserver;
 import com.dremio.exec.planner.physical.PlannerSettings;
 import com.dremio.exec.planner.sql.SqlConverter;
 import com.dremio.exec.server.MaterializationDescriptorProvider;
 import com.dremio.sabot.rpc.user.UserSession;
 import com.dremio.service.namespace.NamespaceKey;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -34,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.apache.calcite.rel.RelNode;
 
@@ -131,7 +134,15 @@ public class MaterializationList implements MaterializationProvider {
     final Set<String> inclusions = getInclusions();
     final boolean hasInclusions = !inclusions.isEmpty();
     final List<DremioMaterialization> materializations = Lists.newArrayList();
-    for (final MaterializationDescriptor descriptor : provider.get()) {
+    final Stopwatch stopwatch = Stopwatch.createStarted();
+    final List<MaterializationDescriptor> candidates =
+        provider.getCandidates(queryTablesUsed, queryVdsUsed, externalQueries);
+    final AttemptObserver observer = converter.getObserver();
+    if (observer != null) {
+      observer.planMaterializationCandidates(
+          candidates.size(), stopwatch.elapsed(TimeUnit.MICROSECONDS));
+    }
+    for (final MaterializationDescriptor descriptor : candidates) {
 
       if ((hasInclusions && !inclusions.contains(descriptor.getLayoutId()))
           || exclusions.contains(descriptor.getLayoutId())
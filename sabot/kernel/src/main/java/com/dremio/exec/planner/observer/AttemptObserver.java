@@ -212,6 +212,14 @@ public interface AttemptObserver {
   /** Report considered materializations */
   void planFindMaterializations(long millisTaken);
 
+  /**
+   * Report the materializations selected as substitution candidates for the user query.
+   *
+   * @param candidateCount number of materializations selected
+   * @param microsTaken time taken to select them
+   */
+  default void planMaterializationCandidates(int candidateCount, long microsTaken) {}
+
   /** Report normalization completion */
   void planNormalized(long millisTaken, List<RelWithInfo> normalizedQueryPlans);
 
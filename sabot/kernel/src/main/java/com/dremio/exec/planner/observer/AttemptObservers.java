@@ -220,6 +220,13 @@ public class AttemptObservers implements AttemptObserver {
     }
   }
 
+  @Override
+  public void planMaterializationCandidates(int candidateCount, long microsTaken) {
+    for (final AttemptObserver observer : observers) {
+      observer.planMaterializationCandidates(candidateCount, microsTaken);
+    }
+  }
+
   @Override
   public void planNormalized(long millisTaken, List<RelWithInfo> normalizedQueryPlans) {
     for (final AttemptObserver observer : observers) {
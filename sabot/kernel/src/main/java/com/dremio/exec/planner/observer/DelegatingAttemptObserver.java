@@ -162,6 +162,11 @@ public class DelegatingAttemptObserver implements AttemptObserver {
     observer.planFindMaterializations(millisTaken);
   }
 
+  @Override
+  public void planMaterializationCandidates(int candidateCount, long microsTaken) {
+    observer.planMaterializationCandidates(candidateCount, microsTaken);
+  }
+
   @Override
   public void planNormalized(long millisTaken, List<RelWithInfo> normalizedQueryPlans) {
     observer.planNormalized(millisTaken, normalizedQueryPlans);
@@ -170,6 +170,11 @@ public class OutOfBandAttemptObserver implements AttemptObserver {
     execute(() -> innerObserver.planFindMaterializations(millisTaken));
   }
 
+  @Override
+  public void planMaterializationCandidates(final int candidateCount, final long microsTaken) {
+    execute(() -> innerObserver.planMaterializationCandidates(candidateCount, microsTaken));
+  }
+
   @Override
   public void planNormalized(final long millisTaken, final List<RelWithInfo> normalizedQueryPlans) {
     execute(() -> innerObserver.planNormalized(millisTaken, normalizedQueryPlans));
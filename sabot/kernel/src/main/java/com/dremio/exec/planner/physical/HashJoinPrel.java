@@ -23,6 +23,9 @@ import com.dremio.exec.expr.ExpressionTreeMaterializer;
 import com.dremio.exec.expr.fn.FunctionLookupContext;
 import com.dremio.exec.physical.base.PhysicalOperator;
 import com.dremio.exec.physical.config.HashJoinPOP;
+import com.dremio.exec.physical.config.HashPartitionSender.SkewJoinRole;
+import com.dremio.exec.physical.config.HashToRandomExchange;
+import com.dremio.exec.physical.config.Project;
 import com.dremio.exec.physical.config.RuntimeFilterProbeTarget;
 import com.dremio.exec.planner.physical.explain.PrelSequencer;
 import com.dremio.exec.planner.physical.filter.RuntimeFilterId;
@@ -84,6 +87,8 @@ public class HashJoinPrel extends JoinPrel {
       new RangeDoubleValidator("planner.op.hashjoin.factor", 0.0, 1000.0, 1.0d);
   public static final BooleanValidator BOUNDED =
       new BooleanValidator("planner.op.hashjoin.bounded", true);
+  public static final BooleanValidator SKEW_AWARE =
+      new BooleanValidator("planner.op.hashjoin.skew_aware", false);
 
   private final boolean swapped;
   private final RexNode extraCondition;
@@ -199,8 +204,25 @@ public class HashJoinPrel extends JoinPrel {
     final List<String> leftFields = currentLeft.getRowType().getFieldNames();
     final List<String> rightFields = currentRight.getRowType().getFieldNames();
 
-    final PhysicalOperator leftPop = ((Prel) currentLeft).getPhysicalOperator(creator);
-    final PhysicalOperator rightPop = ((Prel) currentRight).getPhysicalOperator(creator);
+    PhysicalOperator leftPop = ((Prel) currentLeft).getPhysicalOperator(creator);
+    PhysicalOperator rightPop = ((Prel) currentRight).getPhysicalOperator(creator);
+
+    if (creator.getOptionManager().getOption(SKEW_AWARE) && isSkewAwareJoinType()) {
+      final HashToRandomExchange probeExchange = getHashExchange(leftPop);
+      final HashToRandomExchange buildExchange = getHashExchange(rightPop);
+      if (probeExchange != null && buildExchange != null) {
+        leftPop =
+            replaceHashExchange(
+                leftPop,
+                probeExchange.withSkewJoin(
+                    SkewJoinRole.PROBE, buildExchange.getChild().getProps().getMajorFragmentId()));
+        rightPop =
+            replaceHashExchange(
+                rightPop,
+                buildExchange.withSkewJoin(
+                    SkewJoinRole.BUILD, probeExchange.getChild().getProps().getMajorFragmentId()));
+      }
+    }
 
     final List<JoinCondition> conditions =
         buildJoinConditions(leftFields, rightFields, currentLeftKeys, currentRightKeys);
@@ -264,6 +286,39 @@ public class HashJoinPrel extends JoinPrel {
         buildRuntimeFilterInfo(creator));
   }
 
+  /**
+   * Build rows of the heavy hitter keys are sent to all the join fragments, so the join must not
+   * output the unmatched build rows.
+   */
+  private boolean isSkewAwareJoinType() {
+    return joinType == JoinRelType.INNER || (joinType == JoinRelType.LEFT && !swapped);
+  }
+
+  /**
+   * Returns the plain hash exchange feeding a join input, looking through the project removing the
+   * hash column, or null if there is none.
+   */
+  private static HashToRandomExchange getHashExchange(PhysicalOperator pop) {
+    if (pop instanceof Project) {
+      pop = ((Project) pop).getChild();
+    }
+    if (pop.getClass() != HashToRandomExchange.class) {
+      return null;
+    }
+    final HashToRandomExchange exchange = (HashToRandomExchange) pop;
+    return exchange.isAdaptiveHash() || exchange.getSkewJoinRole() != SkewJoinRole.NONE
+        ? null
+        : exchange;
+  }
+
+  private static PhysicalOperator replaceHashExchange(
+      PhysicalOperator pop, HashToRandomExchange exchange) {
+    if (pop instanceof Project) {
+      return pop.getNewWithChildren(ImmutableList.of(exchange));
+    }
+    return exchange;
+  }
+
   private RuntimeFilterInfo buildRuntimeFilterInfo(PhysicalPlanCreator creator) {
     if (null == runtimeFilterId) {
       return null;
@@ -586,6 +586,9 @@ public class PlannerSettings implements Context {
       new BooleanValidator("planner.compute_items_sketch_stat", false);
   public static final BooleanValidator COMPUTE_COUNT_COL_STAT =
       new BooleanValidator("planner.compute_col_stat", true);
+  // merge statistics of appended Iceberg snapshots instead of recomputing them over the table
+  public static final BooleanValidator COMPUTE_STATISTICS_INCREMENTALLY =
+      new BooleanValidator("planner.compute_statistics_incrementally", true);
 
   public static final PositiveLongValidator CASE_EXPRESSIONS_THRESHOLD =
       new PositiveLongValidator("planner.case_expressions_threshold", 400, 4);
@@ -687,6 +690,13 @@ public class PlannerSettings implements Context {
   public static final BooleanValidator QUERY_PLAN_CACHE_ENABLED_SECURED_USER_BASED_CACHING =
       new BooleanValidator("planner.query_plan_cache_enabled_secured_user_based_caching", true);
 
+  /**
+   * Reuse cached plans across queries that only differ by the values of their literals, when the
+   * literals are only compared against in filters of the plan.
+   */
+  public static final BooleanValidator QUERY_PLAN_CACHE_PARAMETERIZED =
+      new BooleanValidator("planner.query_plan_cache_parameterized", false);
+
   public static final BooleanValidator REFLECTION_ROUTING_INHERITANCE_ENABLED =
       new BooleanValidator("planner.reflection_routing_inheritance_enabled", false);
 
@@ -954,6 +964,10 @@ public class PlannerSettings implements Context {
     return options.getOption(QUERY_PLAN_CACHE_ENABLED_SECURED_USER_BASED_CACHING);
   }
 
+  public boolean isParameterizedPlanCacheEnabled() {
+    return isPlanCacheEnabled() && options.getOption(QUERY_PLAN_CACHE_PARAMETERIZED);
+  }
+
   public boolean isEnforceValidJsonFormatEnabled() {
     return options.getOption(ENFORCE_VALID_JSON_DATE_FORMAT_ENABLED);
   }
@@ -25,22 +25,34 @@ public class CachedPlan {
   private AtomicInteger useCount;
   private final long creationTime;
   private AccelerationProfile accelerationProfile;
+  private final PlanTemplate template;
 
-  private CachedPlan(Prel prel, int useCount, int estimatedSize) {
+  private CachedPlan(Prel prel, PlanTemplate template, int useCount, int estimatedSize) {
     this.prel = prel;
+    this.template = template;
     this.useCount = new AtomicInteger(useCount);
     this.estimatedSize = estimatedSize;
     this.creationTime = System.currentTimeMillis();
   }
 
   public static CachedPlan createCachedPlan(Prel prel, int estimatedSize) {
-    return new CachedPlan(prel, 0, estimatedSize);
+    return new CachedPlan(prel, null, 0, estimatedSize);
+  }
+
+  /** Creates a cached plan that can also be reused for queries with other literals. */
+  public static CachedPlan createCachedPlan(Prel prel, PlanTemplate template, int estimatedSize) {
+    return new CachedPlan(prel, template, 0, estimatedSize);
   }
 
   public Prel getPrel() {
     return prel;
   }
 
+  /** The template of the plan, or null if it can only be reused for the same query. */
+  public PlanTemplate getTemplate() {
+    return template;
+  }
+
   public AccelerationProfile getAccelerationProfile() {
     return accelerationProfile;
   }
@@ -54,6 +54,16 @@ public class LegacyPlanCache implements PlanCache {
 
   @Override
   public void putCachedPlan(SqlHandlerConfig config, PlanCacheKey cachedKey, Prel prel) {
+    putCachedPlan(config, cachedKey, prel, null, null);
+  }
+
+  @Override
+  public void putCachedPlan(
+      SqlHandlerConfig config,
+      PlanCacheKey cachedKey,
+      Prel prel,
+      @Nullable PlanCacheKey templateKey,
+      @Nullable PlanTemplate template) {
     final PlannerCatalog catalog =
         Preconditions.checkNotNull(config.getConverter().getPlannerCatalog());
 
@@ -81,6 +91,9 @@ public class LegacyPlanCache implements PlanCache {
       }
       synchronized (datasetMap) {
         datasetMap.put(datasetConfig.getId().getId(), cachedKey.getHash());
+        if (template != null) {
+          datasetMap.put(datasetConfig.getId().getId(), templateKey.getHash());
+        }
       }
       addedCacheToDatasetMap = true;
     }
@@ -89,9 +102,18 @@ public class LegacyPlanCache implements PlanCache {
       // planning phases.
       prel.getCluster().invalidateMetadataQuery();
 
-      CachedPlan newCachedPlan = CachedPlan.createCachedPlan(prel, prel.getEstimatedSize());
+      CachedPlan newCachedPlan =
+          CachedPlan.createCachedPlan(prel, template, prel.getEstimatedSize());
       config.getObserver().addAccelerationProfileToCachedPlan(newCachedPlan);
       cachePlans.put(cachedKey.getHash(), newCachedPlan);
+      if (template != null && isAccelerated(newCachedPlan)) {
+        // a reflection may only match the query for the values of the parameters it was planned
+        // with
+        LOGGER.debug("Physical plan template not cached: plan uses reflections.");
+      } else if (template != null) {
+        cachePlans.put(templateKey.getHash(), newCachedPlan);
+        LOGGER.debug("Physical plan template cached with cacheKey {}", templateKey);
+      }
       config.getConverter().dispose();
       LOGGER.debug("Physical plan cache created with cacheKey {}", cachedKey);
     } else {
@@ -99,6 +121,11 @@ public class LegacyPlanCache implements PlanCache {
     }
   }
 
+  private static boolean isAccelerated(CachedPlan cachedPlan) {
+    return cachedPlan.getAccelerationProfile() != null
+        && cachedPlan.getAccelerationProfile().getAccelerated();
+  }
+
   public Cache<String, CachedPlan> getCachePlans() {
     return cachePlans;
   }
@@ -115,69 +142,103 @@ public class LegacyPlanCache implements PlanCache {
     }
     final CachedPlan cachedPlan = cachePlans.getIfPresent(planCacheKey.getHash());
     if (cachedPlan != null) {
-      Iterable<DremioTable> datasets = catalog.getAllRequestedTables();
-      for (DremioTable dataset : datasets) {
-        try {
-          DatasetConfig datasetConfig = dataset.getDatasetConfig();
-          if (datasetConfig != null) {
-            // DatasetConfig modified
-            if (datasetConfig.getLastModified() != null
-                && datasetConfig.getLastModified() > cachedPlan.getCreationTime()) {
-              // for this case, we can only invalidate this cache entry, other cache entries may
-              // still be valid
-              cachePlans.invalidate(planCacheKey.getHash());
-              LOGGER.debug(
-                  "Physical plan cache hit with cacheKey {}: Cache invalidated due to updated dataset {}. datasetTime={} planTime={}",
-                  planCacheKey,
-                  datasetConfig.getFullPathList(),
-                  datasetConfig.getLastModified(),
-                  cachedPlan.getCreationTime());
-              return null;
-            } else {
-              // Check if source config is modified and invalidate the cache.
-              try {
-                ManagedStoragePlugin plugin =
-                    catalogService.getManagedSource(dataset.getPath().getRoot());
-                if (plugin != null) {
-                  SourceConfig sourceConfig = plugin.getConfig();
-                  if ((sourceConfig != null)) {
-                    long lastModifiedAt =
-                        sourceConfig.getLastModifiedAt() != null
-                            ? sourceConfig.getLastModifiedAt()
-                            : sourceConfig.getCtime();
-                    if (lastModifiedAt > cachedPlan.getCreationTime()) {
-                      cachePlans.invalidate(planCacheKey.getHash());
-                      LOGGER.debug(
-                          "Physical plan cache hit with cacheKey {}: Cache invalidated due to updated source {}. sourceTime={} planTime={}",
-                          planCacheKey,
-                          sourceConfig.getName(),
-                          sourceConfig.getLastModifiedAt(),
-                          cachedPlan.getCreationTime());
-                      return null;
-                    }
+      if (!isValid(catalog.getAllRequestedTables(), cachedPlan, planCacheKey, catalogService)) {
+        return null;
+      }
+      LOGGER.debug("Physical plan cache hit with cacheKey {}", planCacheKey);
+      return cachedPlan;
+    }
+
+    LOGGER.debug("Physical plan cache miss with cacheKey {}", planCacheKey);
+    return null;
+  }
+
+  @Override
+  public @Nullable CachedPlan getTemplateIfPresentAndValid(
+      SqlHandlerConfig sqlHandlerConfig, PlanCacheKey templateKey) {
+    if (cachePlans == null) {
+      return null;
+    }
+    final CachedPlan cachedPlan = cachePlans.getIfPresent(templateKey.getHash());
+    if (cachedPlan == null || cachedPlan.getTemplate() == null) {
+      LOGGER.debug("Physical plan template cache miss with cacheKey {}", templateKey);
+      return null;
+    }
+    final PlannerCatalog catalog =
+        Preconditions.checkNotNull(sqlHandlerConfig.getConverter().getPlannerCatalog());
+    if (!isValid(
+        catalog.getAllRequestedTables(),
+        cachedPlan,
+        templateKey,
+        sqlHandlerConfig.getContext().getCatalogService())) {
+      return null;
+    }
+    LOGGER.debug("Physical plan template cache hit with cacheKey {}", templateKey);
+    return cachedPlan;
+  }
+
+  private boolean isValid(
+      Iterable<DremioTable> datasets,
+      CachedPlan cachedPlan,
+      PlanCacheKey planCacheKey,
+      CatalogService catalogService) {
+    for (DremioTable dataset : datasets) {
+      try {
+        DatasetConfig datasetConfig = dataset.getDatasetConfig();
+        if (datasetConfig != null) {
+          // DatasetConfig modified
+          if (datasetConfig.getLastModified() != null
+              && datasetConfig.getLastModified() > cachedPlan.getCreationTime()) {
+            // for this case, we can only invalidate this cache entry, other cache entries may
+            // still be valid
+            cachePlans.invalidate(planCacheKey.getHash());
+            LOGGER.debug(
+                "Physical plan cache hit with cacheKey {}: Cache invalidated due to updated dataset {}. datasetTime={} planTime={}",
+                planCacheKey,
+                datasetConfig.getFullPathList(),
+                datasetConfig.getLastModified(),
+                cachedPlan.getCreationTime());
+            return false;
+          } else {
+            // Check if source config is modified and invalidate the cache.
+            try {
+              ManagedStoragePlugin plugin =
+                  catalogService.getManagedSource(dataset.getPath().getRoot());
+              if (plugin != null) {
+                SourceConfig sourceConfig = plugin.getConfig();
+                if ((sourceConfig != null)) {
+                  long lastModifiedAt =
+                      sourceConfig.getLastModifiedAt() != null
+                          ? sourceConfig.getLastModifiedAt()
+                          : sourceConfig.getCtime();
+                  if (lastModifiedAt > cachedPlan.getCreationTime()) {
+                    cachePlans.invalidate(planCacheKey.getHash());
+                    LOGGER.debug(
+                        "Physical plan cache hit with cacheKey {}: Cache invalidated due to updated source {}. sourceTime={} planTime={}",
+                        planCacheKey,
+                        sourceConfig.getName(),
+                        sourceConfig.getLastModifiedAt(),
+                        cachedPlan.getCreationTime());
+                    return false;
                   }
                 }
-              } catch (RuntimeException e) {
-                LOGGER.error(
-                    "Exception while checking for Source config modification for dataset {}",
-                    dataset.getPath().getRoot(),
-                    e);
               }
+            } catch (RuntimeException e) {
+              LOGGER.error(
+                  "Exception while checking for Source config modification for dataset {}",
+                  dataset.getPath().getRoot(),
+                  e);
             }
           }
-        } catch (IllegalStateException ignore) {
-          LOGGER.debug(
-              String.format(
-                  "Dataset %s is ignored (no dataset config available).", dataset.getPath()),
-              ignore);
         }
+      } catch (IllegalStateException ignore) {
+        LOGGER.debug(
+            String.format(
+                "Dataset %s is ignored (no dataset config available).", dataset.getPath()),
+            ignore);
       }
-      LOGGER.debug("Physical plan cache hit with cacheKey {}", planCacheKey);
-      return cachedPlan;
     }
-
-    LOGGER.debug("Physical plan cache miss with cacheKey {}", planCacheKey);
-    return null;
+    return true;
   }
 
   @Override
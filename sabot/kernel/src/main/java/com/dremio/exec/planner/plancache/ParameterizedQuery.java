@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.plancache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlCharStringLiteral;
+import org.apache.calcite.sql.SqlDateLiteral;
+import org.apache.calcite.sql.SqlDynamicParam;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.sql.SqlNumericLiteral;
+import org.apache.calcite.sql.SqlOrderBy;
+import org.apache.calcite.sql.SqlSelect;
+import org.apache.calcite.sql.SqlTimeLiteral;
+import org.apache.calcite.sql.SqlTimestampLiteral;
+import org.apache.calcite.sql.dialect.CalciteSqlDialect;
+import org.apache.calcite.sql.util.SqlBasicVisitor;
+import org.apache.calcite.sql.util.SqlShuttle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A query split into a template without its literals, and the literals it was written with.
+ *
+ * <p>Literals that change the shape of the plan rather than the values it computes are kept in the
+ * template: LIMIT and OFFSET, and ordinals in GROUP BY and ORDER BY. Only numeric, character, date,
+ * time and timestamp literals are parameters.
+ */
+public final class ParameterizedQuery {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParameterizedQuery.class);
+
+  private final String template;
+  private final List<SqlLiteral> parameters;
+
+  private ParameterizedQuery(String template, List<SqlLiteral> parameters) {
+    this.template = template;
+    this.parameters = parameters;
+  }
+
+  /**
+   * @param sqlNode a query, before validation
+   * @return the parameterized query, or null if the query has no parameters
+   */
+  public static ParameterizedQuery of(SqlNode sqlNode) {
+    final Set<SqlNode> kept = Sets.newIdentityHashSet();
+    final List<SqlLiteral> parameters = new ArrayList<>();
+    final String template;
+    try {
+      sqlNode.accept(new KeptLiteralsFinder(kept));
+      final SqlNode parameterized =
+          sqlNode.accept(
+              new SqlShuttle() {
+                @Override
+                public SqlNode visit(SqlLiteral literal) {
+                  if (kept.contains(literal) || !isParameter(literal)) {
+                    return literal;
+                  }
+                  parameters.add(literal);
+                  return new SqlDynamicParam(parameters.size() - 1, literal.getParserPosition());
+                }
+              });
+      template = parameterized.toSqlString(CalciteSqlDialect.DEFAULT).getSql();
+    } catch (RuntimeException e) {
+      // some extensions of the parser can't be copied, such queries are only cached as a whole
+      LOGGER.debug("Query can't be parameterized", e);
+      return null;
+    }
+    if (parameters.isEmpty()) {
+      return null;
+    }
+    return new ParameterizedQuery(template, ImmutableList.copyOf(parameters));
+  }
+
+  /** The query with a dynamic parameter in place of each literal. */
+  public String getTemplate() {
+    return template;
+  }
+
+  /**
+   * The kind of each parameter. Two queries only share a plan if their parameters have the same
+   * kinds, e.g. an integer can't be bound in place of a decimal.
+   */
+  public String getParameterKinds() {
+    return parameters.stream()
+        .map(ParameterizedQuery::kind)
+        .collect(Collectors.joining(",", "[", "]"));
+  }
+
+  public List<SqlLiteral> getParameters() {
+    return parameters;
+  }
+
+  private static boolean isParameter(SqlLiteral literal) {
+    return literal instanceof SqlNumericLiteral
+        || literal instanceof SqlCharStringLiteral
+        || literal instanceof SqlDateLiteral
+        || literal instanceof SqlTimeLiteral
+        || literal instanceof SqlTimestampLiteral;
+  }
+
+  private static String kind(SqlLiteral literal) {
+    if (literal instanceof SqlNumericLiteral) {
+      final SqlNumericLiteral numeric = (SqlNumericLiteral) literal;
+      return numeric.isExact() ? "EXACT(" + numeric.getScale() + ")" : "APPROX";
+    }
+    return literal.getTypeName().getName();
+  }
+
+  /** Finds the literals that must be kept in the template. */
+  private static final class KeptLiteralsFinder extends SqlBasicVisitor<Void> {
+    private final Set<SqlNode> kept;
+
+    private KeptLiteralsFinder(Set<SqlNode> kept) {
+      this.kept = kept;
+    }
+
+    @Override
+    public Void visit(SqlCall call) {
+      if (call instanceof SqlSelect) {
+        final SqlSelect select = (SqlSelect) call;
+        keep(select.getFetch());
+        keep(select.getOffset());
+        keepAll(select.getGroup());
+        keepAll(select.getOrderList());
+      } else if (call instanceof SqlOrderBy) {
+        final SqlOrderBy orderBy = (SqlOrderBy) call;
+        keep(orderBy.fetch);
+        keep(orderBy.offset);
+        keepAll(orderBy.orderList);
+      }
+      return super.visit(call);
+    }
+
+    private void keepAll(SqlNodeList list) {
+      for (SqlNode node : list == null ? Collections.<SqlNode>emptyList() : list.getList()) {
+        keep(node);
+      }
+    }
+
+    private void keep(SqlNode node) {
+      // ordinals may be wrapped in DESC, NULLS FIRST or NULLS LAST
+      while (node instanceof SqlCall
+          && (node.getKind() == SqlKind.DESCENDING
+              || node.getKind() == SqlKind.NULLS_FIRST
+              || node.getKind() == SqlKind.NULLS_LAST)) {
+        node = ((SqlCall) node).operand(0);
+      }
+      if (node instanceof SqlLiteral) {
+        kept.add(node);
+      }
+    }
+  }
+}
@@ -39,8 +39,30 @@ public interface PlanCache {
 
   void putCachedPlan(SqlHandlerConfig config, PlanCacheKey cachedKey, Prel prel);
 
+  /**
+   * Caches a plan under its key, and under the key of its parameterized query if it is a template.
+   */
+  default void putCachedPlan(
+      SqlHandlerConfig config,
+      PlanCacheKey cachedKey,
+      Prel prel,
+      PlanCacheKey templateKey,
+      PlanTemplate template) {
+    putCachedPlan(config, cachedKey, prel);
+  }
+
   CachedPlan getIfPresentAndValid(SqlHandlerConfig sqlHandlerConfig, PlanCacheKey planCacheKey);
 
+  /**
+   * Looks up a plan by the key of a parameterized query, once the query is validated.
+   *
+   * @return a plan with a template, or null
+   */
+  default CachedPlan getTemplateIfPresentAndValid(
+      SqlHandlerConfig sqlHandlerConfig, PlanCacheKey templateKey) {
+    return null;
+  }
+
   @Deprecated
   void invalidateCacheOnDataset(String datasetId);
 
@@ -119,6 +119,35 @@ public class PlanCacheUtils {
     return new PlanCacheKey(hasher.hash().toString());
   }
 
+  /**
+   * Generates the key of a plan template. Unlike {@link #generateCacheKey}, it is computed before
+   * the query is validated, and always includes the user since the datasets the query reads are
+   * resolved under the user's permissions.
+   */
+  public static PlanCacheKey generateTemplateCacheKey(
+      ParameterizedQuery query, QueryContext context) {
+    Hasher hasher = Hashing.sha256().newHasher();
+
+    hasher
+        .putString("template", UTF_8)
+        .putString(query.getTemplate(), UTF_8)
+        .putString(query.getParameterKinds(), UTF_8)
+        .putString(context.getWorkloadType().name(), UTF_8)
+        .putString(context.getContextInformation().getCurrentDefaultSchema(), UTF_8)
+        .putString(context.getQueryUserName(), UTF_8);
+
+    hashNonDefaultOptions(hasher, context, null);
+
+    Optional.ofNullable(context.getGroupResourceInformation())
+        .ifPresent(
+            v -> {
+              hasher.putInt(v.getExecutorNodeCount());
+              hasher.putLong(v.getAverageExecutorCores(context.getOptions()));
+            });
+
+    return new PlanCacheKey(hasher.hash().toString());
+  }
+
   /** Put non-default options into plan cache key hash. */
   public static void hashNonDefaultOptions(
       Hasher hasher, QueryContext context, Set<String> excludeOptionNames) {
@@ -0,0 +1,382 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.plancache;
+
+import static com.dremio.exec.store.parquet.ParquetFormatDatasetAccessor.ACCELERATOR_STORAGEPLUGIN_NAME;
+
+import com.dremio.exec.physical.config.ManifestScanFilters;
+import com.dremio.exec.physical.config.ManifestScanTableFunctionContext;
+import com.dremio.exec.physical.config.TableFunctionContext;
+import com.dremio.exec.planner.common.ScanRelBase;
+import com.dremio.exec.planner.physical.Prel;
+import com.dremio.exec.planner.physical.ScanPrelBase;
+import com.dremio.exec.planner.physical.TableFunctionPrel;
+import com.dremio.exec.store.dfs.FilterableScan;
+import com.dremio.exec.store.iceberg.IcebergManifestListPrel;
+import com.dremio.exec.store.parquet.ParquetScanPrel;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexShuttle;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.SqlNumericLiteral;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.util.DateString;
+import org.apache.calcite.util.NlsString;
+import org.apache.calcite.util.TimeString;
+import org.apache.calcite.util.TimestampString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A physical plan that can be reused for a {@link ParameterizedQuery} written with other literals.
+ *
+ * <p>A plan is only a template when each parameter of the query is found as exactly one literal of
+ * the plan, compared against a column in a filter. Literals that were pushed into scans, used for
+ * partition pruning, or folded into other expressions can't be rebound, and the query is planned
+ * again. Plans reading reflections aren't templates either, as the reflection may only match the
+ * query for the values it was planned with. When statistics are used, parameters filtering the
+ * inputs of a join may change the join order, and are only bound to the value they were planned
+ * with.
+ */
+public final class PlanTemplate {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PlanTemplate.class);
+
+  private static final Set<SqlKind> BINDABLE_COMPARISONS =
+      Sets.immutableEnumSet(
+          SqlKind.EQUALS,
+          SqlKind.NOT_EQUALS,
+          SqlKind.LESS_THAN,
+          SqlKind.LESS_THAN_OR_EQUAL,
+          SqlKind.GREATER_THAN,
+          SqlKind.GREATER_THAN_OR_EQUAL,
+          SqlKind.LIKE);
+
+  private final Prel prel;
+  private final List<RexLiteral> literals;
+  // values of the parameters that must be the same to reuse the plan, null if free
+  private final List<SqlLiteral> pinned;
+
+  private PlanTemplate(Prel prel, List<RexLiteral> literals, List<SqlLiteral> pinned) {
+    this.prel = prel;
+    this.literals = literals;
+    this.pinned = pinned;
+  }
+
+  /**
+   * @param prel the physical plan of the query
+   * @param query the parameterized query
+   * @param pinJoinInputs whether parameters filtering the inputs of a join must keep their value
+   * @return the template, or null if the plan can't be reused for other values of the parameters
+   */
+  public static PlanTemplate create(Prel prel, ParameterizedQuery query, boolean pinJoinInputs) {
+    final LiteralCollector collector = new LiteralCollector();
+    if (!collector.collect(prel, false)) {
+      return null;
+    }
+
+    final RexBuilder rexBuilder = prel.getCluster().getRexBuilder();
+    final List<SqlLiteral> parameters = query.getParameters();
+    final List<RexLiteral> literals = new ArrayList<>(parameters.size());
+    final List<SqlLiteral> pinned = new ArrayList<>(parameters.size());
+    final Set<RexLiteral> claimed = Sets.newIdentityHashSet();
+    for (SqlLiteral parameter : parameters) {
+      RexLiteral match = null;
+      int matches = 0;
+      for (RexLiteral literal : collector.occurrences) {
+        if (literal.equals(convert(rexBuilder, parameter, literal))) {
+          match = literal;
+          matches++;
+        }
+      }
+      if (matches != 1 || !claimed.add(match) || !collector.bindable.containsKey(match)) {
+        LOGGER.debug("Plan not templatable: literal {} can't be rebound.", parameter);
+        return null;
+      }
+      literals.add(match);
+      pinned.add(pinJoinInputs && collector.bindable.get(match) ? parameter : null);
+    }
+    return new PlanTemplate(prel, ImmutableList.copyOf(literals), pinned);
+  }
+
+  /**
+   * Binds the parameters of a query to the plan.
+   *
+   * @param query a query with the same template and parameter kinds
+   * @return a copy of the plan for the values of the query, or null if they can't be bound
+   */
+  public Prel bind(ParameterizedQuery query) {
+    final List<SqlLiteral> parameters = query.getParameters();
+    if (parameters.size() != literals.size()) {
+      return null;
+    }
+    final RexBuilder rexBuilder = prel.getCluster().getRexBuilder();
+    final Map<RexLiteral, RexLiteral> replacements = new IdentityHashMap<>();
+    for (int i = 0; i < literals.size(); i++) {
+      if (pinned.get(i) != null && !pinned.get(i).equals(parameters.get(i))) {
+        return null;
+      }
+      final RexLiteral literal = convert(rexBuilder, parameters.get(i), literals.get(i));
+      if (literal == null) {
+        return null;
+      }
+      replacements.put(literals.get(i), literal);
+    }
+    try {
+      return (Prel) rewrite(prel, new LiteralReplacer(replacements));
+    } catch (RuntimeException e) {
+      LOGGER.debug("Failure while binding parameters to cached plan.", e);
+      return null;
+    }
+  }
+
+  private static RelNode rewrite(RelNode node, LiteralReplacer replacer) {
+    final List<RelNode> inputs = new ArrayList<>(node.getInputs().size());
+    boolean changed = false;
+    for (RelNode input : node.getInputs()) {
+      final RelNode newInput = rewrite(input, replacer);
+      changed |= newInput != input;
+      inputs.add(newInput);
+    }
+    final RelNode copy = changed ? node.copy(node.getTraitSet(), inputs) : node;
+    return copy.accept(replacer);
+  }
+
+  /**
+   * Converts a parameter to a literal of the same type as a literal of the plan.
+   *
+   * @return the literal, or null if the value doesn't fit the type
+   */
+  private static RexLiteral convert(RexBuilder rexBuilder, SqlLiteral parameter, RexLiteral old) {
+    final RelDataType type = old.getType();
+    final SqlTypeName typeName = type.getSqlTypeName();
+    try {
+      if (parameter instanceof SqlNumericLiteral) {
+        final BigDecimal value = parameter.getValueAs(BigDecimal.class);
+        if (SqlTypeName.APPROX_TYPES.contains(typeName)) {
+          return rexBuilder.makeApproxLiteral(value, type);
+        }
+        if (!((SqlNumericLiteral) parameter).isExact()) {
+          return null;
+        }
+        switch (typeName) {
+          case TINYINT:
+            return fitsInteger(value, Byte.MIN_VALUE, Byte.MAX_VALUE)
+                ? rexBuilder.makeExactLiteral(value, type)
+                : null;
+          case SMALLINT:
+            return fitsInteger(value, Short.MIN_VALUE, Short.MAX_VALUE)
+                ? rexBuilder.makeExactLiteral(value, type)
+                : null;
+          case INTEGER:
+            return fitsInteger(value, Integer.MIN_VALUE, Integer.MAX_VALUE)
+                ? rexBuilder.makeExactLiteral(value, type)
+                : null;
+          case BIGINT:
+            return fitsInteger(value, Long.MIN_VALUE, Long.MAX_VALUE)
+                ? rexBuilder.makeExactLiteral(value, type)
+                : null;
+          case DECIMAL:
+            // throws if the value has more digits after the point than the type
+            final BigDecimal scaled = value.setScale(type.getScale());
+            return scaled.precision() <= type.getPrecision()
+                ? rexBuilder.makeExactLiteral(scaled, type)
+                : null;
+          default:
+            return null;
+        }
+      }
+      switch (typeName) {
+        case CHAR:
+        case VARCHAR:
+          final NlsString oldValue = old.getValueAs(NlsString.class);
+          final NlsString value = parameter.getValueAs(NlsString.class);
+          return rexBuilder.makeCharLiteral(
+              new NlsString(value.getValue(), oldValue.getCharsetName(), oldValue.getCollation()));
+        case DATE:
+          return rexBuilder.makeDateLiteral(parameter.getValueAs(DateString.class));
+        case TIME:
+          return rexBuilder.makeTimeLiteral(
+              parameter.getValueAs(TimeString.class), type.getPrecision());
+        case TIMESTAMP:
+          return rexBuilder.makeTimestampLiteral(
+              parameter.getValueAs(TimestampString.class), type.getPrecision());
+        default:
+          return null;
+      }
+    } catch (RuntimeException e) {
+      // the parameter is of another kind than the literal
+      return null;
+    }
+  }
+
+  private static boolean fitsInteger(BigDecimal value, long min, long max) {
+    return value.scale() <= 0
+        && value.compareTo(BigDecimal.valueOf(min)) >= 0
+        && value.compareTo(BigDecimal.valueOf(max)) <= 0;
+  }
+
+  /** Collects the literals of a plan, and which ones are compared against in filters. */
+  private static final class LiteralCollector {
+    private final List<RexLiteral> occurrences = new ArrayList<>();
+    // bindable literal to whether it filters the input of a join
+    private final Map<RexLiteral, Boolean> bindable = new IdentityHashMap<>();
+
+    /**
+     * @return false if the plan reads a reflection or hides some literals in a scan
+     */
+    private boolean collect(RelNode node, boolean underJoin) {
+      if (readsReflection(node)) {
+        LOGGER.debug("Plan not templatable: a reflection is used.");
+        return false;
+      }
+      if (hasPushedFilters(node)) {
+        LOGGER.debug("Plan not templatable: filters were pushed into {}.", node.getRelTypeName());
+        return false;
+      }
+      if (node instanceof ScanRelBase) {
+        try {
+          if (((ScanRelBase) node).getTableMetadata().getSplitRatio() < 1) {
+            LOGGER.debug("Plan not templatable: partitions of a dataset were pruned.");
+            return false;
+          }
+        } catch (Exception e) {
+          return false;
+        }
+      }
+
+      node.accept(
+          new RexShuttle() {
+            @Override
+            public RexNode visitLiteral(RexLiteral literal) {
+              occurrences.add(literal);
+              return literal;
+            }
+          });
+      if (node instanceof Filter) {
+        collectBindable(((Filter) node).getCondition(), underJoin);
+      }
+
+      final boolean join = underJoin || node instanceof Join;
+      for (RelNode input : node.getInputs()) {
+        if (!collect(input, join)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void collectBindable(RexNode condition, boolean underJoin) {
+      if (!(condition instanceof RexCall)) {
+        return;
+      }
+      final RexCall call = (RexCall) condition;
+      if (BINDABLE_COMPARISONS.contains(call.getKind())) {
+        for (RexNode operand : call.getOperands()) {
+          if (operand instanceof RexLiteral) {
+            bindable.put((RexLiteral) operand, underJoin);
+          }
+        }
+        return;
+      }
+      if (call.getKind() == SqlKind.AND || call.getKind() == SqlKind.OR) {
+        for (RexNode operand : call.getOperands()) {
+          collectBindable(operand, underJoin);
+        }
+      }
+    }
+
+    private static boolean readsReflection(RelNode node) {
+      final RelOptTable table;
+      if (node instanceof TableScan) {
+        table = node.getTable();
+      } else if (node instanceof TableFunctionPrel) {
+        table = ((TableFunctionPrel) node).getTable();
+      } else {
+        return false;
+      }
+      return table != null
+          && !table.getQualifiedName().isEmpty()
+          && ACCELERATOR_STORAGEPLUGIN_NAME.equals(table.getQualifiedName().get(0));
+    }
+
+    private static boolean hasPushedFilters(RelNode node) {
+      // runtime filters are built from the other side of a join, and don't depend on literals
+      if (node instanceof ParquetScanPrel) {
+        final ParquetScanPrel scan = (ParquetScanPrel) node;
+        return scan.hasFilter() || scan.getRowGroupFilter() != null;
+      }
+      if (node instanceof ScanPrelBase) {
+        return ((ScanPrelBase) node).hasFilter();
+      }
+      if (node instanceof FilterableScan) {
+        final FilterableScan scan = (FilterableScan) node;
+        return scan.getFilter() != null
+            || scan.getPartitionFilter() != null
+            || scan.getRowGroupFilter() != null;
+      }
+      if (node instanceof TableFunctionPrel) {
+        final TableFunctionContext context =
+            ((TableFunctionPrel) node).getTableFunctionConfig().getFunctionContext();
+        if (context == null) {
+          return false;
+        }
+        if (context instanceof ManifestScanTableFunctionContext) {
+          final ManifestScanFilters filters =
+              ((ManifestScanTableFunctionContext) context).getManifestScanFilters();
+          if (filters != null && filters.doesIcebergAnyColExpressionExists()) {
+            return true;
+          }
+        }
+        return context.getScanFilter() != null || context.getRowGroupFilter() != null;
+      }
+      if (node instanceof IcebergManifestListPrel) {
+        return ((IcebergManifestListPrel) node).getIcebergExpression() != null;
+      }
+      return false;
+    }
+  }
+
+  private static final class LiteralReplacer extends RexShuttle {
+    private final Map<RexLiteral, RexLiteral> replacements;
+
+    private LiteralReplacer(Map<RexLiteral, RexLiteral> replacements) {
+      this.replacements = replacements;
+    }
+
+    @Override
+    public RexNode visitLiteral(RexLiteral literal) {
+      final RexLiteral replacement = replacements.get(literal);
+      return replacement != null ? replacement : literal;
+    }
+  }
+}
@@ -15,8 +15,13 @@
  */
 package com.dremio.exec.planner.sql.handlers;
 
+import com.dremio.catalog.model.CatalogEntityKey;
 import com.dremio.catalog.model.dataset.TableVersionContext;
 import com.dremio.catalog.model.dataset.TableVersionType;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.exec.calcite.logical.ScanCrel;
+import com.dremio.exec.catalog.Catalog;
+import com.dremio.exec.ops.SnapshotDiffContext;
 import com.dremio.exec.planner.StatelessRelShuttleImpl;
 import com.dremio.exec.planner.acceleration.ExpansionNode;
 import com.dremio.exec.planner.acceleration.MaterializationList;
@@ -34,18 +39,23 @@ import com.dremio.exec.planner.sql.parser.DremioHint;
 import com.dremio.exec.planner.sql.parser.SqlDmlOperator;
 import com.dremio.exec.planner.sql.parser.UnsupportedOperatorsVisitor;
 import com.dremio.exec.proto.UserBitShared;
+import com.dremio.exec.store.TableMetadata;
 import com.dremio.exec.work.foreman.ForemanSetupException;
 import com.dremio.exec.work.foreman.SqlUnsupportedException;
 import com.dremio.options.OptionValue;
 import com.dremio.service.Pointer;
+import com.dremio.service.namespace.DatasetHelper;
 import com.dremio.service.namespace.NamespaceKey;
 import com.google.common.base.Stopwatch;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.RelRoot;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.hint.RelHint;
 import org.apache.calcite.rel.logical.LogicalProject;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.sql.SqlNode;
@@ -151,11 +161,12 @@ public class SqlToRelTransformer {
         .getObserver()
         .beginState(AttemptObserver.toEvent(UserBitShared.AttemptEvent.State.PLANNING));
 
-    final RelNode relNode =
+    RelNode relNode =
         convertSqlToRel(config, sqlValidatorAndToRelContext, validatedTypedSqlNode.getKey());
     UnsupportedQueryPlanVisitor.checkForUnsupportedQueryPlan(relNode);
     List<NamespaceKey> viewIdentifiers = collectViewIdentifiers(relNode);
     processReflectionHints(config, relNode);
+    relNode = processAppendedSinceHints(config, relNode);
 
     return new ConvertedRelNode.Builder()
         .withRelNode(relNode)
@@ -355,6 +366,92 @@ public class SqlToRelTransformer {
     }
   }
 
+  /**
+   * Restricts the scans of Iceberg tables hinted with {@link DremioHint#APPENDED_SINCE} to the data
+   * files added after the snapshot given as first hint option, and up to the snapshot given as
+   * optional second option. Reflections are disabled for the query, as a materialization of the
+   * table would not honor the restriction.
+   */
+  private static RelNode processAppendedSinceHints(SqlHandlerConfig config, RelNode relRaw) {
+    final Pointer<Boolean> applied = new Pointer<>(false);
+    final RelNode rel =
+        relRaw.accept(
+            new StatelessRelShuttleImpl() {
+              @Override
+              public RelNode visit(TableScan tableScan) {
+                if (!(tableScan instanceof ScanCrel)) {
+                  return tableScan;
+                }
+                final Optional<RelHint> hint =
+                    tableScan.getHints().stream()
+                        .filter(
+                            h ->
+                                h.hintName.equalsIgnoreCase(
+                                    DremioHint.APPENDED_SINCE.getHintName()))
+                        .findFirst();
+                if (hint.isEmpty()) {
+                  return tableScan;
+                }
+                applied.value = true;
+                return appendedSince(config, (ScanCrel) tableScan, hint.get());
+              }
+            });
+
+    if (applied.value) {
+      config
+          .getContext()
+          .getOptions()
+          .setOption(
+              OptionValue.createBoolean(
+                  OptionValue.OptionType.QUERY,
+                  DremioHint.NO_REFLECTIONS.getOption().getOptionName(),
+                  true));
+    }
+    return rel;
+  }
+
+  private static RelNode appendedSince(SqlHandlerConfig config, ScanCrel scan, RelHint hint) {
+    final TableMetadata tableMetadata = scan.getTableMetadata();
+    if (hint.listOptions.isEmpty() || hint.listOptions.size() > 2) {
+      throw UserException.validationError()
+          .message(
+              "Hint %s requires a begin and an optional end snapshot id, got %s.",
+              hint.hintName, hint.listOptions)
+          .buildSilently();
+    }
+    if (!DatasetHelper.isIcebergDataset(tableMetadata.getDatasetConfig())) {
+      throw UserException.validationError()
+          .message(
+              "Hint %s is only supported on Iceberg tables, %s is not an Iceberg table.",
+              hint.hintName, tableMetadata.getName())
+          .buildSilently();
+    }
+    final Catalog catalog = config.getContext().getCatalog();
+    final TableMetadata beginTableMetadata =
+        getTableSnapshot(catalog, tableMetadata, hint.listOptions.get(0));
+    final TableMetadata endTableMetadata =
+        hint.listOptions.size() == 2
+            ? getTableSnapshot(catalog, tableMetadata, hint.listOptions.get(1))
+            : tableMetadata;
+    return scan.withSnapshotDiffContext(
+        new SnapshotDiffContext(
+            beginTableMetadata,
+            endTableMetadata,
+            SnapshotDiffContext.FilterApplyOptions.FILTER_DATA_FILES));
+  }
+
+  private static TableMetadata getTableSnapshot(
+      Catalog catalog, TableMetadata tableMetadata, String snapshotId) {
+    return catalog
+        .getTableSnapshot(
+            CatalogEntityKey.newBuilder()
+                .keyComponents(tableMetadata.getName().getPathComponents())
+                .tableVersionContext(
+                    new TableVersionContext(TableVersionType.SNAPSHOT_ID, snapshotId))
+                .build())
+        .getDataset();
+  }
+
   private static List<NamespaceKey> collectViewIdentifiers(RelNode relNode) {
     List<NamespaceKey> viewIdentifiers = new ArrayList<>();
     relNode.accept(
@@ -269,6 +269,11 @@ public abstract class HandlerToPreparePlanBase<T> implements CommandRunner<T> {
       calls.add(observer -> observer.planFindMaterializations(millisTaken));
     }
 
+    @Override
+    public void planMaterializationCandidates(final int candidateCount, final long microsTaken) {
+      calls.add(observer -> observer.planMaterializationCandidates(candidateCount, microsTaken));
+    }
+
     @Override
     public void planNormalized(
         final long millisTaken, final List<RelWithInfo> normalizedQueryPlans) {
@@ -33,9 +33,11 @@ import com.dremio.exec.planner.physical.Prel;
 import com.dremio.exec.planner.physical.explain.PrelSequencer;
 import com.dremio.exec.planner.physical.visitor.WriterPathUpdater;
 import com.dremio.exec.planner.plancache.CachedPlan;
+import com.dremio.exec.planner.plancache.ParameterizedQuery;
 import com.dremio.exec.planner.plancache.PlanCache;
 import com.dremio.exec.planner.plancache.PlanCacheKey;
 import com.dremio.exec.planner.plancache.PlanCacheUtils;
+import com.dremio.exec.planner.plancache.PlanTemplate;
 import com.dremio.exec.planner.sql.SqlExceptionHelper;
 import com.dremio.exec.planner.sql.UncacheableFunctionDetector;
 import com.dremio.exec.planner.sql.handlers.ConvertedRelNode;
@@ -92,6 +94,18 @@ public class NormalHandler implements SqlToPlanHandler {
 
       prePlan(config, sql, sqlNode);
 
+      // parameterized before validation, which rewrites the query
+      final ParameterizedQuery parameterizedQuery =
+          plannerSettings.isParameterizedPlanCacheEnabled()
+                  && config.getResultMode().equals(ResultMode.EXEC)
+              ? ParameterizedQuery.of(sqlNode)
+              : null;
+      final PlanCacheKey templateKey =
+          parameterizedQuery != null
+              ? PlanCacheUtils.generateTemplateCacheKey(parameterizedQuery, config.getContext())
+              : null;
+      // always validate the query, so that privileges are checked and the observers get the
+      // validated row type and datasets. Only the planning is reused from the cache.
       convertedRelNode = SqlToRelTransformer.validateAndConvert(config, sqlNode);
       convertedRelNode = postConvertToRel(convertedRelNode);
 
@@ -108,8 +122,20 @@ public class NormalHandler implements SqlToPlanHandler {
       Span.current()
           .setAttribute("dremio.planner.cache.plan_cache_present_and_valid", (cachedPlan != null));
 
-      Prel prel;
-      if (!plannerSettings.isPlanCacheEnabled() || cachedPlan == null) {
+      Prel prel = null;
+      if (plannerSettings.isPlanCacheEnabled() && cachedPlan != null) {
+        prel = useCachedPlan(config, cachedPlan, cachedPlan.getPrel());
+      } else if (templateKey != null) {
+        final CachedPlan templatePlan = planCache.getTemplateIfPresentAndValid(config, templateKey);
+        final Prel boundPrel =
+            templatePlan != null ? templatePlan.getTemplate().bind(parameterizedQuery) : null;
+        Span.current().setAttribute("dremio.planner.cache.plan_template_used", boundPrel != null);
+        if (boundPrel != null) {
+          prel = useCachedPlan(config, templatePlan, boundPrel);
+        }
+      }
+
+      if (prel == null) {
         drel = DrelTransformer.convertToDrel(config, queryRelNode, validatedRowType);
         drel = postConvertToDrel(drel);
         if (config.getResultMode().equals(ResultMode.LOGICAL)) {
@@ -136,50 +162,12 @@ public class NormalHandler implements SqlToPlanHandler {
             sqlNode,
             catalog,
             uncacheableFunctionDetectedEventHandler.getUncacheableFunctions())) {
-          planCache.putCachedPlan(config, cachedKey, prel);
-        }
-      } else {
-        prel = cachedPlan.getPrel();
-
-        // After the plan has been cached during planning, the job could be canceled during
-        // execution.
-        // Reset the cancel flag in cached plan, otherwise the job will always be canceled.
-        prel.getCluster()
-            .getPlanner()
-            .getContext()
-            .unwrap(org.apache.calcite.util.CancelFlag.class)
-            .clearCancel();
-
-        AccelerationProfile accelerationProfile = cachedPlan.getAccelerationProfile();
-        config.getObserver().restoreAccelerationProfileFromCachedPlan(accelerationProfile);
-        config.getObserver().planCacheUsed(cachedPlan.updateUseCount());
-        Span.current()
-            .setAttribute("dremio.planner.cache.plan_used_count", cachedPlan.getUseCount());
-        // update writer if needed
-        final OptionManager options = config.getContext().getOptions();
-        final PlannerSettings.StoreQueryResultsPolicy storeQueryResultsPolicy =
-            Optional.ofNullable(options.getOption(STORE_QUERY_RESULTS.getOptionName()))
-                .map(
-                    o ->
-                        PlannerSettings.StoreQueryResultsPolicy.valueOf(
-                            o.getStringVal().toUpperCase(Locale.ROOT)))
-                .orElse(PlannerSettings.StoreQueryResultsPolicy.NO);
-        Span.current()
-            .setAttribute(
-                "dremio.planner.store_query_results_policy", storeQueryResultsPolicy.name());
-        if (storeQueryResultsPolicy
-            == PlannerSettings.StoreQueryResultsPolicy.PATH_AND_ATTEMPT_ID) {
-          // update writing path for this case only
-          prel = WriterPathUpdater.update(prel, config);
-        }
-
-        textPlan = PrelSequencer.getPlanText(prel, SqlExplainLevel.ALL_ATTRIBUTES);
-        final String jsonPlan = PrelSequencer.getPlanJson(prel, SqlExplainLevel.ALL_ATTRIBUTES);
-        if (LOGGER.isDebugEnabled()) {
-          LOGGER.debug(String.format("%s:\n%s", "Final Physical Transformation", textPlan));
+          final PlanTemplate template =
+              templateKey != null
+                  ? PlanTemplate.create(prel, parameterizedQuery, plannerSettings.useStatistics())
+                  : null;
+          planCache.putCachedPlan(config, cachedKey, prel, templateKey, template);
         }
-        config.getObserver().planText(textPlan, 0);
-        config.getObserver().planJsonPlan(jsonPlan);
       }
 
       prel = postConvertToPrel(prel);
@@ -200,6 +188,46 @@ public class NormalHandler implements SqlToPlanHandler {
     }
   }
 
+  private Prel useCachedPlan(SqlHandlerConfig config, CachedPlan cachedPlan, Prel prel) {
+    // After the plan has been cached during planning, the job could be canceled during
+    // execution.
+    // Reset the cancel flag in cached plan, otherwise the job will always be canceled.
+    prel.getCluster()
+        .getPlanner()
+        .getContext()
+        .unwrap(org.apache.calcite.util.CancelFlag.class)
+        .clearCancel();
+
+    AccelerationProfile accelerationProfile = cachedPlan.getAccelerationProfile();
+    config.getObserver().restoreAccelerationProfileFromCachedPlan(accelerationProfile);
+    config.getObserver().planCacheUsed(cachedPlan.updateUseCount());
+    Span.current().setAttribute("dremio.planner.cache.plan_used_count", cachedPlan.getUseCount());
+    // update writer if needed
+    final OptionManager options = config.getContext().getOptions();
+    final PlannerSettings.StoreQueryResultsPolicy storeQueryResultsPolicy =
+        Optional.ofNullable(options.getOption(STORE_QUERY_RESULTS.getOptionName()))
+            .map(
+                o ->
+                    PlannerSettings.StoreQueryResultsPolicy.valueOf(
+                        o.getStringVal().toUpperCase(Locale.ROOT)))
+            .orElse(PlannerSettings.StoreQueryResultsPolicy.NO);
+    Span.current()
+        .setAttribute("dremio.planner.store_query_results_policy", storeQueryResultsPolicy.name());
+    if (storeQueryResultsPolicy == PlannerSettings.StoreQueryResultsPolicy.PATH_AND_ATTEMPT_ID) {
+      // update writing path for this case only
+      prel = WriterPathUpdater.update(prel, config);
+    }
+
+    textPlan = PrelSequencer.getPlanText(prel, SqlExplainLevel.ALL_ATTRIBUTES);
+    final String jsonPlan = PrelSequencer.getPlanJson(prel, SqlExplainLevel.ALL_ATTRIBUTES);
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug(String.format("%s:\n%s", "Final Physical Transformation", textPlan));
+    }
+    config.getObserver().planText(textPlan, 0);
+    config.getObserver().planJsonPlan(jsonPlan);
+    return prel;
+  }
+
   @VisibleForTesting
   public Prel getPrel() {
     return prel;
@@ -24,6 +24,7 @@ import org.apache.calcite.rel.hint.HintStrategyTable;
 
 public enum DremioHint {
   BROADCAST("BROADCAST", HintStrategies.TABLE_SCAN),
+  APPENDED_SINCE("APPENDED_SINCE", HintStrategies.TABLE_SCAN),
   CONSIDER_REFLECTIONS("CONSIDER_REFLECTIONS", PlannerSettings.CONSIDER_REFLECTIONS),
   EXCLUDE_REFLECTIONS("EXCLUDE_REFLECTIONS", PlannerSettings.EXCLUDE_REFLECTIONS),
   CHOOSE_REFLECTIONS("CHOOSE_REFLECTIONS", PlannerSettings.CHOOSE_REFLECTIONS),
@@ -28,7 +28,9 @@ import com.dremio.datastore.api.LegacyKVStoreProvider;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.catalog.ConnectionReader;
 import com.dremio.exec.catalog.ViewCreatorFactory;
+import com.dremio.exec.compile.ClassTransformer;
 import com.dremio.exec.compile.CodeCompiler;
+import com.dremio.exec.compile.PersistentClassCache;
 import com.dremio.exec.enginemanagement.proto.EngineManagementProtos.EngineId;
 import com.dremio.exec.enginemanagement.proto.EngineManagementProtos.SubEngineId;
 import com.dremio.exec.expr.fn.FunctionImplementationRegistry;
@@ -73,6 +75,7 @@ import com.dremio.services.credentials.SecretsCreator;
 import com.dremio.services.fabric.api.FabricService;
 import com.google.common.collect.Sets;
 import java.net.InetAddress;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Set;
 import javax.inject.Provider;
@@ -307,7 +310,16 @@ public class ContextService implements Service, Provider<SabotContext> {
         FunctionImplementationRegistry.create(sConfig, classpathScan, optionManager, false);
     FunctionImplementationRegistry decimalFunctionImplementationRegistry =
         FunctionImplementationRegistry.create(sConfig, classpathScan, optionManager, true);
-    CodeCompiler compiler = new CodeCompiler(sConfig, optionManager);
+    PersistentClassCache classCache = null;
+    if (dremioConfig.hasPath(DremioConfig.COMPILED_CLASS_CACHE_PATH_STRING)) {
+      classCache =
+          new PersistentClassCache(
+              Paths.get(dremioConfig.getString(DremioConfig.COMPILED_CLASS_CACHE_PATH_STRING)),
+              () -> optionManager.getOption(ClassTransformer.CLASS_CACHE_MAX_SIZE_BYTES),
+              DremioVersionInfo.getVersion());
+      classCache.registerMetrics();
+    }
+    CodeCompiler compiler = new CodeCompiler(sConfig, optionManager, classCache);
     FileSystemWrapper fileSystemWrapper =
         new LoggedFileSystemWrapper(
             sConfig.getInstance(
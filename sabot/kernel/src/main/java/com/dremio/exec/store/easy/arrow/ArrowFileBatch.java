@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.arrow;
+
+import com.dremio.exec.cache.VectorAccessibleSerializable;
+import com.dremio.exec.expr.TypeHelper;
+import com.dremio.exec.proto.UserBitShared.RecordBatchDef;
+import com.dremio.exec.proto.UserBitShared.SerializedField;
+import com.dremio.exec.record.RecordBatchData;
+import com.dremio.exec.record.VectorContainer;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.types.SerializedFieldHelper;
+
+/**
+ * A record batch of an Arrow file, held as the buffers read for each of its fields. Vectors loaded
+ * from it share these buffers, so the batch can be loaded any number of times without reading the
+ * file or copying the data again.
+ *
+ * <p>The batch is reference counted: it is created with a single reference, which is released by
+ * {@link #close()}, and the buffers are released once all the references are.
+ */
+public final class ArrowFileBatch implements AutoCloseable {
+  private final BufferAllocator allocator;
+  private final RecordBatchDef batchDef;
+  private final List<ArrowBuf> buffers;
+  private final long sizeInBytes;
+  private final AtomicInteger refCount = new AtomicInteger(1);
+
+  private ArrowFileBatch(
+      BufferAllocator allocator, RecordBatchDef batchDef, List<ArrowBuf> buffers) {
+    this.allocator = allocator;
+    this.batchDef = batchDef;
+    this.buffers = ImmutableList.copyOf(buffers);
+    long size = 0;
+    for (ArrowBuf buf : buffers) {
+      size += buf.capacity();
+    }
+    this.sizeInBytes = size;
+  }
+
+  /**
+   * Reads a batch written by {@link ArrowRecordWriter} from the current position of the stream.
+   *
+   * @param input stream positioned at the start of the batch
+   * @param allocator allocator for the buffers of the batch
+   */
+  public static ArrowFileBatch read(InputStream input, BufferAllocator allocator)
+      throws IOException {
+    final RecordBatchDef batchDef = RecordBatchDef.parseDelimitedFrom(input);
+    if (batchDef.hasCarriesTwoByteSelectionVector()
+        && batchDef.getCarriesTwoByteSelectionVector()) {
+      throw new IOException("Arrow file batches are not expected to carry a selection vector");
+    }
+
+    final List<ArrowBuf> buffers = new ArrayList<>(batchDef.getFieldCount());
+    try {
+      for (SerializedField field : batchDef.getFieldList()) {
+        final ArrowBuf buf = allocator.buffer(field.getBufferLength());
+        buffers.add(buf);
+        VectorAccessibleSerializable.readIntoArrowBuf(input, buf, field.getBufferLength());
+      }
+    } catch (IOException | RuntimeException e) {
+      for (ArrowBuf buf : buffers) {
+        buf.close();
+      }
+      throw e;
+    }
+    return new ArrowFileBatch(allocator, batchDef, buffers);
+  }
+
+  public int getRecordCount() {
+    return batchDef.getRecordCount();
+  }
+
+  /** Size of the buffers held by the batch. */
+  public long getSizeInBytes() {
+    return sizeInBytes;
+  }
+
+  /**
+   * Loads new vectors over the buffers of the batch. The returned data holds its own references to
+   * the buffers, transferred to the given allocator so that it is accounted there and does not
+   * depend on the allocator of this batch, and must be closed independently of this batch.
+   *
+   * @param allocator allocator the returned data is transferred to
+   */
+  public RecordBatchData load(BufferAllocator allocator) throws IOException {
+    try (VectorContainer container = new VectorContainer()) {
+      final List<SerializedField> fields = batchDef.getFieldList();
+      for (int i = 0; i < fields.size(); i++) {
+        final SerializedField field = fields.get(i);
+        final ValueVector vector =
+            TypeHelper.getNewVector(SerializedFieldHelper.create(field), this.allocator);
+        container.add(vector);
+        TypeHelper.load(vector, field, buffers.get(i));
+      }
+      container.buildSchema();
+      container.setRecordCount(batchDef.getRecordCount());
+      // the transfer leaves the vectors of the container empty
+      return new RecordBatchData(container, allocator);
+    } catch (Exception e) {
+      throw new IOException("Failed to load Arrow file batch", e);
+    }
+  }
+
+  /**
+   * Adds a reference to the batch, unless all of them have already been released.
+   *
+   * @return whether a reference was added
+   */
+  public boolean tryRetain() {
+    while (true) {
+      final int count = refCount.get();
+      if (count == 0) {
+        return false;
+      }
+      if (refCount.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (refCount.decrementAndGet() == 0) {
+      for (ArrowBuf buf : buffers) {
+        buf.close();
+      }
+    }
+  }
+}
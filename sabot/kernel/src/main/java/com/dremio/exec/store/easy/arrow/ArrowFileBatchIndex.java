@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.arrow;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Index of the record batches of an Arrow file by the cumulative count of their records, to find
+ * the batch holding any record of the file with a binary search rather than a scan of the footer.
+ */
+public final class ArrowFileBatchIndex {
+  /** Number of records in the file up to the end of each batch. */
+  private final long[] endRecordCounts;
+
+  public ArrowFileBatchIndex(ArrowFileFooter footer) {
+    final List<ArrowRecordBatchSummary> batches =
+        footer.getBatchList() == null ? Collections.emptyList() : footer.getBatchList();
+    this.endRecordCounts = new long[batches.size()];
+
+    long recordCount = 0;
+    for (int i = 0; i < batches.size(); i++) {
+      recordCount += batches.get(i).getRecordCount();
+      endRecordCounts[i] = recordCount;
+    }
+  }
+
+  public int getBatchCount() {
+    return endRecordCounts.length;
+  }
+
+  public long getRecordCount() {
+    return endRecordCounts.length == 0 ? 0 : endRecordCounts[endRecordCounts.length - 1];
+  }
+
+  /**
+   * Finds the batch holding the given record. Empty batches never hold records, so they are
+   * skipped.
+   *
+   * @param recordIndex record number in file (0 based index)
+   * @return index of the batch, or the number of batches if the record is past the end of file
+   */
+  public int getBatchIndex(long recordIndex) {
+    int low = 0;
+    int high = endRecordCounts.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (endRecordCounts[mid] <= recordIndex) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /** Record number in file of the first record of the given batch. */
+  public long getBatchStart(int batchIndex) {
+    return batchIndex == 0 ? 0 : endRecordCounts[batchIndex - 1];
+  }
+
+  /** Number of records in the given batch. */
+  public int getBatchRecordCount(int batchIndex) {
+    return (int) (endRecordCounts[batchIndex] - getBatchStart(batchIndex));
+  }
+}
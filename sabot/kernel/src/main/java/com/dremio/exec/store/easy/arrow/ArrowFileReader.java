@@ -62,10 +62,30 @@ public class ArrowFileReader implements AutoCloseable {
   private static final org.slf4j.Logger logger =
       org.slf4j.LoggerFactory.getLogger(ArrowFileReader.class);
 
+  /** Cache of the batches read from Arrow files, shared by readers. */
+  public interface BatchCache {
+    /**
+     * Gets a batch of the given file, read with the given loader if not cached.
+     *
+     * @param path path of the file
+     * @param batchIndex index of the batch in the file footer
+     * @param loader reads the batch from the file
+     * @return the batch, with a reference for the caller to release
+     */
+    ArrowFileBatch get(Path path, int batchIndex, BatchLoader loader) throws IOException;
+  }
+
+  /** Reads a batch of a file, see {@link BatchCache}. */
+  @FunctionalInterface
+  public interface BatchLoader {
+    ArrowFileBatch load(BufferAllocator allocator) throws IOException;
+  }
+
   private final FileSystem dfs;
   private final ArrowFileMetadata metadata;
   private final BufferAllocator allocator;
   private final Path path;
+  private final BatchCache batchCache;
 
   private FSInputStream inputStream;
 
@@ -74,10 +94,23 @@ public class ArrowFileReader implements AutoCloseable {
       Path basePath,
       final ArrowFileMetadata metadata,
       final BufferAllocator allocator) {
+    this(dfs, basePath, metadata, allocator, null);
+  }
+
+  /**
+   * @param batchCache cache to get the batches from, or null to always read them from the file
+   */
+  public ArrowFileReader(
+      final FileSystem dfs,
+      Path basePath,
+      final ArrowFileMetadata metadata,
+      final BufferAllocator allocator,
+      final BatchCache batchCache) {
     this.dfs = dfs;
     this.metadata = metadata;
     this.allocator = allocator;
     this.path = basePath.resolve(metadata.getPath());
+    this.batchCache = batchCache;
   }
 
   private void openFile() throws IOException {
@@ -144,62 +177,72 @@ public class ArrowFileReader implements AutoCloseable {
         limit,
         metadata.getRecordCount());
 
-    openFile();
-
-    final VectorAccessibleSerializable vectorAccessibleSerializable =
-        new VectorAccessibleSerializable(allocator);
     final List<RecordBatchHolder> batches = Lists.newArrayList();
     final ArrowFileFooter footer = metadata.getFooter();
+    final ArrowFileBatchIndex batchIndex = new ArrowFileBatchIndex(footer);
 
-    long runningCount = 0;
     long remaining = limit;
-    final int numBatches = footer.getBatchList() == null ? 0 : footer.getBatchList().size();
-    for (int batchIndex = 0; batchIndex < numBatches; batchIndex++) {
-      ArrowRecordBatchSummary batchSummary = footer.getBatchList().get(batchIndex);
+    // Find the batch holding the start index, and read from there until the limit is reached
+    for (int index = batchIndex.getBatchIndex(start);
+        index < batchIndex.getBatchCount() && remaining > 0;
+        index++) {
+      final int currentBatchCount = batchIndex.getBatchRecordCount(index);
       // Skip past empty batches
-      if (batchSummary.getRecordCount() == 0) {
-        continue;
-      }
-
-      runningCount += batchSummary.getRecordCount();
-
-      // Skip batches until we reach a batch that contains the start index
-      if (start >= runningCount) {
-        // valid indices in up until the current batch are in range [0, runningCount - 1]
+      if (currentBatchCount == 0) {
         continue;
       }
 
-      final long currentBatchCount = batchSummary.getRecordCount();
-
-      // Seek to the place where the batch starts and read
-      inputStream.setPosition(batchSummary.getOffset());
-      vectorAccessibleSerializable.readFromStream(inputStream);
-      final VectorContainer vectorContainer = vectorAccessibleSerializable.get();
-
       // Find the start and end indices within the batch.
-      final int batchStart = Math.max(0, (int) (start - (runningCount - currentBatchCount)));
+      final int batchStart = (int) Math.max(0, start - batchIndex.getBatchStart(index));
       final int batchEnd = (int) Math.min(currentBatchCount, batchStart + remaining);
 
       final RecordBatchHolder batchHolder =
-          newRecordBatchHolder(
-              new RecordBatchData(vectorContainer, allocator), batchStart, batchEnd);
+          newRecordBatchHolder(readBatch(footer.getBatchList(), index), batchStart, batchEnd);
 
       batches.add(batchHolder);
 
       remaining -= batchHolder.size();
-
-      if (remaining == 0) {
-        break;
-      }
     }
 
     if (batches.isEmpty()) {
+      openFile();
       batches.add(getEmptyBatch());
     }
 
     return batches;
   }
 
+  private RecordBatchData readBatch(List<ArrowRecordBatchSummary> batchList, int batchIndex)
+      throws IOException {
+    final ArrowRecordBatchSummary batchSummary = batchList.get(batchIndex);
+    if (batchCache == null) {
+      // Seek to the place where the batch starts and read
+      seek(batchSummary.getOffset());
+      final VectorAccessibleSerializable vectorAccessibleSerializable =
+          new VectorAccessibleSerializable(allocator);
+      vectorAccessibleSerializable.readFromStream(inputStream);
+      return new RecordBatchData(vectorAccessibleSerializable.get(), allocator);
+    }
+
+    try (ArrowFileBatch batch =
+        batchCache.get(
+            path,
+            batchIndex,
+            cacheAllocator -> {
+              seek(batchSummary.getOffset());
+              return ArrowFileBatch.read(inputStream, cacheAllocator);
+            })) {
+      return batch.load(allocator);
+    }
+  }
+
+  private void seek(long position) throws IOException {
+    if (inputStream == null) {
+      openFile();
+    }
+    inputStream.setPosition(position);
+  }
+
   @Override
   public void close() throws IOException {
     if (inputStream != null) {
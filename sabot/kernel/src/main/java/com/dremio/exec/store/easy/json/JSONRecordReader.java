@@ -37,6 +37,7 @@ import com.dremio.exec.store.dfs.copyinto.CopyIntoExceptionUtils;
 import com.dremio.exec.store.dfs.easy.ExtendedEasyReaderProperties;
 import com.dremio.exec.store.easy.json.JsonProcessor.ReadState;
 import com.dremio.exec.store.easy.json.reader.CountingJsonReader;
+import com.dremio.exec.store.easy.json.reader.StructuralJsonReader;
 import com.dremio.exec.tablefunctions.copyerrors.ValidationErrorRowWriter;
 import com.dremio.exec.util.ColumnUtils;
 import com.dremio.exec.vector.complex.fn.JsonReader;
@@ -352,7 +353,7 @@ public class JSONRecordReader extends AbstractRecordReader {
           setupParser(preValidatorJsonReader);
           recordBatchReadingStatus = RecordBatchReadingStatus.PRE_VALIDATION;
         } else {
-          this.jsonReader =
+          final JsonReader reader =
               new JsonReader(
                   context.getManagedBuffer(),
                   ImmutableList.copyOf(getColumns()),
@@ -376,6 +377,11 @@ public class JSONRecordReader extends AbstractRecordReader {
                   isValidationMode,
                   validationErrorRowWriter,
                   processingStartTime);
+          this.jsonReader =
+              useStructuralIndex()
+                  ? new StructuralJsonReader(
+                      reader, output, ImmutableList.copyOf(getColumns()), sizeLimit, maxLeafLimit)
+                  : reader;
           setupParser(jsonReader);
         }
       }
@@ -397,6 +403,20 @@ public class JSONRecordReader extends AbstractRecordReader {
     }
   }
 
+  /**
+   * Whether documents can be parsed by {@link StructuralJsonReader}, which only reads files with
+   * the default type inference, and leaves copy into and its special modes to {@link JsonReader}.
+   */
+  private boolean useStructuralIndex() {
+    return fsPath != null
+        && context.getOptions().getOption(ExecConstants.JSON_STRUCTURAL_INDEX)
+        && !enableAllTextMode
+        && !readNumbersAsDouble
+        && !schemaImposedMode
+        && !isValidationMode
+        && copyIntoQueryProperties == null;
+  }
+
   private void setupParser(JsonProcessor jsonProcessor) throws IOException {
     if (fsPath != null) {
       jsonProcessor.setSource(stream);
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.json.reader;
+
+import com.google.common.base.Preconditions;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Bitmap of the structural characters of a JSON input: the quotes delimiting strings, and the
+ * braces, brackets, colons and commas found outside of strings. Slashes found outside of strings
+ * are reported as well, so that comments can be detected.
+ *
+ * <p>The input is classified a block of 64 bytes at a time. Each block is read eight bytes at a
+ * time, and the bytes equal to a character of interest are turned into one bit per byte without
+ * branching. Escaped quotes are then removed, and the bits between an opening and a closing quote
+ * are found with a prefix xor, so that only the escape sequences need a scalar loop.
+ */
+final class JsonStructuralIndex {
+  static final int BLOCK_SIZE = 64;
+
+  private static final VarHandle LONGS =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+  private static final long GATHER = 0x0102040810204080L;
+  private static final long QUOTES = '"' * ONES;
+  private static final long BACKSLASHES = '\\' * ONES;
+  private static final long COLONS = ':' * ONES;
+  private static final long COMMAS = ',' * ONES;
+  private static final long SLASHES = '/' * ONES;
+  // '[' and ']' only differ from '{' and '}' by this bit
+  private static final long BRACKET_BITS = 0x20 * ONES;
+  private static final long OPENING = '{' * ONES;
+  private static final long CLOSING = '}' * ONES;
+
+  private long[] bitmap = new long[0];
+  private int blocks;
+
+  /**
+   * Indexes the first bytes of the given buffer, discarding the previous index.
+   *
+   * @param length number of bytes to index, a multiple of {@link #BLOCK_SIZE}
+   */
+  void build(byte[] buf, int length) {
+    Preconditions.checkArgument(length % BLOCK_SIZE == 0, "length must be a multiple of 64");
+    blocks = length / BLOCK_SIZE;
+    if (bitmap.length < blocks) {
+      bitmap = new long[blocks];
+    }
+
+    // whether the first byte of the next block is escaped, resp. inside of a string
+    long escapedCarry = 0;
+    long inStringCarry = 0;
+    for (int block = 0; block < blocks; block++) {
+      final int offset = block * BLOCK_SIZE;
+      long quotes = 0;
+      long backslashes = 0;
+      long operators = 0;
+      for (int shift = 0; shift < BLOCK_SIZE; shift += 8) {
+        final long word = (long) LONGS.get(buf, offset + shift);
+        final long brackets = word | BRACKET_BITS;
+        quotes |= gather(zeroBytes(word ^ QUOTES)) << shift;
+        backslashes |= gather(zeroBytes(word ^ BACKSLASHES)) << shift;
+        operators |=
+            gather(
+                    zeroBytes(brackets ^ OPENING)
+                        | zeroBytes(brackets ^ CLOSING)
+                        | zeroBytes(word ^ COLONS)
+                        | zeroBytes(word ^ COMMAS)
+                        | zeroBytes(word ^ SLASHES))
+                << shift;
+      }
+
+      long escaped = escapedCarry;
+      long escapes = backslashes & ~escapedCarry;
+      escapedCarry = 0;
+      while (escapes != 0) {
+        final int bit = Long.numberOfTrailingZeros(escapes);
+        if (bit == BLOCK_SIZE - 1) {
+          escapedCarry = 1;
+          break;
+        }
+        escaped |= 1L << (bit + 1);
+        // an escaped backslash does not escape the next byte
+        escapes &= ~(3L << bit);
+      }
+
+      quotes &= ~escaped;
+      final long inString = prefixXor(quotes) ^ inStringCarry;
+      inStringCarry = inString >> (BLOCK_SIZE - 1);
+      bitmap[block] = (operators & ~inString) | quotes;
+    }
+  }
+
+  /**
+   * Returns the position of the first structural character at or after the given position, or -1 if
+   * there is none in the indexed bytes.
+   */
+  int next(int from) {
+    int block = from / BLOCK_SIZE;
+    if (block >= blocks) {
+      return -1;
+    }
+    long bits = bitmap[block] & (-1L << from);
+    while (bits == 0) {
+      if (++block == blocks) {
+        return -1;
+      }
+      bits = bitmap[block];
+    }
+    return block * BLOCK_SIZE + Long.numberOfTrailingZeros(bits);
+  }
+
+  /** Sets the high bit of each zero byte of the given word, and clears every other bit. */
+  private static long zeroBytes(long word) {
+    return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+  }
+
+  /** Packs the high bit of each byte of the given word into the low byte, first byte lowest. */
+  private static long gather(long highBits) {
+    return ((highBits >>> 7) * GATHER) >>> 56;
+  }
+
+  /** Sets each bit to the xor of itself and of all the lower bits. */
+  private static long prefixXor(long bits) {
+    bits ^= bits << 1;
+    bits ^= bits << 2;
+    bits ^= bits << 4;
+    bits ^= bits << 8;
+    bits ^= bits << 16;
+    bits ^= bits << 32;
+    return bits;
+  }
+}
@@ -0,0 +1,772 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.json.reader;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.store.easy.json.JsonProcessor;
+import com.dremio.exec.vector.complex.fn.FieldSelection;
+import com.dremio.exec.vector.complex.fn.JsonReader;
+import com.dremio.sabot.op.scan.OutputMutator;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.complex.writer.BaseWriter.ComplexWriter;
+import org.apache.calcite.util.Pair;
+
+/**
+ * JSON reader that parses flat documents of scalar values straight into the vectors of the output,
+ * in the style of simdjson: a first pass over each buffer of input finds the structural characters
+ * with {@link JsonStructuralIndex}, and a second pass walks from one structural character to the
+ * next, parsing the values in between.
+ *
+ * <p>Any other document is written by the given {@link JsonReader}, one document at a time: nested
+ * values, values of fields without a vector yet or with a vector of another type, strings or
+ * numbers the fast path does not handle, and anything the Jackson parser may reject. The delegate
+ * creates the vectors of new fields and raises schema changes exactly as when it reads the whole
+ * input, and the vectors it creates are used by the fast path for the next documents. When the
+ * input is not a sequence of objects, e.g. a top level array or an input with comments, the whole
+ * rest of the input is handed to the delegate.
+ */
+public class StructuralJsonReader implements JsonProcessor {
+
+  private static final int INITIAL_BUFFER_SIZE = 1 << 20;
+  // longer integers may not fit in a long
+  private static final int MAX_INTEGER_DIGITS = 18;
+  private static final int NEED_MORE = -1;
+  private static final int MALFORMED = -2;
+
+  private static final int STRING = 0;
+  private static final int BIGINT = 1;
+  private static final int FLOAT8 = 2;
+  private static final int BIT = 3;
+  private static final int OTHER = 4;
+  private static final int SKIPPED = 5;
+
+  private static final Column UNKNOWN = new Column(new byte[0], null, OTHER);
+
+  private static final VarHandle LONGS =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+  private static final long SPACES = ' ' * ONES;
+  private static final long BACKSLASHES = '\\' * ONES;
+
+  private static final JsonFactory FACTORY = new JsonFactory();
+
+  private final JsonReader delegate;
+  private final OutputMutator output;
+  private final FieldSelection selection;
+  private final int maxFieldSize;
+  private final int maxLeafLimit;
+  private final JsonStructuralIndex index = new JsonStructuralIndex();
+  private final Map<String, Column> columns = new HashMap<>();
+
+  private InputStream input;
+  private byte[] buf = new byte[INITIAL_BUFFER_SIZE];
+  private int limit;
+  private int position;
+  private boolean eof;
+  private boolean delegating;
+  private boolean delegated;
+  private int document;
+
+  // columns of the fields of the last document, in order, to match the next field names as bytes
+  private Column[] lastColumns = new Column[16];
+
+  // values of the current document, written once the whole document is parsed
+  private int valueCount;
+  private Column[] valueColumns = new Column[16];
+  private long[] valueLongs = new long[16];
+  private int[] valueStarts = new int[16];
+  private int[] valueEnds = new int[16];
+  private byte[][] valueBytes = new byte[16][];
+
+  public StructuralJsonReader(
+      JsonReader delegate,
+      OutputMutator output,
+      List<SchemaPath> columns,
+      int maxFieldSize,
+      int maxLeafLimit) {
+    this.delegate = delegate;
+    this.output = output;
+    this.selection = FieldSelection.getFieldSelection(columns);
+    this.maxFieldSize = maxFieldSize;
+    this.maxLeafLimit = maxLeafLimit;
+  }
+
+  @Override
+  public void setSource(InputStream is) throws IOException {
+    input = is;
+    limit = 0;
+    position = 0;
+    eof = false;
+    delegating = false;
+    index.build(buf, 0);
+  }
+
+  @Override
+  public void setSource(JsonNode node) {
+    delegating = true;
+    delegated = true;
+    delegate.setSource(node);
+  }
+
+  @Override
+  public ReadState write(ComplexWriter writer) throws IOException {
+    while (!delegating) {
+      final int start = index.next(position);
+      if (start < 0) {
+        if (!eof) {
+          fill(position);
+          continue;
+        }
+        if (isWhitespace(position, limit)) {
+          return ReadState.END_OF_STREAM;
+        }
+        delegateRemaining(position);
+        break;
+      }
+      if (buf[start] != '{' || !isWhitespace(position, start)) {
+        delegateRemaining(position);
+        break;
+      }
+
+      document++;
+      valueCount = 0;
+      int end = parseDocument(start);
+      boolean fastPath = end >= 0;
+      if (end == MALFORMED) {
+        end = findDocumentEnd(start);
+        fastPath = false;
+      }
+      if (end == NEED_MORE && !eof) {
+        fill(start);
+        continue;
+      }
+      if (end < 0) {
+        delegateRemaining(start);
+        break;
+      }
+
+      position = end;
+      if (!fastPath) {
+        return delegateDocument(writer, start, end);
+      }
+      writeValues(writer.rootAsStruct().getPosition());
+      return ReadState.WRITE_SUCCEED;
+    }
+    return delegate.write(writer);
+  }
+
+  /**
+   * Parses the flat document starting at the given position into the values of the current
+   * document.
+   *
+   * @return the position after the document, {@link #NEED_MORE} if the document does not end in the
+   *     indexed input, or {@link #MALFORMED} if the document must be parsed by the delegate
+   */
+  private int parseDocument(int start) {
+    int previous = start;
+    int name = index.next(start + 1);
+    if (name < 0) {
+      return NEED_MORE;
+    }
+    if (buf[name] == '}') {
+      return isWhitespace(start + 1, name) ? name + 1 : MALFORMED;
+    }
+
+    for (int ordinal = 0; ; ordinal++) {
+      if (buf[name] != '"' || !isWhitespace(previous + 1, name)) {
+        return MALFORMED;
+      }
+      final int nameEnd = index.next(name + 1);
+      if (nameEnd < 0) {
+        return NEED_MORE;
+      }
+      final int colon = index.next(nameEnd + 1);
+      if (colon < 0) {
+        return NEED_MORE;
+      }
+      if (buf[colon] != ':' || !isWhitespace(nameEnd + 1, colon)) {
+        return MALFORMED;
+      }
+      final int value = index.next(colon + 1);
+      if (value < 0) {
+        return NEED_MORE;
+      }
+      final Column column = column(ordinal, name + 1, nameEnd);
+      if (column == null) {
+        return MALFORMED;
+      }
+
+      final int next;
+      if (buf[value] == '"') {
+        final int valueEnd = index.next(value + 1);
+        if (valueEnd < 0) {
+          return NEED_MORE;
+        }
+        next = index.next(valueEnd + 1);
+        if (next < 0) {
+          return NEED_MORE;
+        }
+        if (!isWhitespace(colon + 1, value)
+            || !isWhitespace(valueEnd + 1, next)
+            || !addString(column, value + 1, valueEnd)) {
+          return MALFORMED;
+        }
+      } else if (buf[value] == ',' || buf[value] == '}') {
+        next = value;
+        if (!addScalar(column, colon + 1, value)) {
+          return MALFORMED;
+        }
+      } else {
+        // nested value
+        return MALFORMED;
+      }
+
+      if (valueCount > maxLeafLimit) {
+        return MALFORMED;
+      }
+      if (buf[next] == '}') {
+        return next + 1;
+      }
+      if (buf[next] != ',') {
+        return MALFORMED;
+      }
+      previous = next;
+      name = index.next(next + 1);
+      if (name < 0) {
+        return NEED_MORE;
+      }
+    }
+  }
+
+  /**
+   * Returns the column of the field with the given name, {@link #UNKNOWN} if the field is selected
+   * but has no vector yet, or null if the name can only be decoded by the delegate.
+   */
+  private Column column(int ordinal, int start, int end) {
+    if (ordinal < lastColumns.length) {
+      final Column predicted = lastColumns[ordinal];
+      if (predicted != null
+          && Arrays.equals(predicted.name, 0, predicted.name.length, buf, start, end)) {
+        return predicted;
+      }
+    } else {
+      lastColumns = Arrays.copyOf(lastColumns, ordinal * 2);
+    }
+
+    final String name =
+        isVerbatim(start, end) ? new String(buf, start, end - start, UTF_8) : decode(start, end);
+    if (name == null) {
+      return null;
+    }
+    Column column = columns.get(name);
+    if (column == null) {
+      final byte[] nameBytes = Arrays.copyOfRange(buf, start, end);
+      if (selection.getChild(name).isNeverValid()) {
+        column = new Column(nameBytes, null, SKIPPED);
+      } else {
+        final ValueVector vector = output.getVector(name);
+        if (vector == null) {
+          lastColumns[ordinal] = null;
+          return UNKNOWN;
+        }
+        column = new Column(nameBytes, vector, typeOf(vector));
+      }
+      columns.put(name, column);
+    }
+    lastColumns[ordinal] = column;
+    return column;
+  }
+
+  private static int typeOf(ValueVector vector) {
+    if (vector instanceof VarCharVector) {
+      return STRING;
+    } else if (vector instanceof BigIntVector) {
+      return BIGINT;
+    } else if (vector instanceof Float8Vector) {
+      return FLOAT8;
+    } else if (vector instanceof BitVector) {
+      return BIT;
+    }
+    return OTHER;
+  }
+
+  /** Adds the string between the given quotes, returns false if the delegate must parse it. */
+  private boolean addString(Column column, int start, int end) {
+    final boolean verbatim = isVerbatim(start, end);
+    if (column.type == SKIPPED) {
+      // still validated, as the delegate would reject the document
+      return verbatim || decode(start, end) != null;
+    }
+    if (column.type != STRING || column.document == document) {
+      return false;
+    }
+    byte[] bytes = null;
+    if (!verbatim) {
+      final String decoded = decode(start, end);
+      if (decoded == null) {
+        return false;
+      }
+      bytes = decoded.getBytes(UTF_8);
+    }
+    if ((bytes == null ? end - start : bytes.length) > maxFieldSize) {
+      return false;
+    }
+    final int i = addValue(column);
+    valueStarts[i] = start;
+    valueEnds[i] = end;
+    valueBytes[i] = bytes;
+    return true;
+  }
+
+  /**
+   * Adds the literal or number between the given positions, surrounded by white space. Returns
+   * false if the delegate must parse it.
+   */
+  private boolean addScalar(Column column, int start, int end) {
+    while (start < end && isWhitespace(buf[start])) {
+      start++;
+    }
+    while (end > start && isWhitespace(buf[end - 1])) {
+      end--;
+    }
+    if (start == end) {
+      return false;
+    }
+
+    final int type;
+    final long value;
+    switch (buf[start]) {
+      case 'n':
+        return isLiteral(start, end, "null");
+      case 't':
+        if (!isLiteral(start, end, "true")) {
+          return false;
+        }
+        type = BIT;
+        value = 1;
+        break;
+      case 'f':
+        if (!isLiteral(start, end, "false")) {
+          return false;
+        }
+        type = BIT;
+        value = 0;
+        break;
+      default:
+        final int digits = integerDigits(start, end);
+        if (digits > 0) {
+          if (digits > MAX_INTEGER_DIGITS) {
+            return false;
+          }
+          type = BIGINT;
+          value = parseLong(start, end);
+        } else if (digits == 0 && isNumber(start, end)) {
+          type = FLOAT8;
+          value =
+              Double.doubleToRawLongBits(
+                  Double.parseDouble(new String(buf, start, end - start, UTF_8)));
+        } else {
+          return false;
+        }
+    }
+
+    if (column.type == SKIPPED) {
+      return true;
+    }
+    if (column.type != type || column.document == document) {
+      return false;
+    }
+    valueLongs[addValue(column)] = value;
+    return true;
+  }
+
+  private int addValue(Column column) {
+    if (valueCount == valueColumns.length) {
+      final int length = valueCount * 2;
+      valueColumns = Arrays.copyOf(valueColumns, length);
+      valueLongs = Arrays.copyOf(valueLongs, length);
+      valueStarts = Arrays.copyOf(valueStarts, length);
+      valueEnds = Arrays.copyOf(valueEnds, length);
+      valueBytes = Arrays.copyOf(valueBytes, length);
+    }
+    column.document = document;
+    valueColumns[valueCount] = column;
+    return valueCount++;
+  }
+
+  private void writeValues(int row) {
+    for (int i = 0; i < valueCount; i++) {
+      final Column column = valueColumns[i];
+      switch (column.type) {
+        case STRING:
+          final byte[] bytes = valueBytes[i];
+          if (bytes == null) {
+            ((VarCharVector) column.vector)
+                .setSafe(row, buf, valueStarts[i], valueEnds[i] - valueStarts[i]);
+          } else {
+            ((VarCharVector) column.vector).setSafe(row, bytes, 0, bytes.length);
+          }
+          break;
+        case BIGINT:
+          ((BigIntVector) column.vector).setSafe(row, valueLongs[i]);
+          break;
+        case FLOAT8:
+          ((Float8Vector) column.vector).setSafe(row, Double.longBitsToDouble(valueLongs[i]));
+          break;
+        case BIT:
+          ((BitVector) column.vector).setSafe(row, (int) valueLongs[i]);
+          break;
+        default:
+          throw new IllegalStateException("Unexpected column type " + column.type);
+      }
+    }
+  }
+
+  /**
+   * Returns the position after the document starting at the given position, or {@link #NEED_MORE}
+   * if it does not end in the indexed input, or {@link #MALFORMED} if it contains a comment.
+   */
+  private int findDocumentEnd(int start) {
+    int depth = 0;
+    for (int i = start; i >= 0; i = index.next(i + 1)) {
+      switch (buf[i]) {
+        case '{':
+        case '[':
+          depth++;
+          break;
+        case '}':
+        case ']':
+          if (--depth == 0) {
+            return i + 1;
+          }
+          break;
+        case '/':
+          return MALFORMED;
+        default:
+          break;
+      }
+    }
+    return NEED_MORE;
+  }
+
+  private ReadState delegateDocument(ComplexWriter writer, int start, int end) throws IOException {
+    delegated = true;
+    delegate.setSource(Arrays.copyOfRange(buf, start, end));
+    final ReadState state = delegate.write(writer);
+    // the delegate may have replaced the vector of a field whose type changed
+    columns.clear();
+    Arrays.fill(lastColumns, null);
+    return state;
+  }
+
+  /** Hands the input from the given position on to the delegate. */
+  private void delegateRemaining(int start) throws IOException {
+    delegating = true;
+    delegated = true;
+    delegate.setSource(
+        new SequenceInputStream(new ByteArrayInputStream(buf, start, limit - start), input));
+  }
+
+  /**
+   * Moves the input from the given position to the start of the buffer, reads more input after it
+   * and indexes the buffer again.
+   */
+  private void fill(int from) throws IOException {
+    limit -= from;
+    System.arraycopy(buf, from, buf, 0, limit);
+    position -= Math.min(position, from);
+    if (limit == buf.length) {
+      buf = Arrays.copyOf(buf, buf.length * 2);
+    }
+    final int read = input.read(buf, limit, buf.length - limit);
+    if (read < 0) {
+      eof = true;
+    } else {
+      limit += read;
+    }
+
+    int length = limit - limit % JsonStructuralIndex.BLOCK_SIZE;
+    if (eof && length < limit) {
+      // pad the last block with white space
+      length += JsonStructuralIndex.BLOCK_SIZE;
+      Arrays.fill(buf, limit, length, (byte) ' ');
+    }
+    index.build(buf, length);
+  }
+
+  /**
+   * Whether the given bytes of a string are its value as is: no escape sequences, no control
+   * characters, and well-formed UTF-8.
+   */
+  private boolean isVerbatim(int start, int end) {
+    int i = start;
+    while (i < end) {
+      if (i + 8 <= end) {
+        final long word = (long) LONGS.get(buf, i);
+        final long special =
+            (word & HIGH_BITS)
+                | ((word - SPACES) & ~word & HIGH_BITS)
+                | ~(((word ^ BACKSLASHES) & LOW_BITS) + LOW_BITS | (word ^ BACKSLASHES) | LOW_BITS);
+        if (special == 0) {
+          i += 8;
+          continue;
+        }
+      }
+      final int b = buf[i] & 0xFF;
+      if (b < 0x80) {
+        if (b < 0x20 || b == '\\') {
+          return false;
+        }
+        i++;
+      } else {
+        final int length = utf8Length(i, end);
+        if (length == 0) {
+          return false;
+        }
+        i += length;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the length of the UTF-8 sequence at the given position, or 0 if it is not a well-formed
+   * sequence: overlong encodings, surrogates and code points above U+10FFFF are rejected.
+   */
+  private int utf8Length(int i, int end) {
+    final int b = buf[i] & 0xFF;
+    if (b >= 0xC2 && b <= 0xDF) {
+      return i + 1 < end && isContinuation(buf[i + 1] & 0xFF) ? 2 : 0;
+    }
+    if (b >= 0xE0 && b <= 0xEF) {
+      if (i + 2 >= end) {
+        return 0;
+      }
+      final int b1 = buf[i + 1] & 0xFF;
+      if ((b == 0xE0 && b1 < 0xA0)
+          || (b == 0xED && b1 > 0x9F)
+          || !isContinuation(b1)
+          || !isContinuation(buf[i + 2] & 0xFF)) {
+        return 0;
+      }
+      return 3;
+    }
+    if (b >= 0xF0 && b <= 0xF4) {
+      if (i + 3 >= end) {
+        return 0;
+      }
+      final int b1 = buf[i + 1] & 0xFF;
+      if ((b == 0xF0 && b1 < 0x90)
+          || (b == 0xF4 && b1 > 0x8F)
+          || !isContinuation(b1)
+          || !isContinuation(buf[i + 2] & 0xFF)
+          || !isContinuation(buf[i + 3] & 0xFF)) {
+        return 0;
+      }
+      return 4;
+    }
+    return 0;
+  }
+
+  private static boolean isContinuation(int b) {
+    return (b & 0xC0) == 0x80;
+  }
+
+  /** Decodes the string between the given quotes with Jackson, or returns null if it fails to. */
+  private String decode(int start, int end) {
+    try (JsonParser parser = FACTORY.createParser(buf, start - 1, end - start + 2)) {
+      parser.nextToken();
+      return parser.getText();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private boolean isLiteral(int start, int end, String literal) {
+    if (end - start != literal.length()) {
+      return false;
+    }
+    for (int i = 0; i < literal.length(); i++) {
+      if (buf[start + i] != literal.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of digits of the given integer, 0 if it is another number, or -1 if it is
+   * not a number.
+   */
+  private int integerDigits(int start, int end) {
+    int i = buf[start] == '-' ? start + 1 : start;
+    final int first = i;
+    if (i == end) {
+      return -1;
+    }
+    if (buf[i] == '0') {
+      i++;
+    } else if (buf[i] >= '1' && buf[i] <= '9') {
+      while (i < end && isDigit(buf[i])) {
+        i++;
+      }
+    } else {
+      return -1;
+    }
+    return i == end ? i - first : 0;
+  }
+
+  /** Whether the given bytes are a number with a fraction or an exponent, as JSON defines them. */
+  private boolean isNumber(int start, int end) {
+    int i = buf[start] == '-' ? start + 1 : start;
+    if (buf[i] == '0') {
+      i++;
+    } else {
+      while (i < end && isDigit(buf[i])) {
+        i++;
+      }
+    }
+    if (i < end && buf[i] == '.') {
+      final int fraction = ++i;
+      while (i < end && isDigit(buf[i])) {
+        i++;
+      }
+      if (i == fraction) {
+        return false;
+      }
+    }
+    if (i < end && (buf[i] == 'e' || buf[i] == 'E')) {
+      i++;
+      if (i < end && (buf[i] == '+' || buf[i] == '-')) {
+        i++;
+      }
+      final int exponent = i;
+      while (i < end && isDigit(buf[i])) {
+        i++;
+      }
+      if (i == exponent) {
+        return false;
+      }
+    }
+    return i == end;
+  }
+
+  private long parseLong(int start, int end) {
+    final boolean negative = buf[start] == '-';
+    long value = 0;
+    for (int i = negative ? start + 1 : start; i < end; i++) {
+      value = value * 10 + (buf[i] - '0');
+    }
+    return negative ? -value : value;
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  private boolean isWhitespace(int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (!isWhitespace(buf[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+  }
+
+  @Override
+  public int writeSuccessfulParseEvent(ComplexWriter writer) throws IOException {
+    return delegate.writeSuccessfulParseEvent(writer);
+  }
+
+  @Override
+  public void ensureAtLeastOneField(ComplexWriter writer) {
+    delegate.ensureAtLeastOneField(writer);
+  }
+
+  @Override
+  public UserException.Builder getExceptionWithContext(
+      UserException.Builder exceptionBuilder, String field) {
+    if (delegated) {
+      return delegate.getExceptionWithContext(exceptionBuilder, field);
+    }
+    if (field != null) {
+      exceptionBuilder.pushContext("Field ", field);
+    }
+    return exceptionBuilder;
+  }
+
+  @Override
+  public UserException.Builder getExceptionWithContext(Throwable exception, String field) {
+    return getExceptionWithContext(UserException.dataReadError(exception), field);
+  }
+
+  @Override
+  public void resetDataSizeCounter() {
+    delegate.resetDataSizeCounter();
+  }
+
+  /** Only lists add to the data size, and lists are always written by the delegate. */
+  @Override
+  public long getDataSizeCounter() {
+    return delegate.getDataSizeCounter();
+  }
+
+  @Override
+  public Pair<String, Long> getScrollAndTotalSizeThenSeekToHits() throws IOException {
+    return delegate.getScrollAndTotalSizeThenSeekToHits();
+  }
+
+  private static final class Column {
+    private final byte[] name;
+    private final ValueVector vector;
+    private final int type;
+    // last document with a value for this column, to leave duplicate fields to the delegate
+    private int document;
+
+    private Column(byte[] name, ValueVector vector, int type) {
+      this.name = name;
+      this.vector = vector;
+      this.type = type;
+    }
+  }
+}
@@ -211,6 +211,8 @@ public class CompliantTextRecordReader extends AbstractRecordReader {
     final TextOutput output;
     final int sizeLimit =
         Math.toIntExact(this.context.getOptions().getOption(ExecConstants.LIMIT_FIELD_SIZE_BYTES));
+    settings.setUseStructuralIndex(
+        this.context.getOptions().getOption(ExecConstants.TEXT_STRUCTURAL_INDEX));
     try {
       try {
         // setup Input using InputStream
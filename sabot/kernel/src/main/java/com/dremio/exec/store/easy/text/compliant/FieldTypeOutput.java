@@ -17,6 +17,7 @@ package com.dremio.exec.store.easy.text.compliant;
 
 import com.dremio.common.exceptions.FieldSizeLimitExceptionHelper;
 import com.dremio.exec.exception.SchemaChangeException;
+import io.netty.util.internal.PlatformDependent;
 import java.util.List;
 import org.apache.arrow.vector.ValueVector;
 
@@ -96,6 +97,22 @@ abstract class FieldTypeOutput extends TextOutput {
     rowHasData = true;
   }
 
+  @Override
+  public boolean append(long address, int length) {
+    if (!collect) {
+      return true;
+    }
+
+    if (currentDataPointer + length > maxCellLimit) {
+      // append byte by byte so that the size limit is reported for the exact size
+      return false;
+    }
+    appendBytes(currentDataPointer, address, length);
+    currentDataPointer += length;
+    rowHasData = true;
+    return true;
+  }
+
   @Override
   public boolean endField() {
     fieldOpen = false;
@@ -112,6 +129,12 @@ abstract class FieldTypeOutput extends TextOutput {
 
   protected abstract void appendByte(int currentIndex, byte b);
 
+  protected void appendBytes(int currentIndex, long address, int length) {
+    for (int i = 0; i < length; i++) {
+      appendByte(currentIndex + i, PlatformDependent.getByte(address + i));
+    }
+  }
+
   protected abstract void writeValueInCurrentVector(int index, int endIndex);
 
   @Override
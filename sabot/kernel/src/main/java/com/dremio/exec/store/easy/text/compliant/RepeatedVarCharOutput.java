@@ -22,6 +22,7 @@ import com.dremio.common.expression.SchemaPath;
 import com.dremio.exec.exception.SchemaChangeException;
 import com.dremio.sabot.op.scan.OutputMutator;
 import com.google.common.base.Preconditions;
+import io.netty.util.internal.PlatformDependent;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -214,6 +215,33 @@ class RepeatedVarCharOutput extends TextOutput {
     hasData = true;
   }
 
+  @Override
+  public boolean append(long address, int length) {
+    if (!collect) {
+      return true;
+    }
+
+    if (charLengthOffset + length > maxCellLimit) {
+      // append byte by byte so that the size limit is reported for the exact size
+      return false;
+    }
+    while (charLengthOffset + length > tmpBuf.capacity()) {
+      ArrowBuf oldBuf = tmpBuf;
+      // addref
+      oldBuf.getReferenceManager().retain();
+      try {
+        tmpBuf = tmpBuf.reallocIfNeeded(Math.min(tmpBuf.capacity() * 2, maxCellLimit + 1));
+        tmpBuf.setBytes(0, oldBuf, 0, oldBuf.capacity());
+      } finally {
+        oldBuf.getReferenceManager().release();
+      }
+    }
+    PlatformDependent.copyMemory(address, tmpBuf.memoryAddress() + charLengthOffset, length);
+    charLengthOffset += length;
+    hasData = true;
+    return true;
+  }
+
   @Override
   public long getRecordCount() {
     return recordCount;
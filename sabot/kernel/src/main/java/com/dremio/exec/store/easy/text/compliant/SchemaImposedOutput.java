@@ -26,6 +26,7 @@ import com.dremio.exec.store.iceberg.IcebergUtils;
 import com.dremio.exec.tablefunctions.copyerrors.ValidationErrorRowWriter;
 import com.dremio.exec.util.ColumnUtils;
 import com.dremio.sabot.op.scan.OutputMutator;
+import io.netty.util.internal.PlatformDependent;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -172,6 +173,15 @@ class SchemaImposedOutput extends FieldTypeOutput {
     this.fieldBytes[currentIndex] = b;
   }
 
+  @Override
+  protected void appendBytes(int currentIndex, long address, int length) {
+    final int lastIndex = currentIndex + length - 1;
+    while (lastIndex >= fieldBytes.length) {
+      expandTmpBufIfNecessary(lastIndex);
+    }
+    PlatformDependent.copyMemory(address, fieldBytes, currentIndex, length);
+  }
+
   @Override
   protected void writeValueInCurrentVector(int index, int endIndex) {
 
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.text.compliant;
+
+import io.netty.util.internal.PlatformDependent;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Structural index of a buffer of text input: a bitmap of the positions of the bytes that may start
+ * a field or a line delimiter. The index is built a word (8 bytes) at a time using SWAR (SIMD
+ * within a register) bit tricks, so that the reader can then jump over runs of ordinary bytes
+ * instead of dispatching on every one of them.
+ *
+ * <p>Only the first byte of multi-byte delimiters is indexed, a structural position is therefore a
+ * candidate that the reader still has to match against the full delimiter.
+ */
+final class StructuralIndex {
+  private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+  // gathers the high bit of each byte into the 8 most significant bits of the product
+  private static final long GATHER = 0x0102040810204080L;
+
+  private final byte[] structuralBytes;
+  private final long[] patterns;
+
+  private long[] bitmap = new long[0];
+  private int length;
+
+  StructuralIndex(byte... structuralBytes) {
+    this.structuralBytes = structuralBytes.clone();
+    this.patterns = new long[structuralBytes.length];
+    for (int i = 0; i < structuralBytes.length; i++) {
+      patterns[i] = (structuralBytes[i] & 0xFFL) * ONES;
+    }
+  }
+
+  /**
+   * Indexes the given memory region, replacing the previous index.
+   *
+   * @param address address of the first byte of the region
+   * @param length number of bytes in the region
+   */
+  void build(long address, int length) {
+    final int words = (length + 63) >>> 6;
+    if (bitmap.length < words) {
+      bitmap = new long[words];
+    } else {
+      Arrays.fill(bitmap, 0, words, 0L);
+    }
+    this.length = length;
+
+    final int fullWords = length >>> 3;
+    for (int i = 0; i < fullWords; i++) {
+      long word = PlatformDependent.getLong(address + ((long) i << 3));
+      if (!LITTLE_ENDIAN) {
+        word = Long.reverseBytes(word);
+      }
+      final long mask = structuralMask(word);
+      if (mask != 0) {
+        bitmap[i >>> 3] |= mask << ((i & 7) << 3);
+      }
+    }
+    for (int i = fullWords << 3; i < length; i++) {
+      if (isStructural(PlatformDependent.getByte(address + i))) {
+        bitmap[i >>> 6] |= 1L << i;
+      }
+    }
+  }
+
+  /**
+   * Returns the position of the first structural byte at or after the given position, or the length
+   * of the indexed region if there is none.
+   */
+  int nextStructural(int from) {
+    if (from >= length) {
+      return length;
+    }
+    int word = from >>> 6;
+    long bits = bitmap[word] & (-1L << from);
+    while (bits == 0) {
+      if (++word >= (length + 63) >>> 6) {
+        return length;
+      }
+      bits = bitmap[word];
+    }
+    return (word << 6) + Long.numberOfTrailingZeros(bits);
+  }
+
+  /**
+   * Returns an 8 bit mask in which bit i is set if the byte i (in memory order) of the word is one
+   * of the structural bytes.
+   */
+  long structuralMask(long word) {
+    long highBits = 0;
+    for (long pattern : patterns) {
+      highBits |= zeroBytes(word ^ pattern);
+    }
+    return ((highBits >>> 7) * GATHER) >>> 56;
+  }
+
+  private boolean isStructural(byte b) {
+    for (byte structuralByte : structuralBytes) {
+      if (b == structuralByte) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Sets the high bit of every zero byte of the word, and clears all the other bits. */
+  private static long zeroBytes(long word) {
+    return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+  }
+}
@@ -59,6 +59,12 @@ public class TextCountOutput extends TextOutput {
     // no-op
   }
 
+  @Override
+  public boolean append(long address, int length) {
+    // no-op
+    return true;
+  }
+
   @Override
   public void finishRecord() {
     if (fieldOpen) {
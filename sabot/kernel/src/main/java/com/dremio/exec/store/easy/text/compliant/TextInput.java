@@ -73,6 +73,9 @@ final class TextInput {
   private final long bStart;
   private final long bStartMinus1;
 
+  /** Index of the delimiter candidates of the current buffer, null when the index is disabled. */
+  private final StructuralIndex structuralIndex;
+
   /**
    * Whether there was a possible partial line separator on the previous read so we dropped it and
    * it should be appended to next read.
@@ -131,6 +134,11 @@ final class TextInput {
     this.bStartMinus1 = bStart - 1;
     this.underlyingBuffer =
         buffer.nioBuffer(0, LargeMemoryUtil.checkedCastToInt(buffer.capacity()));
+    this.structuralIndex =
+        settings.isUseStructuralIndex()
+            ? new StructuralIndex(
+                lineSeparator[0], normalizedLineSeparator, settings.getDelimiter()[0])
+            : null;
   }
 
   /**
@@ -214,6 +222,10 @@ final class TextInput {
 
     buffer.writerIndex(underlyingBuffer.limit());
     buffer.readerIndex(underlyingBuffer.position());
+
+    if (structuralIndex != null && length > 0) {
+      structuralIndex.build(bStart, length);
+    }
   }
 
   /**
@@ -328,6 +340,35 @@ final class TextInput {
     return byteChar;
   }
 
+  /**
+   * Number of bytes from the current position that can not start a line or field delimiter, as
+   * found by the structural index of the buffer. The run never includes the last byte of the
+   * buffer, which is left to {@link #nextChar()} so that the buffer is refilled as usual.
+   *
+   * @return length of the run, 0 if there is none or the structural index is disabled
+   */
+  int plainRunLength() {
+    if (structuralIndex == null || length <= 0) {
+      return 0;
+    }
+    final int from = bufferPtr - 1;
+    final int end = Math.min(structuralIndex.nextStructural(from), length - 1);
+    return Math.max(end - from, 0);
+  }
+
+  /** Address of the byte at the current position. */
+  long currentAddress() {
+    return bStartMinus1 + bufferPtr;
+  }
+
+  /**
+   * Moves the current position over bytes already consumed through {@link #currentAddress()}.
+   * Callers must not skip past {@link #plainRunLength()}.
+   */
+  void skip(int count) {
+    bufferPtr += count;
+  }
+
   /**
    * Number of lines read since the start of this split.
    *
@@ -16,6 +16,7 @@
 package com.dremio.exec.store.easy.text.compliant;
 
 import com.dremio.common.exceptions.UserException;
+import io.netty.util.internal.PlatformDependent;
 
 /* Base class for producing output record batches while dealing with
  * Text files.
@@ -73,6 +74,22 @@ abstract class TextOutput {
    */
   public abstract void append(byte data);
 
+  /**
+   * Appends a run of bytes at once. Outputs that can not take the whole run, for instance because
+   * it would exceed the field size limit, return false without appending anything so that the
+   * caller falls back to {@link #append(byte)}.
+   *
+   * @param address address of the first byte
+   * @param length number of bytes
+   * @return true if the bytes were appended
+   */
+  public boolean append(long address, int length) {
+    for (int i = 0; i < length; i++) {
+      append(PlatformDependent.getByte(address + i));
+    }
+    return true;
+  }
+
   /**
    * Completes the processing of a given record. Also completes the processing of the last field
    * being read.
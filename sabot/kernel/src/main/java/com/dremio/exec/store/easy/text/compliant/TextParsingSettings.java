@@ -49,6 +49,7 @@ public class TextParsingSettings {
   private int skipLines = 0;
   private boolean useRepeatedVarChar = true;
   private int numberOfRecordsToRead = -1;
+  private boolean useStructuralIndex = false;
 
   public void set(TextFormatConfig config) {
     this.quote = config.getQuote().getBytes(UTF_8);
@@ -348,4 +349,19 @@ public class TextParsingSettings {
   public void setTrimHeader(boolean trimHeaders) {
     this.trimHeader = trimHeaders;
   }
+
+  /**
+   * Indicates whether the input is indexed for the positions of delimiters a buffer at a time, so
+   * that the bytes of unquoted values are appended in bulk rather than one at a time (defaults to
+   * false).
+   *
+   * @return true if the structural index is used
+   */
+  public boolean isUseStructuralIndex() {
+    return useStructuralIndex;
+  }
+
+  public void setUseStructuralIndex(boolean useStructuralIndex) {
+    this.useStructuralIndex = useStructuralIndex;
+  }
 }
@@ -33,6 +33,7 @@ import com.dremio.service.namespace.file.proto.FileType;
 import com.univocity.parsers.common.TextParsingException;
 import com.univocity.parsers.csv.CsvParserSettings;
 import io.netty.buffer.NettyArrowBuf;
+import io.netty.util.internal.PlatformDependent;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.OptionalInt;
@@ -171,6 +172,10 @@ final class TextReader implements AutoCloseable {
       }
     }
 
+    public boolean append(long address, int length) {
+      return !canAppend || output.append(address, length);
+    }
+
     public void appendIgnoringWhitespace(byte cur) {
       if (canAppend) {
         output.appendIgnoringWhitespace(cur);
@@ -348,6 +353,8 @@ final class TextReader implements AutoCloseable {
    */
   private void parseValue() throws IOException {
     int continuousSpace = 0;
+    // whitespaces are dropped one at a time when trailing whitespaces are ignored without schema
+    final boolean appendRuns = !ignoreTrailingWhitespace || schemaImposedMode;
     try {
       while (!chIsDelimiter()) {
         if (ignoreTrailingWhitespace) {
@@ -364,6 +371,9 @@ final class TextReader implements AutoCloseable {
         } else {
           output.append(ch);
         }
+        if (appendRuns) {
+          continuousSpace = appendPlainRun(continuousSpace);
+        }
         parseNextChar();
       }
     } finally {
@@ -375,6 +385,34 @@ final class TextReader implements AutoCloseable {
     }
   }
 
+  /**
+   * Appends at once the bytes following the current one up to the next delimiter candidate, as
+   * found by the structural index of the input. Does nothing if the index is disabled or if the
+   * output can not take the whole run, in which case the bytes are parsed one at a time.
+   *
+   * @param continuousSpace number of trailing whitespaces of the value so far
+   * @return number of trailing whitespaces of the value after the run
+   */
+  private int appendPlainRun(int continuousSpace) {
+    final int run = input.plainRunLength();
+    if (run == 0) {
+      return continuousSpace;
+    }
+    final long address = input.currentAddress();
+    if (!output.append(address, run)) {
+      return continuousSpace;
+    }
+    input.skip(run);
+    if (!ignoreTrailingWhitespace) {
+      return continuousSpace;
+    }
+    int trailing = 0;
+    while (trailing < run && isWhite(PlatformDependent.getByte(address + run - 1 - trailing))) {
+      trailing++;
+    }
+    return trailing == run ? continuousSpace + run : trailing;
+  }
+
   /**
    * Function invoked when a quote is encountered. Function also handles the unescaped quotes
    * conditionally.
@@ -98,6 +98,7 @@ public interface InputStreamProviderFactory {
                   fs,
                   path,
                   fileLength,
+                  mTime,
                   maxFooterLen,
                   readFullFile,
                   footerIfKnown,
@@ -109,6 +110,7 @@ public interface InputStreamProviderFactory {
                   fs,
                   path,
                   fileLength,
+                  mTime,
                   maxFooterLen,
                   footerIfKnown,
                   context,
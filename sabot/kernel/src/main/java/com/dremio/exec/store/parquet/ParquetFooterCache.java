@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import com.dremio.exec.ExecConstants;
+import com.dremio.io.file.Path;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.scan.ScanOperator;
+import com.dremio.telemetry.api.metrics.MeterProviders;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+
+/**
+ * Node-wide cache of decoded parquet footers, keyed by file path, length and modification time.
+ *
+ * <p>The cache is shared by all the readers of an executor, so that splits of the same file read by
+ * different readers (or interleaved with splits of other files) don't have to fetch and decode the
+ * footer again. It is bounded by the estimated heap size of the cached footers.
+ *
+ * <p>Footers are only cached when the modification time of the file is known, since the path and
+ * length alone don't identify a version of the file.
+ */
+public final class ParquetFooterCache {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(ParquetFooterCache.class);
+
+  private static final String METRIC_PREFIX = "parquet.footer_cache";
+
+  // rough heap usage of the parts of a decoded footer
+  private static final int FOOTER_BASE_SIZE = 1024;
+  private static final int BLOCK_SIZE = 128;
+  private static final int COLUMN_CHUNK_SIZE = 512;
+  private static final int SCHEMA_COLUMN_SIZE = 256;
+
+  private static final ParquetFooterCache INSTANCE =
+      new ParquetFooterCache(
+          ExecConstants.PARQUET_FOOTER_CACHE_MAX_SIZE_BYTES.getDefault().getNumVal());
+
+  static {
+    INSTANCE.registerMetrics();
+  }
+
+  /** Loads the footer of a file on a cache miss. */
+  @FunctionalInterface
+  public interface FooterLoader {
+    ParquetMetadata load() throws IOException;
+  }
+
+  private final Cache<FooterKey, ParquetMetadata> cache;
+  private volatile long maxSizeBytes;
+
+  @VisibleForTesting
+  ParquetFooterCache(long maxSizeBytes) {
+    this.maxSizeBytes = maxSizeBytes;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumWeight(maxSizeBytes)
+            .weigher(
+                (FooterKey key, ParquetMetadata footer) ->
+                    (int) Math.min(Integer.MAX_VALUE, estimateSize(footer)))
+            .recordStats()
+            .build();
+  }
+
+  /**
+   * Returns the footer of the given file, from the node-wide cache if enabled and possible.
+   *
+   * @param context operator context used to look up the cache options and record hits and misses,
+   *     may be null in which case the cache is bypassed
+   * @param path path of the file
+   * @param fileLength length of the file
+   * @param mTime modification time of the file, or a non-positive value if unknown
+   * @param loader loads the footer on a cache miss
+   * @return a footer owned by the caller
+   */
+  public static MutableParquetMetadata getFooter(
+      OperatorContext context, Path path, long fileLength, long mTime, FooterLoader loader)
+      throws IOException {
+    if (context == null
+        || mTime <= 0
+        || fileLength <= 0
+        || !context.getOptions().getOption(ExecConstants.PARQUET_FOOTER_CACHE_ENABLED)) {
+      return new MutableParquetMetadata(loader.load(), path.getName());
+    }
+
+    INSTANCE.resize(context.getOptions());
+    return new MutableParquetMetadata(
+        INSTANCE.get(new FooterKey(path.toString(), fileLength, mTime), loader, context.getStats()),
+        path.getName());
+  }
+
+  @VisibleForTesting
+  ParquetMetadata get(FooterKey key, FooterLoader loader, OperatorStats stats) throws IOException {
+    ParquetMetadata footer = cache.getIfPresent(key);
+    if (footer != null) {
+      addStat(stats, ScanOperator.Metric.NUM_FOOTER_CACHE_HITS);
+    } else {
+      addStat(stats, ScanOperator.Metric.NUM_FOOTER_CACHE_MISSES);
+      // concurrent misses on the same file may both read the footer, which is harmless
+      footer = loader.load();
+      cache.put(key, footer);
+    }
+    return copyOf(footer);
+  }
+
+  private static void addStat(OperatorStats stats, ScanOperator.Metric metric) {
+    if (stats != null) {
+      stats.addLongStat(metric, 1);
+    }
+  }
+
+  /**
+   * {@link MutableParquetMetadata} trims the list of row groups of the footer it wraps in place, so
+   * every reader gets its own list. The row groups themselves are never modified.
+   */
+  private static ParquetMetadata copyOf(ParquetMetadata footer) {
+    return new ParquetMetadata(footer.getFileMetaData(), new ArrayList<>(footer.getBlocks()));
+  }
+
+  private void resize(OptionManager options) {
+    final long newMaxSizeBytes =
+        options.getOption(ExecConstants.PARQUET_FOOTER_CACHE_MAX_SIZE_BYTES);
+    if (newMaxSizeBytes != maxSizeBytes) {
+      maxSizeBytes = newMaxSizeBytes;
+      cache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(newMaxSizeBytes));
+      logger.info("Resized parquet footer cache to {} bytes", newMaxSizeBytes);
+    }
+  }
+
+  private void registerMetrics() {
+    MeterProviders.newGauge(
+        METRIC_PREFIX + ".hits", "Parquet footer cache hits", () -> cache.stats().hitCount());
+    MeterProviders.newGauge(
+        METRIC_PREFIX + ".misses", "Parquet footer cache misses", () -> cache.stats().missCount());
+    MeterProviders.newGauge(
+        METRIC_PREFIX + ".evictions",
+        "Parquet footer cache evictions",
+        () -> cache.stats().evictionCount());
+    MeterProviders.newGauge(
+        METRIC_PREFIX + ".size_bytes",
+        "Estimated heap size of the cached parquet footers",
+        () -> cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L));
+  }
+
+  @VisibleForTesting
+  Cache<FooterKey, ParquetMetadata> getCache() {
+    return cache;
+  }
+
+  /** Estimates the heap size of a decoded footer. */
+  @VisibleForTesting
+  static long estimateSize(ParquetMetadata footer) {
+    long size = FOOTER_BASE_SIZE;
+    if (footer.getFileMetaData() != null) {
+      size += (long) SCHEMA_COLUMN_SIZE * footer.getFileMetaData().getSchema().getColumns().size();
+      final Map<String, String> keyValues = footer.getFileMetaData().getKeyValueMetaData();
+      if (keyValues != null) {
+        for (Map.Entry<String, String> entry : keyValues.entrySet()) {
+          size += 2L * (entry.getKey().length() + entry.getValue().length());
+        }
+      }
+    }
+    for (BlockMetaData block : footer.getBlocks()) {
+      if (block != null) {
+        size += BLOCK_SIZE + (long) COLUMN_CHUNK_SIZE * block.getColumns().size();
+      }
+    }
+    return size;
+  }
+
+  /** Identifies a version of a file. */
+  @VisibleForTesting
+  static final class FooterKey {
+    private final String path;
+    private final long length;
+    private final long mTime;
+
+    FooterKey(String path, long length, long mTime) {
+      this.path = path;
+      this.length = length;
+      this.mTime = mTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      FooterKey that = (FooterKey) o;
+      return length == that.length && mTime == that.mTime && path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, length, mTime);
+    }
+
+    @Override
+    public String toString() {
+      return path + " (length " + length + ", mtime " + mTime + ")";
+    }
+  }
+}
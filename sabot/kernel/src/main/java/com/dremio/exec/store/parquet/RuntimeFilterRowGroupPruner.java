@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import com.dremio.exec.util.ValueListFilter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.function.Supplier;
+import org.apache.arrow.vector.types.Types.MinorType;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.internal.column.columnindex.ColumnIndex;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.LogicalTypeAnnotation.IntLogicalTypeAnnotation;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+/**
+ * Decides whether a row group can be skipped because none of its rows can pass a non-partition
+ * column runtime filter, before any of its pages are read.
+ *
+ * <p>The value range of the column is first taken from the row group statistics of the footer. If
+ * these overlap the values of the filter, the page index of the column is checked next: the row
+ * group is also skipped when every one of its pages is out of range, which happens when the filter
+ * values fall into gaps between pages of sorted or clustered data.
+ *
+ * <p>Only INT and BIGINT filters are used, since both the filter values and the parquet statistics
+ * of these are plain signed integers.
+ */
+final class RuntimeFilterRowGroupPruner {
+
+  private RuntimeFilterRowGroupPruner() {}
+
+  /**
+   * @param filter value list filter on the column
+   * @param column column chunk of the row group
+   * @param columnIndex supplies the page index of the column chunk, or null if it has none. Only
+   *     called if the row group statistics don't allow skipping
+   * @return true if no row of the column chunk can pass the filter
+   */
+  static boolean canSkip(
+      ValueListFilter filter, ColumnChunkMetaData column, Supplier<ColumnIndex> columnIndex) {
+    if (!isSupported(filter, column.getPrimitiveType())) {
+      return false;
+    }
+    if (canSkip(filter, column.getStatistics(), column.getValueCount())) {
+      return true;
+    }
+    if (column.getColumnIndexReference() == null) {
+      return false;
+    }
+    final ColumnIndex index = columnIndex.get();
+    return index != null && canSkipAllPages(filter, column.getPrimitiveType(), index);
+  }
+
+  static boolean isSupported(ValueListFilter filter, PrimitiveType type) {
+    if (filter == null
+        || !filter.isFixedWidth()
+        || filter.isBoolField()
+        || filter.getValueCount() < 0) {
+      return false;
+    }
+    if (!(filter.getFieldType() == MinorType.INT && filter.getBlockSize() == 4)
+        && !(filter.getFieldType() == MinorType.BIGINT && filter.getBlockSize() == 8)) {
+      return false;
+    }
+    if (type.getPrimitiveTypeName() != PrimitiveTypeName.INT32
+        && type.getPrimitiveTypeName() != PrimitiveTypeName.INT64) {
+      return false;
+    }
+    final LogicalTypeAnnotation annotation = type.getLogicalTypeAnnotation();
+    return annotation == null
+        || (annotation instanceof IntLogicalTypeAnnotation
+            && ((IntLogicalTypeAnnotation) annotation).isSigned());
+  }
+
+  /**
+   * @param filter value list filter on the column
+   * @param stats statistics of the column chunk
+   * @param valueCount number of values, including nulls, in the column chunk
+   * @return true if no value of the column chunk can pass the filter
+   */
+  static boolean canSkip(ValueListFilter filter, Statistics<?> stats, long valueCount) {
+    if (stats == null || stats.isEmpty()) {
+      return false;
+    }
+    if (!stats.hasNonNullValue()) {
+      // min and max may just not have been written, so only trust the null count. nulls only
+      // match if the build side had nulls too
+      return stats.isNumNullsSet() && stats.getNumNulls() == valueCount && !filter.isContainsNull();
+    }
+    if (filter.isContainsNull() && (!stats.isNumNullsSet() || stats.getNumNulls() > 0)) {
+      return false;
+    }
+    return !mightContainAny(
+        filter,
+        ((Number) stats.genericGetMin()).longValue(),
+        ((Number) stats.genericGetMax()).longValue());
+  }
+
+  static boolean canSkipAllPages(ValueListFilter filter, PrimitiveType type, ColumnIndex index) {
+    final List<Boolean> nullPages = index.getNullPages();
+    final List<Long> nullCounts = index.getNullCounts();
+    final List<ByteBuffer> minValues = index.getMinValues();
+    final List<ByteBuffer> maxValues = index.getMaxValues();
+    final boolean isInt32 = type.getPrimitiveTypeName() == PrimitiveTypeName.INT32;
+    for (int page = 0; page < nullPages.size(); page++) {
+      if (filter.isContainsNull() && (nullCounts == null || nullCounts.get(page) > 0)) {
+        return false;
+      }
+      if (nullPages.get(page)) {
+        continue;
+      }
+      if (mightContainAny(
+          filter, decode(minValues.get(page), isInt32), decode(maxValues.get(page), isInt32))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long decode(ByteBuffer value, boolean isInt32) {
+    final ByteBuffer buffer = value.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    return isInt32 ? buffer.getInt(buffer.position()) : buffer.getLong(buffer.position());
+  }
+
+  /** Binary searches the sorted values of the filter for one in [min, max]. */
+  static boolean mightContainAny(ValueListFilter filter, long min, long max) {
+    int low = 0;
+    int high = filter.getValueCount();
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (valueAt(filter, mid) < min) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low < filter.getValueCount() && valueAt(filter, low) <= max;
+  }
+
+  private static long valueAt(ValueListFilter filter, int index) {
+    return filter.getBlockSize() == 4
+        ? filter.valOnlyBuf().getInt((long) index * 4)
+        : filter.valOnlyBuf().getLong((long) index * 8);
+  }
+}
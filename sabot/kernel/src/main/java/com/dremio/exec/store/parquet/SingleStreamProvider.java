@@ -38,6 +38,7 @@ public class SingleStreamProvider implements InputStreamProvider {
   private final Path path;
   private final BufferAllocator allocator;
   private final long fileLength;
+  private final long mTime;
   private final long maxFooterLen;
   private final boolean readFullFile;
   private BulkInputStream stream;
@@ -60,9 +61,36 @@ public class SingleStreamProvider implements InputStreamProvider {
       boolean readColumnOffsetIndices,
       ParquetFilters parquetFilters,
       ParquetFilterCreator parquetFilterCreator) {
+    this(
+        fs,
+        path,
+        fileLength,
+        -1,
+        maxFooterLen,
+        readFullFile,
+        footer,
+        context,
+        readColumnOffsetIndices,
+        parquetFilters,
+        parquetFilterCreator);
+  }
+
+  public SingleStreamProvider(
+      FileSystem fs,
+      Path path,
+      long fileLength,
+      long mTime,
+      long maxFooterLen,
+      boolean readFullFile,
+      MutableParquetMetadata footer,
+      OperatorContext context,
+      boolean readColumnOffsetIndices,
+      ParquetFilters parquetFilters,
+      ParquetFilterCreator parquetFilterCreator) {
     this.fs = fs;
     this.path = path;
     this.fileLength = fileLength;
+    this.mTime = mTime;
     this.maxFooterLen = maxFooterLen;
     this.readFullFile = readFullFile;
     this.footer = footer;
@@ -167,9 +195,14 @@ public class SingleStreamProvider implements InputStreamProvider {
     if (footer == null) {
       SingletonParquetFooterCache footerCache = new SingletonParquetFooterCache();
       footer =
-          new MutableParquetMetadata(
-              footerCache.getFooter(getStream(null), path.toString(), fileLength, fs, maxFooterLen),
-              path.getName());
+          ParquetFooterCache.getFooter(
+              context,
+              path,
+              fileLength,
+              mTime,
+              () ->
+                  footerCache.getFooter(
+                      getStream(null), path.toString(), fileLength, fs, maxFooterLen));
     }
     return footer;
   }
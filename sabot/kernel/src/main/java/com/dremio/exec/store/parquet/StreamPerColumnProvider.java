@@ -32,6 +32,7 @@ public class StreamPerColumnProvider implements InputStreamProvider {
   private final FileSystem fs;
   private final Path path;
   private final long length;
+  private final long mTime;
   private MutableParquetMetadata footer;
   private final long maxFooterLen;
   private boolean readColumnOffsetIndexes;
@@ -53,9 +54,34 @@ public class StreamPerColumnProvider implements InputStreamProvider {
       boolean readColumnOffsetIndexes,
       ParquetFilters parquetFilters,
       ParquetFilterCreator parquetFilterCreator) {
+    this(
+        fs,
+        path,
+        length,
+        -1,
+        maxFooterLen,
+        footer,
+        context,
+        readColumnOffsetIndexes,
+        parquetFilters,
+        parquetFilterCreator);
+  }
+
+  public StreamPerColumnProvider(
+      FileSystem fs,
+      Path path,
+      long length,
+      long mTime,
+      long maxFooterLen,
+      MutableParquetMetadata footer,
+      OperatorContext context,
+      boolean readColumnOffsetIndexes,
+      ParquetFilters parquetFilters,
+      ParquetFilterCreator parquetFilterCreator) {
     this.fs = fs;
     this.path = path;
     this.length = length;
+    this.mTime = mTime;
     this.maxFooterLen = maxFooterLen;
     this.footer = footer;
     this.readColumnOffsetIndexes = readColumnOffsetIndexes;
@@ -145,9 +171,14 @@ public class StreamPerColumnProvider implements InputStreamProvider {
     if (footer == null) {
       SingletonParquetFooterCache footerCache = new SingletonParquetFooterCache();
       footer =
-          new MutableParquetMetadata(
-              footerCache.getFooter(getStream(null), path.toString(), length, fs, maxFooterLen),
-              path.getName());
+          ParquetFooterCache.getFooter(
+              context,
+              path,
+              length,
+              mTime,
+              () ->
+                  footerCache.getFooter(
+                      getStream(null), path.toString(), length, fs, maxFooterLen));
     }
     return footer;
   }
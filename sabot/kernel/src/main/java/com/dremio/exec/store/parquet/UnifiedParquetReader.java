@@ -82,6 +82,7 @@ import org.apache.parquet.compression.CompressionCodecFactory;
 import org.apache.parquet.hadoop.CodecFactory;
 import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.internal.column.columnindex.ColumnIndex;
 import org.apache.parquet.io.InvalidRecordException;
 import org.apache.parquet.schema.MessageType;
 import org.apache.parquet.schema.OriginalType;
@@ -252,7 +253,8 @@ public class UnifiedParquetReader implements RecordReader {
       this.validityBuf = context.getAllocator().buffer(maxValidityBufSize);
     }
 
-    final ExecutionPath execPath = getExecutionPath();
+    final ExecutionPath execPath =
+        canSkipRowGroupWithRuntimeFilters() ? ExecutionPath.SKIP_ALL : getExecutionPath();
     delegates = execPath.getReaders(this);
 
     Preconditions.checkArgument(
@@ -1043,6 +1045,72 @@ public class UnifiedParquetReader implements RecordReader {
         throws ExecutionSetupException;
   }
 
+  /**
+   * Checks the non-partition column runtime filters received so far against the statistics and page
+   * indexes of the row group, so that a row group none of whose rows can pass them isn't read.
+   */
+  private boolean canSkipRowGroupWithRuntimeFilters() {
+    if (runtimeFilters.isEmpty()
+        || !context.getOptions().getOption(ExecConstants.ENABLE_RUNTIME_FILTER_ROW_GROUP_PRUNING)
+        || readEntry.getRowGroupIndex() >= footer.getBlocks().size()) {
+      return false;
+    }
+    final BlockMetaData block = footer.getBlocks().get(readEntry.getRowGroupIndex());
+    if (block == null) {
+      return false;
+    }
+
+    for (RuntimeFilter runtimeFilter : runtimeFilters) {
+      for (CompositeColumnFilter filter : runtimeFilter.getNonPartitionColumnFilters()) {
+        if (filter.getValueList() == null) {
+          continue;
+        }
+        final String parquetColumn =
+            columnResolver.getParquetColumnName(filter.getColumnsList().get(0));
+        final ColumnChunkMetaData column = findColumn(block, parquetColumn);
+        if (column != null
+            && RuntimeFilterRowGroupPruner.canSkip(
+                filter.getValueList(), column, () -> readColumnIndex(column))) {
+          logger.debug(
+              "Skipping row group {} of {}, runtime filter on {} matches none of its rows",
+              readEntry.getRowGroupIndex(),
+              readEntry.getPath(),
+              parquetColumn);
+          addMetricValue(Metric.NUM_ROW_GROUPS_PRUNED_BY_RUNTIME_FILTER, 1L);
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static ColumnChunkMetaData findColumn(BlockMetaData block, String parquetColumn) {
+    if (parquetColumn == null) {
+      return null;
+    }
+    for (ColumnChunkMetaData column : block.getColumns()) {
+      if (column.getPath().size() == 1
+          && column.getPath().toDotString().equalsIgnoreCase(parquetColumn)) {
+        return column;
+      }
+    }
+    return null;
+  }
+
+  private ColumnIndex readColumnIndex(ColumnChunkMetaData column) {
+    try (BulkInputStream inputStream =
+            BulkInputStream.wrap(Streams.wrap(fs.open(Path.of(readEntry.getPath()))));
+        ColumnIndexProvider provider =
+            new ColumnIndexProvider(
+                inputStream, context.getAllocator(), Collections.singletonList(column))) {
+      addMetricValue(Metric.COLUMN_INDEX_READ, 1L);
+      return provider.getColumnIndex(column);
+    } catch (IOException e) {
+      logger.debug("Unable to read the column index of {}", column.getPath(), e);
+      return null;
+    }
+  }
+
   private boolean isVectorizableNonPartitionColFilterPresent() {
     return this.runtimeFilters.stream()
         .flatMap(f -> f.getNonPartitionColumnFilters().stream())
@@ -23,8 +23,10 @@ import com.dremio.sabot.op.spi.TerminalOperator;
 import com.dremio.sabot.task.Task.State;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Responsible for pumping data between operators. Moves up and down a set of pipes picking the
@@ -38,6 +40,7 @@ public class Pipeline implements AutoCloseable {
   private final TerminalOperator terminal;
   private final Pipe terminalPipe;
   private final SharedResourcesContext sharedResourcesContext;
+  private final Set<Integer> replacedOperatorIds;
   private boolean closed = false;
 
   /**
@@ -58,6 +61,29 @@ public class Pipeline implements AutoCloseable {
       List<Wrapped<?>> operators,
       List<Operator.ShrinkableOperator> shrinkableOperators,
       SharedResourcesContext sharedResourcesContext) {
+    this(
+        terminalPipe,
+        terminal,
+        operators,
+        shrinkableOperators,
+        sharedResourcesContext,
+        Collections.emptySet());
+  }
+
+  /**
+   * Create a new Pipeline, where some operators of the plan were replaced, e.g. by a read from the
+   * fragment result cache.
+   *
+   * @param replacedOperatorIds the ids of the operators of the plan that are not part of the
+   *     pipeline, out of band messages sent to them are ignored
+   */
+  public Pipeline(
+      Pipe terminalPipe,
+      TerminalOperator terminal,
+      List<Wrapped<?>> operators,
+      List<Operator.ShrinkableOperator> shrinkableOperators,
+      SharedResourcesContext sharedResourcesContext,
+      Set<Integer> replacedOperatorIds) {
     this.terminalPipe = terminalPipe;
     while (terminalPipe.getRequiredUpstream() != null) {
       terminalPipe = terminalPipe.getRequiredUpstream();
@@ -73,6 +99,7 @@ public class Pipeline implements AutoCloseable {
     this.currentPipe = terminalPipe;
     this.terminal = terminal;
     this.sharedResourcesContext = sharedResourcesContext;
+    this.replacedOperatorIds = replacedOperatorIds;
   }
 
   public void setup() throws Exception {
@@ -97,6 +124,9 @@ public class Pipeline implements AutoCloseable {
 
   public void workOnOOB(OutOfBandMessage message) {
     Wrapped<?> wrapped = operatorMap.get(message.getOperatorId());
+    if (wrapped == null && replacedOperatorIds.contains(message.getOperatorId())) {
+      return;
+    }
     Preconditions.checkNotNull(
         wrapped, "invalid operatorId " + message.getOperatorId() + " in OOB msg");
 
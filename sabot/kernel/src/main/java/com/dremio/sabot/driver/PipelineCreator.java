@@ -17,10 +17,12 @@ package com.dremio.sabot.driver;
 
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.AutoCloseables.RollbackCloseable;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.expr.fn.FunctionLookupContext;
 import com.dremio.exec.physical.base.AbstractPhysicalVisitor;
 import com.dremio.exec.physical.base.AbstractSingle;
 import com.dremio.exec.physical.base.GroupScan;
+import com.dremio.exec.physical.base.OpProps;
 import com.dremio.exec.physical.base.PhysicalOperator;
 import com.dremio.exec.physical.base.Receiver;
 import com.dremio.exec.physical.base.Sender;
@@ -28,6 +30,7 @@ import com.dremio.exec.physical.base.SubScan;
 import com.dremio.exec.physical.config.AbstractTableFunctionPOP;
 import com.dremio.exec.physical.config.BridgeFileReader;
 import com.dremio.exec.physical.config.EmptyValues;
+import com.dremio.exec.physical.config.FragmentResultCachePOP;
 import com.dremio.exec.physical.config.HashJoinPOP;
 import com.dremio.exec.physical.config.MergeJoinPOP;
 import com.dremio.exec.physical.config.NestedLoopJoinPOP;
@@ -39,6 +42,11 @@ import com.dremio.sabot.exec.context.SharedResourcesContext;
 import com.dremio.sabot.exec.fragment.FragmentExecutionContext;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.receiver.IncomingBuffers;
+import com.dremio.sabot.op.resultcache.CachedResultProducer;
+import com.dremio.sabot.op.resultcache.FragmentResultCache;
+import com.dremio.sabot.op.resultcache.FragmentResultCacheKeys;
+import com.dremio.sabot.op.resultcache.FragmentResultCacheWriter;
+import com.dremio.sabot.op.scan.ScanOperator;
 import com.dremio.sabot.op.spi.DualInputOperator;
 import com.dremio.sabot.op.spi.Operator;
 import com.dremio.sabot.op.spi.ProducerOperator;
@@ -46,11 +54,17 @@ import com.dremio.sabot.op.spi.SingleInputOperator;
 import com.dremio.sabot.op.spi.TerminalOperator;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /** Factor class used to generate a PipelineDriver. */
 public class PipelineCreator {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(PipelineCreator.class);
 
   private final FragmentExecutionContext fec;
   private final OperatorContext.Creator operatorContextCreator;
@@ -61,6 +75,9 @@ public class PipelineCreator {
   private final List<Wrapped<?>> operators = new ArrayList<>();
   private final List<Operator.ShrinkableOperator> shrinkableOperators = new ArrayList<>();
   private final SharedResourcesContext sharedResourcesContext;
+  private final FragmentResultCache resultCache;
+  private final FragmentResultCacheKeys resultCacheKeys;
+  private final Set<Integer> replacedOperatorIds = new HashSet<>();
 
   private PipelineCreator(
       FragmentExecutionContext fec,
@@ -69,7 +86,9 @@ public class PipelineCreator {
       IncomingBuffers buffers,
       OperatorCreator creator,
       TunnelProvider tunnelProvider,
-      SharedResourcesContext sharedResourcesContext) {
+      SharedResourcesContext sharedResourcesContext,
+      FragmentResultCache resultCache,
+      FragmentResultCacheKeys resultCacheKeys) {
     super();
     this.operatorContextCreator = operatorContextCreator;
     this.functionLookupContext = functionLookupContext;
@@ -78,6 +97,8 @@ public class PipelineCreator {
     this.creator = creator;
     this.tunnelProvider = tunnelProvider;
     this.sharedResourcesContext = sharedResourcesContext;
+    this.resultCache = resultCache;
+    this.resultCacheKeys = resultCacheKeys;
   }
 
   public static Pipeline get(
@@ -90,6 +111,35 @@ public class PipelineCreator {
       TunnelProvider tunnelProvider,
       SharedResourcesContext sharedResourcesContext)
       throws Exception {
+    return get(
+        fec,
+        buffers,
+        creator,
+        operatorContextCreator,
+        functionLookupContext,
+        operator,
+        tunnelProvider,
+        sharedResourcesContext,
+        null,
+        null);
+  }
+
+  /**
+   * @param resultCache cache of the results of fragments on this node, or null if there is none
+   * @param resultCacheKeys computes the keys of the result cache, null if there is no cache
+   */
+  public static Pipeline get(
+      FragmentExecutionContext fec,
+      IncomingBuffers buffers,
+      OperatorCreator creator,
+      OperatorContext.Creator operatorContextCreator,
+      FunctionLookupContext functionLookupContext,
+      PhysicalOperator operator,
+      TunnelProvider tunnelProvider,
+      SharedResourcesContext sharedResourcesContext,
+      FragmentResultCache resultCache,
+      FragmentResultCacheKeys resultCacheKeys)
+      throws Exception {
 
     PipelineCreator pipelineCreator =
         new PipelineCreator(
@@ -99,7 +149,9 @@ public class PipelineCreator {
             buffers,
             creator,
             tunnelProvider,
-            sharedResourcesContext);
+            sharedResourcesContext,
+            resultCache,
+            resultCacheKeys);
     return pipelineCreator.get(operator);
   }
 
@@ -114,7 +166,8 @@ public class PipelineCreator {
               visitor.terminal,
               operators,
               shrinkableOperators,
-              sharedResourcesContext);
+              sharedResourcesContext,
+              replacedOperatorIds);
       closeable.commit();
       return driver;
     }
@@ -202,10 +255,89 @@ public class PipelineCreator {
                   config,
                   functionLookupContext));
       terminal(sink);
-      OpPipe input = config.getChild().accept(this, null);
+      OpPipe input = fragmentInput(config, config.getChild(), context);
       return pair(new StraightPipe(sink, input), sink).associate(input);
     }
 
+    /**
+     * Creates the input of the root of a fragment. When the result cache is enabled and the input
+     * can be cached, it is either read from the cache, or written to it while it is computed.
+     */
+    private OpPipe fragmentInput(
+        PhysicalOperator root, PhysicalOperator input, OperatorContext rootContext)
+        throws Exception {
+      if (resultCache == null
+          || !rootContext.getOptions().getOption(ExecConstants.FRAGMENT_RESULT_CACHE_ENABLED)) {
+        return input.accept(this, null);
+      }
+      final String key = resultCacheKeys.getKey(input);
+      if (key == null) {
+        return input.accept(this, null);
+      }
+
+      InputStream cached = null;
+      try {
+        cached = resultCache.lookup(key);
+      } catch (IOException e) {
+        logger.warn("Failure while reading from the fragment result cache", e);
+      }
+      if (cached != null) {
+        try (RollbackCloseable closeable = AutoCloseables.rollbackable(cached)) {
+          replaced(input);
+          final FragmentResultCachePOP config = new FragmentResultCachePOP(input.getProps());
+          final OperatorContext context = operatorContextCreator.newOperatorContext(config);
+          final ProducerOperator producer =
+              recordOperator(
+                  SmartOp.contextualize(
+                      new CachedResultProducer(context, resultCache, cached),
+                      context,
+                      config,
+                      functionLookupContext));
+          closeable.commit();
+          return pair(null, producer);
+        }
+      }
+
+      final int firstOperator = operators.size();
+      final OpPipe inputPipe = input.accept(this, null);
+      final List<ScanOperator> scans = new ArrayList<>();
+      for (Wrapped<?> operator : operators.subList(firstOperator, operators.size())) {
+        if (operator.getInner() instanceof ScanOperator) {
+          scans.add((ScanOperator) operator.getInner());
+        }
+      }
+      final OpProps props = input.getProps();
+      final FragmentResultCachePOP config =
+          new FragmentResultCachePOP(
+              props.cloneWithNewIdAndSchema(
+                  OpProps.buildOperatorId(props.getMajorFragmentId(), maxLocalOperatorId(root) + 1),
+                  props.getSchema()));
+      final OperatorContext context = operatorContextCreator.newOperatorContext(config);
+      final SingleInputOperator writer =
+          recordOperator(
+              SmartOp.contextualize(
+                  new FragmentResultCacheWriter(context, resultCache, key, scans),
+                  context,
+                  config,
+                  functionLookupContext));
+      return pair(new StraightPipe(writer, inputPipe), writer).associate(inputPipe);
+    }
+
+    private void replaced(PhysicalOperator operator) {
+      replacedOperatorIds.add(operator.getProps().getOperatorId());
+      for (PhysicalOperator child : operator) {
+        replaced(child);
+      }
+    }
+
+    private int maxLocalOperatorId(PhysicalOperator operator) {
+      int max = operator.getProps().getLocalOperatorId();
+      for (PhysicalOperator child : operator) {
+        max = Math.max(max, maxLocalOperatorId(child));
+      }
+      return max;
+    }
+
     @Override
     public OpPipe visitReceiver(Receiver config, Void value) throws Exception {
       OperatorContext context = operatorContextCreator.newOperatorContext(config);
@@ -267,7 +399,7 @@ public class PipelineCreator {
                   config,
                   functionLookupContext));
       terminal(sink);
-      OpPipe input = config.getChild().accept(this, null);
+      OpPipe input = fragmentInput(config, config.getChild(), context);
       return pair(new StraightPipe(sink, input), sink).associate(input);
     }
 
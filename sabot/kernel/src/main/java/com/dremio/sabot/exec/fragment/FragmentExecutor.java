@@ -61,6 +61,8 @@ import com.dremio.sabot.memory.MemoryArbiter;
 import com.dremio.sabot.memory.MemoryArbiterTask;
 import com.dremio.sabot.memory.MemoryTaskAndShrinkableOperator;
 import com.dremio.sabot.op.receiver.IncomingBuffers;
+import com.dremio.sabot.op.resultcache.FragmentResultCache;
+import com.dremio.sabot.op.resultcache.FragmentResultCacheKeys;
 import com.dremio.sabot.op.spi.Operator;
 import com.dremio.sabot.task.AsyncTask;
 import com.dremio.sabot.task.AsyncTaskWrapper;
@@ -221,6 +223,8 @@ public class FragmentExecutor implements MemoryArbiterTask {
   // for cancelled tasks
   private int indexInDebugInfoArray = 0;
   private final NodeDebugContextProvider nodeDebugContext;
+  private final FragmentResultCache resultCache;
+  private final FragmentResultCacheKeys resultCacheKeys;
 
   public FragmentExecutor(
       FragmentStatusReporter statusReporter,
@@ -248,7 +252,9 @@ public class FragmentExecutor implements MemoryArbiterTask {
       DeferredException exception,
       EventProvider eventProvider,
       SpillService spillService,
-      NodeDebugContextProvider nodeDebugContext) {
+      NodeDebugContextProvider nodeDebugContext,
+      FragmentResultCache resultCache,
+      FragmentResultCacheKeys resultCacheKeys) {
     super();
     this.name = QueryIdHelper.getExecutorThreadName(fragmentFromPlan.getHandle());
     this.statusReporter = statusReporter;
@@ -314,6 +320,8 @@ public class FragmentExecutor implements MemoryArbiterTask {
     this.dynamicallyTrackAllocations =
         fragmentOptions.getOption(ExecConstants.DYNAMICALLY_TRACK_ALLOCATIONS);
     this.nodeDebugContext = nodeDebugContext;
+    this.resultCache = resultCache;
+    this.resultCacheKeys = resultCacheKeys;
   }
 
   @Override
@@ -730,7 +738,9 @@ public class FragmentExecutor implements MemoryArbiterTask {
             functionLookupContextToUse,
             rootOperator,
             tunnelProvider,
-            new SharedResourcesContextImpl(sharedResources));
+            new SharedResourcesContextImpl(sharedResources),
+            resultCache,
+            resultCacheKeys);
 
     pipeline.setup();
     if (memoryArbiter != null) {
@@ -67,6 +67,8 @@ import com.dremio.sabot.exec.cursors.FileCursorManagerFactory;
 import com.dremio.sabot.exec.heap.HeapLowMemController;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.memory.MemoryArbiter;
+import com.dremio.sabot.op.resultcache.FragmentResultCache;
+import com.dremio.sabot.op.resultcache.FragmentResultCacheKeys;
 import com.dremio.sabot.threads.SendingAccountor;
 import com.dremio.sabot.threads.sharedres.SharedResourceGroup;
 import com.dremio.sabot.threads.sharedres.SharedResourceManager;
@@ -77,6 +79,7 @@ import com.dremio.service.spill.SpillService;
 import com.dremio.services.jobresults.common.JobResultsTunnel;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -126,6 +129,8 @@ public class FragmentExecutorBuilder {
   private final Provider<JobResultsClientFactory> jobResultsClientFactoryProvider;
   private final Provider<CoordinationProtos.NodeEndpoint> nodeEndpointProvider;
   private final HeapLowMemController heapLowMemController;
+  private final FragmentResultCache resultCache;
+  private final FragmentResultCacheKeys resultCacheKeys;
 
   public FragmentExecutorBuilder(
       QueriesClerk clerk,
@@ -178,6 +183,17 @@ public class FragmentExecutorBuilder {
     this.spillService = spillService;
     this.jobResultsClientFactoryProvider = jobResultsClientFactoryProvider;
     this.heapLowMemController = heapLowMemController;
+    if (dremioConfig != null
+        && dremioConfig.hasPath(DremioConfig.FRAGMENT_RESULT_CACHE_PATH_STRING)) {
+      this.resultCache =
+          new FragmentResultCache(
+              Paths.get(dremioConfig.getString(DremioConfig.FRAGMENT_RESULT_CACHE_PATH_STRING)),
+              () -> optionManager.getOption(ExecConstants.FRAGMENT_RESULT_CACHE_MAX_SIZE_BYTES));
+      this.resultCacheKeys = new FragmentResultCacheKeys(planReader, functions);
+    } else {
+      this.resultCache = null;
+      this.resultCacheKeys = null;
+    }
   }
 
   public FragmentExecutors getFragmentExecutors() {
@@ -404,7 +420,9 @@ public class FragmentExecutorBuilder {
                 exception,
                 eventProvider,
                 spillService,
-                nodeDebugContextProvider);
+                nodeDebugContextProvider,
+                resultCache,
+                resultCacheKeys);
         commit.commit();
 
         injector.injectChecked(controls, INJECTOR_DO_WORK, OutOfMemoryException.class);
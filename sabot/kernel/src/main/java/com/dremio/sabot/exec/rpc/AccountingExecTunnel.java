@@ -67,6 +67,13 @@ public class AccountingExecTunnel {
     tunnel.sendOOBMessage(statusHandler, message);
   }
 
+  /**
+   * Whether the receiving fragments run in the same process, see {@link ExecTunnel#isInProcess()}.
+   */
+  public boolean isInProcess() {
+    return tunnel.isInProcess();
+  }
+
   private static class StatsTrackingListenerWrapper implements RpcOutcomeListener<Ack> {
     private final RpcOutcomeListener<Ack> inner;
     private final Stopwatch watch;
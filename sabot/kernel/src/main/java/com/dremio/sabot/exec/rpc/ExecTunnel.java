@@ -39,6 +39,13 @@ public interface ExecTunnel {
       RpcOutcomeListener<GeneralRPCProtos.Ack> outcomeListener,
       ExecRPC.FinishedReceiver finishedReceiver);
 
+  /**
+   * Whether the receiving fragments run in the same process, so that batches are not serialized.
+   */
+  default boolean isInProcess() {
+    return false;
+  }
+
   static void checkFragmentHandle(ExecProtos.FragmentHandle handle) {
     Preconditions.checkState(handle.hasQueryId(), "must set query id");
     Preconditions.checkState(handle.hasMajorFragmentId(), "must set major fragment id");
@@ -109,8 +109,15 @@ public class HashAggStats {
     // minimal.
     OOB_SPILL, // Spill was done due to oob.
     OOB_DROP_ALREADY_SPILLING, // Number of times operator dropped spilling notification as it was
-  // already spilling
-  ;
+    // already spilling
+    PARALLEL_WORKERS, // Number of threads used to insert and accumulate, 0 if not parallel
+    PARALLEL_INSERTS, // Number of sets of pivoted records inserted using multiple threads
+    PARALLEL_INSERTS_INCOMPLETE, // Number of parallel insertions that ran out of memory
+    SPILLED_DISK_SIZE, // Bytes written to the spill files, after compression
+    SPILL_COMPRESSION_TIME, // Time spent compressing the spilled buffers
+    SPILL_DECOMPRESSION_TIME, // Time spent decompressing the spilled buffers
+    SPILL_COMPRESSION_BYPASSED, // Number of spilled buffers written without trying to compress them
+    ;
 
     private final DisplayType displayType;
     private final AggregationType aggregationType;
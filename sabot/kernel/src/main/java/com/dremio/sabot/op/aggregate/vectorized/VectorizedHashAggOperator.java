@@ -46,6 +46,7 @@ import com.dremio.options.TypeValidators.DoubleValidator;
 import com.dremio.options.TypeValidators.PositiveLongValidator;
 import com.dremio.options.TypeValidators.PowerOfTwoLongValidator;
 import com.dremio.options.TypeValidators.RangeDoubleValidator;
+import com.dremio.options.TypeValidators.RangeLongValidator;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.fragment.OutOfBandMessage;
@@ -62,6 +63,7 @@ import com.dremio.sabot.op.common.ht2.PivotBuilder;
 import com.dremio.sabot.op.common.ht2.PivotBuilder.PivotInfo;
 import com.dremio.sabot.op.common.ht2.PivotDef;
 import com.dremio.sabot.op.common.ht2.VariableBlockVector;
+import com.dremio.sabot.op.common.spill.SpillBufferCodec;
 import com.dremio.sabot.op.spi.Operator.ShrinkableOperator;
 import com.dremio.sabot.op.spi.SingleInputOperator;
 import com.google.common.annotations.VisibleForTesting;
@@ -411,6 +413,23 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
       new PositiveLongValidator(
           "exec.operator.aggregate.arrayagg.vectorsize", 1024 * 1024, 32 * 1024);
 
+  /*
+   * Number of threads used to insert and accumulate the incoming data, each thread owning a range
+   * of partitions. 1 disables the parallel mode. Only used when all accumulators are fixed width.
+   */
+  public static final RangeLongValidator VECTORIZED_HASHAGG_PARALLEL_WORKERS =
+      new RangeLongValidator("exec.operator.aggregate.vectorize.parallel_workers", 1, 32, 1);
+  /* Sets of pivoted records smaller than this are inserted by the fragment thread alone */
+  public static final PositiveLongValidator VECTORIZED_HASHAGG_PARALLEL_MIN_RECORDS =
+      new PositiveLongValidator(
+          "exec.operator.aggregate.vectorize.parallel_min_records", Integer.MAX_VALUE, 1024);
+  /*
+   * Compress the spilled buffers, choosing per buffer whether compression is worth it. Spilled
+   * partitions are always read back with the setting they were written with.
+   */
+  public static final BooleanValidator VECTORIZED_HASHAGG_SPILL_COMPRESS =
+      new BooleanValidator("exec.operator.aggregate.vectorize.spill.compress", true);
+
   private static final org.slf4j.Logger logger =
       org.slf4j.LoggerFactory.getLogger(VectorizedHashAggOperator.class);
 
@@ -508,6 +527,9 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
   private OperatorStateBeforeSpill operatorStateBeforeSpill;
   private ForceSpillState forceSpillState;
   private final int maxFieldSizeBytes;
+  private final int parallelWorkers;
+  private final int parallelMinRecords;
+  private VectorizedHashAggPartitionWorkers partitionWorkers;
 
   /**
    * This is used to read/write a spilled varlen accumulator from/to disk. Preallocate its memory
@@ -604,6 +626,8 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
     this.maxFieldSizeBytes =
         Math.toIntExact(context.getOptions().getOption(ExecConstants.LIMIT_FIELD_SIZE_BYTES));
     this.memoryGrant = context.getOptions().getOption(ExecConstants.MAX_MEMORY_GRANT_SIZE);
+    this.parallelWorkers = (int) options.getOption(VECTORIZED_HASHAGG_PARALLEL_WORKERS);
+    this.parallelMinRecords = (int) options.getOption(VECTORIZED_HASHAGG_PARALLEL_MIN_RECORDS);
     logger.debug(
         "partitions:{}, min-hashtable-size:{}, max-hashtable-batch-size:{} variable-width-key-size:{}",
         numPartitions,
@@ -902,6 +926,37 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
     allocateMemoryForHashTableInsertion();
     debug.setPreallocatedMemoryForAuxStructures(
         allocator.getAllocatedMemory() - memoryAfterExtraPartition);
+
+    /* STEP 6: Setup the workers for the parallel mode, if enabled and possible */
+    setupPartitionWorkers();
+  }
+
+  /**
+   * Variable width accumulators (varchar min/max, listagg, ndv, array_agg) share temporary vectors
+   * across partitions so they can only be used from a single thread.
+   */
+  private void setupPartitionWorkers() {
+    if (parallelWorkers <= 1 || numPartitions < 2) {
+      return;
+    }
+    for (BaseValueVector holder : tempAccumulatorHolder) {
+      if (holder != null) {
+        logger.debug("Not using parallel mode since there are variable width accumulators");
+        return;
+      }
+    }
+    partitionWorkers =
+        new VectorizedHashAggPartitionWorkers(
+            context.getExecutor(),
+            hashAggPartitions,
+            parallelWorkers,
+            maxHashTableBatchSize,
+            pivot.getBlockWidth(),
+            pivot.getVariableCount() == 0);
+    logger.debug(
+        "Using {} threads to insert into {} partitions",
+        partitionWorkers.getNumWorkers(),
+        numPartitions);
   }
 
   /**
@@ -1386,15 +1441,33 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
     final int dataWidth = fixedOnly ? blockWidth : blockWidth - LBlockHashTable.VAR_OFFSET_SIZE;
     final boolean fixedOnly = this.fixedOnly;
 
-    long keyFixedAddr = keyFixedVectorAddr + (insertStartIndex * blockWidth);
-    long keyVarAddr;
-    int keyVarLen;
+    int startIndex = insertStartIndex;
     long partitionsUsed = partitionsUsedMask;
 
     insertWatch.start();
+    final VectorizedHashAggPartitionWorkers workers = this.partitionWorkers;
+    if (workers != null
+        && !workers.isPending()
+        && insertStartIndex == 0
+        && recordsPivoted >= parallelMinRecords
+        && recordsPivoted <= workers.getMaxRecords()) {
+      /* insert using multiple threads. if they run out of memory, we continue below
+       * from the first record that wasn't inserted, skipping the ones inserted by other
+       * threads, and handle the OOM as usual.
+       */
+      startIndex =
+          workers.insert(
+              recordsPivoted, keyFixedVectorAddr, keyVarVectorAddr, recordsConsumed, seed);
+      partitionsUsed |= workers.getPartitionsUsed();
+    }
+    final boolean skipInserted = workers != null && workers.isPending();
+
+    long keyFixedAddr = keyFixedVectorAddr + (startIndex * blockWidth);
+    long keyVarAddr;
+    int keyVarLen;
     insertAllRecords:
     {
-      for (int keyIndex = insertStartIndex;
+      for (int keyIndex = startIndex;
           keyIndex < recordsPivoted;
           keyIndex++, keyFixedAddr += blockWidth) {
         final long keyHash;
@@ -1411,6 +1484,9 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
 
         /* get the partition index from higher order bits in hash */
         final int hashPartitionIndex = ((int) (keyHash >> 32)) & hashPartitionMask;
+        if (skipInserted && workers.isInserted(keyIndex, hashPartitionIndex)) {
+          continue;
+        }
         final VectorizedHashAggPartition partition = hashAggPartitions[hashPartitionIndex];
         final LBlockHashTable table = partition.hashTable;
         int varFieldLen = -1;
@@ -1526,6 +1602,9 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
           }
         }
       }
+      if (skipInserted) {
+        workers.completed();
+      }
     }
     insertWatch.stop();
     return partitionsUsed;
@@ -2036,6 +2115,11 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
      * buffer to do accumulation of all records one partition at a time
      */
     accumulateWatch.start();
+    if (partitionWorkers != null) {
+      partitionWorkers.accumulate(partitionsUsed, bitsInChunk, chunkOffsetMask);
+      accumulateWatch.stop();
+      return;
+    }
     while (partitionsUsed > 0) {
       final byte hashPartitionIndex = (byte) Long.numberOfTrailingZeros(partitionsUsed);
       final VectorizedHashAggPartition partition = hashAggPartitions[hashPartitionIndex];
@@ -2460,6 +2544,13 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
     stats.setLongStat(
         Metric.TOTAL_SPILLED_DATA_SIZE, partitionSpillHandler.getTotalSpilledDataSize());
     stats.setLongStat(Metric.MAX_SPILLED_DATA_SIZE, partitionSpillHandler.getMaxSpilledDataSize());
+    stats.setLongStat(Metric.SPILLED_DISK_SIZE, partitionSpillHandler.getTotalSpilledDiskSize());
+    final SpillBufferCodec spillCodec = partitionSpillHandler.getSpillCodec();
+    if (spillCodec != null) {
+      stats.setLongStat(Metric.SPILL_COMPRESSION_TIME, spillCodec.getCompressionNanos());
+      stats.setLongStat(Metric.SPILL_DECOMPRESSION_TIME, spillCodec.getDecompressionNanos());
+      stats.setLongStat(Metric.SPILL_COMPRESSION_BYPASSED, spillCodec.getBypassedBuffers());
+    }
 
     stats.setLongStat(
         Metric.AVG_MEMORY_ALLOC_PER_PUMP_IN_MB,
@@ -2484,6 +2575,13 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
     stats.setLongStat(Metric.OOB_SPILL, oobSpills);
     stats.setLongStat(Metric.OOB_DROP_ALREADY_SPILLING, oobDropSpill);
 
+    if (partitionWorkers != null) {
+      stats.setLongStat(Metric.PARALLEL_WORKERS, partitionWorkers.getNumWorkers());
+      stats.setLongStat(Metric.PARALLEL_INSERTS, partitionWorkers.getParallelInserts());
+      stats.setLongStat(
+          Metric.PARALLEL_INSERTS_INCOMPLETE, partitionWorkers.getIncompleteInserts());
+    }
+
     if (iterations == 1) {
       stats.setLongStat(Metric.ALLOCATED_FOR_FIXED_KEYS, statsHolder.allocatedForFixedBlocks);
       stats.setLongStat(Metric.UNUSED_FOR_FIXED_KEYS, statsHolder.unusedForFixedBlocks);
@@ -2790,6 +2888,8 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
       spillStats.setOoms(ooms);
       spillStats.setIterations(iterations);
       spillStats.setRecursionDepth(computeRecursionDepth());
+      spillStats.setSpilledDataSize(partitionSpillHandler.getTotalSpilledDataSize());
+      spillStats.setSpilledDiskSize(partitionSpillHandler.getTotalSpilledDiskSize());
       popConfig.setSpillStats(spillStats);
     } else {
       internalStateMachine = InternalState.TRANSITION_PARTITION_SPILL_STATE;
@@ -20,6 +20,7 @@ import com.dremio.exec.proto.UserBitShared;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.op.aggregate.vectorized.HashAggPartitionWritableBatch.HashAggPartitionBatchDefinition;
 import com.dremio.sabot.op.common.ht2.LBlockHashTable;
+import com.dremio.sabot.op.common.spill.SpillBufferCodec;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
@@ -68,6 +69,8 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
   private HashAggPartitionWritableBatch inProgressWritableBatch;
   private final OperatorStats operatorStats;
   private final long warnMaxSpillTime; // in milliseconds
+  // compresses the spilled buffers, null to spill them as is
+  private final SpillBufferCodec codec;
 
   /*
   Since we are also spilling in VectorizedHashAggOperator's OUTPUT_INMEMORY_PARTITIONS state,
@@ -87,10 +90,26 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
       final VectorizedHashAggPartition hashAggPartition,
       final OperatorStats stats,
       final long warnMaxSpillTime) {
+    this(hashAggPartition, stats, warnMaxSpillTime, null);
+  }
+
+  /**
+   * Used to serialize a HashAggPartition to disk, compressing the spilled buffers.
+   *
+   * @param hashAggPartition hash agg partition to serialize/spill
+   * @param codec codec used to write the buffers, null to write them as is. The partition must be
+   *     read back with the same setting.
+   */
+  public VectorizedHashAggPartitionSerializable(
+      final VectorizedHashAggPartition hashAggPartition,
+      final OperatorStats stats,
+      final long warnMaxSpillTime,
+      final SpillBufferCodec codec) {
     this.hashAggPartition = hashAggPartition;
     this.partitionToLoadSpilledData = null;
     this.operatorStats = stats;
     this.warnMaxSpillTime = warnMaxSpillTime;
+    this.codec = codec;
     this.spillStartIndex = hashAggPartition.getNextBatchToOutput();
     initLocalStats();
   }
@@ -107,6 +126,21 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
       final PartitionToLoadSpilledData partitionToLoadSpilledData,
       final OperatorStats stats,
       final long warnMaxSpillTime) {
+    this(partitionToLoadSpilledData, stats, warnMaxSpillTime, null);
+  }
+
+  /**
+   * Used to deserialize spilled partition data from disk, written with the given codec.
+   *
+   * @param partitionToLoadSpilledData extra partition (aka loading partition) used to deserialize
+   *     spilled batches.
+   * @param codec codec the partition was spilled with, null if it was spilled as is.
+   */
+  public VectorizedHashAggPartitionSerializable(
+      final PartitionToLoadSpilledData partitionToLoadSpilledData,
+      final OperatorStats stats,
+      final long warnMaxSpillTime,
+      final SpillBufferCodec codec) {
     Preconditions.checkArgument(
         partitionToLoadSpilledData != null,
         "ERROR: Need a valid handle for loading partition for reading spilled batches");
@@ -114,6 +148,7 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
     this.partitionToLoadSpilledData = partitionToLoadSpilledData;
     this.operatorStats = stats;
     this.warnMaxSpillTime = warnMaxSpillTime;
+    this.codec = codec;
     initLocalStats();
   }
 
@@ -351,6 +386,14 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
       final ArrowBuf buffer, final int bufferLength, final InputStream input) throws IOException {
     resetArrowBufIndexes(buffer);
 
+    if (codec != null) {
+      // track io time as wait time
+      try (OperatorStats.WaitRecorder recorder = OperatorStats.getWaitRecorder(operatorStats)) {
+        codec.read(buffer, bufferLength, input);
+      }
+      return;
+    }
+
     int numBytesToRead = bufferLength;
     while (numBytesToRead > 0) {
       final int lenghtToRead = Math.min(ioBuffer.length, numBytesToRead);
@@ -420,9 +463,10 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
     final ArrowBuf[] buffersToSpill = writableBatch.getBuffers();
     Stopwatch watch = Stopwatch.createStarted();
     /* write chunk data */
-    for (ArrowBuf buffer : buffersToSpill) {
+    for (int i = 0; i < buffersToSpill.length; i++) {
+      final ArrowBuf buffer = buffersToSpill[i];
       spilledDataSize += buffer.readableBytes();
-      writeArrowBuf(buffer, output);
+      writeArrowBuf(buffer, i, output);
     }
 
     final long elapsed = watch.elapsed(TimeUnit.MILLISECONDS);
@@ -525,11 +569,20 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
    * Write the ArrowBuf to stream.
    *
    * @param buffer buffer to write
+   * @param slot position of the buffer in the batch
    * @param output output stream for the spill file
    * @throws IOException if IO fails
    */
-  private void writeArrowBuf(final ArrowBuf buffer, final OutputStream output) throws IOException {
+  private void writeArrowBuf(final ArrowBuf buffer, final int slot, final OutputStream output)
+      throws IOException {
     final int bufferLength = LargeMemoryUtil.checkedCastToInt(buffer.readableBytes());
+    if (codec != null) {
+      // track io time as wait time
+      try (OperatorStats.WaitRecorder recorder = OperatorStats.getWaitRecorder(operatorStats)) {
+        codec.write(buffer, bufferLength, slot, output);
+      }
+      return;
+    }
     for (int writePos = 0; writePos < bufferLength; writePos += ioBuffer.length) {
       final int lengthToWrite = Math.min(ioBuffer.length, bufferLength - writePos);
       buffer.getBytes(writePos, ioBuffer, 0, lengthToWrite);
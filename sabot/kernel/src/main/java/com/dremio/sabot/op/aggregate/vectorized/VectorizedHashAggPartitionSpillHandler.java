@@ -24,6 +24,7 @@ import com.dremio.exec.ExecConstants;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.options.OptionManager;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.common.spill.SpillBufferCodec;
 import com.dremio.sabot.op.sort.external.SpillManager;
 import com.dremio.sabot.op.sort.external.SpillManager.SpillFile;
 import com.dremio.service.spill.SpillService;
@@ -108,6 +109,8 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
   private VectorizedHashAggPartitionSerializable inProgressSpill;
   private final OperatorStats operatorStats;
   private final long warnMaxSpillTime;
+  // compresses the spilled buffers, null if spill compression is disabled
+  private final SpillBufferCodec spillCodec;
 
   public VectorizedHashAggPartitionSpillHandler(
       final VectorizedHashAggPartition[] hashAggPartitions,
@@ -151,6 +154,10 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
     this.inProgressSpill = null;
     this.operatorStats = stats;
     this.warnMaxSpillTime = optionManager.getOption(ExecConstants.SPILL_IO_WARN_MAX_RUNTIME_MS);
+    this.spillCodec =
+        optionManager.getOption(VectorizedHashAggOperator.VECTORIZED_HASHAGG_SPILL_COMPRESS)
+            ? new SpillBufferCodec()
+            : null;
   }
 
   /**
@@ -401,7 +408,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
 
     final VectorizedHashAggPartitionSerializable partitionSerializable =
         new VectorizedHashAggPartitionSerializable(
-            victimPartition, this.operatorStats, this.warnMaxSpillTime);
+            victimPartition, this.operatorStats, this.warnMaxSpillTime, spillCodec);
     /* spill the partition -- done in 1 or more batches/chunks */
     partitionSerializable.writeToStream(partitionSpillFileStream);
     /* track number of spills */
@@ -543,7 +550,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
     if (inProgressSpill == null) {
       inProgressSpill =
           new VectorizedHashAggPartitionSerializable(
-              victimPartition, this.operatorStats, this.warnMaxSpillTime);
+              victimPartition, this.operatorStats, this.warnMaxSpillTime, spillCodec);
     }
 
     Preconditions.checkState(
@@ -675,6 +682,25 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
     return totalSpilledDataSize;
   }
 
+  /**
+   * Get the total size (in bytes) written to the spill files, which is smaller than {@link
+   * #getTotalSpilledDataSize()} when the spilled buffers are compressed.
+   *
+   * @return total size (in bytes) written to disk
+   */
+  long getTotalSpilledDiskSize() {
+    return spillCodec != null ? spillCodec.getStoredBytes() : totalSpilledDataSize;
+  }
+
+  /**
+   * Get the codec used to compress the spilled buffers.
+   *
+   * @return codec, null if spill compression is disabled
+   */
+  SpillBufferCodec getSpillCodec() {
+    return spillCodec;
+  }
+
   /**
    * Get the number of spilled partitions in the current iteration of aggregation algorithm --
    * active and spilled
@@ -834,7 +860,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
       final SpillFile partitionSpillFile = partitionToSpill.getSpillFile();
       final VectorizedHashAggPartitionSerializable partitionSerializable =
           new VectorizedHashAggPartitionSerializable(
-              inmemoryPartition, this.operatorStats, this.warnMaxSpillTime);
+              inmemoryPartition, this.operatorStats, this.warnMaxSpillTime, spillCodec);
       FSDataOutputStream outputStream = partitionToSpill.getSpillStream();
       /* write the partition to disk */
       partitionSerializable.writeToStream(outputStream);
@@ -914,7 +940,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
           diskPartition.getIdentifier());
       final VectorizedHashAggPartitionSerializable partitionSerializable =
           new VectorizedHashAggPartitionSerializable(
-              loadingPartition, this.operatorStats, warnMaxSpillTime);
+              loadingPartition, this.operatorStats, warnMaxSpillTime, spillCodec);
       partitionSerializable.readFromStream(inputStream);
       currentBatchIndex++;
       return loadingPartition.getRecordsInBatch();
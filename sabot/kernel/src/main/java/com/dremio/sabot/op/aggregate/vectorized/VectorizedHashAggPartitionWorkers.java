@@ -0,0 +1,348 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.aggregate.vectorized;
+
+import com.dremio.sabot.op.common.ht2.LBlockHashTable;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Uninterruptibles;
+import io.netty.util.internal.PlatformDependent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.arrow.memory.OutOfMemoryException;
+
+/**
+ * Inserts a set of pivoted records into the partitions of {@link VectorizedHashAggOperator} and
+ * accumulates them using several threads.
+ *
+ * <p>Every worker owns a contiguous range of partitions, and is the only one to touch their hash
+ * tables and accumulators, so no synchronization is needed beyond waiting for all the workers at
+ * the end of each phase. The first worker runs on the fragment thread, the others on the executor
+ * of the operator context.
+ *
+ * <p>Insertion happens in two phases: the workers first compute the hash of a contiguous slice of
+ * the records each, then insert the records of their partitions in order. A worker that runs out of
+ * memory stops there and remembers the record it failed to insert. OOM handling (spilling) is left
+ * to the operator, which resumes the insertion serially from the first record that wasn't inserted
+ * and skips the records that were already inserted by the other workers, see {@link
+ * #isInserted(int, int)}. This keeps the spilling behavior of the operator unchanged.
+ *
+ * <p>This is only used when all the accumulators are fixed width, since variable width accumulators
+ * share temporary vectors across partitions.
+ */
+class VectorizedHashAggPartitionWorkers {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(VectorizedHashAggPartitionWorkers.class);
+
+  private final ExecutorService executor;
+  private final VectorizedHashAggPartition[] partitions;
+  private final int numWorkers;
+  private final int hashPartitionMask;
+  private final int blockWidth;
+  private final int dataWidth;
+  private final boolean fixedOnly;
+
+  // owner of each partition, and first partition of each worker (plus an end marker)
+  private final int[] partitionOwner;
+  private final int[] firstPartition;
+
+  // per record state of the current set of pivoted records
+  private final long[] hashes;
+  private final int[] partitionIndexes;
+
+  // per worker state of the current set of pivoted records
+  private final int[] failedAt;
+  private final long[] partitionsUsed;
+
+  // whether the insertion of the current set of pivoted records is still in progress
+  private boolean pending;
+  private long parallelInserts;
+  private long incompleteInserts;
+
+  VectorizedHashAggPartitionWorkers(
+      ExecutorService executor,
+      VectorizedHashAggPartition[] partitions,
+      int numWorkers,
+      int maxRecords,
+      int blockWidth,
+      boolean fixedOnly) {
+    Preconditions.checkArgument(numWorkers > 1, "Expected at least two workers");
+    Preconditions.checkArgument(
+        partitions.length <= Long.SIZE, "Partitions are tracked using a 64 bit mask");
+    this.executor = executor;
+    this.partitions = partitions;
+    this.numWorkers = Math.min(numWorkers, partitions.length);
+    this.hashPartitionMask = partitions.length - 1;
+    this.blockWidth = blockWidth;
+    this.dataWidth = fixedOnly ? blockWidth : blockWidth - LBlockHashTable.VAR_OFFSET_SIZE;
+    this.fixedOnly = fixedOnly;
+
+    this.partitionOwner = new int[partitions.length];
+    this.firstPartition = new int[this.numWorkers + 1];
+    for (int w = 0; w <= this.numWorkers; w++) {
+      firstPartition[w] = (int) ((long) w * partitions.length / this.numWorkers);
+    }
+    for (int w = 0; w < this.numWorkers; w++) {
+      for (int p = firstPartition[w]; p < firstPartition[w + 1]; p++) {
+        partitionOwner[p] = w;
+      }
+    }
+
+    this.hashes = new long[maxRecords];
+    this.partitionIndexes = new int[maxRecords];
+    this.failedAt = new int[this.numWorkers];
+    this.partitionsUsed = new long[this.numWorkers];
+  }
+
+  int getNumWorkers() {
+    return numWorkers;
+  }
+
+  /**
+   * @return true if a parallel insertion ran out of memory and the operator hasn't finished
+   *     inserting the remaining records yet.
+   */
+  boolean isPending() {
+    return pending;
+  }
+
+  /** Called by the operator once all the records of the current set have been inserted. */
+  void completed() {
+    pending = false;
+  }
+
+  /**
+   * Whether a record was already inserted by the last parallel insertion.
+   *
+   * @param keyIndex index of the record in the current set of pivoted records
+   * @param hashPartitionIndex partition of the record
+   */
+  boolean isInserted(int keyIndex, int hashPartitionIndex) {
+    return pending && keyIndex < failedAt[partitionOwner[hashPartitionIndex]];
+  }
+
+  int getMaxRecords() {
+    return hashes.length;
+  }
+
+  long getParallelInserts() {
+    return parallelInserts;
+  }
+
+  long getIncompleteInserts() {
+    return incompleteInserts;
+  }
+
+  /**
+   * Inserts a set of pivoted records into the partitions.
+   *
+   * @param recordsPivoted number of records to insert
+   * @param keyFixedVectorAddr starting address of the fixed width pivoted keys
+   * @param keyVarVectorAddr starting address of the variable width pivoted keys
+   * @param recordsConsumed records of the incoming batch consumed before this set
+   * @param seed hash seed
+   * @return index of the first record that may not have been inserted, recordsPivoted if all the
+   *     records were inserted.
+   */
+  int insert(
+      final int recordsPivoted,
+      final long keyFixedVectorAddr,
+      final long keyVarVectorAddr,
+      final int recordsConsumed,
+      final long seed) {
+    Preconditions.checkState(!pending, "Previous parallel insertion hasn't been completed");
+    Preconditions.checkArgument(recordsPivoted <= hashes.length, "Too many records to insert");
+    parallelInserts++;
+
+    runAll(w -> computeHashes(w, recordsPivoted, keyFixedVectorAddr, keyVarVectorAddr, seed));
+    runAll(
+        w ->
+            insertRecords(
+                w, recordsPivoted, keyFixedVectorAddr, keyVarVectorAddr, seed, recordsConsumed));
+
+    int firstFailure = recordsPivoted;
+    for (int w = 0; w < numWorkers; w++) {
+      firstFailure = Math.min(firstFailure, failedAt[w]);
+    }
+    if (firstFailure < recordsPivoted) {
+      incompleteInserts++;
+      pending = true;
+      logger.debug(
+          "Parallel insertion ran out of memory, {} of {} records are left to insert serially",
+          recordsPivoted - firstFailure,
+          recordsPivoted);
+    }
+    return firstFailure;
+  }
+
+  /**
+   * @return bitmap of the partitions used by the last parallel insertion
+   */
+  long getPartitionsUsed() {
+    long used = 0;
+    for (int w = 0; w < numWorkers; w++) {
+      used |= partitionsUsed[w];
+    }
+    return used;
+  }
+
+  /**
+   * Accumulates the records inserted in the given partitions, each worker taking care of its own
+   * partitions.
+   *
+   * @param partitionsUsedMask bitmap of the partitions to accumulate
+   * @param bitsInChunk hash table chunk size
+   * @param chunkOffsetMask hash table chunk offset mask
+   */
+  void accumulate(final long partitionsUsedMask, final int bitsInChunk, final int chunkOffsetMask) {
+    runAll(
+        w -> {
+          long used = partitionsUsedMask & rangeMask(w);
+          while (used != 0) {
+            final int hashPartitionIndex = Long.numberOfTrailingZeros(used);
+            final VectorizedHashAggPartition partition = partitions[hashPartitionIndex];
+            final int partitionRecords = partition.getRecords();
+            if (partitionRecords > 0) {
+              partition.accumulator.accumulate(
+                  partition.buffer.memoryAddress(), partitionRecords, bitsInChunk, chunkOffsetMask);
+            }
+            partition.resetRecords();
+            used &= used - 1;
+          }
+        });
+  }
+
+  private long rangeMask(int worker) {
+    long mask = 0;
+    for (int p = firstPartition[worker]; p < firstPartition[worker + 1]; p++) {
+      mask |= 1L << p;
+    }
+    return mask;
+  }
+
+  private void computeHashes(
+      int worker, int recordsPivoted, long keyFixedVectorAddr, long keyVarVectorAddr, long seed) {
+    final int start = (int) ((long) worker * recordsPivoted / numWorkers);
+    final int end = (int) ((long) (worker + 1) * recordsPivoted / numWorkers);
+    long keyFixedAddr = keyFixedVectorAddr + ((long) start * blockWidth);
+    for (int keyIndex = start; keyIndex < end; keyIndex++, keyFixedAddr += blockWidth) {
+      final long keyHash;
+      if (fixedOnly) {
+        keyHash = LBlockHashTable.fixedKeyHashCode(keyFixedAddr, dataWidth, seed);
+      } else {
+        final long keyVarAddr =
+            keyVarVectorAddr + PlatformDependent.getInt(keyFixedAddr + dataWidth);
+        final int keyVarLen = PlatformDependent.getInt(keyVarAddr);
+        keyHash = LBlockHashTable.keyHashCode(keyFixedAddr, dataWidth, keyVarAddr, keyVarLen, seed);
+      }
+      hashes[keyIndex] = keyHash;
+      partitionIndexes[keyIndex] = ((int) (keyHash >> 32)) & hashPartitionMask;
+    }
+  }
+
+  private void insertRecords(
+      int worker,
+      int recordsPivoted,
+      long keyFixedVectorAddr,
+      long keyVarVectorAddr,
+      long seed,
+      int recordsConsumed) {
+    final int firstOwned = firstPartition[worker];
+    final int lastOwned = firstPartition[worker + 1];
+    for (int p = firstOwned; p < lastOwned; p++) {
+      partitions[p].setVarFieldLengthAndCount(-1, 0);
+    }
+
+    long used = 0;
+    for (int keyIndex = 0; keyIndex < recordsPivoted; keyIndex++) {
+      final int hashPartitionIndex = partitionIndexes[keyIndex];
+      if (hashPartitionIndex < firstOwned || hashPartitionIndex >= lastOwned) {
+        continue;
+      }
+
+      final long keyFixedAddr = keyFixedVectorAddr + ((long) keyIndex * blockWidth);
+      final long keyVarAddr;
+      final int keyVarLen;
+      if (fixedOnly) {
+        keyVarAddr = -1;
+        keyVarLen = 0;
+      } else {
+        keyVarAddr = keyVarVectorAddr + PlatformDependent.getInt(keyFixedAddr + dataWidth);
+        keyVarLen = PlatformDependent.getInt(keyVarAddr);
+      }
+
+      final VectorizedHashAggPartition partition = partitions[hashPartitionIndex];
+      final int ordinal;
+      try {
+        ordinal =
+            partition.hashTable.getOrInsertWithAccumSpaceCheck(
+                keyFixedAddr, keyVarAddr, keyVarLen, (int) hashes[keyIndex], dataWidth, seed);
+      } catch (OutOfMemoryException e) {
+        failedAt[worker] = keyIndex;
+        partitionsUsed[worker] = used;
+        return;
+      }
+      used |= 1L << hashPartitionIndex;
+      partition.appendRecord(ordinal, keyIndex + recordsConsumed);
+    }
+    failedAt[worker] = recordsPivoted;
+    partitionsUsed[worker] = used;
+  }
+
+  /** Work done by a single worker. */
+  @FunctionalInterface
+  private interface WorkerTask {
+    void run(int worker);
+  }
+
+  /**
+   * Runs the task for all the workers, the first one on the calling thread, and waits for all of
+   * them. Always waits for every worker to finish, even when interrupted, since they use the memory
+   * of the operator.
+   */
+  private void runAll(WorkerTask task) {
+    final List<Future<?>> futures = new ArrayList<>(numWorkers - 1);
+    for (int w = 1; w < numWorkers; w++) {
+      final int worker = w;
+      futures.add(executor.submit(() -> task.run(worker)));
+    }
+
+    Throwable failure = null;
+    try {
+      task.run(0);
+    } catch (Throwable t) {
+      failure = t;
+    }
+    for (Future<?> future : futures) {
+      try {
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        } else {
+          failure.addSuppressed(e.getCause());
+        }
+      }
+    }
+    if (failure != null) {
+      Throwables.throwIfUnchecked(failure);
+      throw new RuntimeException(failure);
+    }
+  }
+}
@@ -21,6 +21,8 @@ public class VectorizedHashAggSpillStats {
   private int ooms;
   private int iterations;
   private int recursionDepth;
+  private long spilledDataSize;
+  private long spilledDiskSize;
 
   public void setSpills(final int spills) {
     this.spills = spills;
@@ -53,4 +55,20 @@ public class VectorizedHashAggSpillStats {
   public int getRecursionDepth() {
     return recursionDepth;
   }
+
+  public void setSpilledDataSize(final long spilledDataSize) {
+    this.spilledDataSize = spilledDataSize;
+  }
+
+  public long getSpilledDataSize() {
+    return spilledDataSize;
+  }
+
+  public void setSpilledDiskSize(final long spilledDiskSize) {
+    this.spilledDiskSize = spilledDiskSize;
+  }
+
+  public long getSpilledDiskSize() {
+    return spilledDiskSize;
+  }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.compression;
+
+import java.util.Arrays;
+
+/**
+ * Decides which buffers of a stream of batches are worth compressing.
+ *
+ * <p>Buffers are identified by their slot, i.e. their position in the batch, which usually
+ * identifies the type of the data (validity, offsets, values, ...). Buffers that are too small are
+ * not compressed. When a buffer doesn't compress well enough to be worth decompressing, compression
+ * is bypassed for the next few buffers of the same slot, so that incompressible data like floating
+ * point values doesn't pay for compression on every batch.
+ *
+ * <p>Not thread safe.
+ */
+public class AdaptiveCompressionPolicy {
+  // buffers smaller than this are not worth compressing
+  private static final int MIN_COMPRESS_LENGTH = 1024;
+  // compressed data larger than this fraction of the raw data is not worth decompressing
+  private static final double MAX_COMPRESSION_RATIO = 0.9;
+  // number of buffers of a slot not compressed after a buffer of that slot didn't compress well
+  private static final int BYPASS_BUFFERS = 32;
+
+  private int[] bypassRemaining = new int[0];
+  private long bypassedBuffers;
+
+  /**
+   * Whether to try compressing a buffer. Must be called once for every buffer of the slot.
+   *
+   * @param slot position of the buffer in its batch
+   * @param length raw length of the buffer
+   */
+  public boolean shouldCompress(int slot, long length) {
+    if (length < MIN_COMPRESS_LENGTH) {
+      return false;
+    }
+    if (slot >= bypassRemaining.length) {
+      bypassRemaining =
+          Arrays.copyOf(bypassRemaining, Math.max(slot + 1, 2 * bypassRemaining.length));
+    }
+    if (bypassRemaining[slot] > 0) {
+      bypassRemaining[slot]--;
+      bypassedBuffers++;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Records the outcome of compressing a buffer that {@link #shouldCompress(int, long)} accepted,
+   * bypassing its slot for the next buffers if it didn't compress well enough.
+   *
+   * @return whether the buffer should be stored compressed
+   */
+  public boolean compressed(int slot, long length, long compressedLength) {
+    if (isWorthCompressing(length, compressedLength)) {
+      return true;
+    }
+    bypassRemaining[slot] = BYPASS_BUFFERS;
+    return false;
+  }
+
+  /** Whether data compressed to the given length is worth decompressing. */
+  public static boolean isWorthCompressing(long length, long compressedLength) {
+    return compressedLength <= length * MAX_COMPRESSION_RATIO;
+  }
+
+  /** Number of buffers that were not compressed because their slot was bypassed. */
+  public long getBypassedBuffers() {
+    return bypassedBuffers;
+  }
+}
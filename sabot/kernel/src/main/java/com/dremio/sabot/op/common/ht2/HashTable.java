@@ -135,6 +135,7 @@ public interface HashTable {
     private final int maxHashTableBatchSize;
     private final NullComparator nullComparator;
     private final boolean runtimeFilterEnabled;
+    private final boolean batchedProbeEnabled;
 
     public HashTableCreateArgs(
         HashConfig hashConfig,
@@ -146,6 +147,30 @@ public interface HashTable {
         int maxHashTableBatchSize,
         NullComparator nullComparator,
         boolean runtimeFilterEnabled) {
+      this(
+          hashConfig,
+          pivot,
+          allocator,
+          initialSize,
+          defaultVarLengthSize,
+          enforceVarWidthBufferLimit,
+          maxHashTableBatchSize,
+          nullComparator,
+          runtimeFilterEnabled,
+          false);
+    }
+
+    public HashTableCreateArgs(
+        HashConfig hashConfig,
+        PivotDef pivot,
+        BufferAllocator allocator,
+        int initialSize,
+        int defaultVarLengthSize,
+        boolean enforceVarWidthBufferLimit,
+        int maxHashTableBatchSize,
+        NullComparator nullComparator,
+        boolean runtimeFilterEnabled,
+        boolean batchedProbeEnabled) {
       this.hashConfig = hashConfig;
       this.pivot = pivot;
       this.allocator = allocator;
@@ -155,6 +180,7 @@ public interface HashTable {
       this.maxHashTableBatchSize = maxHashTableBatchSize;
       this.nullComparator = nullComparator;
       this.runtimeFilterEnabled = runtimeFilterEnabled;
+      this.batchedProbeEnabled = batchedProbeEnabled;
     }
 
     public HashConfig getHashConfig() {
@@ -192,5 +218,9 @@ public interface HashTable {
     public boolean isRuntimeFilterEnabled() {
       return runtimeFilterEnabled;
     }
+
+    public boolean isBatchedProbeEnabled() {
+      return batchedProbeEnabled;
+    }
   }
 }
@@ -69,6 +69,7 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
   public static final long LFREE = -1L; // same for both int and long.
 
   private static final int RETRY_RETURN_CODE = -2;
+  private static final int PROBE_BATCH_SIZE = 16;
   public static final int ORDINAL_SIZE = 4;
 
   private final HashConfigWrapper config;
@@ -79,6 +80,7 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
   private final BufferAllocator allocator;
   private final NullComparator nullComparator;
   private final boolean fixedOnly;
+  private final boolean batchedProbe;
 
   private int capacity;
   private int maxSize;
@@ -132,7 +134,8 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
         createArgs.getDefaultVarLengthSize(),
         createArgs.isEnforceVarWidthBufferLimit(),
         createArgs.getMaxHashTableBatchSize(),
-        createArgs.getNullComparator());
+        createArgs.getNullComparator(),
+        createArgs.isBatchedProbeEnabled());
   }
 
   public LBlockHashTable(
@@ -163,10 +166,39 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
       final boolean enforceVarWidthBufferLimit,
       final int maxHashTableBatchSize,
       NullComparator nullComparator) {
+    this(
+        config,
+        pivot,
+        parentAllocator,
+        initialSize,
+        defaultVariableLengthSize,
+        enforceVarWidthBufferLimit,
+        maxHashTableBatchSize,
+        nullComparator,
+        false);
+  }
+
+  /**
+   * @param batchedProbe if true, keys of 8 or 16 bytes with no variable width part are hashed and
+   *     searched for in batches (see {@link HashComputation#computeHashBatched(BlockChunk)} and
+   *     {@link #findBatched(int, long, long, long, int)})
+   */
+  public LBlockHashTable(
+      HashConfig config,
+      PivotDef pivot,
+      BufferAllocator parentAllocator,
+      int initialSize,
+      int defaultVariableLengthSize,
+      final boolean enforceVarWidthBufferLimit,
+      final int maxHashTableBatchSize,
+      NullComparator nullComparator,
+      boolean batchedProbe) {
     this.pivot = pivot;
     this.nullComparator = nullComparator;
     this.config = new HashConfigWrapper(config);
     this.fixedOnly = pivot.getVariableCount() == 0;
+    this.batchedProbe =
+        batchedProbe && fixedOnly && (pivot.getBlockWidth() == 8 || pivot.getBlockWidth() == 16);
     this.enforceVarWidthBufferLimit = enforceVarWidthBufferLimit;
     this.resizeListener = ResizeListener.NO_OP;
     this.spaceCheckListener = SpaceCheckListener.NO_OP;
@@ -261,7 +293,11 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
             numRecords,
             hashOut8B.memoryAddress(),
             seed);
-    HashComputation.computeHash(blockChunk);
+    if (batchedProbe) {
+      HashComputation.computeHashBatched(blockChunk);
+    } else {
+      HashComputation.computeHash(blockChunk);
+    }
   }
 
   /**
@@ -442,6 +478,10 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
     switch (mode) {
       default:
       case NONE:
+        if (batchedProbe) {
+          findBatched(numRecords, keyFixedVectorAddr, hashVectorAddr8B, outputAddr, 0);
+          break;
+        }
         for (int keyIndex = 0;
             keyIndex < numRecords;
             keyIndex++, outputAddr += 4, hashVectorAddr8B += 8) {
@@ -454,6 +494,10 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
 
       case FOUR:
         int four = nullComparator.getFour();
+        if (batchedProbe) {
+          findBatched(numRecords, keyFixedVectorAddr, hashVectorAddr8B, outputAddr, four);
+          break;
+        }
         for (int keyIndex = 0;
             keyIndex < numRecords;
             keyIndex++, outputAddr += 4, hashVectorAddr8B += 8, bitsAddr += blockWidth) {
@@ -504,6 +548,70 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
     }
   }
 
+  /**
+   * Search for a vector of fixed only keys of 8 or 16 bytes, {@link #PROBE_BATCH_SIZE} keys at a
+   * time. The control words of the home slots of all the keys of a batch are gathered before any of
+   * them is compared, so that the cache misses on the control blocks overlap instead of happening
+   * one after the other. The common cases, a free home slot or a match in the home slot, are
+   * resolved with direct 8-byte comparisons. Everything else falls back to the linear probing of
+   * {@link #find(long, long, long, int, int)}.
+   *
+   * @param numRecords number of records to search
+   * @param keyFixedVectorAddr starting address of the fixed keys
+   * @param hashVectorAddr8B starting address of the 8-byte hash values
+   * @param outputAddr starting address of the output ordinals
+   * @param four validity bits that must be set for a key to be comparable, 0 if nulls match
+   */
+  private void findBatched(
+      int numRecords, long keyFixedVectorAddr, long hashVectorAddr8B, long outputAddr, int four) {
+    final int blockWidth = pivot.getBlockWidth();
+    final int mask = capacity - 1;
+    final long[] tableControlAddresses = this.tableControlAddresses;
+    final long[] tableFixedAddresses = this.tableFixedAddresses;
+    final int[] keyHashes = new int[PROBE_BATCH_SIZE];
+    final long[] controls = new long[PROBE_BATCH_SIZE];
+
+    for (int start = 0; start < numRecords; start += PROBE_BATCH_SIZE) {
+      final int count = Math.min(PROBE_BATCH_SIZE, numRecords - start);
+
+      for (int i = 0; i < count; i++) {
+        final int keyHash = (int) PlatformDependent.getLong(hashVectorAddr8B + ((start + i) * 8L));
+        final int controlIndex = keyHash & mask;
+        keyHashes[i] = keyHash;
+        controls[i] =
+            PlatformDependent.getLong(
+                tableControlAddresses[getBatchIndexForOrdinal(controlIndex)]
+                    + ((controlIndex & CHUNK_OFFSET_MASK) * CONTROL_WIDTH));
+      }
+
+      for (int i = 0; i < count; i++) {
+        final int keyIndex = start + i;
+        final long control = controls[i];
+        final long keyAddr = keyFixedVectorAddr + ((long) keyIndex * blockWidth);
+        int ordinal = FREE;
+        if ((PlatformDependent.getInt(keyAddr) & four) != four) {
+          // the nulls are not comparable. as such, this doesn't match.
+          ordinal = SKIP;
+        } else if (control != LFREE) {
+          ordinal = (int) control;
+          final long tableDataAddr =
+              tableFixedAddresses[getBatchIndexForOrdinal(ordinal)]
+                  + ((ordinal & CHUNK_OFFSET_MASK) * blockWidth);
+          final boolean match =
+              keyHashes[i] == (int) (control >>> 32)
+                  && PlatformDependent.getLong(keyAddr) == PlatformDependent.getLong(tableDataAddr)
+                  && (blockWidth == 8
+                      || PlatformDependent.getLong(keyAddr + 8)
+                          == PlatformDependent.getLong(tableDataAddr + 8));
+          if (!match) {
+            ordinal = find(keyFixedVectorAddr, 0, 0, keyIndex, keyHashes[i]);
+          }
+        }
+        PlatformDependent.putInt(outputAddr + ((long) keyIndex * ORDINAL_SIZE), ordinal);
+      }
+    }
+  }
+
   /**
    * Search for a vector of keys.
    *
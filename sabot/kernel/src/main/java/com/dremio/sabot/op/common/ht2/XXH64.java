@@ -152,6 +152,26 @@ public class XXH64 {
     return finalize(hash);
   }
 
+  /** Same as {@link #xxHash64(long, long, long)} for a key of exactly 8 bytes. */
+  public static long xxHash64Fixed8(long value, long seed) {
+    final long hash = seed + P5 + 8;
+    return finalize(round(hash, value));
+  }
+
+  /** Same as {@link #xxHash64(long, long, long)} for a key of exactly 16 bytes. */
+  public static long xxHash64Fixed16(long value1, long value2, long seed) {
+    final long hash = seed + P5 + 16;
+    return finalize(round(round(hash, value1), value2));
+  }
+
+  private static long round(long hash, long value) {
+    long k1 = value * P2;
+    k1 = Long.rotateLeft(k1, 31);
+    k1 *= P1;
+    hash ^= k1;
+    return Long.rotateLeft(hash, 27) * P1 + P4;
+  }
+
   private static long finalize(long hash) {
     hash ^= hash >>> 33;
     hash *= P2;
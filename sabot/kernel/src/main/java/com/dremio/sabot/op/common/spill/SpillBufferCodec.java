@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.spill;
+
+import com.dremio.sabot.op.common.compression.AdaptiveCompressionPolicy;
+import com.google.common.base.Preconditions;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.apache.arrow.memory.ArrowBuf;
+
+/**
+ * Writes and reads spilled ArrowBufs one at a time, choosing a codec for each buffer.
+ *
+ * <p>Each buffer is written as a frame: 1 byte codec, 4 byte length of the stored data, and the
+ * stored data. The raw length of the buffer is not part of the frame, the caller already records it
+ * in its own metadata.
+ *
+ * <p>The codec is chosen per slot, i.e. per position of the buffer in the spilled batch, which
+ * usually identifies the type of the data (validity, offsets, pivoted keys, accumulator values,
+ * ...). The buffers that the {@link AdaptiveCompressionPolicy} accepts are compressed with LZ4, the
+ * others, and the ones that don't compress well enough, are stored as is.
+ *
+ * <p>Not thread safe.
+ */
+public class SpillBufferCodec {
+  /** Codec of a frame, the ordinal is written to the stream. */
+  enum Codec {
+    NONE,
+    LZ4
+  }
+
+  private static final int FRAME_HEADER_LENGTH = 5;
+
+  private final LZ4Compressor compressor;
+  private final LZ4FastDecompressor decompressor;
+  private final AdaptiveCompressionPolicy policy = new AdaptiveCompressionPolicy();
+  private final byte[] header = new byte[FRAME_HEADER_LENGTH];
+  private byte[] scratch = new byte[32 * 1024];
+
+  private long rawBytes;
+  private long storedBytes;
+  private long compressionNanos;
+  private long decompressionNanos;
+
+  public SpillBufferCodec() {
+    final LZ4Factory factory = LZ4Factory.fastestInstance();
+    this.compressor = factory.fastCompressor();
+    this.decompressor = factory.fastDecompressor();
+  }
+
+  /**
+   * Writes the first length bytes of the buffer as one frame.
+   *
+   * @param buffer buffer to write
+   * @param length number of bytes to write, starting at index 0
+   * @param slot position of the buffer in the spilled batch
+   * @param output stream to write to
+   * @return number of bytes written to the stream
+   */
+  public long write(ArrowBuf buffer, int length, int slot, OutputStream output) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    rawBytes += length;
+
+    int storedLength = length;
+    Codec codec = Codec.NONE;
+    if (policy.shouldCompress(slot, length)) {
+      final long start = System.nanoTime();
+      final int maxLength = compressor.maxCompressedLength(length);
+      ensureScratch(maxLength);
+      final int compressedLength =
+          compressor.compress(
+              buffer.nioBuffer(0, length), 0, length, ByteBuffer.wrap(scratch), 0, maxLength);
+      compressionNanos += System.nanoTime() - start;
+      if (policy.compressed(slot, length, compressedLength)) {
+        codec = Codec.LZ4;
+        storedLength = compressedLength;
+      }
+    }
+
+    header[0] = (byte) codec.ordinal();
+    header[1] = (byte) storedLength;
+    header[2] = (byte) (storedLength >>> 8);
+    header[3] = (byte) (storedLength >>> 16);
+    header[4] = (byte) (storedLength >>> 24);
+    output.write(header);
+    if (codec == Codec.LZ4) {
+      output.write(scratch, 0, storedLength);
+    } else {
+      writeRaw(buffer, length, output);
+    }
+    storedBytes += FRAME_HEADER_LENGTH + storedLength;
+    return FRAME_HEADER_LENGTH + storedLength;
+  }
+
+  /**
+   * Reads a frame written by {@link #write(ArrowBuf, int, int, OutputStream)}, and appends its data
+   * to the buffer, starting at its writer index.
+   *
+   * @param buffer buffer to read into
+   * @param length raw length of the frame's data
+   * @param input stream to read from
+   */
+  public void read(ArrowBuf buffer, int length, InputStream input) throws IOException {
+    if (length == 0) {
+      return;
+    }
+    readFully(input, header, FRAME_HEADER_LENGTH);
+    final int codecOrdinal = header[0];
+    final int storedLength =
+        (header[1] & 0xFF)
+            | (header[2] & 0xFF) << 8
+            | (header[3] & 0xFF) << 16
+            | (header[4] & 0xFF) << 24;
+    Preconditions.checkState(
+        codecOrdinal >= 0 && codecOrdinal < Codec.values().length,
+        "Unknown spill codec %s",
+        codecOrdinal);
+
+    if (Codec.values()[codecOrdinal] == Codec.NONE) {
+      Preconditions.checkState(
+          storedLength == length,
+          "Expected %s bytes in spilled buffer but found %s",
+          length,
+          storedLength);
+      int remaining = length;
+      while (remaining > 0) {
+        final int toRead = Math.min(remaining, scratch.length);
+        readFully(input, scratch, toRead);
+        buffer.writeBytes(scratch, 0, toRead);
+        remaining -= toRead;
+      }
+      return;
+    }
+
+    ensureScratch(storedLength);
+    readFully(input, scratch, storedLength);
+    final long start = System.nanoTime();
+    final long writerIndex = buffer.writerIndex();
+    final int read =
+        decompressor.decompress(
+            ByteBuffer.wrap(scratch, 0, storedLength),
+            0,
+            buffer.nioBuffer(writerIndex, length),
+            0,
+            length);
+    decompressionNanos += System.nanoTime() - start;
+    Preconditions.checkState(
+        read == storedLength,
+        "Expected %s compressed bytes in spilled buffer but decompressed %s",
+        storedLength,
+        read);
+    buffer.writerIndex(writerIndex + length);
+  }
+
+  /** Raw bytes of all the buffers written. */
+  public long getRawBytes() {
+    return rawBytes;
+  }
+
+  /** Bytes written to the streams, including the frame headers. */
+  public long getStoredBytes() {
+    return storedBytes;
+  }
+
+  public long getCompressionNanos() {
+    return compressionNanos;
+  }
+
+  public long getDecompressionNanos() {
+    return decompressionNanos;
+  }
+
+  /** Number of buffers that were stored as is without trying to compress them. */
+  public long getBypassedBuffers() {
+    return policy.getBypassedBuffers();
+  }
+
+  private void writeRaw(ArrowBuf buffer, int length, OutputStream output) throws IOException {
+    for (int position = 0; position < length; position += scratch.length) {
+      final int toWrite = Math.min(scratch.length, length - position);
+      buffer.getBytes(position, scratch, 0, toWrite);
+      output.write(scratch, 0, toWrite);
+    }
+  }
+
+  private void ensureScratch(int length) {
+    if (scratch.length < length) {
+      scratch = new byte[length];
+    }
+  }
+
+  private static void readFully(InputStream input, byte[] bytes, int length) throws IOException {
+    int offset = 0;
+    while (offset < length) {
+      final int read = input.read(bytes, offset, length - offset);
+      if (read == -1) {
+        throw new EOFException("Unexpected end of stream while reading spilled buffer");
+      }
+      offset += read;
+    }
+  }
+}
@@ -90,6 +90,11 @@ public class HashJoinOperator implements DualInputOperator {
       new TypeValidators.PositiveLongValidator(
           "exec.op.join.spill.page_size", Integer.MAX_VALUE, 256 * 1024);
 
+  // Write and read spill files on a background thread, so that the operator keeps working while
+  // the previous (or next) buffer is being written (or read).
+  public static final BooleanValidator SPILL_ASYNC_IO =
+      new BooleanValidator("exec.op.join.spill.async_io", false);
+
   // For unit tests, always use with DEBUG flag only.
   public static final StringValidator TEST_SPILL_MODE =
       new StringValidator("exec.op.join.spill.test_spill_mode", "none");
@@ -17,6 +17,7 @@ package com.dremio.sabot.op.join.vhash;
 
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.config.SabotConfig;
+import com.dremio.exec.ExecConstants;
 import com.dremio.options.OptionManager;
 import com.dremio.sabot.op.common.ht2.FixedBlockVector;
 import com.dremio.sabot.op.common.ht2.HashTable;
@@ -74,7 +75,8 @@ public class BlockJoinTable implements JoinTable {
                 false,
                 MAX_VALUES_PER_BATCH,
                 nullMask,
-                runtimeFilterEnabled));
+                runtimeFilterEnabled,
+                optionManager.getOption(ExecConstants.ENABLE_VECTORIZED_HASHJOIN_BATCHED_PROBE)));
     this.buildPivot = buildPivot;
     this.probePivot = probePivot;
     this.tableTracing = false;
@@ -110,7 +110,18 @@ public class HashJoinStats {
     OOB_DROP_NO_VICTIM, /* number of oob messages dropped because a victim partition wasn't found */
     OOB_DROP_LOCAL, /* number of self sent oob messages ignored */
     OOB_DROP_WRONG_STATE, /* number of oob messages dropped because it was not in build phase */
-    OOB_SPILL; /* number of spills performed */
+    OOB_SPILL, /* number of spills performed */
+    SPILL_WR_OVERLAP_NANOS(
+        DisplayType.DISPLAY_BY_DEFAULT,
+        AggregationType.MAX,
+        "SPILL_WR_OVERLAP_NANOS"), /* time spent in spill write in the background */
+    SPILL_RD_OVERLAP_NANOS(
+        DisplayType.DISPLAY_BY_DEFAULT,
+        AggregationType.MAX,
+        "SPILL_RD_OVERLAP_NANOS"), /* time spent in spill read ahead in the background */
+    SPILL_WR_DISK_BYTES, /* total bytes written to the spill files, after compression */
+    SPILL_COMPRESSION_NANOS, /* time spent compressing spilled data */
+    SPILL_DECOMPRESSION_NANOS; /* time spent decompressing spilled data */
 
     private final UserBitShared.MetricDef.DisplayType displayType;
     private final UserBitShared.MetricDef.AggregationType aggregationType;
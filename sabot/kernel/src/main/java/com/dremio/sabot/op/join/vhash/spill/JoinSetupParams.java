@@ -27,6 +27,7 @@ import com.dremio.sabot.op.common.ht2.FixedBlockVector;
 import com.dremio.sabot.op.common.ht2.NullComparator;
 import com.dremio.sabot.op.common.ht2.PivotDef;
 import com.dremio.sabot.op.common.ht2.VariableBlockVector;
+import com.dremio.sabot.op.join.hash.HashJoinOperator;
 import com.dremio.sabot.op.join.vhash.spill.io.SpillSerializable;
 import com.dremio.sabot.op.join.vhash.spill.io.SpillSerializableImpl;
 import com.dremio.sabot.op.join.vhash.spill.io.SpillSerializableWithStats;
@@ -38,6 +39,7 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.calcite.rel.core.JoinRelType;
@@ -99,6 +101,8 @@ public final class JoinSetupParams implements AutoCloseable {
 
   // used for spilling (shared across all partitions)
   private final PagePool spillPagePool;
+  // executor for asynchronous spill I/O, null if spill files are written and read synchronously
+  private final ExecutorService spillIOExecutor;
   private final SpillSerializable buildSpillSerializable;
   private final SpillSerializable probeSpillSerializable;
 
@@ -171,6 +175,8 @@ public final class JoinSetupParams implements AutoCloseable {
     this.oobInfo = oobInfo;
     this.operatorId = operatorId;
     this.runtimeFilterEnabled = runtimeFilterEnabled;
+    this.spillIOExecutor =
+        options.getOption(HashJoinOperator.SPILL_ASYNC_IO) ? context.getExecutor() : null;
 
     SpillSerializable serializable = new SpillSerializableImpl();
     this.buildSpillSerializable = new SpillSerializableWithStats(serializable, spillStats, true);
@@ -269,6 +275,10 @@ public final class JoinSetupParams implements AutoCloseable {
     return spillPagePool;
   }
 
+  public ExecutorService getSpillIOExecutor() {
+    return spillIOExecutor;
+  }
+
   public SpillSerializable getSpillSerializable(boolean isBuild) {
     return isBuild ? buildSpillSerializable : probeSpillSerializable;
   }
@@ -28,6 +28,7 @@ public class SpillStats {
   private long writeProbeRecords;
   private long writeProbeBatches;
   private long writeNanos;
+  private long writeOverlapNanos;
 
   // read stats
   private long readBuildBytes;
@@ -39,6 +40,7 @@ public class SpillStats {
   private long readProbeBatches;
   private long readProbeBatchesMerged;
   private long readNanos;
+  private long readOverlapNanos;
   private int oobSends;
 
   public long getSpillCount() {
@@ -200,4 +202,20 @@ public class SpillStats {
   public void addReadNanos(long readNanos) {
     this.readNanos += readNanos;
   }
+
+  public long getWriteOverlapNanos() {
+    return writeOverlapNanos;
+  }
+
+  public void addWriteOverlapNanos(long writeOverlapNanos) {
+    this.writeOverlapNanos += writeOverlapNanos;
+  }
+
+  public long getReadOverlapNanos() {
+    return readOverlapNanos;
+  }
+
+  public void addReadOverlapNanos(long readOverlapNanos) {
+    this.readOverlapNanos += readOverlapNanos;
+  }
 }
@@ -986,6 +986,8 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator, Sh
     // time taken related to spill
     stats.setLongStat(Metric.SPILL_WR_NANOS, spillStats.getWriteNanos());
     stats.setLongStat(Metric.SPILL_RD_NANOS, spillStats.getReadNanos());
+    stats.setLongStat(Metric.SPILL_WR_OVERLAP_NANOS, spillStats.getWriteOverlapNanos());
+    stats.setLongStat(Metric.SPILL_RD_OVERLAP_NANOS, spillStats.getReadOverlapNanos());
 
     if (spillStats.getSpillCount() != 0) {
       stats.setLongStat(Metric.SPILL_COUNT, spillStats.getSpillCount());
@@ -1013,6 +1015,12 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator, Sh
       stats.setLongStat(Metric.OOB_DROP_LOCAL, oobDropLocal);
       stats.setLongStat(Metric.OOB_DROP_LOCAL, oobDropWrongState);
       stats.setLongStat(Metric.OOB_SPILL, oobSpills);
+
+      // only includes the spill files closed so far
+      final SpillManager spillManager = joinSetupParams.getSpillManager();
+      stats.setLongStat(Metric.SPILL_WR_DISK_BYTES, spillManager.getIOWriteBytes());
+      stats.setLongStat(Metric.SPILL_COMPRESSION_NANOS, spillManager.getCompressionNanos());
+      stats.setLongStat(Metric.SPILL_DECOMPRESSION_NANOS, spillManager.getDecompressionNanos());
     }
   }
 
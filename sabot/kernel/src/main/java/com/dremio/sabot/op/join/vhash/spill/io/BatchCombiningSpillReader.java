@@ -33,6 +33,7 @@ import com.google.common.base.Throwables;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import org.apache.arrow.memory.ArrowBuf;
 
 /**
@@ -54,13 +55,36 @@ public class BatchCombiningSpillReader implements CloseableIterator<SpillChunk>
       PivotDef pivotDef,
       BatchSchema unpivotedColumnsSchema,
       int maxInputBatchSize) {
+    this(
+        spillFile,
+        serializable,
+        pagePool,
+        pivotDef,
+        unpivotedColumnsSchema,
+        maxInputBatchSize,
+        null);
+  }
+
+  public BatchCombiningSpillReader(
+      SpillManager.SpillFile spillFile,
+      SpillSerializable serializable,
+      PagePool pagePool,
+      PivotDef pivotDef,
+      BatchSchema unpivotedColumnsSchema,
+      int maxInputBatchSize,
+      ExecutorService ioExecutor) {
     this.pageSupplier = new ReusingPageSupplier(pagePool);
-    this.reader = new SpillReader(spillFile, serializable, pageSupplier, unpivotedColumnsSchema);
+    this.reader =
+        new SpillReader(spillFile, serializable, pageSupplier, unpivotedColumnsSchema, ioExecutor);
     this.pagePool = pagePool;
     this.pivotDef = pivotDef;
     this.maxInputBatchSize = maxInputBatchSize;
   }
 
+  public long getIOOverlapNanos() {
+    return reader.getIOOverlapNanos();
+  }
+
   @Override
   public void close() throws Exception {
     AutoCloseables.close(reader, pageSupplier);
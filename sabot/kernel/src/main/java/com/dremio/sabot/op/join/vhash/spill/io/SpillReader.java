@@ -23,6 +23,7 @@ import com.dremio.sabot.op.sort.external.SpillManager.SpillFile;
 import com.dremio.sabot.op.sort.external.SpillManager.SpillInputStream;
 import com.google.common.base.Preconditions;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Reader for spilled file, returns an iterator of chunks. Each chunk has both pivoted and unpivoted
@@ -33,6 +34,7 @@ public class SpillReader implements CloseableIterator<SpillChunk> {
   private final PageSupplier pageSupplier;
   private final BatchSchema unpivotedColumnsSchema;
   private final SpillSerializable serializable;
+  private final ExecutorService ioExecutor;
   private SpillChunk prefetchedChunk = null;
   private SpillInputStream inputStream;
 
@@ -41,10 +43,24 @@ public class SpillReader implements CloseableIterator<SpillChunk> {
       SpillSerializable serializable,
       PageSupplier pageSupplier,
       BatchSchema unpivotedColumnsSchema) {
+    this(spillFile, serializable, pageSupplier, unpivotedColumnsSchema, null);
+  }
+
+  /**
+   * @param ioExecutor if not null, the spill file is read ahead on this executor while the current
+   *     chunk is being processed
+   */
+  public SpillReader(
+      SpillFile spillFile,
+      SpillSerializable serializable,
+      PageSupplier pageSupplier,
+      BatchSchema unpivotedColumnsSchema,
+      ExecutorService ioExecutor) {
     this.spillFile = spillFile;
     this.serializable = serializable;
     this.pageSupplier = pageSupplier;
     this.unpivotedColumnsSchema = unpivotedColumnsSchema;
+    this.ioExecutor = ioExecutor;
   }
 
   @Override
@@ -72,7 +88,7 @@ public class SpillReader implements CloseableIterator<SpillChunk> {
   private void prefetch() {
     try {
       if (inputStream == null) {
-        inputStream = spillFile.open(true);
+        inputStream = spillFile.open(true, ioExecutor);
       }
       prefetchedChunk =
           serializable.readChunkFromStream(pageSupplier, unpivotedColumnsSchema, inputStream);
@@ -81,6 +97,11 @@ public class SpillReader implements CloseableIterator<SpillChunk> {
     }
   }
 
+  /** Time spent reading ahead in the background. */
+  public long getIOOverlapNanos() {
+    return inputStream == null ? 0 : inputStream.getIOOverlapTime();
+  }
+
   @Override
   public void close() throws Exception {
     AutoCloseables.close(prefetchedChunk, inputStream);
@@ -30,6 +30,7 @@ import com.dremio.sabot.op.join.vhash.spill.slicer.RecordBatchPage;
 import com.dremio.sabot.op.sort.external.SpillManager;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import java.util.concurrent.ExecutorService;
 import org.apache.arrow.memory.ArrowBuf;
 import org.apache.calcite.util.ImmutableBitSet;
 
@@ -49,6 +50,7 @@ public class SpillWriter implements AutoCloseable {
   private final FixedBlockVector fixed;
   private final VariableBlockVector variable;
   private final PageBatchSlicer slicer;
+  private final ExecutorService ioExecutor;
 
   private SpillManager.SpillOutputStream outputStream;
   private SpillManager.SpillFile spillFile;
@@ -66,6 +68,34 @@ public class SpillWriter implements AutoCloseable {
       ImmutableBitSet unpivotedColumns,
       FixedBlockVector fixed,
       VariableBlockVector variable) {
+    this(
+        spillManager,
+        serializable,
+        fileName,
+        pagePool,
+        sv2,
+        input,
+        unpivotedColumns,
+        fixed,
+        variable,
+        null);
+  }
+
+  /**
+   * @param ioExecutor if not null, the spill file is written on this executor while the next chunks
+   *     are being copied to pages
+   */
+  public SpillWriter(
+      SpillManager spillManager,
+      SpillSerializable serializable,
+      String fileName,
+      PagePool pagePool,
+      ArrowBuf sv2,
+      VectorAccessible input,
+      ImmutableBitSet unpivotedColumns,
+      FixedBlockVector fixed,
+      VariableBlockVector variable,
+      ExecutorService ioExecutor) {
     this.spillManager = spillManager;
     this.serializable = serializable;
     this.fileName = fileName;
@@ -74,6 +104,7 @@ public class SpillWriter implements AutoCloseable {
     this.fixed = fixed;
     this.variable = variable;
     this.slicer = new PageBatchSlicer(pagePool, sv2, input, unpivotedColumns);
+    this.ioExecutor = ioExecutor;
   }
 
   public void setSv2(ArrowBuf newSv2) {
@@ -84,7 +115,7 @@ public class SpillWriter implements AutoCloseable {
     if (outputStream == null) {
       spillFile = spillManager.getSpillFile(fileName);
       spillFileDescriptor = new SpillFileDescriptor(spillFile);
-      outputStream = spillFile.create(true);
+      outputStream = spillFile.create(true, ioExecutor);
     }
 
     int recordsDone = 0;
@@ -198,6 +229,11 @@ public class SpillWriter implements AutoCloseable {
     };
   }
 
+  /** Time spent writing in the background, only complete once the writer is closed. */
+  public long getIOOverlapNanos() {
+    return outputStream == null ? 0 : outputStream.getIOOverlapTime();
+  }
+
   @Override
   public void close() throws Exception {
     if (outputStream != null) {
@@ -86,7 +86,8 @@ public class DiskPartition implements Partition {
             setupParams.getRight(),
             setupParams.getBuildNonKeyFieldsBitset(),
             pivotedFixedBlockVector,
-            pivotedVariableBlockVector);
+            pivotedVariableBlockVector,
+            setupParams.getSpillIOExecutor());
 
     // For the probe side, we spill the key columns in both pivoted & unpivoted format.
     // - The pivoted format is useful for hash-table lookup
@@ -101,7 +102,8 @@ public class DiskPartition implements Partition {
             setupParams.getLeft(),
             null /*all columns are pivoted*/,
             pivotedFixedBlockVector,
-            pivotedVariableBlockVector);
+            pivotedVariableBlockVector,
+            setupParams.getSpillIOExecutor());
   }
 
   @Override
@@ -212,5 +214,8 @@ public class DiskPartition implements Partition {
                 buildWriter.getSpillFileDescriptor(),
                 probeWriter.getSpillFileDescriptor()));
     AutoCloseables.close(buildWriter, probeWriter);
+    setupParams
+        .getSpillStats()
+        .addWriteOverlapNanos(buildWriter.getIOOverlapNanos() + probeWriter.getIOOverlapNanos());
   }
 }
@@ -24,6 +24,7 @@ import com.dremio.sabot.op.common.ht2.FixedBlockVector;
 import com.dremio.sabot.op.common.ht2.PivotDef;
 import com.dremio.sabot.op.common.ht2.VariableBlockVector;
 import com.dremio.sabot.op.join.vhash.spill.JoinSetupParams;
+import com.dremio.sabot.op.join.vhash.spill.SpillStats;
 import com.dremio.sabot.op.join.vhash.spill.YieldingRunnable;
 import com.dremio.sabot.op.join.vhash.spill.io.BatchCombiningSpillReader;
 import com.dremio.sabot.op.join.vhash.spill.io.SpillChunk;
@@ -37,6 +38,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.calcite.rel.core.JoinRelType;
 
@@ -113,7 +115,9 @@ public class JoinReplayer implements YieldingRunnable {
             replayEntry.getBuildFiles(),
             setupParams.getBuildKeyPivot(),
             new BatchSchema(unpivotedBuildFields),
-            setupParams.getMaxInputBatchSize());
+            setupParams.getMaxInputBatchSize(),
+            setupParams.getSpillIOExecutor(),
+            setupParams.getSpillStats());
 
     // for probe side, the spill has
     // - key columns in both pivoted and unpivoted format
@@ -128,7 +132,9 @@ public class JoinReplayer implements YieldingRunnable {
             replayEntry.getProbeFiles(),
             setupParams.getBuildKeyPivot(),
             setupParams.getLeft().getSchema(),
-            setupParams.getMaxInputBatchSize());
+            setupParams.getMaxInputBatchSize(),
+            setupParams.getSpillIOExecutor(),
+            setupParams.getSpillStats());
   }
 
   @Override
@@ -332,6 +338,8 @@ public class JoinReplayer implements YieldingRunnable {
     private final PivotDef pivotDef;
     private final BatchSchema schema;
     private final int maxInputBatchSize;
+    private final ExecutorService ioExecutor;
+    private final SpillStats spillStats;
     private SpillFile currentFile;
     private BatchCombiningSpillReader currentReader;
     private SpillChunk currentChunk;
@@ -344,13 +352,17 @@ public class JoinReplayer implements YieldingRunnable {
         List<SpillFile> spillFiles,
         PivotDef pivotDef,
         BatchSchema schema,
-        int maxInputBatchSize) {
+        int maxInputBatchSize,
+        ExecutorService ioExecutor,
+        SpillStats spillStats) {
       this.serializable = serializable;
       this.pool = pool;
       this.spillFiles = new LinkedList<>(spillFiles);
       this.pivotDef = pivotDef;
       this.schema = schema;
       this.maxInputBatchSize = maxInputBatchSize;
+      this.ioExecutor = ioExecutor;
+      this.spillStats = spillStats;
     }
 
     @Override
@@ -377,6 +389,7 @@ public class JoinReplayer implements YieldingRunnable {
       if (currentReader != null && !currentReader.hasNext()) {
         // If the current file is finished, close it.
         AutoCloseables.closeNoChecked(currentReader);
+        spillStats.addReadOverlapNanos(currentReader.getIOOverlapNanos());
 
         SpillFile finishedFile = spillFiles.removeFirst();
         Preconditions.checkState(finishedFile == currentFile);
@@ -393,7 +406,7 @@ public class JoinReplayer implements YieldingRunnable {
         currentFile = spillFiles.getFirst();
         currentReader =
             new BatchCombiningSpillReader(
-                currentFile, serializable, pool, pivotDef, schema, maxInputBatchSize);
+                currentFile, serializable, pool, pivotDef, schema, maxInputBatchSize, ioExecutor);
       }
 
       if (currentReader.hasNext()) {
@@ -406,6 +419,9 @@ public class JoinReplayer implements YieldingRunnable {
     @Override
     public void close() throws Exception {
       AutoCloseables.close(currentChunk, nextChunk, currentReader);
+      if (currentReader != null) {
+        spillStats.addReadOverlapNanos(currentReader.getIOOverlapNanos());
+      }
       currentReader = null;
       nextChunk = null;
       currentChunk = null;
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.receiver;
+
+import com.dremio.exec.proto.ExecRPC.FragmentRecordBatch;
+import com.google.common.base.Preconditions;
+import com.google.flatbuffers.FlatBufferBuilder;
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import org.apache.arrow.flatbuf.BodyCompression;
+import org.apache.arrow.flatbuf.Buffer;
+import org.apache.arrow.flatbuf.CompressionType;
+import org.apache.arrow.flatbuf.FieldNode;
+import org.apache.arrow.flatbuf.RecordBatch;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.compression.NoCompressionCodec;
+import org.apache.arrow.vector.ipc.message.ArrowFieldNode;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+
+/**
+ * Decompresses the batches received from an exchange whose sender compressed them with {@link
+ * com.dremio.sabot.op.sender.ExchangeCompressor}. Uncompressed batches are returned as is, so that
+ * receivers can decompress every batch they get.
+ *
+ * <p>Batches are decompressed by the receiving fragment when it consumes them, so that batches
+ * waiting in the receiving buffers, or spilled by them, stay compressed.
+ *
+ * <p>Not thread safe.
+ */
+public class ExchangeDecompressor {
+  private static final int PREFIX_LENGTH = (int) CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH;
+
+  private final BufferAllocator allocator;
+  private final byte[] scratch = new byte[32 * 1024];
+
+  private long compressedBytes;
+  private long decompressionNanos;
+  private long decompressedBatches;
+
+  public ExchangeDecompressor(BufferAllocator allocator) {
+    this.allocator = allocator;
+  }
+
+  /**
+   * Decompresses a batch.
+   *
+   * @param batch batch to decompress, may be null
+   * @return the given batch if it isn't compressed, or a new batch owning its decompressed body,
+   *     the given batch being closed. Acks are sent by the receiving buffers, so the new batch
+   *     never sends any.
+   */
+  public RawFragmentBatch decompress(RawFragmentBatch batch) {
+    if (batch == null || batch.getBody() == null) {
+      return batch;
+    }
+    final RecordBatch recordBatch =
+        RecordBatch.getRootAsRecordBatch(
+            batch.getHeader().getArrowRecordBatch().asReadOnlyByteBuffer());
+    final BodyCompression compression = recordBatch.compression();
+    if (compression == null) {
+      return batch;
+    }
+
+    try {
+      Preconditions.checkState(
+          compression.codec() == CompressionType.LZ4_FRAME,
+          "Unsupported exchange compression codec %s",
+          compression.codec());
+      final long start = System.nanoTime();
+      final RawFragmentBatch decompressed =
+          decompress(batch.getHeader(), recordBatch, batch.getBody());
+      decompressionNanos += System.nanoTime() - start;
+      compressedBytes += batch.getByteCount();
+      decompressedBatches++;
+      return decompressed;
+    } catch (IOException e) {
+      throw new IllegalStateException("Failure while decompressing exchange batch", e);
+    } finally {
+      batch.close();
+    }
+  }
+
+  private RawFragmentBatch decompress(
+      FragmentRecordBatch header, RecordBatch recordBatch, ArrowBuf body) throws IOException {
+    final int bufferCount = recordBatch.buffersLength();
+    final long[] lengths = new long[bufferCount];
+    long totalLength = 0;
+    for (int i = 0; i < bufferCount; i++) {
+      final Buffer buffer = recordBatch.buffers(i);
+      if (buffer.length() == 0) {
+        continue;
+      }
+      final long length = body.getLong(buffer.offset());
+      lengths[i] =
+          length == CompressionUtil.NO_COMPRESSION_LENGTH
+              ? buffer.length() - PREFIX_LENGTH
+              : length;
+      totalLength += lengths[i];
+    }
+
+    try (ArrowBuf newBody = allocator.buffer(totalLength)) {
+      final List<ArrowBuf> buffers = new ArrayList<>(bufferCount);
+      long offset = 0;
+      for (int i = 0; i < bufferCount; i++) {
+        final Buffer buffer = recordBatch.buffers(i);
+        if (lengths[i] > 0) {
+          final long dataOffset = buffer.offset() + PREFIX_LENGTH;
+          if (body.getLong(buffer.offset()) == CompressionUtil.NO_COMPRESSION_LENGTH) {
+            newBody.setBytes(offset, body, dataOffset, lengths[i]);
+          } else {
+            decompressLz4Frame(
+                body, dataOffset, buffer.length() - PREFIX_LENGTH, newBody, offset, lengths[i]);
+          }
+        }
+        buffers.add(newBody.slice(offset, lengths[i]));
+        offset += lengths[i];
+      }
+      newBody.writerIndex(totalLength);
+
+      // the header describes the decompressed body, as if it was never compressed
+      final List<ArrowFieldNode> nodes = new ArrayList<>(recordBatch.nodesLength());
+      for (int i = 0; i < recordBatch.nodesLength(); i++) {
+        final FieldNode node = recordBatch.nodes(i);
+        nodes.add(new ArrowFieldNode(node.length(), node.nullCount()));
+      }
+      final FlatBufferBuilder builder = new FlatBufferBuilder();
+      try (ArrowRecordBatch uncompressed =
+          new ArrowRecordBatch(
+              (int) recordBatch.length(),
+              nodes,
+              buffers,
+              NoCompressionCodec.DEFAULT_BODY_COMPRESSION,
+              false)) {
+        builder.finish(uncompressed.writeTo(builder));
+      }
+      return new RawFragmentBatch(
+          header.toBuilder().setArrowRecordBatch(ByteString.copyFrom(builder.dataBuffer())).build(),
+          newBody,
+          null);
+    }
+  }
+
+  /** Size of the bodies of the compressed batches received. */
+  public long getCompressedBytes() {
+    return compressedBytes;
+  }
+
+  public long getDecompressionNanos() {
+    return decompressionNanos;
+  }
+
+  public long getDecompressedBatches() {
+    return decompressedBatches;
+  }
+
+  private void decompressLz4Frame(
+      ArrowBuf source,
+      long sourceOffset,
+      long sourceLength,
+      ArrowBuf target,
+      long targetOffset,
+      long targetLength)
+      throws IOException {
+    long position = 0;
+    try (InputStream input =
+        new LZ4FrameInputStream(new ArrowBufInputStream(source, sourceOffset, sourceLength))) {
+      while (position < targetLength) {
+        final int read =
+            input.read(scratch, 0, (int) Math.min(scratch.length, targetLength - position));
+        if (read == -1) {
+          break;
+        }
+        target.setBytes(targetOffset + position, scratch, 0, read);
+        position += read;
+      }
+    }
+    Preconditions.checkState(
+        position == targetLength,
+        "Expected %s bytes in compressed exchange buffer but found %s",
+        targetLength,
+        position);
+  }
+
+  /** Reads a range of an ArrowBuf. */
+  private static final class ArrowBufInputStream extends InputStream {
+    private final ArrowBuf buffer;
+    private final long end;
+    private long position;
+
+    private ArrowBufInputStream(ArrowBuf buffer, long offset, long length) {
+      this.buffer = buffer;
+      this.position = offset;
+      this.end = offset + length;
+    }
+
+    @Override
+    public int read() {
+      if (position >= end) {
+        return -1;
+      }
+      return buffer.getByte(position++) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (position >= end) {
+        return -1;
+      }
+      final int toRead = (int) Math.min(len, end - position);
+      buffer.getBytes(position, b, off, toRead);
+      position += toRead;
+      return toRead;
+    }
+  }
+}
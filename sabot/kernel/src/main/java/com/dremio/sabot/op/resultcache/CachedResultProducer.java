@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.resultcache;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.cache.VectorAccessibleFlatBufSerializable;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.spi.ProducerOperator;
+import com.google.common.io.CountingInputStream;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.InputStream;
+
+/** Produces the batches of an entry of the {@link FragmentResultCache}, in place of a fragment. */
+public class CachedResultProducer implements ProducerOperator {
+
+  private final OperatorContext context;
+  private final FragmentResultCache cache;
+  private final CountingInputStream counting;
+  private final DataInputStream input;
+
+  private State state = State.NEEDS_SETUP;
+  private VectorContainer outgoing;
+  private VectorAccessibleFlatBufSerializable serializable;
+
+  /**
+   * @param input the entry, as returned by {@link FragmentResultCache#lookup(String)}, closed with
+   *     the operator
+   */
+  public CachedResultProducer(
+      OperatorContext context, FragmentResultCache cache, InputStream input) {
+    this.context = context;
+    this.cache = cache;
+    this.counting = new CountingInputStream(new BufferedInputStream(input));
+    this.input = new DataInputStream(counting);
+  }
+
+  @Override
+  public VectorAccessible setup() throws Exception {
+    state.is(State.NEEDS_SETUP);
+    final byte[] schema = new byte[input.readInt()];
+    input.readFully(schema);
+    outgoing = context.createOutputVectorContainer(BatchSchema.deserialize(schema));
+    serializable = new VectorAccessibleFlatBufSerializable(outgoing, context.getAllocator());
+    context.getStats().addLongStat(FragmentResultCacheStats.Metric.CACHE_HITS, 1);
+    state = State.CAN_PRODUCE;
+    return outgoing;
+  }
+
+  @Override
+  public int outputData() throws Exception {
+    state.is(State.CAN_PRODUCE);
+    if (!input.readBoolean()) {
+      state = State.DONE;
+      return 0;
+    }
+    final long offset = counting.getCount();
+    serializable.readFromStream(input);
+    final int records = outgoing.getRecordCount();
+    context.getStats().batchReceived(0, records, counting.getCount() - offset);
+    return records;
+  }
+
+  @Override
+  public State getState() {
+    return state;
+  }
+
+  @Override
+  public <OUT, IN, EXCEP extends Throwable> OUT accept(
+      OperatorVisitor<OUT, IN, EXCEP> visitor, IN value) throws EXCEP {
+    return visitor.visitProducer(this, value);
+  }
+
+  @Override
+  public void close() throws Exception {
+    context
+        .getStats()
+        .setLongStat(FragmentResultCacheStats.Metric.BYTES_SERVED, counting.getCount());
+    FragmentResultCacheStats.recordNodeStats(context.getStats(), cache);
+    AutoCloseables.close(outgoing, input);
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.resultcache;
+
+import com.dremio.io.DiskLruStore;
+import com.google.common.base.Preconditions;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.LongSupplier;
+
+/**
+ * Node local cache of fragment results, stored as files on local disk.
+ *
+ * <p>An entry is written through a {@link Writer}, and only becomes visible once committed. Entries
+ * are kept in a {@link DiskLruStore}, and evicted in least recently used order when the total size
+ * of the cache goes over its limit. The cache is not persisted across restarts: the files left by a
+ * previous process are deleted the first time the cache is used. Only the files named by the cache
+ * are deleted, so the directory may be shared.
+ *
+ * <p>Thread safe.
+ */
+public class FragmentResultCache {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(FragmentResultCache.class);
+
+  private static final String ENTRY_PREFIX = "result-";
+
+  private final DiskLruStore<String> store;
+  private final LongSupplier maxSizeBytes;
+
+  private boolean initialized;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * @param directory local directory holding the cache files
+   * @param maxSizeBytes maximum total size of the cache, read every time an entry is added
+   */
+  public FragmentResultCache(Path directory, LongSupplier maxSizeBytes) {
+    this.store = new DiskLruStore<>(directory, ENTRY_PREFIX, "");
+    this.maxSizeBytes = maxSizeBytes;
+  }
+
+  /**
+   * Opens the entry for the key, and marks it as the most recently used.
+   *
+   * @return a stream over the entry, that the caller must close, or null if there is no entry
+   */
+  public synchronized InputStream lookup(String key) throws IOException {
+    initialize();
+    final FileChannel channel = store.open(key);
+    if (channel == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return Channels.newInputStream(channel);
+  }
+
+  /**
+   * Starts writing an entry for the key.
+   *
+   * @param maxEntryBytes size over which the entry is discarded instead of committed
+   */
+  public Writer newWriter(String key, long maxEntryBytes) throws IOException {
+    synchronized (this) {
+      initialize();
+    }
+    final Path tempPath = store.newTempFile();
+    return new Writer(
+        key, tempPath, new BufferedOutputStream(Files.newOutputStream(tempPath)), maxEntryBytes);
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  public synchronized long getCachedBytes() {
+    return store.getCachedBytes();
+  }
+
+  public synchronized int getEntryCount() {
+    return store.getEntryCount();
+  }
+
+  private void initialize() throws IOException {
+    if (initialized) {
+      return;
+    }
+    store.cleanup(false);
+    initialized = true;
+  }
+
+  private synchronized boolean commit(String key, Path tempPath, long size) throws IOException {
+    if (!store.commit(key, tempPath, key, size)) {
+      // another fragment computed the same result concurrently
+      return false;
+    }
+    evictions += store.evict(maxSizeBytes.getAsLong());
+    return store.contains(key);
+  }
+
+  /**
+   * Writes a new entry. The entry is discarded unless {@link #commit()} is called, and if more than
+   * the maximum entry size is written to it.
+   */
+  public final class Writer implements AutoCloseable {
+    private final String key;
+    private final Path tempPath;
+    private final CountingOutputStream output;
+    private final long maxEntryBytes;
+    private boolean done;
+
+    private Writer(String key, Path tempPath, OutputStream output, long maxEntryBytes) {
+      this.key = key;
+      this.tempPath = tempPath;
+      this.output = new CountingOutputStream(output);
+      this.maxEntryBytes = maxEntryBytes;
+    }
+
+    public OutputStream getOutputStream() {
+      return output;
+    }
+
+    /** Number of bytes written so far. */
+    public long getBytesWritten() {
+      return output.count;
+    }
+
+    /** Whether the entry is already too large to be committed. */
+    public boolean isOverLimit() {
+      return output.count > maxEntryBytes;
+    }
+
+    /**
+     * Makes the entry visible to {@link #lookup(String)}.
+     *
+     * @return true if the entry was added to the cache
+     */
+    public boolean commit() throws IOException {
+      Preconditions.checkState(!done, "Fragment result cache entry already committed or aborted");
+      done = true;
+      output.close();
+      if (isOverLimit()) {
+        Files.deleteIfExists(tempPath);
+        return false;
+      }
+      return FragmentResultCache.this.commit(key, tempPath, output.count);
+    }
+
+    /** Discards the entry. */
+    public void abort() {
+      if (done) {
+        return;
+      }
+      done = true;
+      try {
+        output.close();
+      } catch (IOException e) {
+        logger.debug("Failure while closing fragment result cache file {}", tempPath, e);
+      }
+      DiskLruStore.deleteQuietly(tempPath);
+    }
+
+    @Override
+    public void close() {
+      abort();
+    }
+  }
+
+  private static final class CountingOutputStream extends FilterOutputStream {
+    private long count;
+
+    private CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.resultcache;
+
+import com.dremio.common.expression.FunctionCall;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.logical.data.NamedExpression;
+import com.dremio.common.logical.data.Order.Ordering;
+import com.dremio.exec.expr.fn.AbstractFunctionHolder;
+import com.dremio.exec.expr.fn.BaseFunctionHolder;
+import com.dremio.exec.expr.fn.FunctionImplementationRegistry;
+import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.physical.config.EmptyValues;
+import com.dremio.exec.physical.config.ExternalSort;
+import com.dremio.exec.physical.config.Filter;
+import com.dremio.exec.physical.config.HashAggregate;
+import com.dremio.exec.physical.config.Limit;
+import com.dremio.exec.physical.config.Project;
+import com.dremio.exec.physical.config.SelectionVectorRemover;
+import com.dremio.exec.physical.config.StreamingAggregate;
+import com.dremio.exec.physical.config.TopN;
+import com.dremio.exec.physical.config.Values;
+import com.dremio.exec.planner.PhysicalPlanReader;
+import com.dremio.exec.proto.CoordExecRPC.FragmentCodec;
+import com.dremio.exec.store.SplitAndPartitionInfo;
+import com.dremio.exec.store.dfs.easy.EasySubScan;
+import com.dremio.exec.store.parquet.ParquetSubScan;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes the keys of the {@link FragmentResultCache}.
+ *
+ * <p>Only fragments made of scans of files and of deterministic operators are cached. The key of a
+ * fragment is a hash of its plan without the properties that differ from one query to another
+ * (operator ids, memory limits...), of the splits it reads, which carry the version of the files,
+ * and of the user running the query, whose row and column access policies are applied in the plan.
+ * Operators whose output has a selection vector are never cached.
+ */
+public class FragmentResultCacheKeys {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(FragmentResultCacheKeys.class);
+
+  private static final ObjectMapper TREE_MAPPER = new ObjectMapper();
+
+  private final PhysicalPlanReader planReader;
+  private final FunctionImplementationRegistry functions;
+
+  public FragmentResultCacheKeys(
+      PhysicalPlanReader planReader, FunctionImplementationRegistry functions) {
+    this.planReader = planReader;
+    this.functions = functions;
+  }
+
+  /**
+   * @param root the operator whose output is cached
+   * @return the key of the output of the operator, or null if it can't be cached
+   */
+  public String getKey(PhysicalOperator root) {
+    // entries hold plain batches, filters return selection vectors, and so may in memory sorts
+    if (root instanceof Filter || root instanceof ExternalSort) {
+      return null;
+    }
+    final List<List<SplitAndPartitionInfo>> splits = new ArrayList<>();
+    if (!isCacheable(root, splits)) {
+      return null;
+    }
+
+    final JsonNode plan;
+    try {
+      plan =
+          TREE_MAPPER.readTree(planReader.writeJsonBytes(root, FragmentCodec.NONE).toByteArray());
+    } catch (IOException e) {
+      logger.debug("Failure while serializing {} for the fragment result cache", root, e);
+      return null;
+    }
+    removeProps(plan);
+
+    final Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(plan.toString(), StandardCharsets.UTF_8);
+    for (List<SplitAndPartitionInfo> scanSplits : splits) {
+      hasher.putInt(scanSplits.size());
+      for (SplitAndPartitionInfo split : scanSplits) {
+        final byte[] partition = split.getPartitionInfo().toByteArray();
+        final byte[] splitInfo = split.getDatasetSplitInfo().toByteArray();
+        hasher.putInt(partition.length).putBytes(partition);
+        hasher.putInt(splitInfo.length).putBytes(splitInfo);
+      }
+    }
+    hasher.putString(String.valueOf(root.getProps().getUserName()), StandardCharsets.UTF_8);
+    return hasher.hash().toString();
+  }
+
+  private boolean isCacheable(PhysicalOperator op, List<List<SplitAndPartitionInfo>> splits) {
+    if (op instanceof ParquetSubScan) {
+      return addSplits(((ParquetSubScan) op).getSplits(), splits);
+    } else if (op instanceof EasySubScan) {
+      return addSplits(((EasySubScan) op).getSplits(), splits);
+    } else if (op instanceof Values || op instanceof EmptyValues) {
+      return true;
+    }
+
+    final List<LogicalExpression> expressions = new ArrayList<>();
+    if (op instanceof Project) {
+      addNamed(((Project) op).getExprs(), expressions);
+    } else if (op instanceof Filter) {
+      expressions.add(((Filter) op).getExpr());
+    } else if (op instanceof HashAggregate) {
+      addNamed(((HashAggregate) op).getGroupByExprs(), expressions);
+      addNamed(((HashAggregate) op).getAggrExprs(), expressions);
+    } else if (op instanceof StreamingAggregate) {
+      addNamed(((StreamingAggregate) op).getGroupByExprs(), expressions);
+      addNamed(((StreamingAggregate) op).getAggrExprs(), expressions);
+    } else if (op instanceof TopN) {
+      addOrderings(((TopN) op).getOrderings(), expressions);
+    } else if (op instanceof ExternalSort) {
+      addOrderings(((ExternalSort) op).getOrderings(), expressions);
+    } else if (!(op instanceof Limit || op instanceof SelectionVectorRemover)) {
+      // receivers, joins, writers, table functions...
+      return false;
+    }
+
+    for (LogicalExpression expression : expressions) {
+      if (!isDeterministic(expression)) {
+        return false;
+      }
+    }
+    for (PhysicalOperator child : op) {
+      if (!isCacheable(child, splits)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isDeterministic(LogicalExpression expression) {
+    if (expression instanceof FunctionCall) {
+      final List<AbstractFunctionHolder> holders =
+          functions.getRegisteredFunctions().get(((FunctionCall) expression).getName());
+      if (holders.isEmpty()) {
+        // not a java function, we can't tell
+        return false;
+      }
+      for (AbstractFunctionHolder holder : holders) {
+        if (!(holder instanceof BaseFunctionHolder)
+            || !((BaseFunctionHolder) holder).isDeterministic()
+            || ((BaseFunctionHolder) holder).isDynamic()) {
+          return false;
+        }
+      }
+    }
+    for (LogicalExpression child : expression) {
+      if (!isDeterministic(child)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean addSplits(
+      List<SplitAndPartitionInfo> scanSplits, List<List<SplitAndPartitionInfo>> splits) {
+    if (scanSplits == null) {
+      return false;
+    }
+    splits.add(scanSplits);
+    return true;
+  }
+
+  private static void addNamed(List<NamedExpression> named, List<LogicalExpression> expressions) {
+    if (named != null) {
+      for (NamedExpression expression : named) {
+        expressions.add(expression.getExpr());
+      }
+    }
+  }
+
+  private static void addOrderings(List<Ordering> orderings, List<LogicalExpression> expressions) {
+    for (Ordering ordering : orderings) {
+      expressions.add(ordering.getExpr());
+    }
+  }
+
+  /** Removes the operator properties, that differ from one query to another. */
+  private static void removeProps(JsonNode node) {
+    if (node instanceof ObjectNode) {
+      ((ObjectNode) node).remove("props");
+    }
+    for (JsonNode child : node) {
+      removeProps(child);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.resultcache;
+
+import com.dremio.exec.proto.UserBitShared.MetricDef.AggregationType;
+import com.dremio.exec.proto.UserBitShared.MetricDef.DisplayType;
+import com.dremio.sabot.exec.context.MetricDef;
+import com.dremio.sabot.exec.context.OperatorStats;
+
+/**
+ * Stats for {@link CachedResultProducer} and {@link FragmentResultCacheWriter}.
+ *
+ * <p>Please add new stats at the end of Metric table, changes in the order may result in
+ * incorrectly rendering old profiles.
+ */
+public class FragmentResultCacheStats {
+
+  public enum Metric implements MetricDef {
+    CACHE_HITS(
+        DisplayType.DISPLAY_BY_DEFAULT,
+        AggregationType.SUM,
+        "Number of fragments served from the result cache"),
+    BYTES_SERVED(
+        DisplayType.DISPLAY_BY_DEFAULT,
+        AggregationType.SUM,
+        "Bytes read from the result cache instead of being computed"),
+    CACHE_WRITES(
+        DisplayType.DISPLAY_BY_DEFAULT,
+        AggregationType.SUM,
+        "Number of fragment results added to the result cache"),
+    BYTES_WRITTEN(
+        DisplayType.DISPLAY_BY_DEFAULT, AggregationType.SUM, "Bytes written to the result cache"),
+    NODE_HITS(
+        DisplayType.DISPLAY_BY_DEFAULT,
+        AggregationType.MAX,
+        "Hits of the result cache of the node since it started"),
+    NODE_MISSES(
+        DisplayType.DISPLAY_BY_DEFAULT,
+        AggregationType.MAX,
+        "Misses of the result cache of the node since it started"),
+    NODE_EVICTIONS, /* entries evicted from the result cache of the node since it started */
+    NODE_CACHED_BYTES; /* size of the result cache of the node */
+
+    private final DisplayType displayType;
+    private final AggregationType aggregationType;
+    private final String displayCode;
+
+    Metric() {
+      this(DisplayType.DISPLAY_NEVER, AggregationType.MAX, "");
+    }
+
+    Metric(DisplayType displayType, AggregationType aggregationType, String displayCode) {
+      this.displayType = displayType;
+      this.aggregationType = aggregationType;
+      this.displayCode = displayCode;
+    }
+
+    @Override
+    public int metricId() {
+      return ordinal();
+    }
+
+    @Override
+    public DisplayType getDisplayType() {
+      return this.displayType;
+    }
+
+    @Override
+    public AggregationType getAggregationType() {
+      return this.aggregationType;
+    }
+
+    @Override
+    public String getDisplayCode() {
+      return this.displayCode;
+    }
+  }
+
+  /**
+   * Records the node wide counters of the cache, so that the profile shows the overall hit rate.
+   */
+  static void recordNodeStats(OperatorStats stats, FragmentResultCache cache) {
+    stats.setLongStat(Metric.NODE_HITS, cache.getHits());
+    stats.setLongStat(Metric.NODE_MISSES, cache.getMisses());
+    stats.setLongStat(Metric.NODE_EVICTIONS, cache.getEvictions());
+    stats.setLongStat(Metric.NODE_CACHED_BYTES, cache.getCachedBytes());
+  }
+}
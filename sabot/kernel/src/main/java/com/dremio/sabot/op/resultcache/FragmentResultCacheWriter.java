@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.resultcache;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.cache.VectorAccessibleFlatBufSerializable;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.scan.ScanOperator;
+import com.dremio.sabot.op.spi.SingleInputOperator;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.arrow.vector.util.TransferPair;
+
+/**
+ * Passes its input through, while writing it to the {@link FragmentResultCache}. The entry is only
+ * committed once the whole input has been consumed, so a fragment cancelled or cut short by a limit
+ * downstream doesn't leave a partial result in the cache.
+ *
+ * <p>The entry starts with the schema of the batches, followed by each batch, as written by {@link
+ * VectorAccessibleFlatBufSerializable}, preceded by a marker telling whether there is a batch left.
+ */
+public class FragmentResultCacheWriter implements SingleInputOperator {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(FragmentResultCacheWriter.class);
+
+  private final OperatorContext context;
+  private final FragmentResultCache cache;
+  private final String key;
+  private final List<ScanOperator> scans;
+  private final VectorContainer outgoing;
+
+  private State state = State.NEEDS_SETUP;
+  private VectorAccessible incoming;
+  private ImmutableList<TransferPair> transfers;
+  private FragmentResultCache.Writer writer;
+  private DataOutputStream output;
+  private VectorAccessibleFlatBufSerializable serializable;
+  private int recordCount;
+
+  /**
+   * @param scans the scans of the fragment, the result isn't cached if runtime filters were applied
+   *     to any of them since it is then only a subset of the result of the plan
+   */
+  public FragmentResultCacheWriter(
+      OperatorContext context, FragmentResultCache cache, String key, List<ScanOperator> scans) {
+    this.context = context;
+    this.cache = cache;
+    this.key = key;
+    this.scans = scans;
+    this.outgoing = context.createOutputVectorContainer();
+  }
+
+  @Override
+  public VectorAccessible setup(VectorAccessible accessible) throws Exception {
+    state.is(State.NEEDS_SETUP);
+    Preconditions.checkArgument(
+        accessible.getSchema().getSelectionVectorMode() == SelectionVectorMode.NONE,
+        "Fragment result cache input can't have a selection vector");
+    incoming = accessible;
+    final List<TransferPair> pairs = new ArrayList<>();
+    for (VectorWrapper<?> w : accessible) {
+      final TransferPair pair =
+          w.getValueVector().getTransferPair(w.getValueVector().getField(), context.getAllocator());
+      pairs.add(pair);
+      outgoing.add(pair.getTo());
+    }
+    transfers = ImmutableList.copyOf(pairs);
+    outgoing.buildSchema(SelectionVectorMode.NONE);
+
+    try {
+      writer =
+          cache.newWriter(
+              key,
+              context.getOptions().getOption(ExecConstants.FRAGMENT_RESULT_CACHE_MAX_ENTRY_BYTES));
+      output = new DataOutputStream(writer.getOutputStream());
+      final byte[] schema = accessible.getSchema().serialize();
+      output.writeInt(schema.length);
+      output.write(schema);
+      serializable = new VectorAccessibleFlatBufSerializable(accessible, context.getAllocator());
+    } catch (IOException e) {
+      logger.warn("Failure while writing to the fragment result cache", e);
+      abort();
+    }
+    state = State.CAN_CONSUME;
+    return outgoing;
+  }
+
+  @Override
+  public void consumeData(int records) throws Exception {
+    state.is(State.CAN_CONSUME);
+    if (writer != null) {
+      try {
+        output.writeBoolean(true);
+        serializable.writeToStream(output);
+        if (writer.isOverLimit()) {
+          abort();
+        }
+      } catch (IOException e) {
+        logger.warn("Failure while writing to the fragment result cache", e);
+        abort();
+      }
+    }
+
+    for (TransferPair transfer : transfers) {
+      transfer.transfer();
+    }
+    recordCount = outgoing.setAllCount(records);
+    state = State.CAN_PRODUCE;
+  }
+
+  @Override
+  public int outputData() throws Exception {
+    state.is(State.CAN_PRODUCE);
+    state = State.CAN_CONSUME;
+    return recordCount;
+  }
+
+  @Override
+  public void noMoreToConsume() throws Exception {
+    state.is(State.CAN_CONSUME);
+    state = State.DONE;
+    if (writer == null) {
+      return;
+    }
+    for (ScanOperator scan : scans) {
+      if (scan.hasRuntimeFilters()) {
+        abort();
+        return;
+      }
+    }
+    try {
+      output.writeBoolean(false);
+      output.flush();
+      final long bytesWritten = writer.getBytesWritten();
+      if (writer.commit()) {
+        context.getStats().addLongStat(FragmentResultCacheStats.Metric.CACHE_WRITES, 1);
+        context.getStats().addLongStat(FragmentResultCacheStats.Metric.BYTES_WRITTEN, bytesWritten);
+      }
+    } catch (IOException e) {
+      logger.warn("Failure while writing to the fragment result cache", e);
+    } finally {
+      writer = null;
+    }
+  }
+
+  @Override
+  public State getState() {
+    return state;
+  }
+
+  @Override
+  public <OUT, IN, EXCEP extends Throwable> OUT accept(
+      OperatorVisitor<OUT, IN, EXCEP> visitor, IN value) throws EXCEP {
+    return visitor.visitSingleInput(this, value);
+  }
+
+  private void abort() {
+    if (writer != null) {
+      writer.abort();
+      writer = null;
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+    abort();
+    FragmentResultCacheStats.recordNodeStats(context.getStats(), cache);
+    AutoCloseables.close(outgoing);
+  }
+}
@@ -215,6 +215,13 @@ public class ScanOperator implements ProducerOperator {
     NUM_ORPHAN_FILES, // Number of orphan files
     NUM_READERS_SKIPPED, // The number of readers skipped due to errors (COPY INTO 'skip_file')
     DRY_RUN_READ_TIME_NS, // The read time of the dry-run phase (COPY INTO 'skip_file')
+    NUM_FOOTER_CACHE_HITS, // Number of parquet footers served by the node-wide footer cache
+    NUM_FOOTER_CACHE_MISSES, // Number of parquet footers read because they were not cached
+    // Number of row groups skipped because their stats or page indexes exclude the runtime filters
+    NUM_ROW_GROUPS_PRUNED_BY_RUNTIME_FILTER(
+        DisplayType.DISPLAY_BY_DEFAULT,
+        AggregationType.SUM,
+        "Number of row groups pruned by runtime filters"),
     ;
 
     private final DisplayType displayType;
@@ -542,6 +549,11 @@ public class ScanOperator implements ProducerOperator {
     return runtimeFilters;
   }
 
+  /** Whether runtime filters were applied to the scan, which then only returns a subset of rows. */
+  public boolean hasRuntimeFilters() {
+    return !runtimeFilters.isEmpty();
+  }
+
   protected void checkAndLearnSchema() {
     if (mutator.getSchemaChanged()) {
       outgoing.buildSchema(SelectionVectorMode.NONE);
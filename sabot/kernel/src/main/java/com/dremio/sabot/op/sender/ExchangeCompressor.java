@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sender;
+
+import com.dremio.options.OptionManager;
+import com.dremio.options.Options;
+import com.dremio.options.TypeValidators.EnumValidator;
+import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
+import com.dremio.sabot.op.common.compression.AdaptiveCompressionPolicy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.apache.arrow.flatbuf.BodyCompressionMethod;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.ipc.message.ArrowBodyCompression;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+
+/**
+ * Compresses the record batches sent by an exchange sender, using the Arrow IPC body compression:
+ * each buffer is prefixed with its uncompressed length as a little endian int64, followed by the
+ * compressed data, or by the raw data when the length is -1.
+ *
+ * <p>The buffers to compress are chosen by an {@link AdaptiveCompressionPolicy}, the slot of a
+ * buffer being its position in the batch, i.e. the vector buffer it belongs to. A batch is sent
+ * uncompressed when none of its buffers is worth compressing, and batches to receivers in the same
+ * process are never compressed.
+ *
+ * <p>Not thread safe.
+ */
+@Options
+public class ExchangeCompressor {
+  /** Codecs that can be used to compress the batches sent over exchanges. */
+  public enum Codec {
+    NONE,
+    LZ4_FRAME
+  }
+
+  public static final EnumValidator<Codec> EXCHANGE_COMPRESSION_CODEC =
+      new EnumValidator<>("exec.exchange.compression.codec", Codec.class, Codec.NONE);
+
+  private static final ArrowBodyCompression LZ4_FRAME_BODY_COMPRESSION =
+      new ArrowBodyCompression(
+          CompressionUtil.CodecType.LZ4_FRAME.getType(), BodyCompressionMethod.BUFFER);
+
+  private static final int PREFIX_LENGTH = (int) CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH;
+
+  private final BufferAllocator allocator;
+  private final Codec codec;
+  private final AdaptiveCompressionPolicy policy = new AdaptiveCompressionPolicy();
+  private final ExposedByteArrayOutputStream compressed = new ExposedByteArrayOutputStream();
+  private final byte[] scratch = new byte[32 * 1024];
+
+  private long rawBytes;
+  private long compressedBytes;
+  private long compressionNanos;
+  private long compressedBatches;
+
+  public ExchangeCompressor(BufferAllocator allocator, OptionManager options) {
+    this.allocator = allocator;
+    this.codec =
+        Codec.valueOf(options.getOption(EXCHANGE_COMPRESSION_CODEC).toUpperCase(Locale.ROOT));
+  }
+
+  /** Whether batches sent through the tunnel should be compressed. */
+  public boolean shouldCompress(AccountingExecTunnel tunnel) {
+    return codec != Codec.NONE && !tunnel.isInProcess();
+  }
+
+  public ArrowBodyCompression getBodyCompression() {
+    return LZ4_FRAME_BODY_COMPRESSION;
+  }
+
+  /**
+   * Compresses a batch to send through the tunnel.
+   *
+   * @param batch batch owning a reference to each of its buffers
+   * @return the given batch if it is not compressed, or a compressed batch owning a reference to
+   *     each of its buffers, the buffers of the given batch being released
+   */
+  public ArrowRecordBatch compress(ArrowRecordBatch batch, AccountingExecTunnel tunnel) {
+    if (!shouldCompress(tunnel)) {
+      return batch;
+    }
+    final List<ArrowBuf> buffers = compress(batch.getBuffers());
+    if (buffers == null) {
+      return batch;
+    }
+    final ArrowRecordBatch compressedBatch =
+        new ArrowRecordBatch(
+            batch.getLength(), batch.getNodes(), buffers, getBodyCompression(), false, false);
+    batch.close();
+    return compressedBatch;
+  }
+
+  /**
+   * Compresses the buffers of a batch.
+   *
+   * @return the compressed buffers, owned by the caller, or null if the batch is not worth
+   *     compressing
+   */
+  public List<ArrowBuf> compress(List<ArrowBuf> buffers) {
+    final boolean[] attempt = new boolean[buffers.size()];
+    boolean anyAttempt = false;
+    for (int i = 0; i < buffers.size(); i++) {
+      if (policy.shouldCompress(i, buffers.get(i).readableBytes())) {
+        attempt[i] = true;
+        anyAttempt = true;
+      }
+    }
+    if (!anyAttempt) {
+      return null;
+    }
+
+    final long start = System.nanoTime();
+    final List<ArrowBuf> result = new ArrayList<>(buffers.size());
+    long batchRawBytes = 0;
+    long batchCompressedBytes = 0;
+    boolean success = false;
+    try {
+      for (int i = 0; i < buffers.size(); i++) {
+        final ArrowBuf buffer = buffers.get(i);
+        final long length = buffer.readableBytes();
+        ArrowBuf out = null;
+        if (attempt[i]) {
+          compressLz4Frame(buffer);
+          if (policy.compressed(i, length, compressed.size())) {
+            out = allocator.buffer(PREFIX_LENGTH + compressed.size());
+            out.setLong(0, length);
+            out.setBytes(PREFIX_LENGTH, compressed.getBuffer(), 0, compressed.size());
+          }
+        }
+        if (out == null) {
+          out = allocator.buffer(PREFIX_LENGTH + length);
+          out.setLong(0, CompressionUtil.NO_COMPRESSION_LENGTH);
+          out.setBytes(PREFIX_LENGTH, buffer, buffer.readerIndex(), length);
+        }
+        out.writerIndex(out.capacity());
+        result.add(out);
+        batchRawBytes += length;
+        batchCompressedBytes += out.readableBytes();
+      }
+      success = true;
+    } finally {
+      compressionNanos += System.nanoTime() - start;
+      if (!success) {
+        release(result);
+      }
+    }
+
+    if (!AdaptiveCompressionPolicy.isWorthCompressing(batchRawBytes, batchCompressedBytes)) {
+      // not worth decompressing, the positions that didn't compress well are bypassed next time
+      release(result);
+      return null;
+    }
+    rawBytes += batchRawBytes;
+    compressedBytes += batchCompressedBytes;
+    compressedBatches++;
+    return result;
+  }
+
+  /** Raw size of the buffers of the compressed batches. */
+  public long getRawBytes() {
+    return rawBytes;
+  }
+
+  /** Size of the buffers of the compressed batches, after compression. */
+  public long getCompressedBytes() {
+    return compressedBytes;
+  }
+
+  /** Time spent compressing batches, including the batches that were sent as is in the end. */
+  public long getCompressionNanos() {
+    return compressionNanos;
+  }
+
+  public long getCompressedBatches() {
+    return compressedBatches;
+  }
+
+  private void compressLz4Frame(ArrowBuf buffer) {
+    compressed.reset();
+    final long length = buffer.readableBytes();
+    try (LZ4FrameOutputStream output =
+        new LZ4FrameOutputStream(compressed, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB)) {
+      for (long position = 0; position < length; position += scratch.length) {
+        final int toWrite = (int) Math.min(scratch.length, length - position);
+        buffer.getBytes(buffer.readerIndex() + position, scratch, 0, toWrite);
+        output.write(scratch, 0, toWrite);
+      }
+    } catch (IOException e) {
+      // only written to memory
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void release(List<ArrowBuf> buffers) {
+    for (ArrowBuf buffer : buffers) {
+      buffer.close();
+    }
+  }
+
+  /** Reusable output stream that gives access to its buffer. */
+  private static final class ExposedByteArrayOutputStream extends OutputStream {
+    private byte[] buffer = new byte[64 * 1024];
+    private int size;
+
+    @Override
+    public void write(int b) {
+      ensureCapacity(size + 1);
+      buffer[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      ensureCapacity(size + len);
+      System.arraycopy(b, off, buffer, size, len);
+      size += len;
+    }
+
+    void reset() {
+      size = 0;
+    }
+
+    int size() {
+      return size;
+    }
+
+    byte[] getBuffer() {
+      return buffer;
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+      }
+    }
+  }
+}
@@ -30,6 +30,7 @@ import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.sender.BaseSender;
+import com.dremio.sabot.op.sender.ExchangeCompressor;
 import com.dremio.sabot.op.sender.SenderLatencyTracker;
 import com.dremio.sabot.op.spi.TerminalOperator;
 import com.google.common.base.Function;
@@ -61,6 +62,8 @@ public class BroadcastOperator extends BaseSender {
   private final OperatorStats stats;
   private final OperatorContext context;
   private final SenderLatencyTracker latencyTracker = new SenderLatencyTracker();
+  private final ExchangeCompressor compressor;
+  private final int remoteTunnelCount;
 
   private VectorAccessible incoming;
 
@@ -69,7 +72,10 @@ public class BroadcastOperator extends BaseSender {
     BYTES_SENT,
     BATCHES_SENT,
     SUM_ACK_MILLIS,
-    MAX_ACK_MILLIS;
+    MAX_ACK_MILLIS,
+    COMPRESSED_BATCHES,
+    BYTES_BEFORE_COMPRESSION,
+    COMPRESSION_NANOS;
 
     @Override
     public int metricId() {
@@ -85,6 +91,7 @@ public class BroadcastOperator extends BaseSender {
     this.context = context;
     this.handle = context.getFragmentHandle();
     this.stats = context.getStats();
+    this.compressor = new ExchangeCompressor(context.getAllocator(), context.getOptions());
 
     final List<MinorFragmentEndpoint> destinations =
         config.getDestinations(context.getEndpointsIndex());
@@ -110,6 +117,14 @@ public class BroadcastOperator extends BaseSender {
       tunnels[i] = tunnelProvider.getExecTunnel(ep);
       i++;
     }
+
+    int remoteTunnels = 0;
+    for (AccountingExecTunnel tunnel : tunnels) {
+      if (compressor.shouldCompress(tunnel)) {
+        remoteTunnels++;
+      }
+    }
+    this.remoteTunnelCount = remoteTunnels;
   }
 
   @Override
@@ -130,6 +145,9 @@ public class BroadcastOperator extends BaseSender {
   public void close() throws Exception {
     stats.setLongStat(Metric.SUM_ACK_MILLIS, latencyTracker.getSumAckMillis());
     stats.setLongStat(Metric.MAX_ACK_MILLIS, latencyTracker.getMaxAckMillis());
+    stats.setLongStat(Metric.COMPRESSED_BATCHES, compressor.getCompressedBatches());
+    stats.setLongStat(Metric.BYTES_BEFORE_COMPRESSION, compressor.getRawBytes());
+    stats.setLongStat(Metric.COMPRESSION_NANOS, compressor.getCompressionNanos());
   }
 
   @Override
@@ -188,13 +206,19 @@ public class BroadcastOperator extends BaseSender {
                 })
             .toList();
 
-    if (tunnels.length > 1) {
-      for (ArrowBuf buf : buffers) {
-        buf.getReferenceManager().retain(tunnels.length - 1);
-      }
+    // the batch is compressed once for all the remote receivers, and sent as is to the local ones
+    final List<ArrowBuf> compressedBuffers =
+        remoteTunnelCount > 0 ? compressor.compress(buffers) : null;
+    final int compressedSends = compressedBuffers == null ? 0 : remoteTunnelCount;
+    final int rawSends = tunnels.length - compressedSends;
+    retain(buffers, rawSends - 1);
+    if (compressedBuffers != null) {
+      retain(compressedBuffers, compressedSends - 1);
     }
 
     for (int i = 0; i < tunnels.length; ++i) {
+      final boolean compressed = compressedBuffers != null && compressor.shouldCompress(tunnels[i]);
+      final List<ArrowBuf> sentBuffers = compressed ? compressedBuffers : buffers;
       FragmentWritableBatch batch =
           new FragmentWritableBatch(
               handle.getQueryId(),
@@ -204,14 +228,31 @@ public class BroadcastOperator extends BaseSender {
               new ArrowRecordBatch(
                   arrowRecordBatch.getLength(),
                   arrowRecordBatch.getNodes(),
-                  buffers,
-                  NoCompressionCodec.DEFAULT_BODY_COMPRESSION,
+                  sentBuffers,
+                  compressed
+                      ? compressor.getBodyCompression()
+                      : NoCompressionCodec.DEFAULT_BODY_COMPRESSION,
                   false),
               receivingMinorFragments[i]);
       updateStats(batch);
       tunnels[i].sendRecordBatch(batch, latencyTracker.getLatencyObserver());
-      for (ArrowBuf buf : buffers) {
+      for (ArrowBuf buf : sentBuffers) {
+        buf.close();
+      }
+    }
+  }
+
+  /**
+   * Adjusts the reference counts of buffers owned once, so that they are owned once per send.
+   *
+   * @param count number of additional references, -1 to release the buffers
+   */
+  private static void retain(List<ArrowBuf> buffers, int count) {
+    for (ArrowBuf buf : buffers) {
+      if (count < 0) {
         buf.close();
+      } else if (count > 0) {
+        buf.getReferenceManager().retain(count);
       }
     }
   }
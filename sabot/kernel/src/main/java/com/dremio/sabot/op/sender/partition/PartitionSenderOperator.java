@@ -36,6 +36,7 @@ import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.sender.BaseSender;
 import com.dremio.sabot.op.sender.SenderLatencyTracker;
 import com.dremio.sabot.op.sender.partition.vectorized.AdaptiveVectorizedPartitionSenderOperator;
+import com.dremio.sabot.op.sender.partition.vectorized.SkewAwarePartitionSenderOperator;
 import com.dremio.sabot.op.sender.partition.vectorized.VectorizedPartitionSenderOperator;
 import com.dremio.sabot.op.spi.TerminalOperator;
 import com.google.common.annotations.VisibleForTesting;
@@ -106,7 +107,17 @@ public class PartitionSenderOperator extends BaseSender {
     OOB_PARTITION_COUNTERS_RECEIVES, // Number of times operator received a notification of
     // partition counters from peers.
 
-    OOB_DOP; // Adjusted DOP based on oob messages
+    OOB_DOP, // Adjusted DOP based on oob messages
+
+    // skew aware hash join metrics
+    SKEW_JOIN_HOT_KEYS, // Number of heavy hitter keys spread or broadcast
+    SKEW_JOIN_SPREAD_RECORDS, // Number of probe rows spread across all receivers
+    SKEW_JOIN_BROADCAST_RECORDS, // Number of build rows sent to all receivers
+
+    // exchange compression metrics
+    COMPRESSED_BATCHES, // Number of batches sent compressed
+    BYTES_BEFORE_COMPRESSION, // Raw size of the batches sent compressed
+    COMPRESSION_NANOS; // Time spent compressing batches
 
     @Override
     public int metricId() {
@@ -357,7 +368,9 @@ public class PartitionSenderOperator extends BaseSender {
         TunnelProvider tunnelProvider, OperatorContext context, HashPartitionSender operator)
         throws ExecutionSetupException {
       if (context.getOptions().getOption(ExecConstants.ENABLE_VECTORIZED_PARTITIONER)) {
-        if (operator.getAdaptiveHash()) {
+        if (operator.getSkewJoinRole() != HashPartitionSender.SkewJoinRole.NONE) {
+          return new SkewAwarePartitionSenderOperator(context, tunnelProvider, operator);
+        } else if (operator.getAdaptiveHash()) {
           return new AdaptiveVectorizedPartitionSenderOperator(context, tunnelProvider, operator);
         } else {
           return new VectorizedPartitionSenderOperator(context, tunnelProvider, operator);
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sender.partition.vectorized;
+
+import com.google.common.base.Preconditions;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Finds the most frequent values of a stream in bounded memory, using the Misra-Gries algorithm.
+ *
+ * <p>At most {@code capacity} values are tracked. The count kept for a value underestimates its
+ * actual frequency by at most {@code total / (capacity + 1)}, so any value more frequent than that
+ * is guaranteed to be tracked.
+ */
+final class HeavyHitters {
+  private final int capacity;
+  private final Map<Integer, Long> counters = new HashMap<>();
+  private long total;
+
+  HeavyHitters(int capacity) {
+    Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+    this.capacity = capacity;
+  }
+
+  void add(int value) {
+    total++;
+    final Long count = counters.get(value);
+    if (count != null) {
+      counters.put(value, count + 1);
+    } else if (counters.size() < capacity) {
+      counters.put(value, 1L);
+    } else {
+      // the new value and all the tracked ones lose one occurrence
+      counters.values().removeIf(c -> c == 1);
+      counters.replaceAll((v, c) -> c - 1);
+    }
+  }
+
+  /** Number of values added so far. */
+  long getTotal() {
+    return total;
+  }
+
+  /** Returns the tracked values seen at least {@code minCount} times, most frequent first. */
+  int[] getHeavyHitters(long minCount) {
+    return counters.entrySet().stream()
+        .filter(e -> e.getValue() >= minCount)
+        .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed())
+        .mapToInt(Map.Entry::getKey)
+        .toArray();
+  }
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sender.partition.vectorized;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntHashSet;
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.physical.base.OpProps;
+import com.dremio.exec.physical.config.HashPartitionSender;
+import com.dremio.exec.physical.config.HashPartitionSender.SkewJoinRole;
+import com.dremio.exec.proto.CoordExecRPC.FragmentAssignment;
+import com.dremio.exec.proto.CoordExecRPC.MajorFragmentAssignment;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.proto.ExecProtos;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.options.Options;
+import com.dremio.options.TypeValidators.DoubleValidator;
+import com.dremio.options.TypeValidators.PositiveLongValidator;
+import com.dremio.options.TypeValidators.RangeDoubleValidator;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.exec.fragment.OutOfBandMessage;
+import com.dremio.sabot.exec.rpc.TunnelProvider;
+import com.dremio.sabot.op.sender.partition.PartitionSenderOperator.Metric;
+import io.netty.util.internal.PlatformDependent;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+
+/**
+ * Hash partition sender feeding one side of a skew aware hash join.
+ *
+ * <p>The probe side senders count the hash values of the first rows they see, and propose the heavy
+ * hitters to the build side senders over OOB messages. A build side sender confirms the proposed
+ * keys it hasn't sent any row for yet, and from then on sends the rows of the confirmed keys to all
+ * the receivers. Once all the build side senders confirmed a key, the probe side sender spreads its
+ * rows across all the receivers instead of sending them to a single one. All the other keys keep
+ * the hash distribution.
+ *
+ * <p>Nothing waits on the OOB messages: until a key is confirmed by every build side sender, its
+ * probe rows keep the hash distribution, which is always correct. Since build rows may be sent to
+ * several receivers, this is only valid for joins which don't output unmatched build rows.
+ */
+@Options
+public class SkewAwarePartitionSenderOperator extends VectorizedPartitionSenderOperator {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(SkewAwarePartitionSenderOperator.class);
+
+  // number of probe rows sampled to detect the heavy hitter keys
+  public static final PositiveLongValidator SKEW_JOIN_SAMPLE_ROWS =
+      new PositiveLongValidator(
+          "exec.op.partitioner.skew_join.sample_rows", Integer.MAX_VALUE, 100_000);
+
+  // a key is a heavy hitter if it has more rows than this factor times the average number of rows
+  // per receiver
+  public static final DoubleValidator SKEW_JOIN_HOT_KEY_FACTOR =
+      new RangeDoubleValidator("exec.op.partitioner.skew_join.hot_key_factor", 0.01, 1000, 1);
+
+  private static final int HEAVY_HITTERS_CAPACITY = 256;
+  private static final int MAX_HOT_KEYS = 64;
+
+  // build side: bitmap of the hash values sent so far, false positives only prevent confirmations
+  private static final int SEEN_HASHES_BITS = 20;
+
+  private final SkewJoinRole role;
+  private final int peerMajorFragmentId;
+  private final int peerOperatorId;
+
+  // probe side
+  private HeavyHitters heavyHitters;
+  private long sampleRows;
+  private double hotKeyFactor;
+  private IntHashSet confirmedHashes;
+  private int pendingConfirmations;
+  private IntHashSet spreadHashes = new IntHashSet();
+  private int nextSpreadReceiver;
+  private long spreadRecords;
+
+  // build side
+  private long[] seenHashes;
+  private final IntHashSet broadcastHashes = new IntHashSet();
+  private final IntArrayList hotRows = new IntArrayList();
+  private final IntArrayList hotRowReceivers = new IntArrayList();
+  private List<FieldVector> incomingVectors;
+  private VectorContainer hotRowBatch;
+  private IntVector hotRowIndices;
+  private long broadcastRecords;
+
+  public SkewAwarePartitionSenderOperator(
+      final OperatorContext context,
+      final TunnelProvider tunnelProvider,
+      final HashPartitionSender config) {
+    super(context, tunnelProvider, config);
+    // with a single receiver there is no skew to fix
+    this.role = numReceivers > 1 ? config.getSkewJoinRole() : SkewJoinRole.NONE;
+    this.peerMajorFragmentId = config.getSkewJoinPeerMajorFragmentId();
+    this.peerOperatorId = OpProps.buildOperatorId(peerMajorFragmentId, 0);
+  }
+
+  @Override
+  public void setup(VectorAccessible incoming) throws Exception {
+    super.setup(incoming);
+
+    switch (role) {
+      case PROBE:
+        sampleRows = context.getOptions().getOption(SKEW_JOIN_SAMPLE_ROWS);
+        hotKeyFactor = context.getOptions().getOption(SKEW_JOIN_HOT_KEY_FACTOR);
+        heavyHitters = new HeavyHitters(HEAVY_HITTERS_CAPACITY);
+        nextSpreadReceiver = context.getFragmentHandle().getMinorFragmentId() % numReceivers;
+        break;
+      case BUILD:
+        seenHashes = new long[(1 << SEEN_HASHES_BITS) / Long.SIZE];
+        incomingVectors = VectorContainer.getFieldVectors(incoming);
+        hotRowBatch = VectorContainer.create(context.getAllocator(), incoming.getSchema());
+        hotRowIndices = new IntVector("skew-join-compound-indices", context.getAllocator());
+        hotRowIndices.allocateNew(getNumRecordsBeforeFlush());
+        break;
+      default:
+        break;
+    }
+  }
+
+  @Override
+  protected OutgoingBatch getBatch(int row, int hash, int partition, OutgoingBatch[] modLookup) {
+    switch (role) {
+      case PROBE:
+        if (heavyHitters != null) {
+          heavyHitters.add(hash);
+          if (heavyHitters.getTotal() == sampleRows) {
+            proposeHotKeys();
+          }
+        }
+        if (!spreadHashes.isEmpty() && spreadHashes.contains(hash)) {
+          spreadRecords++;
+          final int receiver = nextSpreadReceiver;
+          nextSpreadReceiver = receiver + 1 == numReceivers ? 0 : receiver + 1;
+          return modLookup[receiver];
+        }
+        break;
+      case BUILD:
+        final int bit = seenBit(hash);
+        seenHashes[bit >>> 6] |= 1L << bit;
+        if (!broadcastHashes.isEmpty() && broadcastHashes.contains(hash)) {
+          // sent to its own receiver now, and to all the other ones after the pass
+          final OutgoingBatch batch = super.getBatch(row, hash, partition, modLookup);
+          hotRows.add(row);
+          hotRowReceivers.add(batch.getBatchIdx() % numReceivers);
+          return batch;
+        }
+        break;
+      default:
+        break;
+    }
+    return super.getBatch(row, hash, partition, modLookup);
+  }
+
+  @Override
+  protected void afterCopyPass(int start, int count) {
+    if (!hotRows.isEmpty()) {
+      broadcastHotRows();
+    }
+  }
+
+  /** Sends the rows of the confirmed keys copied in the last pass to all the other receivers. */
+  private void broadcastHotRows() {
+    final int count = hotRows.size();
+    hotRowBatch.allocateNew();
+    final List<FieldVector> hotRowVectors = VectorContainer.getFieldVectors(hotRowBatch);
+    for (int i = 0; i < count; i++) {
+      final int row = hotRows.get(i);
+      for (int f = 0; f < incomingVectors.size(); f++) {
+        hotRowVectors.get(f).copyFromSafe(row, i, incomingVectors.get(f));
+      }
+    }
+    hotRowBatch.setAllCount(count);
+
+    // each round sends every row to the receiver after the one it was sent to by the previous round
+    final long addr = hotRowIndices.getDataBufferAddress();
+    for (int shift = 1; shift < numReceivers; shift++) {
+      for (int i = 0; i < count; i++) {
+        final int receiver = (hotRowReceivers.get(i) + shift) % numReceivers;
+        PlatformDependent.putInt(addr + i * 4L, preCopyRow(getCurrentBatch(receiver)));
+      }
+      copyRows(hotRowBatch, addr, count);
+    }
+
+    broadcastRecords += (long) count * (numReceivers - 1);
+    hotRowBatch.zeroVectors();
+    hotRows.clear();
+    hotRowReceivers.clear();
+  }
+
+  private void proposeHotKeys() {
+    final long minCount =
+        Math.max(2, (long) Math.ceil(hotKeyFactor * heavyHitters.getTotal() / numReceivers));
+    int[] hotKeys = heavyHitters.getHeavyHitters(minCount);
+    heavyHitters = null;
+    if (hotKeys.length == 0) {
+      return;
+    }
+    if (hotKeys.length > MAX_HOT_KEYS) {
+      hotKeys = Arrays.copyOf(hotKeys, MAX_HOT_KEYS);
+    }
+
+    final ExecProtos.SkewedJoinKeys.Builder keys = ExecProtos.SkewedJoinKeys.newBuilder();
+    for (int hash : hotKeys) {
+      keys.addHashValues(hash);
+    }
+    // every build side sender must confirm a key before its rows can be spread
+    pendingConfirmations = sendToPeers(keys.build(), -1);
+    logger.debug(
+        "Proposed {} heavy hitter keys to {} build side senders",
+        hotKeys.length,
+        pendingConfirmations);
+  }
+
+  @Override
+  public void workOnOOB(OutOfBandMessage message) {
+    if (role == SkewJoinRole.NONE || message.getSendingMajorFragmentId() != peerMajorFragmentId) {
+      return;
+    }
+    final ExecProtos.SkewedJoinKeys keys = message.getPayload(ExecProtos.SkewedJoinKeys.PARSER);
+    if (role == SkewJoinRole.PROBE) {
+      onConfirmedKeys(keys);
+    } else {
+      onProposedKeys(message.getSendingMinorFragmentId(), keys);
+    }
+    updateStats();
+  }
+
+  private void onConfirmedKeys(ExecProtos.SkewedJoinKeys keys) {
+    if (pendingConfirmations == 0) {
+      return;
+    }
+    final IntHashSet confirmed = new IntHashSet();
+    for (int hash : keys.getHashValuesList()) {
+      confirmed.add(hash);
+    }
+    if (confirmedHashes == null) {
+      confirmedHashes = confirmed;
+    } else {
+      confirmedHashes.retainAll(confirmed);
+    }
+    if (--pendingConfirmations == 0) {
+      spreadHashes = confirmedHashes;
+      logger.debug("Spreading the probe rows of {} heavy hitter keys", spreadHashes.size());
+    }
+  }
+
+  private void onProposedKeys(int probeMinorFragmentId, ExecProtos.SkewedJoinKeys keys) {
+    final ExecProtos.SkewedJoinKeys.Builder confirmed = ExecProtos.SkewedJoinKeys.newBuilder();
+    for (int hash : keys.getHashValuesList()) {
+      // a key already sent to a single receiver can't be broadcast anymore
+      if (broadcastHashes.contains(hash)
+          || (!isSeen(hash) && broadcastHashes.size() < MAX_HOT_KEYS)) {
+        broadcastHashes.add(hash);
+        confirmed.addHashValues(hash);
+      }
+    }
+    sendToPeers(confirmed.build(), probeMinorFragmentId);
+  }
+
+  /**
+   * Sends the keys to the sender of the other side of the join running as the given minor fragment,
+   * or to all of them if the minor fragment is negative.
+   *
+   * @return the number of minor fragments the keys were addressed to
+   */
+  private int sendToPeers(ExecProtos.SkewedJoinKeys keys, int targetMinorFragmentId) {
+    final MajorFragmentAssignment peers =
+        context.getExtMajorFragmentAssignments(peerMajorFragmentId);
+    if (peers == null) {
+      logger.warn(
+          "Major fragment assignment for skew join peer {} is null. Not sending heavy hitter keys.",
+          peerMajorFragmentId);
+      return 0;
+    }
+
+    final OutOfBandMessage.Payload payload = new OutOfBandMessage.Payload(keys);
+    int targets = 0;
+    for (FragmentAssignment assignment : peers.getAllAssignmentList()) {
+      final List<Integer> minorFragmentIds;
+      if (targetMinorFragmentId < 0) {
+        minorFragmentIds = assignment.getMinorFragmentIdList();
+      } else if (assignment.getMinorFragmentIdList().contains(targetMinorFragmentId)) {
+        minorFragmentIds = Collections.singletonList(targetMinorFragmentId);
+      } else {
+        continue;
+      }
+      targets += minorFragmentIds.size();
+
+      try {
+        final OutOfBandMessage message =
+            new OutOfBandMessage(
+                context.getFragmentHandle().getQueryId(),
+                peerMajorFragmentId,
+                minorFragmentIds,
+                peerOperatorId,
+                context.getFragmentHandle().getMajorFragmentId(),
+                context.getFragmentHandle().getMinorFragmentId(),
+                config.getProps().getOperatorId(),
+                payload,
+                null,
+                null,
+                true);
+        final NodeEndpoint endpoint =
+            context.getEndpointsIndex().getNodeEndpoint(assignment.getAssignmentIndex());
+        context.getTunnelProvider().getExecTunnel(endpoint).sendOOBMessage(message);
+      } catch (Exception e) {
+        // the keys won't be confirmed by these fragments, and so keep the hash distribution
+        logger.warn("Failure while sending heavy hitter keys to {}", minorFragmentIds, e);
+      }
+    }
+    return targets;
+  }
+
+  private static int seenBit(int hash) {
+    return (hash * 0x9E3779B9) >>> (Integer.SIZE - SEEN_HASHES_BITS);
+  }
+
+  private boolean isSeen(int hash) {
+    final int bit = seenBit(hash);
+    return (seenHashes[bit >>> 6] & (1L << bit)) != 0;
+  }
+
+  private void updateStats() {
+    final OperatorStats stats = context.getStats();
+    stats.setLongStat(
+        Metric.SKEW_JOIN_HOT_KEYS,
+        role == SkewJoinRole.BUILD ? broadcastHashes.size() : spreadHashes.size());
+    stats.setLongStat(Metric.SKEW_JOIN_SPREAD_RECORDS, spreadRecords);
+    stats.setLongStat(Metric.SKEW_JOIN_BROADCAST_RECORDS, broadcastRecords);
+  }
+
+  @Override
+  public void noMoreToConsume() throws Exception {
+    super.noMoreToConsume();
+    updateStats();
+  }
+
+  @Override
+  public void close() throws Exception {
+    updateStats();
+    try {
+      super.close();
+    } finally {
+      AutoCloseables.close(hotRowBatch, hotRowIndices);
+    }
+  }
+}
@@ -37,6 +37,7 @@ import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.sender.BaseSender;
+import com.dremio.sabot.op.sender.ExchangeCompressor;
 import com.dremio.sabot.op.sender.SenderLatencyTracker;
 import com.dremio.sabot.op.sender.partition.PartitionSenderOperator.Metric;
 import com.dremio.sabot.op.sender.partition.vectorized.MultiDestCopier.CopyWatches;
@@ -130,6 +131,9 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
   // if true, delay allocating send batches till the first batch arrives.
   private final boolean delayAllocSendBatches;
 
+  /** compresses the batches sent to remote receivers, shared by all outgoing batches */
+  private final ExchangeCompressor compressor;
+
   /** true if all receivers finished. */
   private volatile boolean nobodyListening = false;
 
@@ -153,6 +157,7 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
     modLookup = new OutgoingBatch[modSize];
     batches = new OutgoingBatch[2 * numReceivers];
     delayAllocSendBatches = context.getOptions().getOption(DELAY_ALLOC_SEND_BATCHES);
+    compressor = new ExchangeCompressor(context.getAllocator(), context.getOptions());
   }
 
   @Override
@@ -239,7 +244,8 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
               context,
               destination.getMinorFragmentId(),
               stats,
-              latencyTracker);
+              latencyTracker,
+              compressor);
       batches[batchB] =
           new OutgoingBatch(
               batchB,
@@ -252,7 +258,8 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
               context,
               destination.getMinorFragmentId(),
               stats,
-              latencyTracker);
+              latencyTracker,
+              compressor);
 
       if (!delayAllocSendBatches) {
         // Only allocate the primary batch. Backup batch is allocated when it is needed.
@@ -304,6 +311,8 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
       }
       flushWatch.stop();
 
+      afterCopyPass(start, numRowsToCopy);
+
       start += numRowsToCopy;
       numPasses++;
     }
@@ -380,49 +389,119 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
     return modLookup[partition];
   }
 
+  /**
+   * Returns the batch the row should be copied to.
+   *
+   * @param row index of the row in the incoming batch
+   * @param hash value of the hash column for the row
+   * @param partition partition of the row, derived from its hash
+   */
+  protected OutgoingBatch getBatch(int row, int hash, int partition, OutgoingBatch[] modLookup) {
+    return getBatch(partition, modLookup);
+  }
+
+  /**
+   * Called once the rows of a pass have been copied, and the full batches flushed.
+   *
+   * @param start index of the first row of the pass in the incoming batch
+   * @param count number of rows copied in the pass
+   */
+  protected void afterCopyPass(int start, int count) {}
+
+  /** Returns the batch currently receiving the rows sent to the given receiver. */
+  protected final OutgoingBatch getCurrentBatch(int receiver) {
+    return modLookup[receiver];
+  }
+
   private void generateCopyIndices(final int start, final int numRowsToCopy) {
     long srcAddr = partitionIndices.getDataBufferAddress() + start * 4;
     long dstAddr = copyIndices.getDataBufferAddress();
 
     final int mod = modSize - 1;
     final OutgoingBatch[] modLookup = this.modLookup;
-    final OutgoingBatch[] batches = this.batches;
 
     // populate using the destination (batchIdx, rowIdx) for each incoming row
-    final long max = srcAddr + numRowsToCopy * 4;
-    for (; srcAddr < max; srcAddr += 4, dstAddr += 4) {
-      final int partition =
-          (PlatformDependent.getInt(srcAddr) & 0x7FFFFFFF) & mod; // abs(hash) % modSize
-      OutgoingBatch batch = getBatch(partition, modLookup);
+    final int end = start + numRowsToCopy;
+    for (int row = start; row < end; row++, srcAddr += 4, dstAddr += 4) {
+      final int hash = PlatformDependent.getInt(srcAddr);
+      final int partition = (hash & 0x7FFFFFFF) & mod; // abs(hash) % modSize
+      OutgoingBatch batch = getBatch(row, hash, partition, modLookup);
+
+      PlatformDependent.putInt(dstAddr, preCopyRow(batch));
+    }
+  }
 
-      final int compound = batch.preCopyRow();
-      PlatformDependent.putInt(dstAddr, compound);
+  /**
+   * Accounts for one row copied to the batch, allocating or switching to the paired batch when
+   * needed.
+   *
+   * @return compound index ((batchIdx << 16) | rowIdx) of the copy destination
+   */
+  protected final int preCopyRow(OutgoingBatch batch) {
+    final int compound = batch.preCopyRow();
+
+    if (!batch.isFirstTimeAllocDone()) {
+      batch.allocateNew();
+      for (MultiDestCopier copier : copiers) {
+        copier.updateTargets(batch.getBatchIdx(), batch.getFieldVector(copier.getFieldId()));
+      }
+    } else if (batch.isFull()) {
+      // if current batch is full, we will copy to a different batch from now on
+      final int nextBatchIdx = batch.getNextBatchIdx();
+      final OutgoingBatch nextBatch = batches[nextBatchIdx];
+      nextBatch.allocateNew();
+      for (MultiDestCopier copier : copiers) {
+        copier.updateTargets(nextBatchIdx, nextBatch.getFieldVector(copier.getFieldId()));
+      }
+      // Paired batches must be located at very specific places within modLookup. In particular,
+      // the batch pair
+      // repeats every #receivers (see the comment above the modLookup definition).
+      assert (batch.getBatchIdx() % numReceivers) == (nextBatchIdx % numReceivers)
+          : String.format(
+              "Batch pairs must be aligned to #receivers. Instead: curr batch: %d, next batch: %d, #receivers: %d",
+              batch.getBatchIdx(), nextBatchIdx, numReceivers);
+      for (int b = (nextBatchIdx % numReceivers); b < modSize; b += numReceivers) {
+        modLookup[b] = nextBatch;
+      }
+    }
+    return compound;
+  }
 
-      if (!batch.isFirstTimeAllocDone()) {
-        batch.allocateNew();
+  /**
+   * Copies rows of another container, whose destinations were reserved with {@link
+   * #preCopyRow(OutgoingBatch)}, and flushes the batches that are full. At most
+   * numRecordsBeforeFlush rows can be copied at once.
+   *
+   * @param source container with the same schema as the incoming batch
+   * @param compoundAddr address of the compound index of each copied row
+   * @param count number of rows to copy, starting at the first row of the source
+   */
+  protected final void copyRows(VectorAccessible source, long compoundAddr, int count) {
+    // the copiers cache the addresses of the outgoing buffers, that the copy may reallocate
+    final List<MultiDestCopier> sourceCopiers =
+        MultiDestCopier.getCopiers(VectorContainer.getFieldVectors(source), batches, copyWatches);
+    for (MultiDestCopier copier : sourceCopiers) {
+      copier.copy(compoundAddr, 0, count);
+    }
+    for (OutgoingBatch batch : batches) {
+      if (batch.isFirstTimeAllocDone()) {
         for (MultiDestCopier copier : copiers) {
           copier.updateTargets(batch.getBatchIdx(), batch.getFieldVector(copier.getFieldId()));
         }
-      } else if (batch.isFull()) {
-        // if current batch is full, we will copy to a different batch from now on
-        final int nextBatchIdx = batch.getNextBatchIdx();
-        final OutgoingBatch nextBatch = batches[nextBatchIdx];
-        nextBatch.allocateNew();
-        for (MultiDestCopier copier : copiers) {
-          copier.updateTargets(nextBatchIdx, nextBatch.getFieldVector(copier.getFieldId()));
-        }
-        // Paired batches must be located at very specific places within modLookup. In particular,
-        // the batch pair
-        // repeats every #receivers (see the comment above the modLookup definition).
-        assert (batch.getBatchIdx() % numReceivers) == (nextBatchIdx % numReceivers)
-            : String.format(
-                "Batch pairs must be aligned to #receivers. Instead: curr batch: %d, next batch: %d, #receivers: %d",
-                batch.getBatchIdx(), nextBatchIdx, numReceivers);
-        for (int b = (nextBatchIdx % numReceivers); b < modSize; b += numReceivers) {
-          modLookup[b] = nextBatch;
-        }
       }
     }
+
+    flushWatch.start();
+    for (OutgoingBatch batch : batches) {
+      if (batch.isFull()) {
+        batch.flush();
+      }
+    }
+    flushWatch.stop();
+  }
+
+  protected final int getNumRecordsBeforeFlush() {
+    return numRecordsBeforeFlush;
   }
 
   private void switchStateToDone() throws Exception {
@@ -437,6 +516,9 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
   public void close() throws Exception {
     stats.setLongStat(Metric.SUM_ACK_MILLIS, latencyTracker.getSumAckMillis());
     stats.setLongStat(Metric.MAX_ACK_MILLIS, latencyTracker.getMaxAckMillis());
+    stats.setLongStat(Metric.COMPRESSED_BATCHES, compressor.getCompressedBatches());
+    stats.setLongStat(Metric.BYTES_BEFORE_COMPRESSION, compressor.getRawBytes());
+    stats.setLongStat(Metric.COMPRESSION_NANOS, compressor.getCompressionNanos());
     AutoCloseables.close(Arrays.asList(batches), Arrays.asList(copyIndices, partitionIndices));
   }
 
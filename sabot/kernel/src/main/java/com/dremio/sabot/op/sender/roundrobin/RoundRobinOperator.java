@@ -30,6 +30,7 @@ import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.sender.BaseSender;
+import com.dremio.sabot.op.sender.ExchangeCompressor;
 import com.dremio.sabot.op.sender.SenderLatencyTracker;
 import com.dremio.sabot.op.spi.TerminalOperator;
 import com.google.common.base.Function;
@@ -62,6 +63,7 @@ public class RoundRobinOperator extends BaseSender {
   private int currentTunnelsIndex;
   private int currentMinorFragmentsIndex;
   private final SenderLatencyTracker latencyTracker = new SenderLatencyTracker();
+  private final ExchangeCompressor compressor;
 
   private VectorAccessible incoming;
 
@@ -70,7 +72,10 @@ public class RoundRobinOperator extends BaseSender {
     BYTES_SENT,
     BATCHES_SENT,
     SUM_ACK_MILLIS,
-    MAX_ACK_MILLIS;
+    MAX_ACK_MILLIS,
+    COMPRESSED_BATCHES,
+    BYTES_BEFORE_COMPRESSION,
+    COMPRESSION_NANOS;
 
     @Override
     public int metricId() {
@@ -86,6 +91,7 @@ public class RoundRobinOperator extends BaseSender {
     this.allocator = context.getAllocator();
     this.handle = context.getFragmentHandle();
     this.stats = context.getStats();
+    this.compressor = new ExchangeCompressor(allocator, context.getOptions());
 
     List<MinorFragmentEndpoint> destinations = config.getDestinations(context.getEndpointsIndex());
     final ArrayListMultimap<NodeEndpoint, Integer> dests = ArrayListMultimap.create();
@@ -125,6 +131,9 @@ public class RoundRobinOperator extends BaseSender {
   public void close() throws Exception {
     stats.setLongStat(Metric.SUM_ACK_MILLIS, latencyTracker.getSumAckMillis());
     stats.setLongStat(Metric.MAX_ACK_MILLIS, latencyTracker.getMaxAckMillis());
+    stats.setLongStat(Metric.COMPRESSED_BATCHES, compressor.getCompressedBatches());
+    stats.setLongStat(Metric.BYTES_BEFORE_COMPRESSION, compressor.getRawBytes());
+    stats.setLongStat(Metric.COMPRESSION_NANOS, compressor.getCompressionNanos());
   }
 
   @Override
@@ -182,21 +191,24 @@ public class RoundRobinOperator extends BaseSender {
                 })
             .toList();
 
+    final AccountingExecTunnel tunnel = tunnels.get(currentTunnelsIndex);
     FragmentWritableBatch batch =
         new FragmentWritableBatch(
             handle.getQueryId(),
             handle.getMajorFragmentId(),
             handle.getMinorFragmentId(),
             config.getReceiverMajorFragmentId(),
-            new ArrowRecordBatch(
-                arrowRecordBatch.getLength(),
-                arrowRecordBatch.getNodes(),
-                buffers,
-                NoCompressionCodec.DEFAULT_BODY_COMPRESSION,
-                false),
+            compressor.compress(
+                new ArrowRecordBatch(
+                    arrowRecordBatch.getLength(),
+                    arrowRecordBatch.getNodes(),
+                    buffers,
+                    NoCompressionCodec.DEFAULT_BODY_COMPRESSION,
+                    false),
+                tunnel),
             minorFragments.get(currentTunnelsIndex).get(currentMinorFragmentsIndex));
     updateStats(batch);
-    tunnels.get(currentTunnelsIndex).sendRecordBatch(batch, latencyTracker.getLatencyObserver());
+    tunnel.sendRecordBatch(batch, latencyTracker.getLatencyObserver());
 
     currentMinorFragmentsIndex++;
     if (currentMinorFragmentsIndex >= minorFragments.get(currentTunnelsIndex).size()) {
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Double buffered input stream, which reads ahead the next buffer from the underlying stream on an
+ * I/O executor while the caller consumes the current one. The first read ahead starts as soon as
+ * the stream is opened.
+ *
+ * <p>Not thread safe, all the methods must be called from the same thread.
+ */
+class AsyncSpillInputStream extends InputStream {
+  private final InputStream in;
+  private final ExecutorService executor;
+
+  private byte[] current;
+  private byte[] spare;
+  private int position;
+  private int limit;
+  private boolean eof;
+  private Future<Integer> pending;
+
+  // only updated by the read in flight, and read after waiting for it
+  private long ioNanos;
+  private long waitNanos;
+
+  AsyncSpillInputStream(InputStream in, ExecutorService executor, int bufferSize) {
+    this.in = in;
+    this.executor = executor;
+    this.current = new byte[bufferSize];
+    this.spare = new byte[bufferSize];
+    readAhead();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+    return current[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!fill()) {
+      return -1;
+    }
+    final int toCopy = Math.min(len, limit - position);
+    System.arraycopy(current, position, b, off, toCopy);
+    position += toCopy;
+    return toCopy;
+  }
+
+  @Override
+  public int available() {
+    return limit - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      // the read ahead in flight can't be interrupted safely, let it finish before closing
+      if (pending != null) {
+        waitForPending();
+      }
+    } catch (IOException e) {
+      // the data is not needed anymore
+    } finally {
+      current = null;
+      spare = null;
+      in.close();
+    }
+  }
+
+  /** Time spent reading in the background while the caller was not waiting for it. */
+  long getOverlapNanos() {
+    return Math.max(0, ioNanos - waitNanos);
+  }
+
+  /** Makes sure the current buffer has bytes left, unless the end of the stream is reached. */
+  private boolean fill() throws IOException {
+    if (position < limit) {
+      return true;
+    }
+    if (eof) {
+      return false;
+    }
+
+    final int read = waitForPending();
+    if (read < 0) {
+      eof = true;
+      return false;
+    }
+    final byte[] consumed = current;
+    current = spare;
+    spare = consumed;
+    position = 0;
+    limit = read;
+    readAhead();
+    return true;
+  }
+
+  private void readAhead() {
+    final byte[] buffer = spare;
+    try {
+      pending = executor.submit(() -> readFully(buffer));
+    } catch (RejectedExecutionException e) {
+      // the executor is shutting down, read on the calling thread when needed instead
+      pending = null;
+    }
+  }
+
+  private int readFully(byte[] buffer) throws IOException {
+    final long start = System.nanoTime();
+    try {
+      int total = 0;
+      while (total < buffer.length) {
+        final int read = in.read(buffer, total, buffer.length - total);
+        if (read < 0) {
+          break;
+        }
+        total += read;
+      }
+      return total == 0 ? -1 : total;
+    } finally {
+      ioNanos += System.nanoTime() - start;
+    }
+  }
+
+  private int waitForPending() throws IOException {
+    final long start = System.nanoTime();
+    try {
+      return pending != null ? pending.get() : readFully(spare);
+    } catch (InterruptedException e) {
+      awaitInterruptedPending();
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a spill read");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failed to read spill data", e.getCause());
+    } finally {
+      pending = null;
+      waitNanos += System.nanoTime() - start;
+    }
+  }
+
+  /**
+   * Waits for the read in flight after the caller was interrupted. It still uses the spare buffer
+   * and the underlying stream, which must not be recycled or closed before it completes. Its result
+   * is dropped, the interruption is reported instead.
+   */
+  private void awaitInterruptedPending() {
+    try {
+      Uninterruptibles.getUninterruptibly(pending);
+    } catch (ExecutionException e) {
+      // dropped
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Double buffered output stream, which writes a full buffer to the underlying stream on an I/O
+ * executor while the caller keeps filling the other buffer. At most one write is in flight, so the
+ * caller only waits when it fills a buffer before the previous one was written.
+ *
+ * <p>Not thread safe, all the methods must be called from the same thread.
+ */
+class AsyncSpillOutputStream extends OutputStream {
+  private final OutputStream out;
+  private final ExecutorService executor;
+  private final int bufferSize;
+
+  private byte[] current;
+  private byte[] spare;
+  private int count;
+  private Future<?> pending;
+
+  // only updated by the write in flight, and read after waiting for it
+  private long ioNanos;
+  private long waitNanos;
+
+  AsyncSpillOutputStream(OutputStream out, ExecutorService executor, int bufferSize) {
+    this.out = out;
+    this.executor = executor;
+    this.bufferSize = bufferSize;
+    this.current = new byte[bufferSize];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    if (count == current.length) {
+      submitCurrent();
+    }
+    current[count++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      if (count == current.length) {
+        submitCurrent();
+      }
+      final int toCopy = Math.min(len, current.length - count);
+      System.arraycopy(b, off, current, count, toCopy);
+      count += toCopy;
+      off += toCopy;
+      len -= toCopy;
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    submitCurrent();
+    waitForPending();
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      submitCurrent();
+      waitForPending();
+    } finally {
+      current = null;
+      spare = null;
+      out.close();
+    }
+  }
+
+  /** Time spent writing in the background while the caller was not waiting for it. */
+  long getOverlapNanos() {
+    return Math.max(0, ioNanos - waitNanos);
+  }
+
+  private void submitCurrent() throws IOException {
+    if (count == 0) {
+      return;
+    }
+    waitForPending();
+
+    final byte[] toWrite = current;
+    final int length = count;
+    try {
+      pending =
+          executor.submit(
+              () -> {
+                final long start = System.nanoTime();
+                out.write(toWrite, 0, length);
+                ioNanos += System.nanoTime() - start;
+                return null;
+              });
+    } catch (RejectedExecutionException e) {
+      // the executor is shutting down, write on the calling thread instead
+      out.write(toWrite, 0, length);
+    }
+
+    current = spare != null ? spare : new byte[bufferSize];
+    spare = toWrite;
+    count = 0;
+  }
+
+  private void waitForPending() throws IOException {
+    if (pending == null) {
+      return;
+    }
+    final long start = System.nanoTime();
+    try {
+      pending.get();
+    } catch (InterruptedException e) {
+      awaitInterruptedPending();
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a spill write");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failed to write spill data", e.getCause());
+    } finally {
+      pending = null;
+      waitNanos += System.nanoTime() - start;
+    }
+  }
+
+  /**
+   * Waits for the write in flight after the caller was interrupted. It still uses the spare buffer
+   * and the underlying stream, which must not be recycled or closed before it completes. Its result
+   * is dropped, the interruption is reported instead.
+   */
+  private void awaitInterruptedPending() {
+    try {
+      Uninterruptibles.getUninterruptibly(pending);
+    } catch (ExecutionException e) {
+      // dropped
+    }
+  }
+}
@@ -50,6 +50,7 @@ import com.dremio.sabot.op.copier.Copier;
 import com.dremio.sabot.op.copier.CopierFactory;
 import com.dremio.sabot.op.copier.CopierOperator;
 import com.dremio.sabot.op.copier.FieldBufferCopierFactory;
+import com.dremio.sabot.op.sort.external.SpillManager.MappedSpillInput;
 import com.dremio.sabot.op.sort.external.SpillManager.SpillFile;
 import com.dremio.sabot.op.sort.external.SpillManager.SpillInputStream;
 import com.dremio.sabot.op.sort.external.SpillManager.SpillOutputStream;
@@ -101,6 +102,8 @@ public class DiskRunManager implements AutoCloseable {
   private int run = 0;
   private int merge = 0;
   private final boolean useArrowEncoding;
+  // map the spill files in memory instead of reading them, when possible
+  private final boolean useMappedRead;
   private final BufferAllocator parentAllocator;
   private BufferAllocator copierAllocator;
   private final int targetRecordCount;
@@ -181,6 +184,11 @@ public class DiskRunManager implements AutoCloseable {
       this.allocationDensity =
           optionManager.getOption(ExecConstants.EXTERNAL_SORT_SPILL_ALLOCATION_DENSITY);
       this.copierFactory = new FieldBufferCopierFactory(optionManager);
+      // compressed files are read through a decompressing stream, they can't be mapped
+      this.useMappedRead =
+          useArrowEncoding
+              && !compressSpilledBatch
+              && optionManager.getOption(ExecConstants.EXTERNAL_SORT_MMAP_READ);
 
       if (compressSpilledBatch) {
         long reserve = VectorAccessibleSerializable.RAW_CHUNK_SIZE_TO_COMPRESS * 2;
@@ -840,6 +848,10 @@ public class DiskRunManager implements AutoCloseable {
     // memory reserved
     // to allocate the largest batch per run
     for (DiskRun run : diskRuns) {
+      if (run.isMapped()) {
+        // the batches of the run are mapped in memory, they are not accounted to the allocator
+        continue;
+      }
       long batchSize = nextPowerOfTwo(run.largestBatch);
       totalSizeNeeded += batchSize;
     }
@@ -979,6 +991,11 @@ public class DiskRunManager implements AutoCloseable {
       iterator = null;
     }
 
+    /** Whether the batches of the run are loaded by mapping the spill file in memory. */
+    private boolean isMapped() {
+      return useMappedRead && spillFile.getLocalPath() != null;
+    }
+
     @Override
     public void close() throws Exception {
       AutoCloseables.close(spillFile);
@@ -1017,6 +1034,8 @@ public class DiskRunManager implements AutoCloseable {
   public class DiskRunIterator implements AutoCloseable {
     private final BufferAllocator allocator;
     private SpillInputStream inputStream;
+    // set instead of inputStream when the spill file is mapped in memory
+    private MappedSpillInput mappedInput;
 
     private int batchIndex = -1;
     private final int batchIndexMax;
@@ -1042,7 +1061,12 @@ public class DiskRunManager implements AutoCloseable {
       try (RollbackCloseable rollback = new RollbackCloseable()) {
         this.allocator = rollback.add(parentAllocator.newChildAllocator("diskrun", 0, memCapacity));
         this.container = rollback.add(VectorContainer.create(allocator, dataSchema));
-        this.inputStream = rollback.add(spillFile.open(useArrowEncoding && compressSpilledBatch));
+        this.mappedInput = useMappedRead ? spillFile.openMapped() : null;
+        if (mappedInput != null) {
+          rollback.add(mappedInput);
+        } else {
+          this.inputStream = rollback.add(spillFile.open(useArrowEncoding && compressSpilledBatch));
+        }
         this.batchIndexMax = batchCount;
         loadNextBatch(true);
         hyperContainer.addBatch(this.container);
@@ -1052,6 +1076,9 @@ public class DiskRunManager implements AutoCloseable {
         if (inputStream != null) {
           inputStream.close();
         }
+        if (mappedInput != null) {
+          mappedInput.close();
+        }
         throw e;
       }
     }
@@ -1062,6 +1089,14 @@ public class DiskRunManager implements AutoCloseable {
           "You tried to go beyond end of available batches to read.");
       container.zeroVectors();
 
+      if (mappedInput != null) {
+        mappedInput.load(container, allocator);
+        recordIndexMax = container.getRecordCount();
+        batchIndex++;
+        recordIndex = -1;
+        return;
+      }
+
       if (useArrowEncoding) {
         inputStream.load(container, allocator);
         recordIndexMax = container.getRecordCount();
@@ -1105,7 +1140,7 @@ public class DiskRunManager implements AutoCloseable {
 
     @Override
     public void close() throws Exception {
-      AutoCloseables.close(container, allocator, inputStream);
+      AutoCloseables.close(container, allocator, inputStream, mappedInput);
     }
 
     public int getNextId() throws IOException {
@@ -1146,6 +1181,11 @@ public class DiskRunManager implements AutoCloseable {
     return useArrowEncoding ? spillManager.getDecompressionNanos() : uncompressionNanos;
   }
 
+  /** Bytes of the spill files mapped in memory instead of being read. */
+  public long getMappedReadBytes() {
+    return spillManager.getMappedReadBytes();
+  }
+
   public long getIOReadWait() {
     return spillManager.getIOReadWait();
   }
@@ -376,6 +376,9 @@ public class ExternalSortOperator implements SingleInputOperator, ShrinkableOper
       stats.setLongStat(
           ExternalSortStats.Metric.SPILL_COPY_NANOS,
           vectorSorterStats.get(ExternalSortStats.Metric.SPILL_COPY_NANOS.name()));
+      stats.setLongStat(
+          ExternalSortStats.Metric.MAPPED_BYTES_READ,
+          vectorSorterStats.get(ExternalSortStats.Metric.MAPPED_BYTES_READ.name()));
     }
   }
 
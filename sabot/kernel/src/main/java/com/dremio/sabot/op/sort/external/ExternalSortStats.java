@@ -67,6 +67,7 @@ public class ExternalSortStats {
 
     OOM_ALLOCATE_COUNT,
     OOM_COPY_COUNT,
+    MAPPED_BYTES_READ, // bytes of spill files mapped in memory instead of being read
     ;
 
     private final UserBitShared.MetricDef.DisplayType displayType;
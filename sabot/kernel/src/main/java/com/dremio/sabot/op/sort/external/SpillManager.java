@@ -21,6 +21,7 @@ import com.dremio.exec.ExecConstants;
 import com.dremio.exec.cache.VectorAccessibleFlatBufSerializable;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.store.InputStreamWithStats;
+import com.dremio.exec.store.LocalSyncableFileSystem;
 import com.dremio.exec.store.LocalSyncableFileSystem.LocalSyncableOutputStream;
 import com.dremio.exec.store.LocalSyncableFileSystem.WritesArrowBuf;
 import com.dremio.exec.store.OutputStreamWithStats;
@@ -33,8 +34,12 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import net.jpountz.lz4.LZ4BlockInputStream;
 import net.jpountz.lz4.LZ4BlockOutputStream;
@@ -45,7 +50,9 @@ import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
 
 /**
  * Distribute spills across given list of directories. Monitor disk space left and stop using disks
@@ -57,6 +64,8 @@ public class SpillManager implements AutoCloseable {
       org.slf4j.LoggerFactory.getLogger(SpillManager.class);
 
   static final String DREMIO_LOCAL_IMPL_STRING = "fs.dremio-local.impl";
+  // size of each of the two buffers of a spill file that is written or read asynchronously
+  static final int ASYNC_IO_BUFFER_SIZE = 128 * 1024;
 
   private final String id;
   private final SpillService spillService;
@@ -71,6 +80,7 @@ public class SpillManager implements AutoCloseable {
   private long decompressionNanos;
   private long ioReadWaitNanos;
   private long ioWriteWaitNanos;
+  private long mappedReadBytes;
 
   public SpillManager(
       SabotConfig sabotConfig,
@@ -152,11 +162,46 @@ public class SpillManager implements AutoCloseable {
     }
 
     public SpillOutputStream create(boolean compressed) throws IOException {
-      return createSpillOutputStream(this, compressed);
+      return createSpillOutputStream(this, compressed, null);
+    }
+
+    /**
+     * @param compressed whether the data is compressed
+     * @param ioExecutor if not null, the file is written on this executor while the caller fills
+     *     the next buffer
+     */
+    public SpillOutputStream create(boolean compressed, ExecutorService ioExecutor)
+        throws IOException {
+      return createSpillOutputStream(this, compressed, ioExecutor);
     }
 
     public SpillInputStream open(boolean compressed) throws IOException {
-      return createSpillInputStream(this, compressed);
+      return createSpillInputStream(this, compressed, null);
+    }
+
+    /**
+     * @param compressed whether the data is compressed
+     * @param ioExecutor if not null, the file is read ahead on this executor while the caller
+     *     consumes the current buffer
+     */
+    public SpillInputStream open(boolean compressed, ExecutorService ioExecutor)
+        throws IOException {
+      return createSpillInputStream(this, compressed, ioExecutor);
+    }
+
+    /**
+     * Opens the file to load its batches by mapping them in memory, see {@link MappedSpillInput}.
+     *
+     * @return the opened file, or null if it is not on the local file system
+     */
+    public MappedSpillInput openMapped() throws IOException {
+      final java.nio.file.Path localPath = getLocalPath();
+      if (localPath == null) {
+        return null;
+      }
+      // a private mapping needs write access, but the file is never modified
+      return new MappedSpillInput(
+          FileChannel.open(localPath, StandardOpenOption.READ, StandardOpenOption.WRITE));
     }
 
     public FSDataOutputStream create() throws IOException {
@@ -187,6 +232,19 @@ public class SpillManager implements AutoCloseable {
     public Path getPath() {
       return path;
     }
+
+    /**
+     * @return the file on the local file system, or null if the spill file is on a remote file
+     *     system
+     */
+    public java.nio.file.Path getLocalPath() {
+      if (!(fs instanceof LocalSyncableFileSystem
+          || fs instanceof LocalFileSystem
+          || fs instanceof RawLocalFileSystem)) {
+        return null;
+      }
+      return Paths.get(Path.getPathWithoutSchemeAndAuthority(path).toUri().getPath());
+    }
   }
 
   private static class ABOutputStreamWithStats extends OutputStreamWithStats
@@ -207,8 +265,8 @@ public class SpillManager implements AutoCloseable {
     }
   }
 
-  private SpillOutputStream createSpillOutputStream(SpillFile file, boolean compressed)
-      throws IOException {
+  private SpillOutputStream createSpillOutputStream(
+      SpillFile file, boolean compressed, ExecutorService ioExecutor) throws IOException {
     FSDataOutputStream output = file.fs.create(file.path);
     OutputStream actualOutput = output;
     try {
@@ -219,18 +277,24 @@ public class SpillManager implements AutoCloseable {
     } catch (Exception ex) {
       logger.debug("Failed to get inner wrapped stream, using fallback.", ex);
     }
+    AsyncSpillOutputStream asyncOutput = null;
+    if (ioExecutor != null) {
+      asyncOutput = new AsyncSpillOutputStream(actualOutput, ioExecutor, ASYNC_IO_BUFFER_SIZE);
+      actualOutput = asyncOutput;
+    }
     ABOutputStreamWithStats base = new ABOutputStreamWithStats(actualOutput);
     ABOutputStreamWithStats top =
         compressed ? new ABOutputStreamWithStats(new LZ4BlockOutputStream(base)) : base;
     boolean useDirectWrite =
         useDirectWritePathIfPossible && !compressed && actualOutput instanceof WritesArrowBuf;
-    return new SpillOutputStream(top, base, file, compressed, useDirectWrite);
+    return new SpillOutputStream(top, base, asyncOutput, file, compressed, useDirectWrite);
   }
 
   public class SpillOutputStream extends FilterOutputStream {
 
     private final ABOutputStreamWithStats top;
     private final ABOutputStreamWithStats base;
+    private final AsyncSpillOutputStream asyncOutput;
     private final SpillFile file;
     private final boolean compressed;
     private final boolean writeDirect;
@@ -240,12 +304,14 @@ public class SpillManager implements AutoCloseable {
     private SpillOutputStream(
         ABOutputStreamWithStats top,
         ABOutputStreamWithStats base,
+        AsyncSpillOutputStream asyncOutput,
         SpillFile file,
         boolean compressed,
         boolean writeDirect) {
       super(top);
       this.top = top;
       this.base = base;
+      this.asyncOutput = asyncOutput;
       this.file = file;
       this.compressed = compressed;
       this.writeDirect = writeDirect;
@@ -272,6 +338,11 @@ public class SpillManager implements AutoCloseable {
       return base.getWriteNanos() + base.getCloseNanos();
     }
 
+    /** Time spent writing on the I/O executor while the caller did other work. */
+    public long getIOOverlapTime() {
+      return asyncOutput == null ? 0 : asyncOutput.getOverlapNanos();
+    }
+
     public long getCompressionTime() {
       if (!compressed) {
         return 0;
@@ -310,28 +381,39 @@ public class SpillManager implements AutoCloseable {
     }
   }
 
-  private SpillInputStream createSpillInputStream(SpillFile file, boolean compressed)
-      throws IOException {
+  private SpillInputStream createSpillInputStream(
+      SpillFile file, boolean compressed, ExecutorService ioExecutor) throws IOException {
     InputStream output = file.fs.open(file.path);
+    AsyncSpillInputStream asyncInput = null;
+    if (ioExecutor != null) {
+      asyncInput = new AsyncSpillInputStream(output, ioExecutor, ASYNC_IO_BUFFER_SIZE);
+      output = asyncInput;
+    }
     InputStreamWithStats base = new InputStreamWithStats(output);
     InputStreamWithStats top =
         compressed ? new InputStreamWithStats(new LZ4BlockInputStream(base)) : base;
-    return new SpillInputStream(top, base, file, compressed);
+    return new SpillInputStream(top, base, asyncInput, file, compressed);
   }
 
   public class SpillInputStream extends FilterInputStream {
 
     private final InputStreamWithStats top;
     private final InputStreamWithStats base;
+    private final AsyncSpillInputStream asyncInput;
     private final SpillFile file;
     private boolean compressed;
     private VectorAccessibleFlatBufSerializable serializable;
 
     private SpillInputStream(
-        InputStreamWithStats top, InputStreamWithStats base, SpillFile file, boolean compressed) {
+        InputStreamWithStats top,
+        InputStreamWithStats base,
+        AsyncSpillInputStream asyncInput,
+        SpillFile file,
+        boolean compressed) {
       super(top);
       this.top = top;
       this.base = base;
+      this.asyncInput = asyncInput;
       this.file = file;
       this.compressed = compressed;
       this.serializable = new VectorAccessibleFlatBufSerializable();
@@ -357,6 +439,11 @@ public class SpillManager implements AutoCloseable {
       return base.getReadNanos();
     }
 
+    /** Time spent reading ahead on the I/O executor while the caller did other work. */
+    public long getIOOverlapTime() {
+      return asyncInput == null ? 0 : asyncInput.getOverlapNanos();
+    }
+
     public long getDeompressionTime() {
       if (!compressed) {
         return 0;
@@ -391,6 +478,62 @@ public class SpillManager implements AutoCloseable {
     }
   }
 
+  /**
+   * Uncompressed spill file, arrow encoded, whose batches are loaded by mapping their bodies in
+   * memory instead of reading them into new buffers. The mapped bytes are reported as read bytes.
+   */
+  public class MappedSpillInput implements AutoCloseable {
+    private final FileChannel channel;
+    private final VectorAccessibleFlatBufSerializable serializable;
+    // mapped pages are accounted here rather than to the allocator of the vectors, see
+    // MappedFileAllocation
+    private BufferAllocator mappedAllocator;
+    private long position;
+    private long readNanos;
+
+    private MappedSpillInput(FileChannel channel) {
+      this.channel = channel;
+      this.serializable = new VectorAccessibleFlatBufSerializable();
+    }
+
+    /**
+     * Loads the next batch of the file, the vectors reference the mapped pages. The vectors of the
+     * previous batch must have been released.
+     */
+    public void load(VectorContainer container, BufferAllocator allocator) throws IOException {
+      final long start = System.nanoTime();
+      if (mappedAllocator == null) {
+        mappedAllocator =
+            allocator.getRoot().newChildAllocator("mapped-spill-read", 0, Long.MAX_VALUE);
+      }
+      serializable.clear();
+      serializable.setup(container, allocator, stats);
+      position = serializable.readFromMappedFile(channel, position, mappedAllocator);
+      readNanos += System.nanoTime() - start;
+    }
+
+    /** Closes the file, once the vectors of the last batch are released. */
+    @Override
+    public void close() throws IOException {
+      if (!channel.isOpen()) {
+        return;
+      }
+      try {
+        serializable.releaseMappedBody();
+        if (mappedAllocator != null) {
+          mappedAllocator.close();
+        }
+      } finally {
+        channel.close();
+      }
+      // reading the batch headers was already recorded as wait time by the serializable
+      ioReadWaitNanos += readNanos;
+      appReadBytes += position;
+      ioReadBytes += position;
+      mappedReadBytes += position;
+    }
+  }
+
   public long getAppWriteBytes() {
     return appWriteBytes;
   }
@@ -422,4 +565,9 @@ public class SpillManager implements AutoCloseable {
   public long getIOWriteWait() {
     return ioWriteWaitNanos;
   }
+
+  /** Bytes of spill files mapped in memory instead of being read, included in the read bytes. */
+  public long getMappedReadBytes() {
+    return mappedReadBytes;
+  }
 }
@@ -81,6 +81,7 @@ public class VectorSorter implements AutoCloseable {
   private static final String OOM_ALLOCATE_COUNT = "OOM_ALLOCATE_COUNT";
   private static final String OOM_COPY_COUNT = "OOM_COPY_COUNT";
   private static final String SPILL_COPY_NANOS = "SPILL_COPY_NANOS";
+  private static final String MAPPED_BYTES_READ = "MAPPED_BYTES_READ";
 
   private final int targetBatchSize;
   private final OperatorContext context;
@@ -619,6 +620,7 @@ public class VectorSorter implements AutoCloseable {
       stats.put(OOM_ALLOCATE_COUNT, diskRuns.getOOMAllocateCount());
       stats.put(OOM_COPY_COUNT, diskRuns.getOOMCopyCount());
       stats.put(SPILL_COPY_NANOS, diskRuns.getSpillCopyNanos());
+      stats.put(MAPPED_BYTES_READ, diskRuns.getMappedReadBytes());
     }
     return stats;
   }
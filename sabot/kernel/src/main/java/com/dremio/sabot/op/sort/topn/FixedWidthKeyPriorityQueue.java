@@ -0,0 +1,382 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.topn;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.record.RecordBatchData;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
+import com.dremio.exec.record.selection.SelectionVector2;
+import com.dremio.exec.record.selection.SelectionVector4;
+import com.dremio.sabot.exec.context.FunctionContext;
+import com.dremio.sabot.op.sort.external.Sv4HyperContainer;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BitVectorHelper;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.types.Types.MinorType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+/**
+ * Priority queue for a Top-N on a single sort key of a fixed width type, that doesn't need any
+ * generated code.
+ *
+ * <p>Along with the heap of (batch, row) entries, the queue keeps the key of each entry off heap,
+ * normalized to a long that compares like the generated comparator would (direction and float
+ * ordering included), and a null rank. Comparisons only read these two buffers instead of going
+ * back to the hyper batch.
+ *
+ * <p>Once the heap is full, every incoming row is first compared against the top of the heap, the
+ * largest entry kept. A batch none of whose rows beat it is released right away instead of being
+ * added to the hyper batch, and a batch whose rows were all evicted from the heap since it was
+ * added has its vectors released, so that only the batches that may still be part of the output are
+ * held in memory.
+ */
+class FixedWidthKeyPriorityQueue implements PriorityQueue {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(FixedWidthKeyPriorityQueue.class);
+
+  private static final byte NULL_FIRST_RANK = 0;
+  private static final byte NOT_NULL_RANK = 1;
+  private static final byte NULL_LAST_RANK = 2;
+
+  private final int fieldIndex;
+  private final MinorType keyType;
+  private final boolean descending;
+  private final byte nullRank;
+
+  private SelectionVector4 heapSv4; // This holds the heap
+  private SelectionVector4 finalSv4; // This is for final sorted output
+  private ArrowBuf keys; // normalized key of each heap entry
+  private ArrowBuf ranks; // null rank of each heap entry
+  private Sv4HyperContainer hyperBatch;
+  private BufferAllocator allocator;
+  private int limit;
+  private int queueSize = 0;
+  private int batchCount = 0;
+  private boolean hasSv2;
+  private int maxSize;
+  // number of heap entries pointing to each batch of the hyper batch
+  private int[] liveRows = new int[16];
+  private long skippedBatches;
+  private long releasedBatches;
+
+  /**
+   * @param fieldIndex index of the sort key in the incoming batches
+   * @param keyType type of the sort key, see {@link #isSupported(MinorType)}
+   * @param descending true if the sort key is sorted in descending order
+   * @param nullsFirst true if null keys are output before all the other keys
+   */
+  FixedWidthKeyPriorityQueue(
+      int fieldIndex, MinorType keyType, boolean descending, boolean nullsFirst) {
+    this.fieldIndex = fieldIndex;
+    this.keyType = keyType;
+    this.descending = descending;
+    this.nullRank = nullsFirst ? NULL_FIRST_RANK : NULL_LAST_RANK;
+  }
+
+  /** Whether the queue can handle a sort key of this type. */
+  static boolean isSupported(MinorType type) {
+    switch (type) {
+      case INT:
+      case BIGINT:
+      case DATEMILLI:
+      case TIMEMILLI:
+      case TIMESTAMPMILLI:
+      case TIMESTAMPMILLITZ:
+      case FLOAT4:
+      case FLOAT8:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  @Override
+  public void init(
+      Sv4HyperContainer hyperBatch,
+      int limit,
+      FunctionContext context,
+      BufferAllocator allocator,
+      boolean hasSv2,
+      int maxSize) {
+    this.limit = limit;
+    this.allocator = allocator;
+    this.hasSv2 = hasSv2;
+    this.hyperBatch = hyperBatch;
+    this.maxSize = maxSize;
+    this.heapSv4 =
+        new SelectionVector4(allocator.buffer(4 * (limit + 1)), limit, Character.MAX_VALUE);
+    this.keys = allocator.buffer(8L * (limit + 1));
+    this.ranks = allocator.buffer(limit + 1);
+  }
+
+  @Override
+  public void resetQueue(final VectorContainer newQueue, final SelectionVector4 oldHeap) {
+    // The old heap was copied in heap order, so the keys and ranks are still valid.
+    Schema schema = hyperBatch.getSchema();
+
+    // Cleanup old data.
+    try {
+      AutoCloseables.close(heapSv4, hyperBatch, finalSv4);
+    } catch (Exception ex) {
+      throw Throwables.propagate(ex);
+    }
+    finalSv4 = null;
+
+    hyperBatch = new Sv4HyperContainer(allocator, schema);
+    hyperBatch.addBatch(newQueue);
+    batchCount = hyperBatch.iterator().next().getValueVectors().length;
+    heapSv4 = new SelectionVector4(allocator.buffer(4 * (limit + 1)), limit, Character.MAX_VALUE);
+    liveRows = new int[Math.max(16, batchCount)];
+    queueSize = 0;
+    for (int i = 0; i < oldHeap.getTotalCount(); i++) {
+      final int compound = oldHeap.get(i);
+      heapSv4.set(i, compound);
+      liveRows[compound >>> 16]++;
+      ++queueSize;
+    }
+    oldHeap.clear();
+  }
+
+  @Override
+  public void add(RecordBatchData batch) {
+    Stopwatch watch = Stopwatch.createStarted();
+
+    final int recordCount = batch.getRecordCount();
+    final FieldVector keyVector =
+        batch
+            .getVectorAccessible()
+            .getValueAccessorById(FieldVector.class, fieldIndex)
+            .getValueVector();
+    final ArrowBuf data = keyVector.getDataBuffer();
+    final ArrowBuf validity = keyVector.getValidityBuffer();
+    final SelectionVector2 sv2 = hasSv2 ? batch.getSv2() : null;
+
+    final int batchIndex = batchCount;
+    if (batchIndex == liveRows.length) {
+      liveRows = Arrays.copyOf(liveRows, batchIndex * 2);
+    }
+    liveRows[batchIndex] = 0;
+
+    for (int count = 0; count < recordCount && limit > 0; count++) {
+      final int row = hasSv2 ? sv2.getIndex(count) : count;
+      final byte rank;
+      final long key;
+      if (BitVectorHelper.get(validity, row) == 0) {
+        rank = nullRank;
+        key = 0;
+      } else {
+        rank = NOT_NULL_RANK;
+        key = normalizedKey(data, row);
+      }
+
+      if (queueSize < limit) {
+        set(queueSize, rank, key, batchIndex, row);
+        queueSize++;
+        siftUp();
+      } else if (compareToTop(rank, key) < 0) {
+        evict(heapSv4.get(0) >>> 16, batchIndex);
+        set(0, rank, key, batchIndex, row);
+        siftDown();
+      } else {
+        continue;
+      }
+      liveRows[batchIndex]++;
+    }
+
+    if (liveRows[batchIndex] > 0) {
+      hyperBatch.addBatch(batch.getVectorAccessible());
+      batchCount++;
+      if (sv2 != null) {
+        sv2.clear();
+      }
+    } else {
+      // none of the rows made it in the heap
+      batch.close();
+      skippedBatches++;
+    }
+    logger.debug("Took {} us to add {} records", watch.elapsed(TimeUnit.MICROSECONDS), recordCount);
+  }
+
+  @Override
+  public void generate() {
+    Stopwatch watch = Stopwatch.createStarted();
+    ArrowBuf buffer = allocator.buffer(4 * queueSize);
+    finalSv4 = new SelectionVector4(buffer, queueSize, maxSize);
+    for (int i = queueSize - 1; i >= 0; i--) {
+      finalSv4.set(i, pop());
+    }
+    logger.debug(
+        "Took {} us to generate output of {}, skipped {} batches and released {} batches early",
+        watch.elapsed(TimeUnit.MICROSECONDS),
+        finalSv4.getTotalCount(),
+        skippedBatches,
+        releasedBatches);
+  }
+
+  @Override
+  public Sv4HyperContainer getHyperBatch() {
+    return hyperBatch;
+  }
+
+  @Override
+  public SelectionVector4 getHeapSv4() {
+    return heapSv4;
+  }
+
+  @Override
+  public SelectionVector4 getFinalSv4() {
+    return finalSv4;
+  }
+
+  /** Number of incoming batches released without being added to the hyper batch. */
+  long getSkippedBatches() {
+    return skippedBatches;
+  }
+
+  /** Number of batches of the hyper batch released because none of their rows was left. */
+  long getReleasedBatches() {
+    return releasedBatches;
+  }
+
+  @Override
+  public void close() {
+    try {
+      AutoCloseables.close(heapSv4, hyperBatch, finalSv4, keys, ranks);
+    } catch (Exception ex) {
+      throw Throwables.propagate(ex);
+    }
+  }
+
+  /**
+   * Reads the key of a row as a long, such that comparing two keys as signed longs gives the order
+   * in which the rows are output.
+   */
+  private long normalizedKey(ArrowBuf data, int row) {
+    final long key;
+    switch (keyType) {
+      case INT:
+      case TIMEMILLI:
+        key = data.getInt(row * 4L);
+        break;
+      case FLOAT4:
+        {
+          // same order as Float.compare: -0.0 before 0.0, NaN last
+          final int bits = Float.floatToIntBits(data.getFloat(row * 4L));
+          key = bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+          break;
+        }
+      case FLOAT8:
+        {
+          // same order as Double.compare: -0.0 before 0.0, NaN last
+          final long bits = Double.doubleToLongBits(data.getDouble(row * 8L));
+          key = bits ^ ((bits >> 63) & Long.MAX_VALUE);
+          break;
+        }
+      default:
+        key = data.getLong(row * 8L);
+        break;
+    }
+    return descending ? ~key : key;
+  }
+
+  /** Releases the batch if the entry being evicted was the last one pointing to it. */
+  private void evict(int batch, int currentBatch) {
+    if (--liveRows[batch] == 0 && batch != currentBatch) {
+      for (VectorWrapper<?> w : hyperBatch) {
+        w.getValueVectors()[batch].clear();
+      }
+      releasedBatches++;
+    }
+  }
+
+  private void set(int index, byte rank, long key, int batch, int row) {
+    heapSv4.set(index, batch, row);
+    ranks.setByte(index, rank);
+    keys.setLong(index * 8L, key);
+  }
+
+  private int compareToTop(byte rank, long key) {
+    final int cmp = Byte.compare(rank, ranks.getByte(0));
+    return cmp != 0 ? cmp : Long.compare(key, keys.getLong(0));
+  }
+
+  private void siftUp() {
+    int p = queueSize - 1;
+    while (p > 0) {
+      if (compare(p, (p - 1) / 2) > 0) {
+        swap(p, (p - 1) / 2);
+        p = (p - 1) / 2;
+      } else {
+        break;
+      }
+    }
+  }
+
+  private void siftDown() {
+    int p = 0;
+    int next;
+    while (p * 2 + 1 < queueSize) {
+      if (p * 2 + 2 >= queueSize) {
+        next = p * 2 + 1;
+      } else {
+        if (compare(p * 2 + 1, p * 2 + 2) >= 0) {
+          next = p * 2 + 1;
+        } else {
+          next = p * 2 + 2;
+        }
+      }
+      if (compare(p, next) < 0) {
+        swap(p, next);
+        p = next;
+      } else {
+        break;
+      }
+    }
+  }
+
+  private int pop() {
+    int value = heapSv4.get(0);
+    swap(0, queueSize - 1);
+    queueSize--;
+    siftDown();
+    return value;
+  }
+
+  private void swap(int left, int right) {
+    final int sv = heapSv4.get(left);
+    heapSv4.set(left, heapSv4.get(right));
+    heapSv4.set(right, sv);
+
+    final byte rank = ranks.getByte(left);
+    ranks.setByte(left, ranks.getByte(right));
+    ranks.setByte(right, rank);
+
+    final long key = keys.getLong(left * 8L);
+    keys.setLong(left * 8L, keys.getLong(right * 8L));
+    keys.setLong(right * 8L, key);
+  }
+
+  private int compare(int left, int right) {
+    final int cmp = Byte.compare(ranks.getByte(left), ranks.getByte(right));
+    return cmp != 0 ? cmp : Long.compare(keys.getLong(left * 8L), keys.getLong(right * 8L));
+  }
+}
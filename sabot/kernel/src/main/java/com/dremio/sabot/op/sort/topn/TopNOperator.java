@@ -30,15 +30,19 @@ import com.dremio.exec.expr.ClassGenerator.HoldingContainer;
 import com.dremio.exec.expr.ClassProducer;
 import com.dremio.exec.expr.CodeGenerator;
 import com.dremio.exec.expr.TypeHelper;
+import com.dremio.exec.expr.ValueVectorReadExpression;
 import com.dremio.exec.expr.fn.FunctionGenerationHelper;
 import com.dremio.exec.physical.config.TopN;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
 import com.dremio.exec.record.RecordBatchData;
+import com.dremio.exec.record.TypedFieldId;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.VectorWrapper;
 import com.dremio.exec.record.selection.SelectionVector4;
+import com.dremio.options.Options;
+import com.dremio.options.TypeValidators.BooleanValidator;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.op.copier.Copier;
 import com.dremio.sabot.op.copier.CopierOperator;
@@ -53,12 +57,22 @@ import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.Types.MinorType;
 import org.apache.calcite.rel.RelFieldCollation.Direction;
 
+@Options
 public class TopNOperator implements SingleInputOperator, ShrinkableOperator {
   private static final org.slf4j.Logger logger =
       org.slf4j.LoggerFactory.getLogger(TopNOperator.class);
 
+  /**
+   * Use {@link FixedWidthKeyPriorityQueue} instead of a generated priority queue when sorting on a
+   * single column of a fixed width type.
+   */
+  public static final BooleanValidator TOPN_FIXED_WIDTH_KEY =
+      new BooleanValidator("exec.operator.topn.fixed_width_key", true);
+
   private final int batchPurgeThreshold;
   private final TopN config;
   private final OperatorContext context;
@@ -100,7 +114,11 @@ public class TopNOperator implements SingleInputOperator, ShrinkableOperator {
     outgoing.allocateNew();
     outgoing.buildSchema(SelectionVectorMode.NONE);
 
-    priorityQueue = createNewPriorityQueue(context.getClassProducer(), config.getOrderings());
+    priorityQueue =
+        createFixedWidthKeyPriorityQueue(context.getClassProducer(), config.getOrderings());
+    if (priorityQueue == null) {
+      priorityQueue = createNewPriorityQueue(context.getClassProducer(), config.getOrderings());
+    }
     copier =
         CopierOperator.getGenerated4Copier(
             context.getClassProducer(), priorityQueue.getHyperBatch(), outgoing);
@@ -214,6 +232,47 @@ public class TopNOperator implements SingleInputOperator, ShrinkableOperator {
     logger.debug("Took {} us to purge", watch.elapsed(TimeUnit.MICROSECONDS));
   }
 
+  /**
+   * Creates a {@link FixedWidthKeyPriorityQueue} if the data is sorted on a single column of a
+   * supported type.
+   *
+   * @return the queue, or null if the generated priority queue must be used
+   */
+  private PriorityQueue createFixedWidthKeyPriorityQueue(
+      ClassProducer producer, List<Ordering> orderings) {
+    if (orderings.size() != 1 || !context.getOptions().getOption(TOPN_FIXED_WIDTH_KEY)) {
+      return null;
+    }
+    final Ordering od = orderings.get(0);
+    final LogicalExpression expr = producer.materialize(od.getExpr(), incoming);
+    if (!(expr instanceof ValueVectorReadExpression)) {
+      return null;
+    }
+    final TypedFieldId fieldId = ((ValueVectorReadExpression) expr).getFieldId();
+    if (fieldId.isHyperReader() || fieldId.hasRemainder() || fieldId.getFieldIds().length != 1) {
+      return null;
+    }
+    final int fieldIndex = fieldId.getFieldIds()[0];
+    final MinorType type =
+        Types.getMinorTypeForArrowType(incoming.getSchema().getColumn(fieldIndex).getType());
+    if (!FixedWidthKeyPriorityQueue.isSupported(type)) {
+      return null;
+    }
+
+    final boolean ascending = od.getDirection() == Direction.ASCENDING;
+    final PriorityQueue q =
+        new FixedWidthKeyPriorityQueue(
+            fieldIndex, type, !ascending, ascending != od.nullsSortHigh());
+    q.init(
+        new Sv4HyperContainer(context.getAllocator(), incoming.getSchema()),
+        config.getLimit(),
+        context.getFunctionContext(),
+        context.getAllocator(),
+        incoming.getSchema().getSelectionVectorMode() == BatchSchema.SelectionVectorMode.TWO_BYTE,
+        context.getTargetBatchSize());
+    return q;
+  }
+
   private PriorityQueue createNewPriorityQueue(ClassProducer producer, List<Ordering> orderings)
       throws ClassTransformationException, IOException, SchemaChangeException {
 
@@ -0,0 +1,346 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.windowframe;
+
+import com.dremio.common.expression.FunctionHolderExpression;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.ValueExpressions;
+import com.dremio.exec.expr.ValueVectorReadExpression;
+import com.dremio.exec.record.TypedFieldId;
+import com.dremio.exec.record.VectorAccessible;
+import java.util.Locale;
+import org.apache.arrow.vector.BaseIntVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.types.Types.MinorType;
+
+/**
+ * Aggregate of a sliding frame, updated as rows enter and leave the frame instead of being
+ * recomputed over the whole frame for every row. Rows leave the frame in the order they entered it.
+ *
+ * <p>SUM, COUNT and AVG are inverted when a row leaves the frame. MIN and MAX keep a monotonic
+ * deque of the candidate values of the frame. Only integer inputs are supported, as the inverse of
+ * a floating point sum isn't exact.
+ */
+abstract class SlidingAggregate {
+  private final TypedFieldId inputId;
+  private final TypedFieldId outputId;
+
+  protected BaseIntVector input;
+  protected ValueVector output;
+
+  private SlidingAggregate(TypedFieldId inputId, TypedFieldId outputId) {
+    this.inputId = inputId;
+    this.outputId = outputId;
+  }
+
+  /**
+   * @param aggregate materialized aggregate
+   * @param outputId id of the output vector of the aggregate
+   * @return a sliding aggregate computing the same values, or null if the aggregate isn't supported
+   */
+  static SlidingAggregate create(LogicalExpression aggregate, TypedFieldId outputId) {
+    if (!(aggregate instanceof FunctionHolderExpression)
+        || ((FunctionHolderExpression) aggregate).args.size() != 1) {
+      return null;
+    }
+    final FunctionHolderExpression function = (FunctionHolderExpression) aggregate;
+    final String name = function.getName().toLowerCase(Locale.ROOT);
+    final LogicalExpression arg = function.args.get(0);
+    final MinorType outputType = outputId.getFinalType().toMinorType();
+
+    if (name.equals("count")
+        && (arg instanceof ValueExpressions.LongExpression
+            || arg instanceof ValueExpressions.IntExpression)
+        && outputType == MinorType.BIGINT) {
+      // count(1), every row of the frame is counted
+      return new Count(null, outputId);
+    }
+    if (!(arg instanceof ValueVectorReadExpression)) {
+      return null;
+    }
+    final TypedFieldId inputId = ((ValueVectorReadExpression) arg).getFieldId();
+    if (inputId.hasRemainder() || inputId.isHyperReader() || inputId.getFieldIds().length != 1) {
+      return null;
+    }
+    final MinorType inputType = inputId.getFinalType().toMinorType();
+    if (inputType != MinorType.INT && inputType != MinorType.BIGINT) {
+      return null;
+    }
+
+    switch (name) {
+      case "sum":
+        return outputType == MinorType.BIGINT ? new Sum(inputId, outputId, false) : null;
+      case "avg":
+        return outputType == MinorType.FLOAT8 ? new Sum(inputId, outputId, true) : null;
+      case "count":
+        return outputType == MinorType.BIGINT ? new Count(inputId, outputId) : null;
+      case "min":
+        return outputType == inputType ? new MinMax(inputId, outputId, true) : null;
+      case "max":
+        return outputType == inputType ? new MinMax(inputId, outputId, false) : null;
+      default:
+        return null;
+    }
+  }
+
+  /** Resolves the output vector, must be called before any row is output. */
+  void setup(VectorAccessible outgoing) {
+    output =
+        outgoing.getValueAccessorById(ValueVector.class, outputId.getFieldIds()).getValueVector();
+  }
+
+  /** Sets the batch the next rows are added from. */
+  void setInput(VectorAccessible batch) {
+    if (inputId != null) {
+      input =
+          (BaseIntVector)
+              batch.getValueAccessorById(ValueVector.class, inputId.getFieldIds()).getValueVector();
+    }
+  }
+
+  /** Empties the frame, called at the start of each partition. */
+  abstract void reset();
+
+  /** Adds a row of the input batch to the end of the frame. */
+  abstract void add(int index);
+
+  /** Removes the first row of the frame. */
+  abstract void removeFirst();
+
+  /** Writes the aggregate of the current frame to the output. */
+  abstract void output(int outIndex);
+
+  protected void writeLong(int outIndex, long value) {
+    if (output instanceof IntVector) {
+      ((IntVector) output).setSafe(outIndex, (int) value);
+    } else {
+      ((BigIntVector) output).setSafe(outIndex, value);
+    }
+  }
+
+  protected void writeNull(int outIndex) {
+    if (output instanceof IntVector) {
+      ((IntVector) output).setNull(outIndex);
+    } else if (output instanceof BigIntVector) {
+      ((BigIntVector) output).setNull(outIndex);
+    } else {
+      ((Float8Vector) output).setNull(outIndex);
+    }
+  }
+
+  /** SUM and AVG, the values of the frame are kept to be subtracted when they leave it. */
+  private static final class Sum extends SlidingAggregate {
+    private final boolean average;
+    // values of the rows of the frame, 0 for nulls
+    private final LongDeque values = new LongDeque();
+    private final LongDeque nonNull = new LongDeque();
+    private long sum;
+    private long nonNullCount;
+
+    private Sum(TypedFieldId inputId, TypedFieldId outputId, boolean average) {
+      super(inputId, outputId);
+      this.average = average;
+    }
+
+    @Override
+    void reset() {
+      values.clear();
+      nonNull.clear();
+      sum = 0;
+      nonNullCount = 0;
+    }
+
+    @Override
+    void add(int index) {
+      if (input.isNull(index)) {
+        values.addLast(0);
+        nonNull.addLast(0);
+        return;
+      }
+      final long value = input.getValueAsLong(index);
+      values.addLast(value);
+      nonNull.addLast(1);
+      sum += value;
+      nonNullCount++;
+    }
+
+    @Override
+    void removeFirst() {
+      sum -= values.pollFirst();
+      nonNullCount -= nonNull.pollFirst();
+    }
+
+    @Override
+    void output(int outIndex) {
+      if (nonNullCount == 0) {
+        writeNull(outIndex);
+      } else if (average) {
+        ((Float8Vector) output).setSafe(outIndex, sum / ((double) nonNullCount));
+      } else {
+        writeLong(outIndex, sum);
+      }
+    }
+  }
+
+  /** COUNT of the non null values of a column, or of all the rows when there is no input. */
+  private static final class Count extends SlidingAggregate {
+    private final boolean allRows;
+    private final LongDeque counted = new LongDeque();
+    private long count;
+
+    private Count(TypedFieldId inputId, TypedFieldId outputId) {
+      super(inputId, outputId);
+      this.allRows = inputId == null;
+    }
+
+    @Override
+    void reset() {
+      counted.clear();
+      count = 0;
+    }
+
+    @Override
+    void add(int index) {
+      final long value = allRows || !input.isNull(index) ? 1 : 0;
+      counted.addLast(value);
+      count += value;
+    }
+
+    @Override
+    void removeFirst() {
+      count -= counted.pollFirst();
+    }
+
+    @Override
+    void output(int outIndex) {
+      writeLong(outIndex, count);
+    }
+  }
+
+  /**
+   * MIN and MAX. The deque holds the rows of the frame that can still become the result: each value
+   * is strictly better than the values of the rows added before it, so the result is at the head.
+   */
+  private static final class MinMax extends SlidingAggregate {
+    private final boolean min;
+    private final LongDeque positions = new LongDeque();
+    private final LongDeque values = new LongDeque();
+    private long added;
+    private long removed;
+
+    private MinMax(TypedFieldId inputId, TypedFieldId outputId, boolean min) {
+      super(inputId, outputId);
+      this.min = min;
+    }
+
+    @Override
+    void reset() {
+      positions.clear();
+      values.clear();
+      added = 0;
+      removed = 0;
+    }
+
+    @Override
+    void add(int index) {
+      final long position = added++;
+      if (input.isNull(index)) {
+        return;
+      }
+      final long value = input.getValueAsLong(index);
+      while (!values.isEmpty() && (min ? values.peekLast() >= value : values.peekLast() <= value)) {
+        values.pollLast();
+        positions.pollLast();
+      }
+      values.addLast(value);
+      positions.addLast(position);
+    }
+
+    @Override
+    void removeFirst() {
+      if (!positions.isEmpty() && positions.peekFirst() == removed) {
+        positions.pollFirst();
+        values.pollFirst();
+      }
+      removed++;
+    }
+
+    @Override
+    void output(int outIndex) {
+      if (values.isEmpty()) {
+        writeNull(outIndex);
+      } else {
+        writeLong(outIndex, values.peekFirst());
+      }
+    }
+  }
+
+  /** Growable ring buffer of longs. */
+  private static final class LongDeque {
+    private long[] elements = new long[16];
+    private int head;
+    private int size;
+
+    void addLast(long value) {
+      if (size == elements.length) {
+        grow();
+      }
+      elements[(head + size) & (elements.length - 1)] = value;
+      size++;
+    }
+
+    long peekFirst() {
+      return elements[head];
+    }
+
+    long peekLast() {
+      return elements[(head + size - 1) & (elements.length - 1)];
+    }
+
+    long pollFirst() {
+      final long value = elements[head];
+      head = (head + 1) & (elements.length - 1);
+      size--;
+      return value;
+    }
+
+    long pollLast() {
+      size--;
+      return elements[(head + size) & (elements.length - 1)];
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    void clear() {
+      head = 0;
+      size = 0;
+    }
+
+    private void grow() {
+      final long[] grown = new long[elements.length * 2];
+      for (int i = 0; i < size; i++) {
+        grown[i] = elements[(head + i) & (elements.length - 1)];
+      }
+      elements = grown;
+      head = 0;
+    }
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.windowframe;
+
+import com.dremio.exec.exception.SchemaChangeException;
+import com.dremio.exec.physical.config.WindowPOP;
+import com.dremio.exec.physical.config.WindowPOP.Bound;
+import com.dremio.exec.physical.config.WindowPOP.BoundType;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.exec.context.FunctionContext;
+import com.dremio.sabot.exec.context.OperatorContext;
+import java.util.List;
+
+/**
+ * WindowFramer evaluating aggregates over bounded ROWS frames, such as {@code ROWS BETWEEN 100
+ * PRECEDING AND CURRENT ROW}, in a single pass over the partition. Each row is added to the {@link
+ * SlidingAggregate}s once when it enters the frame and removed once when it leaves it, instead of
+ * aggregating the whole frame again for every row as {@link FrameSupportTemplate} does.
+ *
+ * <p>The frame state is kept across batches, so the rows preceding the current row don't need to be
+ * available anymore. Rows following the current row are read from the next batches, which are all
+ * available since a frame ending with FOLLOWING requires the full partition.
+ */
+final class SlidingWindowFramer implements WindowFramer {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(SlidingWindowFramer.class);
+
+  // generated framer used to compare the partition and order by keys
+  private final WindowFramer comparator;
+  private final boolean closeComparator;
+  private final List<SlidingAggregate> aggregates;
+
+  private List<VectorContainer> batches;
+  private int preceding;
+  private int following;
+  private int outputCount;
+
+  // true if the partition of the last processed row continues in the next batch
+  private boolean pendingPartition;
+  // number of rows added to the frame after the current row, -1 if the current row wasn't added yet
+  private int ahead;
+  // number of rows in the frame before the current row
+  private int behind;
+  private VectorAccessible inputBatch;
+
+  /**
+   * @param comparator framer providing isSamePartition() and isPeer()
+   * @param closeComparator true if the comparator is only used by this framer
+   * @param aggregates aggregates to evaluate
+   */
+  SlidingWindowFramer(
+      WindowFramer comparator, boolean closeComparator, List<SlidingAggregate> aggregates) {
+    this.comparator = comparator;
+    this.closeComparator = closeComparator;
+    this.aggregates = aggregates;
+  }
+
+  /**
+   * @return true if the frame is a ROWS frame starting at the current row or before it, and ending
+   *     at the current row or after it, both bounded
+   */
+  static boolean supportsFrame(WindowPOP pop) {
+    final Bound lower = pop.getLowerBound();
+    final Bound upper = pop.getUpperBound();
+    return pop.isFrameUnitsRows()
+        && !lower.isUnbounded()
+        && !upper.isUnbounded()
+        && (lower.getType() == BoundType.PRECEDING || lower.getType() == BoundType.CURRENT_ROW)
+        && (upper.getType() == BoundType.FOLLOWING || upper.getType() == BoundType.CURRENT_ROW);
+  }
+
+  @Override
+  public void setup(
+      List<VectorContainer> batches,
+      VectorAccessible container,
+      OperatorContext operatorContext,
+      boolean requireFullPartition,
+      WindowPOP popConfig,
+      FunctionContext context)
+      throws SchemaChangeException {
+    this.batches = batches;
+    final Bound lower = popConfig.getLowerBound();
+    final Bound upper = popConfig.getUpperBound();
+    preceding = lower.getType() == BoundType.PRECEDING ? lower.getOffset() : 0;
+    following = upper.getType() == BoundType.FOLLOWING ? upper.getOffset() : 0;
+    for (SlidingAggregate aggregate : aggregates) {
+      aggregate.setup(container);
+    }
+  }
+
+  /** processes all rows of the batch. */
+  @Override
+  public void doWork(int batchIndex) {
+    final VectorContainer current = batches.get(batchIndex);
+    outputCount = current.getRecordCount();
+    inputBatch = null;
+
+    // position of the next row to add to the frame
+    int nextBatch = batchIndex;
+    int nextRow = 0;
+    if (pendingPartition) {
+      // the rows added ahead of the current row in the previous batch are at the start of this one
+      int skip = ahead + 1;
+      while (skip > 0 && nextBatch < batches.size()) {
+        final int available = batches.get(nextBatch).getRecordCount() - nextRow;
+        if (skip < available) {
+          nextRow += skip;
+          skip = 0;
+        } else {
+          skip -= available;
+          nextBatch++;
+          nextRow = 0;
+        }
+      }
+    }
+
+    for (int row = 0; row < outputCount; row++) {
+      if (!pendingPartition) {
+        logger.trace("new partition starting at row {}", row);
+        for (SlidingAggregate aggregate : aggregates) {
+          aggregate.reset();
+        }
+        ahead = -1;
+        behind = 0;
+        nextBatch = batchIndex;
+        nextRow = row;
+        pendingPartition = true;
+      }
+
+      // add the rows up to the end of the frame of the current row
+      while (ahead < following && nextBatch < batches.size()) {
+        final VectorContainer batch = batches.get(nextBatch);
+        if (nextRow >= batch.getRecordCount()) {
+          nextBatch++;
+          nextRow = 0;
+          continue;
+        }
+        if (!isSamePartition(row, current, nextRow, batch)) {
+          break;
+        }
+        if (batch != inputBatch) {
+          for (SlidingAggregate aggregate : aggregates) {
+            aggregate.setInput(batch);
+          }
+          inputBatch = batch;
+        }
+        for (SlidingAggregate aggregate : aggregates) {
+          aggregate.add(nextRow);
+        }
+        nextRow++;
+        ahead++;
+      }
+
+      // remove the rows before the start of the frame of the current row
+      while (behind > preceding) {
+        for (SlidingAggregate aggregate : aggregates) {
+          aggregate.removeFirst();
+        }
+        behind--;
+      }
+
+      for (SlidingAggregate aggregate : aggregates) {
+        aggregate.output(row);
+      }
+      ahead--;
+      behind++;
+
+      if (row + 1 < outputCount) {
+        pendingPartition = isSamePartition(row, current, row + 1, current);
+      } else {
+        pendingPartition =
+            batchIndex + 1 < batches.size()
+                && isSamePartition(row, current, 0, batches.get(batchIndex + 1));
+      }
+    }
+  }
+
+  @Override
+  public int getOutputCount() {
+    return outputCount;
+  }
+
+  @Override
+  public boolean isSamePartition(
+      int b1Index, VectorAccessible b1, int b2Index, VectorAccessible b2) {
+    return comparator.isSamePartition(b1Index, b1, b2Index, b2);
+  }
+
+  @Override
+  public boolean isPeer(int b1Index, VectorAccessible b1, int b2Index, VectorAccessible b2) {
+    return comparator.isPeer(b1Index, b1, b2Index, b2);
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (closeComparator) {
+      comparator.close();
+    }
+  }
+}
@@ -34,6 +34,8 @@ import com.dremio.exec.physical.config.WindowPOP.BoundType;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.VectorWrapper;
+import com.dremio.options.Options;
+import com.dremio.options.TypeValidators.BooleanValidator;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.op.spi.SingleInputOperator;
 import com.google.common.collect.ImmutableList;
@@ -53,10 +55,18 @@ import org.apache.arrow.vector.util.TransferPair;
  * support for OVER(PARTITION BY expression1,expression2,... [ORDER BY expressionA,
  * expressionB,...])
  */
+@Options
 public class WindowFrameOperator implements SingleInputOperator {
   private static final org.slf4j.Logger logger =
       org.slf4j.LoggerFactory.getLogger(WindowFrameOperator.class);
 
+  /**
+   * Use {@link SlidingWindowFramer} instead of a generated framer for bounded ROWS frames when all
+   * the aggregates of the frame can be updated incrementally.
+   */
+  public static final BooleanValidator WINDOW_INCREMENTAL_FRAMES =
+      new BooleanValidator("exec.operator.window.incremental_frames", true);
+
   private final OperatorContext context;
   private final List<WindowFunction> functions = Lists.newArrayList();
   private final WindowPOP config;
@@ -356,12 +366,58 @@ public class WindowFrameOperator implements SingleInputOperator {
     }
 
     if (useCustomFrame) {
-      framers[index] = generateFramer(keyExprs, orderExprs, functions, true);
+      final List<SlidingAggregate> slidingAggregates = getSlidingAggregates();
+      if (slidingAggregates != null) {
+        // the comparison functions of the default framer are reused if there is one
+        final WindowFramer comparator =
+            useDefaultFrame
+                ? framers[0]
+                : generateFramer(keyExprs, orderExprs, ImmutableList.of(), false);
+        if (!useDefaultFrame) {
+          comparator.setup(
+              batches,
+              outgoing,
+              context,
+              requireFullPartition,
+              config,
+              context.getFunctionContext());
+        }
+        framers[index] = new SlidingWindowFramer(comparator, !useDefaultFrame, slidingAggregates);
+      } else {
+        framers[index] = generateFramer(keyExprs, orderExprs, functions, true);
+      }
       framers[index].setup(
           batches, outgoing, context, requireFullPartition, config, context.getFunctionContext());
     }
   }
 
+  /**
+   * @return the aggregates of the frame if they can all be evaluated by {@link
+   *     SlidingWindowFramer}, null otherwise
+   */
+  private List<SlidingAggregate> getSlidingAggregates() {
+    if (!context.getOptions().getOption(WINDOW_INCREMENTAL_FRAMES)
+        || !SlidingWindowFramer.supportsFrame(config)) {
+      return null;
+    }
+    final List<SlidingAggregate> aggregates = new ArrayList<>();
+    for (WindowFunction function : functions) {
+      if (!function.supportsCustomFrames()) {
+        continue;
+      }
+      final SlidingAggregate aggregate =
+          function instanceof WindowFunction.WindowAggregate
+              ? ((WindowFunction.WindowAggregate) function).toSlidingAggregate()
+              : null;
+      if (aggregate == null) {
+        logger.debug("Window function of type {} can't be evaluated incrementally", function.type);
+        return null;
+      }
+      aggregates.add(aggregate);
+    }
+    return aggregates;
+  }
+
   private WindowFramer generateFramer(
       final List<LogicalExpression> keyExprs,
       final List<LogicalExpression> orderExprs,
@@ -217,6 +217,15 @@ public abstract class WindowFunction {
     boolean supportsCustomFrames() {
       return true;
     }
+
+    /**
+     * @return the aggregate evaluated incrementally by {@link SlidingWindowFramer}, or null if it
+     *     isn't supported
+     */
+    SlidingAggregate toSlidingAggregate() {
+      return SlidingAggregate.create(
+          writeAggregationToOutput.getChild(), writeAggregationToOutput.getFieldId());
+    }
   }
 
   static class Ranking extends WindowFunction {
@@ -17,11 +17,13 @@ package com.dremio.sabot.task;
 
 import com.dremio.common.config.SabotConfig;
 import com.dremio.sabot.task.single.DedicatedTaskPool;
+import com.dremio.sabot.task.slicing.SlicingTaskPool;
 
 /** Task pool utilities */
 public final class TaskPools {
 
   public static final String DREMIO_TASK_POOL_FACTORY_CLASS = "dremio.task.pool.factory.class";
+  public static final String DREMIO_TASK_POOL_SLICING_ENABLED = "dremio.task.pool.slicing.enabled";
 
   private TaskPools() {}
 
@@ -30,6 +32,9 @@ public final class TaskPools {
     if (config.hasPath(TaskPools.DREMIO_TASK_POOL_FACTORY_CLASS)) {
       factory =
           config.getInstanceOf(TaskPools.DREMIO_TASK_POOL_FACTORY_CLASS, TaskPoolFactory.class);
+    } else if (config.hasPath(TaskPools.DREMIO_TASK_POOL_SLICING_ENABLED)
+        && config.getBoolean(TaskPools.DREMIO_TASK_POOL_SLICING_ENABLED)) {
+      factory = new SlicingTaskPool.Factory();
     } else {
       factory = new DedicatedTaskPool.Factory();
     }
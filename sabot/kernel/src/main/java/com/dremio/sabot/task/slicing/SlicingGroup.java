@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.TaskManager;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+import com.google.common.base.Preconditions;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hierarchical scheduling group of the {@link SlicingTaskPool}.
+ *
+ * <p>Only the groups that currently hold live tasks take part in the share computation: a group
+ * registers its weight with its parent when its first task is added, and unregisters it once its
+ * last task is done. The share of the CPU a task is entitled to is the product of its relative
+ * weight within each group up to the root. Groups are never explicitly closed, so this bookkeeping
+ * is what keeps abandoned groups from diluting the shares of the active ones.
+ */
+class SlicingGroup implements SchedulingGroup<AsyncTaskWrapper> {
+
+  private final SlicingTaskPool pool;
+  private final SlicingGroup parent;
+  private final long weight;
+  private final boolean weightBasedScheduler;
+
+  // sum of the weights of the children (tasks and groups) that currently hold live tasks
+  private final AtomicLong activeChildrenWeight = new AtomicLong();
+  // number of live tasks in this group and all its descendants
+  private final AtomicInteger activeTasks = new AtomicInteger();
+
+  SlicingGroup(
+      SlicingTaskPool pool, SlicingGroup parent, long weight, boolean weightBasedScheduler) {
+    Preconditions.checkArgument(weight > 0, "Group weight must be positive");
+    this.pool = pool;
+    this.parent = parent;
+    this.weight = Math.min(weight, TaskManager.MAX_WEIGHT);
+    this.weightBasedScheduler = weightBasedScheduler;
+  }
+
+  @Override
+  public SchedulingGroup<AsyncTaskWrapper> addGroup(long weight, boolean weightBasedScheduler) {
+    return new SlicingGroup(pool, this, weight, weightBasedScheduler);
+  }
+
+  @Override
+  public TaskHandle<AsyncTaskWrapper> addTask(AsyncTaskWrapper task, long weight) {
+    final long effectiveWeight =
+        weightBasedScheduler ? Math.max(1, Math.min(weight, TaskManager.MAX_WEIGHT)) : 1;
+    final SlicingTaskHandle handle = new SlicingTaskHandle(task, this, effectiveWeight);
+    activeChildrenWeight.addAndGet(effectiveWeight);
+    taskAdded();
+    pool.enqueueNew(handle);
+    return handle;
+  }
+
+  SlicingTaskPool getPool() {
+    return pool;
+  }
+
+  long getWeight() {
+    return weight;
+  }
+
+  /**
+   * Computes the fraction of the pool a child of this group with the given weight is entitled to.
+   *
+   * @param childWeight weight of the child (task or group)
+   * @return a share in (0, 1]
+   */
+  double shareOf(long childWeight) {
+    final long total = activeChildrenWeight.get();
+    final double local = total <= 0 ? 1.0d : Math.min(1.0d, (double) childWeight / total);
+    return parent == null ? local : local * parent.shareOf(weight);
+  }
+
+  /** Called once the given task has finished running, to release its share. */
+  void taskDone(SlicingTaskHandle handle) {
+    activeChildrenWeight.addAndGet(-handle.getWeight());
+    taskRemoved();
+  }
+
+  private void taskAdded() {
+    if (activeTasks.getAndIncrement() == 0 && parent != null) {
+      parent.activeChildrenWeight.addAndGet(weight);
+    }
+    if (parent != null) {
+      parent.taskAdded();
+    }
+  }
+
+  private void taskRemoved() {
+    if (activeTasks.decrementAndGet() == 0 && parent != null) {
+      parent.activeChildrenWeight.addAndGet(-weight);
+    }
+    if (parent != null) {
+      parent.taskRemoved();
+    }
+  }
+
+  int getActiveTasks() {
+    return activeTasks.get();
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.sabot.task.SchedulerStats;
+import java.util.concurrent.TimeUnit;
+
+/** Per thread statistics of the {@link SlicingTaskPool}. */
+class SlicingSchedulerStats implements SchedulerStats {
+
+  private final SlicingThread[] threads;
+
+  SlicingSchedulerStats(SlicingThread[] threads) {
+    this.threads = threads;
+  }
+
+  @Override
+  public boolean currentlyIdleAndHasStats() {
+    boolean hasStats = false;
+    for (SlicingThread thread : threads) {
+      if (!thread.isIdle()) {
+        return false;
+      }
+      hasStats |= thread.getNumSlices() > 0;
+    }
+    return hasStats;
+  }
+
+  @Override
+  public String getStats(boolean force) {
+    long totalSlices = 0;
+    for (SlicingThread thread : threads) {
+      totalSlices += thread.getNumSlices();
+    }
+    if (!force && totalSlices == 0) {
+      return "";
+    }
+
+    final StringBuilder sb = new StringBuilder("Slicing threads stats:");
+    for (SlicingThread thread : threads) {
+      sb.append(
+          String.format(
+              "%n  thread %d: tasks=%d, queued=%d, slices=%d, run=%dms, idle=%dms, completed=%d,"
+                  + " steals=%d/%d",
+              thread.getSlicingThreadId(),
+              thread.getNumTasks(),
+              thread.getNumQueued(),
+              thread.getNumSlices(),
+              TimeUnit.NANOSECONDS.toMillis(thread.getRunNanos()),
+              TimeUnit.NANOSECONDS.toMillis(thread.getIdleNanos()),
+              thread.getNumCompleted(),
+              thread.getNumSteals(),
+              thread.getNumStealAttempts()));
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public void clearStats() {
+    for (SlicingThread thread : threads) {
+      thread.clearStats();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+
+/**
+ * Task handle of the {@link SlicingTaskPool}. Keeps track of the virtual runtime of the task, i.e.
+ * the time the task ran divided by the share of the pool it is entitled to, which is what the
+ * slicing threads use to order their run queues.
+ */
+class SlicingTaskHandle implements TaskHandle<AsyncTaskWrapper> {
+
+  private final AsyncTaskWrapper task;
+  private final SlicingGroup group;
+  private final long weight;
+
+  // only updated by the slicing thread that owns the task, or while holding its run queue lock
+  private double vruntime;
+  private volatile int thread = -1;
+  private volatile int currentTaskLoad;
+
+  SlicingTaskHandle(AsyncTaskWrapper task, SlicingGroup group, long weight) {
+    this.task = task;
+    this.group = group;
+    this.weight = weight;
+  }
+
+  @Override
+  public AsyncTaskWrapper getTask() {
+    return task;
+  }
+
+  @Override
+  public void reEnqueue() {
+    group.getPool().enqueueUnblocked(this);
+  }
+
+  @Override
+  public int getThread() {
+    return thread;
+  }
+
+  @Override
+  public int getCurrentTaskLoad() {
+    return currentTaskLoad;
+  }
+
+  SlicingGroup getGroup() {
+    return group;
+  }
+
+  long getWeight() {
+    return weight;
+  }
+
+  double getVruntime() {
+    return vruntime;
+  }
+
+  void setVruntime(double vruntime) {
+    this.vruntime = vruntime;
+  }
+
+  /**
+   * Charges the given run time to this task, scaled by its current share of the pool.
+   *
+   * @param runTimeNanos time the task just ran for
+   */
+  void charge(long runTimeNanos) {
+    vruntime += runTimeNanos / group.shareOf(weight);
+  }
+
+  void setThread(int thread) {
+    this.thread = thread;
+  }
+
+  void setCurrentTaskLoad(int currentTaskLoad) {
+    this.currentTaskLoad = currentTaskLoad;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s (thread %d, weight %d)", task.getState(), thread, weight);
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.common.VM;
+import com.dremio.config.DremioConfig;
+import com.dremio.exec.ExecConstants;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.GroupManager;
+import com.dremio.sabot.task.SchedulerStats;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.TaskManager;
+import com.dremio.sabot.task.TaskMonitor;
+import com.dremio.sabot.task.TaskMonitorObserver;
+import com.dremio.sabot.task.TaskPool;
+import com.dremio.sabot.task.TaskPoolFactory;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.Ints;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A task pool that runs tasks cooperatively on a fixed number of slicing threads.
+ *
+ * <p>Tasks are expected to yield after a short amount of time. Each slicing thread runs the task
+ * with the smallest virtual runtime of its run queue for up to one quantum, so that every task gets
+ * a share of the CPU proportional to its weight and the weights of its scheduling groups. Idle
+ * threads steal queued tasks from busy ones.
+ */
+public class SlicingTaskPool implements TaskPool, GroupManager<AsyncTaskWrapper> {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(SlicingTaskPool.class);
+
+  /** Factory for {@code SlicingTaskPool} */
+  public static final class Factory implements TaskPoolFactory {
+    @Override
+    public TaskPool newInstance(OptionManager options, DremioConfig config) {
+      final int numThreads =
+          Math.max(
+              1,
+              (int)
+                  Math.ceil(
+                      VM.availableProcessors()
+                          * options.getOption(ExecConstants.SLICING_THREADS_PER_CORE)));
+      final SlicingTaskPool pool =
+          new SlicingTaskPool(
+              numThreads,
+              options.getOption(ExecConstants.SLICING_QUANTUM_MS),
+              options.getOption(ExecConstants.SLICING_WARN_MAX_RUNTIME_MS));
+      if (options.getOption(ExecConstants.SLICING_THREAD_MONITOR)) {
+        pool.startMonitor(options.getOption(ExecConstants.SLICING_MONITOR_INTERVAL_MS));
+      }
+      return pool;
+    }
+  }
+
+  private final SlicingThread[] threads;
+  private final SlicingGroup root;
+  private final SlicingSchedulerStats stats;
+  private final long warnMaxRuntimeNanos;
+  private final List<TaskMonitorObserver> observers = new CopyOnWriteArrayList<>();
+  private final TaskMonitor taskMonitor =
+      new TaskMonitor() {
+        @Override
+        public void addObserver(TaskMonitorObserver observer) {
+          observers.add(observer);
+        }
+
+        @Override
+        public void removeObserver(TaskMonitorObserver observer) {
+          observers.remove(observer);
+        }
+      };
+
+  private volatile boolean closed = false;
+  private Thread monitor;
+
+  @VisibleForTesting
+  SlicingTaskPool(int numThreads, long quantumMillis, long warnMaxRuntimeMillis) {
+    Preconditions.checkArgument(numThreads > 0, "At least one slicing thread is required");
+    this.root = new SlicingGroup(this, null, TaskManager.MAX_WEIGHT, true);
+    this.warnMaxRuntimeNanos = TimeUnit.MILLISECONDS.toNanos(warnMaxRuntimeMillis);
+    this.threads = new SlicingThread[numThreads];
+    final long quantumNanos = TimeUnit.MILLISECONDS.toNanos(quantumMillis);
+    for (int i = 0; i < numThreads; i++) {
+      threads[i] = new SlicingThread(this, i, quantumNanos);
+    }
+    this.stats = new SlicingSchedulerStats(threads);
+    for (SlicingThread thread : threads) {
+      thread.start();
+    }
+    logger.info("Started slicing task pool with {} threads", numThreads);
+  }
+
+  @Override
+  public void execute(AsyncTaskWrapper task) {
+    final SchedulingGroup<AsyncTaskWrapper> group = task.getSchedulingGroup();
+    final SchedulingGroup<AsyncTaskWrapper> target =
+        (group instanceof SlicingGroup && ((SlicingGroup) group).getPool() == this) ? group : root;
+    target.addTask(task, task.getTaskWeight());
+  }
+
+  @Override
+  public SchedulingGroup<AsyncTaskWrapper> newGroup(long weight) {
+    return root.addGroup(weight, true);
+  }
+
+  @Override
+  public GroupManager<AsyncTaskWrapper> getGroupManager() {
+    return this;
+  }
+
+  @Override
+  public TaskMonitor getTaskMonitor() {
+    return taskMonitor;
+  }
+
+  public SchedulerStats getSchedulerStats() {
+    return stats;
+  }
+
+  @Override
+  public Iterable<ThreadInfo> getSlicingThreads() {
+    final List<ThreadInfo> infos = new ArrayList<>(threads.length);
+    for (SlicingThread thread : threads) {
+      infos.add(
+          new ThreadInfo(
+              thread.getName(),
+              thread.getSlicingThreadId(),
+              -1,
+              -1,
+              thread.getNumTasks(),
+              thread.getNumQueued(),
+              Ints.saturatedCast(thread.getNumStealAttempts()),
+              thread.getId()));
+    }
+    return infos;
+  }
+
+  @Override
+  public boolean areAllThreadsAlive() {
+    for (SlicingThread thread : threads) {
+      if (!thread.isAlive()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  /** Assigns a new task to the least loaded of two randomly picked threads. */
+  void enqueueNew(SlicingTaskHandle handle) {
+    handle.getTask().setTaskHandle(handle);
+    enqueue(pickThread(), handle);
+  }
+
+  /** Puts back a previously blocked task on the thread it last ran on. */
+  void enqueueUnblocked(SlicingTaskHandle handle) {
+    final int last = handle.getThread();
+    enqueue(last >= 0 && last < threads.length ? threads[last] : pickThread(), handle);
+  }
+
+  private void enqueue(SlicingThread thread, SlicingTaskHandle handle) {
+    final boolean wasIdle = thread.enqueue(handle, true);
+    if (!wasIdle && thread.getNumQueued() > 0) {
+      // the target thread is busy, let an idle one steal the task
+      for (SlicingThread other : threads) {
+        if (other != thread && other.isIdle()) {
+          other.wakeUp();
+          break;
+        }
+      }
+    }
+  }
+
+  private SlicingThread pickThread() {
+    if (threads.length == 1) {
+      return threads[0];
+    }
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    final SlicingThread first = threads[random.nextInt(threads.length)];
+    final SlicingThread second = threads[random.nextInt(threads.length)];
+    return first.getNumTasks() <= second.getNumTasks() ? first : second;
+  }
+
+  /**
+   * Finds a queued task for the given idle thread to run, taken from the thread with the most
+   * queued tasks.
+   */
+  SlicingTaskHandle steal(SlicingThread thief) {
+    SlicingThread victim = null;
+    for (SlicingThread thread : threads) {
+      if (thread != thief
+          && !thread.isIdle()
+          && thread.getNumQueued() > 0
+          && (victim == null || thread.getNumQueued() > victim.getNumQueued())) {
+        victim = thread;
+      }
+    }
+    return victim == null ? null : victim.stealBy(thief);
+  }
+
+  private void startMonitor(long intervalMillis) {
+    monitor =
+        new Thread("slicing-task-monitor") {
+          @Override
+          public void run() {
+            while (!closed) {
+              try {
+                Thread.sleep(intervalMillis);
+              } catch (InterruptedException e) {
+                return;
+              }
+              monitorTasks();
+            }
+          }
+        };
+    monitor.setDaemon(true);
+    monitor.start();
+  }
+
+  @VisibleForTesting
+  void monitorTasks() {
+    final long now = System.nanoTime();
+    for (SlicingThread thread : threads) {
+      final long sliceStart = thread.getCurrentSliceStartNanos();
+      final SlicingTaskHandle current = thread.getCurrent();
+      if (sliceStart != 0 && current != null && now - sliceStart > warnMaxRuntimeNanos) {
+        logger.warn(
+            "The task {} has been running on thread {} for {}ms",
+            current.getTask(),
+            thread.getName(),
+            TimeUnit.NANOSECONDS.toMillis(now - sliceStart));
+      }
+    }
+
+    for (TaskMonitorObserver observer : observers) {
+      try {
+        observer.observeTaskMonitorEvent();
+      } catch (Throwable t) {
+        logger.warn("Task monitor observer failed", t);
+      }
+    }
+
+    if (logger.isDebugEnabled()) {
+      final String current = stats.getStats(false);
+      if (!current.isEmpty()) {
+        logger.debug(current);
+      }
+      stats.clearStats();
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+    closed = true;
+    if (monitor != null) {
+      monitor.interrupt();
+    }
+    for (SlicingThread thread : threads) {
+      thread.interrupt();
+    }
+  }
+}
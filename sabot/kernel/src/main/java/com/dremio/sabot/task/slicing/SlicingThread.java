@@ -0,0 +1,348 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.common.perf.StatsCollectionEligibilityRegistrar;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.BlockRun;
+import com.dremio.sabot.task.Task;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One of the fixed worker threads of the {@link SlicingTaskPool}.
+ *
+ * <p>Each thread owns a run queue ordered by virtual runtime. It repeatedly picks the most eligible
+ * task, runs it for at most one quantum and puts it back in its run queue if it is still runnable.
+ * Blocked tasks leave the run queue and are re-enqueued through their {@link BlockRun} callback.
+ * When its own run queue is empty, the thread tries to steal a queued task from the busiest thread
+ * of the pool before going idle. An idle thread waits until a task is enqueued on it, or until the
+ * pool wakes it up to steal a task queued on a busy thread.
+ */
+class SlicingThread extends Thread {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(SlicingThread.class);
+
+  // only a safety net, idle threads are woken up when there is work for them
+  private static final long IDLE_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final SlicingTaskPool pool;
+  private final int slicingThreadId;
+  private final long quantumNanos;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition workAvailable = lock.newCondition();
+  private final PriorityQueue<SlicingTaskHandle> runQueue =
+      new PriorityQueue<>(Comparator.comparingDouble(SlicingTaskHandle::getVruntime));
+  // virtual runtime of the most eligible task this thread ran, never decreases. Guarded by lock
+  private double minVruntime;
+  // whether the pool asked this thread to look for work since it went idle. Guarded by lock
+  private boolean wakeUpRequested;
+
+  // tasks assigned to this thread, queued or running
+  private final AtomicInteger numTasks = new AtomicInteger();
+  private volatile int numQueued;
+  private volatile boolean idle;
+  private volatile long currentSliceStartNanos;
+  private volatile SlicingTaskHandle current;
+
+  // stats, cleared on demand by SlicingSchedulerStats
+  private final AtomicLong numSlices = new AtomicLong();
+  private final AtomicLong runNanos = new AtomicLong();
+  private final AtomicLong idleNanos = new AtomicLong();
+  private final AtomicLong numSteals = new AtomicLong();
+  private final AtomicLong numStealAttempts = new AtomicLong();
+  private final AtomicLong numCompleted = new AtomicLong();
+
+  SlicingThread(SlicingTaskPool pool, int slicingThreadId, long quantumNanos) {
+    super("slicing-thread-" + slicingThreadId);
+    this.pool = pool;
+    this.slicingThreadId = slicingThreadId;
+    this.quantumNanos = quantumNanos;
+    setDaemon(true);
+  }
+
+  @Override
+  public void run() {
+    StatsCollectionEligibilityRegistrar.addSelf();
+
+    while (!pool.isClosed()) {
+      final SlicingTaskHandle handle;
+      try {
+        handle = nextTask();
+      } catch (InterruptedException e) {
+        logger.info("Thread interrupted, exiting.");
+        return;
+      }
+
+      if (handle != null) {
+        runSlice(handle);
+      }
+    }
+  }
+
+  /**
+   * Picks the next task to run: the most eligible task of the run queue, or a task stolen from
+   * another thread. Waits until there is work if there is none at all.
+   */
+  private SlicingTaskHandle nextTask() throws InterruptedException {
+    lock.lock();
+    try {
+      final SlicingTaskHandle handle = runQueue.poll();
+      if (handle != null) {
+        numQueued = runQueue.size();
+        minVruntime = Math.max(minVruntime, handle.getVruntime());
+        return handle;
+      }
+      // marked idle before looking for a task to steal, so that a task queued on a busy thread
+      // after the attempt wakes this thread up
+      idle = true;
+      wakeUpRequested = false;
+    } finally {
+      lock.unlock();
+    }
+
+    try {
+      numStealAttempts.incrementAndGet();
+      final SlicingTaskHandle stolen = pool.steal(this);
+      if (stolen != null) {
+        numSteals.incrementAndGet();
+        return stolen;
+      }
+
+      lock.lock();
+      try {
+        if (runQueue.isEmpty() && !wakeUpRequested && !pool.isClosed()) {
+          final long start = System.nanoTime();
+          try {
+            workAvailable.awaitNanos(IDLE_WAIT_NANOS);
+          } finally {
+            idleNanos.addAndGet(System.nanoTime() - start);
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+      return null;
+    } finally {
+      idle = false;
+    }
+  }
+
+  /** Runs the task for at most one quantum, then hands it back according to its new state. */
+  private void runSlice(SlicingTaskHandle handle) {
+    final AsyncTaskWrapper task = handle.getTask();
+    final int load = numTasks.get();
+    handle.setThread(slicingThreadId);
+    handle.setCurrentTaskLoad(load);
+    current = handle;
+
+    final long sliceStart = System.nanoTime();
+    currentSliceStartNanos = sliceStart;
+    long runTime = 0;
+    try {
+      do {
+        final String preRunName = task.getAsyncTask().preRunUpdate(load);
+        final long start = System.nanoTime();
+        try {
+          task.run();
+        } finally {
+          final long elapsed = System.nanoTime() - start;
+          runTime += elapsed;
+          task.getAsyncTask().postRunUpdate(elapsed, preRunName);
+        }
+      } while (task.getState() == Task.State.RUNNABLE
+          && System.nanoTime() - sliceStart < quantumNanos
+          && !pool.isClosed());
+    } catch (Throwable t) {
+      logger.error("Unhandled Exception in Fragment Thread.", t);
+      currentSliceStartNanos = 0;
+      current = null;
+      numTasks.decrementAndGet();
+      taskDone(handle);
+      return;
+    }
+
+    currentSliceStartNanos = 0;
+    current = null;
+    numSlices.incrementAndGet();
+    runNanos.addAndGet(runTime);
+    handle.charge(runTime);
+    numTasks.decrementAndGet();
+
+    switch (task.getState()) {
+      case RUNNABLE:
+        enqueue(handle, false);
+        break;
+      case DONE:
+        numCompleted.incrementAndGet();
+        taskDone(handle);
+        break;
+      case BLOCKED_ON_DOWNSTREAM:
+      case BLOCKED_ON_UPSTREAM:
+      case BLOCKED_ON_SHARED_RESOURCE:
+      case BLOCKED_ON_MEMORY:
+      default:
+        // the callback may be invoked right away, from this thread, if the task is available again
+        task.setAvailabilityCallback(new BlockRun(handle));
+        break;
+    }
+  }
+
+  /** Removes a task that won't run anymore from its group, and cleans it up. */
+  private static void taskDone(SlicingTaskHandle handle) {
+    handle.getGroup().taskDone(handle);
+    try {
+      handle.getTask().getCleaner().close();
+    } catch (Exception e) {
+      logger.warn("Failure while cleaning up task {}", handle.getTask(), e);
+    }
+  }
+
+  /**
+   * Adds a task to the run queue of this thread.
+   *
+   * @param handle task to enqueue
+   * @param catchUp whether the virtual runtime of the task should be brought up to the minimum
+   *     virtual runtime of this thread, so that new and long blocked tasks don't monopolize it
+   * @return true if this thread was idle
+   */
+  boolean enqueue(SlicingTaskHandle handle, boolean catchUp) {
+    numTasks.incrementAndGet();
+    lock.lock();
+    try {
+      if (catchUp) {
+        handle.setVruntime(Math.max(handle.getVruntime(), minVruntime));
+      }
+      handle.setThread(slicingThreadId);
+      runQueue.add(handle);
+      numQueued = runQueue.size();
+      workAvailable.signal();
+      return idle;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes the most eligible queued task so that another thread can run it. Doesn't wait if the
+   * run queue is being used.
+   *
+   * @param thief thread that will run the task
+   * @return the task, with its virtual runtime translated to the thief's timeline, or null
+   */
+  SlicingTaskHandle stealBy(SlicingThread thief) {
+    if (!lock.tryLock()) {
+      return null;
+    }
+    final SlicingTaskHandle handle;
+    final double offset;
+    try {
+      handle = runQueue.poll();
+      if (handle == null) {
+        return null;
+      }
+      numQueued = runQueue.size();
+      offset = handle.getVruntime() - minVruntime;
+    } finally {
+      lock.unlock();
+    }
+    numTasks.decrementAndGet();
+
+    thief.lock.lock();
+    try {
+      handle.setVruntime(thief.minVruntime + Math.max(0, offset));
+      thief.minVruntime = Math.max(thief.minVruntime, handle.getVruntime());
+    } finally {
+      thief.lock.unlock();
+    }
+    thief.numTasks.incrementAndGet();
+    return handle;
+  }
+
+  /** Wakes up this thread if it is waiting for work, or about to. */
+  void wakeUp() {
+    lock.lock();
+    try {
+      wakeUpRequested = true;
+      workAvailable.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int getSlicingThreadId() {
+    return slicingThreadId;
+  }
+
+  int getNumTasks() {
+    return numTasks.get();
+  }
+
+  int getNumQueued() {
+    return numQueued;
+  }
+
+  boolean isIdle() {
+    return idle;
+  }
+
+  long getCurrentSliceStartNanos() {
+    return currentSliceStartNanos;
+  }
+
+  SlicingTaskHandle getCurrent() {
+    return current;
+  }
+
+  long getNumSlices() {
+    return numSlices.get();
+  }
+
+  long getRunNanos() {
+    return runNanos.get();
+  }
+
+  long getIdleNanos() {
+    return idleNanos.get();
+  }
+
+  long getNumSteals() {
+    return numSteals.get();
+  }
+
+  long getNumStealAttempts() {
+    return numStealAttempts.get();
+  }
+
+  long getNumCompleted() {
+    return numCompleted.get();
+  }
+
+  void clearStats() {
+    numSlices.set(0);
+    runNanos.set(0);
+    idleNanos.set(0);
+    numSteals.set(0);
+    numStealAttempts.set(0);
+    numCompleted.set(0);
+  }
+}
@@ -77,4 +77,18 @@ public class TestHints extends BaseTestQuery {
       this.errorMsgTestHelper(query, "BADHINT should be registered in the HintStrategies.");
     }
   }
+
+  /** Test that the APPENDED_SINCE hint rejects bad snapshot ids and non Iceberg tables. */
+  @Test
+  public void invalidAppendedSinceHint() throws Exception {
+    errorMsgTestHelper(
+        "select * from cp.\"tpch/nation.parquet\" /*+ APPENDED_SINCE('1', '2', '3') */",
+        "Hint APPENDED_SINCE requires a begin and an optional end snapshot id");
+    errorMsgTestHelper(
+        "select * from cp.\"tpch/nation.parquet\" /*+ APPENDED_SINCE */",
+        "Hint APPENDED_SINCE requires a begin and an optional end snapshot id");
+    errorMsgTestHelper(
+        "select * from cp.\"tpch/nation.parquet\" /*+ APPENDED_SINCE('1') */",
+        "Hint APPENDED_SINCE is only supported on Iceberg tables");
+  }
 }
@@ -21,6 +21,9 @@ import com.dremio.exec.record.VectorWrapper;
 import com.google.common.collect.Lists;
 import com.google.common.io.Files;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -210,4 +213,65 @@ public class TestVectorAccessibleFlatBufSerializable extends ExecTest {
       }
     }
   }
+
+  @Test
+  public void testMappedRead() throws Exception {
+    final File file = File.createTempFile("dremioSerializable", ".arrow");
+    file.deleteOnExit();
+    final long allocatedBefore = allocator.getAllocatedMemory();
+
+    try (final BufferAllocator mappedAllocator =
+            allocator.getRoot().newChildAllocator("mapped", 0, Long.MAX_VALUE);
+        final IntVector intVector = new IntVector("int", allocator);
+        final VarBinaryVector binVector = new VarBinaryVector("binary", allocator)) {
+      VectorContainer container = new VectorContainer();
+      container.add(intVector);
+      container.add(binVector);
+      container.buildSchema();
+
+      // two batches of different sizes back to back
+      try (final FileOutputStream out = new FileOutputStream(file)) {
+        for (int batch = 0; batch < 2; batch++) {
+          final int count = batch == 0 ? 10 : 1000;
+          AllocationHelper.allocate(intVector, count, 8);
+          AllocationHelper.allocate(binVector, count, 8);
+          for (int i = 0; i < count; i++) {
+            intVector.setSafe(i, batch * 10000 + i);
+            final byte[] value = Integer.toString(batch * 10000 + i).getBytes();
+            binVector.setSafe(i, value, 0, value.length);
+          }
+          container.setAllCount(count);
+          new VectorAccessibleFlatBufSerializable(container, allocator).writeToStream(out);
+          container.zeroVectors();
+        }
+      }
+
+      try (final FileChannel channel =
+          FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        final VectorAccessibleFlatBufSerializable readSerializable =
+            new VectorAccessibleFlatBufSerializable(container, allocator);
+        long position = 0;
+        for (int batch = 0; batch < 2; batch++) {
+          container.zeroVectors();
+          position = readSerializable.readFromMappedFile(channel, position, mappedAllocator);
+          final int count = batch == 0 ? 10 : 1000;
+          Assert.assertEquals(count, container.getRecordCount());
+          // the vectors only reference the mapped body, which is not accounted to the allocator
+          Assert.assertEquals(allocatedBefore, allocator.getAllocatedMemory());
+          Assert.assertTrue(mappedAllocator.getAllocatedMemory() > 0);
+          for (int i = 0; i < count; i++) {
+            Assert.assertEquals(batch * 10000 + i, intVector.get(i));
+            Assert.assertArrayEquals(
+                Integer.toString(batch * 10000 + i).getBytes(), binVector.get(i));
+          }
+        }
+        Assert.assertEquals(channel.size(), position);
+        container.close();
+        readSerializable.releaseMappedBody();
+      }
+      // the mapped regions are released with the vectors and the body
+      Assert.assertEquals(0, mappedAllocator.getAllocatedMemory());
+      Assert.assertEquals(allocatedBefore, allocator.getAllocatedMemory());
+    }
+  }
 }
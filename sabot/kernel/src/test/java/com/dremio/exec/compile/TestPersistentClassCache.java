@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.compile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.dremio.test.DremioTest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestPersistentClassCache extends DremioTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final AtomicLong maxSize = new AtomicLong(1024 * 1024);
+  private Path directory;
+  private PersistentClassCache cache;
+
+  @Before
+  public void setup() throws Exception {
+    directory = temporaryFolder.newFolder().toPath();
+    cache = new PersistentClassCache(directory, maxSize::get, "1.0.0");
+  }
+
+  @Test
+  public void testPutAndGet() {
+    final String key = cache.key("Template", "class GenericGenerated {}");
+    assertNull(cache.get(key));
+
+    cache.put(key, "com.dremio.s.ProjectorGen0", classes(10), 1_000_000);
+    final PersistentClassCache.Entry entry = cache.get(key);
+    assertNotNull(entry);
+    assertEquals("com.dremio.s.ProjectorGen0", entry.getClassName());
+    assertEquals(2, entry.getClasses().length);
+    assertEquals("com.dremio.s.ProjectorGen0$Inner", entry.getClasses()[1].getName());
+    assertArrayEquals(classes(10)[1].getBytes(), entry.getClasses()[1].getBytes());
+
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(1_000_000, cache.getCompileNanosSaved());
+  }
+
+  @Test
+  public void testKey() {
+    final PersistentClassCache otherVersion =
+        new PersistentClassCache(directory, maxSize::get, "2.0.0");
+    final String key = cache.key("Template", "class GenericGenerated {}");
+
+    assertEquals(key, cache.key("Template", "class GenericGenerated {}"));
+    assertNotEquals(key, cache.key("Template", "class GenericGenerated { int a; }"));
+    assertNotEquals(key, cache.key("OtherTemplate", "class GenericGenerated {}"));
+    assertNotEquals(key, otherVersion.key("Template", "class GenericGenerated {}"));
+  }
+
+  @Test
+  public void testEntriesSurviveRestart() {
+    final String key = cache.key("Template", "class GenericGenerated {}");
+    cache.put(key, "com.dremio.s.ProjectorGen0", classes(10), 1);
+
+    final PersistentClassCache restarted =
+        new PersistentClassCache(directory, maxSize::get, "1.0.0");
+    assertNotNull(restarted.get(key));
+    assertEquals(cache.getCachedBytes(), restarted.getCachedBytes());
+  }
+
+  @Test
+  public void testEvictLeastRecentlyUsed() {
+    cache.put("a", "A", classes(100), 1);
+    final long entrySize = cache.getCachedBytes();
+    maxSize.set(2 * entrySize);
+    cache.put("b", "B", classes(100), 1);
+    assertNotNull(cache.get("a"));
+
+    cache.put("c", "C", classes(100), 1);
+    assertEquals(1, cache.getEvictions());
+    assertEquals(2, cache.getEntryCount());
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("a"));
+    assertNotNull(cache.get("c"));
+  }
+
+  @Test
+  public void testCorruptedEntry() throws Exception {
+    cache.put("a", "A", classes(10), 1);
+    Files.write(directory.resolve("a.classes"), new byte[] {1, 2});
+
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.getEntryCount());
+    assertEquals(0, cache.getCachedBytes());
+  }
+
+  @Test
+  public void testTemporaryFilesDeleted() throws Exception {
+    final Path temp = Files.write(directory.resolve(".tmp-leftover.classes"), new byte[] {1, 2});
+    final PersistentClassCache restarted =
+        new PersistentClassCache(directory, maxSize::get, "1.0.0");
+    assertNull(restarted.get("a"));
+    assertEquals(0, restarted.getCachedBytes());
+    assertFalse(Files.exists(temp));
+  }
+
+  @Test
+  public void testOtherFilesSurviveStartup() throws Exception {
+    final Path other = Files.write(directory.resolve("notes.txt"), new byte[] {1, 2});
+    final Path otherTemp = Files.write(directory.resolve(".tmp-notes"), new byte[] {1, 2});
+    final Path otherDirectory = Files.createDirectory(directory.resolve("dir.classes"));
+
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.getEntryCount());
+    assertTrue(Files.exists(other));
+    assertTrue(Files.exists(otherTemp));
+    assertTrue(Files.isDirectory(otherDirectory));
+  }
+
+  private static ClassBytes[] classes(int size) {
+    final byte[] outer = new byte[size];
+    final byte[] inner = new byte[size];
+    for (int i = 0; i < size; i++) {
+      outer[i] = (byte) i;
+      inner[i] = (byte) (size - i);
+    }
+    return new ClassBytes[] {
+      new ClassBytes("com.dremio.s.ProjectorGen0", outer),
+      new ClassBytes("com.dremio.s.ProjectorGen0$Inner", inner)
+    };
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.physical.impl.window;
+
+import static com.dremio.sabot.Fixtures.NULL_BIGINT;
+import static com.dremio.sabot.Fixtures.NULL_DOUBLE;
+import static com.dremio.sabot.Fixtures.th;
+import static com.dremio.sabot.Fixtures.tr;
+import static java.util.Collections.singletonList;
+import static org.apache.calcite.rel.RelFieldCollation.Direction.ASCENDING;
+import static org.apache.calcite.rel.RelFieldCollation.NullDirection.FIRST;
+
+import com.dremio.exec.physical.config.WindowPOP;
+import com.dremio.exec.physical.config.WindowPOP.Bound;
+import com.dremio.exec.physical.config.WindowPOP.BoundType;
+import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.Fixtures;
+import com.dremio.sabot.Fixtures.DataRow;
+import com.dremio.sabot.Fixtures.HeaderRow;
+import com.dremio.sabot.Fixtures.Table;
+import com.dremio.sabot.op.windowframe.WindowFrameOperator;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/** Tests the incremental evaluation of aggregates over bounded ROWS frames. */
+public class TestSlidingWindowFrame extends BaseTestOperator {
+  private static final HeaderRow INPUT = th("p", "o", "v");
+  private static final HeaderRow OUTPUT = th("p", "o", "v", "s", "c", "mn", "mx", "a", "n");
+  // partitions longer and shorter than the batches, so that frames span several batches
+  private static final int[] PARTITION_LENGTHS = {1, 3, 17, 2, 40, 5};
+  private static final int BATCH_SIZE = 4;
+
+  @Test
+  public void precedingToCurrentRow() throws Exception {
+    validate(new Bound(false, 3, BoundType.PRECEDING), new Bound(false, 0, BoundType.CURRENT_ROW));
+  }
+
+  @Test
+  public void currentRowToFollowing() throws Exception {
+    validate(new Bound(false, 0, BoundType.CURRENT_ROW), new Bound(false, 5, BoundType.FOLLOWING));
+  }
+
+  @Test
+  public void precedingToFollowing() throws Exception {
+    validate(new Bound(false, 6, BoundType.PRECEDING), new Bound(false, 2, BoundType.FOLLOWING));
+  }
+
+  @Test
+  public void currentRowOnly() throws Exception {
+    validate(
+        new Bound(false, 0, BoundType.CURRENT_ROW), new Bound(false, 0, BoundType.CURRENT_ROW));
+  }
+
+  private void validate(Bound lower, Bound upper) throws Exception {
+    final WindowPOP window =
+        new WindowPOP(
+            PROPS,
+            null,
+            singletonList(n("p")),
+            Arrays.asList(
+                n("sum(v)", "s"),
+                n("count(v)", "c"),
+                n("min(v)", "mn"),
+                n("max(v)", "mx"),
+                n("avg(v)", "a"),
+                n("count(1)", "n")),
+            singletonList(ordering("o", ASCENDING, FIRST)),
+            true,
+            lower,
+            upper);
+
+    final Random random = new Random(7);
+    int total = 0;
+    for (int length : PARTITION_LENGTHS) {
+      total += length;
+    }
+    final Long[] values = new Long[total];
+    for (int i = 0; i < total; i++) {
+      values[i] = random.nextInt(5) == 0 ? null : (long) random.nextInt(1000) - 500;
+    }
+
+    final int preceding = lower.getType() == BoundType.PRECEDING ? lower.getOffset() : 0;
+    final int following = upper.getType() == BoundType.FOLLOWING ? upper.getOffset() : 0;
+    final DataRow[] input = new DataRow[total];
+    final DataRow[] output = new DataRow[total];
+    int start = 0;
+    for (int p = 0; p < PARTITION_LENGTHS.length; p++) {
+      final int end = start + PARTITION_LENGTHS[p];
+      for (int row = start; row < end; row++) {
+        long sum = 0;
+        long count = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        final int frameStart = Math.max(start, row - preceding);
+        final int frameEnd = Math.min(end - 1, row + following);
+        for (int i = frameStart; i <= frameEnd; i++) {
+          if (values[i] != null) {
+            sum += values[i];
+            count++;
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+          }
+        }
+        final Object value = values[row] == null ? NULL_BIGINT : values[row];
+        input[row] = tr(p, row, value);
+        output[row] =
+            tr(
+                p,
+                row,
+                value,
+                count == 0 ? NULL_BIGINT : sum,
+                count,
+                count == 0 ? NULL_BIGINT : min,
+                count == 0 ? NULL_BIGINT : max,
+                count == 0 ? NULL_DOUBLE : sum / (double) count,
+                (long) (frameEnd - frameStart + 1));
+      }
+      start = end;
+    }
+
+    final Table expected = Fixtures.t(OUTPUT, output);
+    try (AutoCloseable ignored = with(WindowFrameOperator.WINDOW_INCREMENTAL_FRAMES, true)) {
+      validateSingle(
+          window,
+          WindowFrameOperator.class,
+          Fixtures.split(INPUT, BATCH_SIZE, input),
+          expected,
+          BATCH_SIZE);
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.acceleration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import com.dremio.exec.planner.acceleration.MaterializationDescriptorIndex.References;
+import com.dremio.exec.planner.acceleration.substitution.SubstitutionUtils.VersionedPath;
+import com.dremio.service.namespace.NamespaceKey;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelShuttle;
+import org.apache.calcite.rel.core.TableScan;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/** Tests for {@link MaterializationDescriptorIndex} */
+public class TestMaterializationDescriptorIndex {
+
+  private static final VersionedPath T1 = VersionedPath.of(ImmutableList.of("schema", "t1"));
+  private static final VersionedPath T2 = VersionedPath.of(ImmutableList.of("schema", "t2"));
+  private static final VersionedPath V1 = VersionedPath.of(ImmutableList.of("schema", "v1"));
+
+  @Test
+  public void testCandidatesByTableAndVds() {
+    final MaterializationDescriptorIndex index =
+        MaterializationDescriptorIndex.EMPTY.toBuilder()
+            .put("m1", "r1", references(ImmutableSet.of(T1), ImmutableSet.of()))
+            .put("m2", "r2", references(ImmutableSet.of(T2), ImmutableSet.of(V1)))
+            .build();
+
+    assertEquals(2, index.size());
+    assertEquals(ImmutableSet.of("m1"), candidates(index, ImmutableSet.of(T1), ImmutableSet.of()));
+    assertEquals(ImmutableSet.of("m2"), candidates(index, ImmutableSet.of(), ImmutableSet.of(V1)));
+    assertEquals(
+        ImmutableSet.of("m1", "m2"), candidates(index, ImmutableSet.of(T1, T2), ImmutableSet.of()));
+    // views are only matched against views
+    assertEquals(ImmutableSet.of(), candidates(index, ImmutableSet.of(V1), ImmutableSet.of()));
+  }
+
+  @Test
+  public void testCandidatesIncludeAllMaterializationsOfReflection() {
+    final MaterializationDescriptorIndex index =
+        MaterializationDescriptorIndex.EMPTY.toBuilder()
+            .put("m1", "r1", references(ImmutableSet.of(T1), ImmutableSet.of()))
+            .put("m2", "r1", references(ImmutableSet.of(T2), ImmutableSet.of()))
+            .build();
+
+    assertEquals(
+        ImmutableSet.of("m1", "m2"), candidates(index, ImmutableSet.of(T1), ImmutableSet.of()));
+  }
+
+  @Test
+  public void testUpdatesDoNotChangeOriginal() {
+    final MaterializationDescriptorIndex original =
+        MaterializationDescriptorIndex.EMPTY.toBuilder()
+            .put("m1", "r1", references(ImmutableSet.of(T1), ImmutableSet.of()))
+            .build();
+    final MaterializationDescriptorIndex updated =
+        original.toBuilder()
+            .remove("m1")
+            .put("m2", "r2", references(ImmutableSet.of(T1), ImmutableSet.of()))
+            .build();
+
+    assertTrue(original.contains("m1"));
+    assertFalse(original.contains("m2"));
+    assertEquals(
+        ImmutableSet.of("m1"), candidates(original, ImmutableSet.of(T1), ImmutableSet.of()));
+    assertFalse(updated.contains("m1"));
+    assertEquals(
+        ImmutableSet.of("m2"), candidates(updated, ImmutableSet.of(T1), ImmutableSet.of()));
+  }
+
+  @Test
+  public void testReplaceMaterialization() {
+    final MaterializationDescriptorIndex index =
+        MaterializationDescriptorIndex.EMPTY.toBuilder()
+            .put("m1", "r1", references(ImmutableSet.of(T1), ImmutableSet.of()))
+            .put("m1", "r1", references(ImmutableSet.of(T2), ImmutableSet.of()))
+            .build();
+
+    assertEquals(1, index.size());
+    assertEquals(ImmutableSet.of(), candidates(index, ImmutableSet.of(T1), ImmutableSet.of()));
+    assertEquals(ImmutableSet.of("m1"), candidates(index, ImmutableSet.of(T2), ImmutableSet.of()));
+  }
+
+  @Test
+  public void testReferencesOfPlan() {
+    final RelNode scan = createTableScan(ImmutableList.of("schema", "t1"));
+    final ExpansionNode expansionNode = Mockito.mock(ExpansionNode.class);
+    when(expansionNode.getPath()).thenReturn(new NamespaceKey(ImmutableList.of("schema", "v1")));
+    when(expansionNode.getInputs()).thenReturn(ImmutableList.of(scan));
+    when(expansionNode.accept(any(RelShuttle.class))).thenCallRealMethod();
+
+    final References references = References.of(expansionNode);
+
+    assertEquals(ImmutableSet.of(T1), references.getTables());
+    assertEquals(ImmutableSet.of(V1), references.getVdsPaths());
+    assertTrue(references.getExternalQueries().isEmpty());
+  }
+
+  private static References references(Set<VersionedPath> tables, Set<VersionedPath> vdsPaths) {
+    return References.of(tables, vdsPaths, ImmutableSet.of());
+  }
+
+  private static Set<String> candidates(
+      MaterializationDescriptorIndex index,
+      Set<VersionedPath> tables,
+      Set<VersionedPath> vdsPaths) {
+    return index.getCandidates(tables, vdsPaths, ImmutableSet.of());
+  }
+
+  private static RelNode createTableScan(List<String> path) {
+    TableScan node = Mockito.mock(TableScan.class);
+    RelOptTable table = Mockito.mock(RelOptTable.class);
+    when(node.getTable()).thenReturn(table);
+    when(table.getQualifiedName()).thenReturn(path);
+    when(node.accept(any(RelShuttle.class))).thenCallRealMethod();
+    return node;
+  }
+}
@@ -17,7 +17,9 @@ package com.dremio.exec.planner.acceleration;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -27,6 +29,7 @@ import com.dremio.exec.planner.acceleration.descriptor.ExpandedMaterializationDe
 import com.dremio.exec.planner.acceleration.descriptor.ExternalMaterializationDescriptor;
 import com.dremio.exec.planner.acceleration.descriptor.MaterializationDescriptor;
 import com.dremio.exec.planner.acceleration.descriptor.ReflectionInfo;
+import com.dremio.exec.planner.observer.AttemptObserver;
 import com.dremio.exec.planner.physical.PlannerSettings;
 import com.dremio.exec.planner.sql.SqlConverter;
 import com.dremio.exec.server.MaterializationDescriptorProvider;
@@ -79,6 +82,8 @@ public class TestMaterializationList {
 
   @Mock private OptionResolver optionResolver;
 
+  @Mock private AttemptObserver observer;
+
   @Before
   public void setup() {
     when(desc1.getMaterializationFor(converter)).thenReturn(relOptMat1);
@@ -98,7 +103,10 @@ public class TestMaterializationList {
     when(externalMaterializationDescriptor1.isApplicable(any(), any(), any())).thenCallRealMethod();
     when(externalMaterializationDescriptor2.isApplicable(any(), any(), any())).thenCallRealMethod();
 
+    when(provider.getCandidates(any(), any(), any())).thenCallRealMethod();
+
     when(converter.getFunctionContext()).thenReturn(functionContext);
+    when(converter.getObserver()).thenReturn(observer);
     when(functionContext.getOptions()).thenReturn(optionResolver);
     when(optionResolver.getOption(PlannerSettings.EXCLUDE_REFLECTIONS)).thenReturn("");
     when(optionResolver.getOption(PlannerSettings.CONSIDER_REFLECTIONS)).thenReturn("");
@@ -220,6 +228,32 @@ public class TestMaterializationList {
     assertEquals("rid-1", dremioMaterializations.stream().findFirst().get().getReflectionId());
   }
 
+  /** Verifies that only the candidates selected by the provider are expanded */
+  @Test
+  public void testOnlyCandidatesConsidered() {
+    when(desc2.isApplicable(any(), any(), any())).thenReturn(true);
+    RelNode relOptMat2QueryNode = createTableScan(Arrays.asList("schema", "t2"));
+    when(relOptMat2.getQueryRel()).thenReturn(relOptMat2QueryNode);
+    when(relOptMat2.accept(any(RelShuttle.class))).thenReturn(relOptMat2);
+
+    SubstitutionSettings materializationSettings = SubstitutionSettings.of();
+    when(session.getSubstitutionSettings()).thenReturn(materializationSettings);
+    when(provider.get()).thenReturn(ImmutableList.of(desc1, desc2));
+    when(provider.getCandidates(any(), any(), any())).thenReturn(ImmutableList.of(desc2));
+
+    final MaterializationList materializations =
+        new MaterializationList(converter, session, provider);
+    RelNode userQuery = createTableScan(Arrays.asList("schema", "t2"));
+    List<DremioMaterialization> dremioMaterializations =
+        materializations.buildConsideredMaterializations(userQuery);
+
+    verify(desc1, never()).isApplicable(any(), any(), any());
+    verify(desc1, never()).getMaterializationFor(any(SqlConverter.class));
+    verify(observer).planMaterializationCandidates(eq(1), anyLong());
+    assertEquals(1, dremioMaterializations.size());
+    assertEquals(relOptMat2, dremioMaterializations.get(0));
+  }
+
   private RelNode createTableScan(List<String> path) {
     RelNode node = Mockito.mock(TableScan.class);
     RelOptTable table = Mockito.mock(RelOptTable.class);
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.plancache;
+
+import static com.dremio.exec.planner.sql.parser.TestParserUtil.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.util.NlsString;
+import org.junit.Test;
+
+/** Tests for {@link ParameterizedQuery} */
+public class TestParameterizedQuery {
+
+  @Test
+  public void testSameTemplateForOtherLiterals() throws SqlParseException {
+    ParameterizedQuery first =
+        ParameterizedQuery.of(parse("SELECT a FROM t WHERE b = 1 AND c = 'x'"));
+    ParameterizedQuery second =
+        ParameterizedQuery.of(parse("SELECT a FROM t WHERE b = 42 AND c = 'yz'"));
+
+    assertThat(first.getTemplate()).isEqualTo(second.getTemplate());
+    assertThat(first.getParameterKinds()).isEqualTo(second.getParameterKinds());
+    assertThat(second.getParameters()).hasSize(2);
+    assertThat(second.getParameters().get(0).getValueAs(BigDecimal.class))
+        .isEqualTo(BigDecimal.valueOf(42));
+    assertThat(second.getParameters().get(1).getValueAs(NlsString.class).getValue())
+        .isEqualTo("yz");
+  }
+
+  @Test
+  public void testParameterKinds() throws SqlParseException {
+    ParameterizedQuery exact = ParameterizedQuery.of(parse("SELECT a FROM t WHERE b = 1"));
+    ParameterizedQuery decimal = ParameterizedQuery.of(parse("SELECT a FROM t WHERE b = 1.5"));
+    ParameterizedQuery approx = ParameterizedQuery.of(parse("SELECT a FROM t WHERE b = 1.5e0"));
+    ParameterizedQuery date =
+        ParameterizedQuery.of(parse("SELECT a FROM t WHERE b = DATE '2020-01-01'"));
+
+    assertThat(exact.getTemplate()).isEqualTo(decimal.getTemplate());
+    assertThat(exact.getParameterKinds())
+        .isNotEqualTo(decimal.getParameterKinds())
+        .isNotEqualTo(approx.getParameterKinds());
+    assertThat(decimal.getParameterKinds()).isNotEqualTo(approx.getParameterKinds());
+    assertThat(date.getParameterKinds()).isEqualTo("[DATE]");
+  }
+
+  @Test
+  public void testLimitAndOrdinalsAreKept() throws SqlParseException {
+    ParameterizedQuery first =
+        ParameterizedQuery.of(
+            parse("SELECT a, count(*) FROM t WHERE b > 1 GROUP BY 1 ORDER BY 1 DESC LIMIT 10"));
+    ParameterizedQuery second =
+        ParameterizedQuery.of(
+            parse("SELECT a, count(*) FROM t WHERE b > 2 GROUP BY 1 ORDER BY 1 DESC LIMIT 20"));
+
+    assertThat(first.getParameters()).hasSize(1);
+    assertThat(first.getTemplate()).isNotEqualTo(second.getTemplate());
+  }
+
+  @Test
+  public void testOffsetIsKept() throws SqlParseException {
+    ParameterizedQuery query =
+        ParameterizedQuery.of(
+            parse("SELECT a FROM t WHERE b = 'x' ORDER BY a OFFSET 5 ROWS FETCH NEXT 3 ROWS ONLY"));
+
+    assertThat(query.getParameters()).hasSize(1);
+    assertThat(query.getTemplate()).contains("5").contains("3");
+  }
+
+  @Test
+  public void testNoParameters() throws SqlParseException {
+    assertThat(ParameterizedQuery.of(parse("SELECT a FROM t WHERE b IS NULL LIMIT 10"))).isNull();
+    assertThat(ParameterizedQuery.of(parse("SELECT a FROM t WHERE b = TRUE"))).isNull();
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.plancache;
+
+import static com.dremio.exec.planner.sql.parser.TestParserUtil.parse;
+import static com.dremio.exec.store.parquet.ParquetFormatDatasetAccessor.ACCELERATOR_STORAGEPLUGIN_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.dremio.BaseTestQuery;
+import com.dremio.exec.planner.physical.PlannerSettings;
+import com.dremio.exec.store.parquet.ParquetScanPrel;
+import com.dremio.exec.work.protector.ForemenWorkManager;
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.calcite.plan.RelOptTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link PlanTemplate} and the templates of {@link LegacyPlanCache} */
+public class TestPlanTemplate extends BaseTestQuery {
+  private static final String ENABLE =
+      "ALTER SESSION SET planner.query_plan_cache_parameterized = true";
+  private static final String DISABLE =
+      "ALTER SESSION SET planner.query_plan_cache_parameterized = false";
+
+  @Before
+  public void setUp() throws Exception {
+    getCachePlans().invalidateAll();
+    test(ENABLE);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    resetSessionOption(PlannerSettings.QUERY_PLAN_CACHE_PARAMETERIZED);
+  }
+
+  @Test
+  public void testBindOtherLiteral() throws Exception {
+    final String query =
+        "SELECT full_name, position_id FROM cp.\"employee.json\" WHERE employee_id > %d";
+    test(String.format(query, 1150));
+    assertThat(getTemplates()).hasSize(1);
+
+    testBuilder()
+        .sqlQuery(String.format(query, 1100))
+        .unOrdered()
+        .optionSettingQueriesForTestQuery(ENABLE)
+        .optionSettingQueriesForBaseline(DISABLE)
+        .sqlBaselineQuery(String.format(query, 1100))
+        .go();
+
+    final List<CachedPlan> templates = getTemplates();
+    assertThat(templates).hasSize(1);
+    assertThat(templates.get(0).getUseCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testPushedScanFilter() throws Exception {
+    test("SELECT n_name FROM cp.\"tpch/nation.parquet\" WHERE n_nationkey = 3");
+    assertThat(getTemplates()).isEmpty();
+  }
+
+  @Test
+  public void testPrunedPartitions() throws Exception {
+    final String table = "dfs_test.plan_template_partitioned";
+    test(
+        "CREATE TABLE %s PARTITION BY (n_regionkey) AS SELECT * FROM cp.\"tpch/nation.parquet\"",
+        table);
+    try {
+      getCachePlans().invalidateAll();
+      test("SELECT n_name FROM %s WHERE n_regionkey = 1", table);
+      assertThat(getTemplates()).isEmpty();
+    } finally {
+      test("DROP TABLE %s", table);
+    }
+  }
+
+  @Test
+  public void testDuplicateLiterals() throws Exception {
+    test("SELECT full_name FROM cp.\"employee.json\" WHERE employee_id > 10 AND position_id > 10");
+    assertThat(getTemplates()).isEmpty();
+  }
+
+  @Test
+  public void testFoldedLiterals() throws Exception {
+    test("SELECT full_name FROM cp.\"employee.json\" WHERE employee_id > 1100 + 50");
+    assertThat(getTemplates()).isEmpty();
+  }
+
+  @Test
+  public void testReflectionScan() throws Exception {
+    final RelOptTable table = mock(RelOptTable.class);
+    when(table.getQualifiedName())
+        .thenReturn(ImmutableList.of(ACCELERATOR_STORAGEPLUGIN_NAME, "reflection", "1"));
+    final ParquetScanPrel scan = mock(ParquetScanPrel.class);
+    when(scan.getTable()).thenReturn(table);
+
+    final ParameterizedQuery query = ParameterizedQuery.of(parse("SELECT a FROM t WHERE b > 10"));
+    assertThat(PlanTemplate.create(scan, query, false)).isNull();
+  }
+
+  private static Cache<String, CachedPlan> getCachePlans() {
+    return getInstance(ForemenWorkManager.class).getLegacyPlanCache().getCachePlans();
+  }
+
+  private static List<CachedPlan> getTemplates() {
+    return getCachePlans().asMap().values().stream()
+        .filter(plan -> plan.getTemplate() != null)
+        .distinct()
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.arrow;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import org.junit.Test;
+
+public class TestArrowFileBatchIndex {
+
+  private static ArrowFileBatchIndex newIndex(int... recordCounts) {
+    final ArrowFileFooter footer = new ArrowFileFooter();
+    footer.setBatchList(new ArrayList<>());
+    long offset = 0;
+    for (int recordCount : recordCounts) {
+      footer
+          .getBatchList()
+          .add(new ArrowRecordBatchSummary().setRecordCount(recordCount).setOffset(offset));
+      offset += 100;
+    }
+    return new ArrowFileBatchIndex(footer);
+  }
+
+  @Test
+  public void testEmptyFile() {
+    final ArrowFileBatchIndex index = newIndex();
+    assertEquals(0, index.getBatchCount());
+    assertEquals(0, index.getRecordCount());
+    assertEquals(0, index.getBatchIndex(0));
+  }
+
+  @Test
+  public void testBatchIndex() {
+    final ArrowFileBatchIndex index = newIndex(5, 3, 7);
+    assertEquals(15, index.getRecordCount());
+
+    assertEquals(0, index.getBatchIndex(0));
+    assertEquals(0, index.getBatchIndex(4));
+    assertEquals(1, index.getBatchIndex(5));
+    assertEquals(1, index.getBatchIndex(7));
+    assertEquals(2, index.getBatchIndex(8));
+    assertEquals(2, index.getBatchIndex(14));
+    assertEquals(3, index.getBatchIndex(15));
+
+    assertEquals(8, index.getBatchStart(2));
+    assertEquals(3, index.getBatchRecordCount(1));
+  }
+
+  @Test
+  public void testEmptyBatchesSkipped() {
+    final ArrowFileBatchIndex index = newIndex(0, 5, 0, 0, 5, 0);
+    assertEquals(1, index.getBatchIndex(0));
+    assertEquals(1, index.getBatchIndex(4));
+    assertEquals(4, index.getBatchIndex(5));
+    assertEquals(6, index.getBatchIndex(10));
+
+    assertEquals(5, index.getBatchStart(4));
+    assertEquals(0, index.getBatchRecordCount(2));
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.json.reader;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/** Tests for {@link JsonStructuralIndex} */
+public class TestJsonStructuralIndex {
+
+  @Test
+  public void testStructuralCharacters() {
+    final String json = pad("{\"a\": [1, {\"b\": \"x,y:{}[]\"}], \"c\" : null}  // comment");
+    assertEquals(
+        Arrays.asList(0, 1, 3, 4, 6, 8, 10, 11, 13, 14, 16, 25, 26, 27, 28, 30, 32, 34, 40, 43, 44),
+        structurals(json));
+  }
+
+  @Test
+  public void testEscapes() {
+    // escaped quotes do not end strings, escaped backslashes do not escape the quote after them
+    final String json = pad("{\"a\\\"b\": \"c\\\\\", \"d\": \"\\\\\\\",\"}");
+    assertEquals(Arrays.asList(0, 1, 6, 7, 9, 13, 14, 16, 18, 19, 21, 27, 28), structurals(json));
+  }
+
+  @Test
+  public void testStringsAcrossBlocks() {
+    final StringBuilder json = new StringBuilder("{\"a\": \"");
+    while (json.length() < 63) {
+      json.append('x');
+    }
+    // the backslash is the last byte of the first block, and escapes the quote starting the next
+    json.append("\\\"\\\\\"}");
+    assertEquals(Arrays.asList(0, 1, 3, 4, 6, 67, 68), structurals(pad(json.toString())));
+  }
+
+  @Test
+  public void testRandom() {
+    final Random random = new Random(11);
+    final String alphabet = "ab\"\\{}[]:,/ 1";
+    for (int i = 0; i < 1000; i++) {
+      final char[] chars = new char[JsonStructuralIndex.BLOCK_SIZE * (1 + random.nextInt(4))];
+      for (int j = 0; j < chars.length; j++) {
+        chars[j] = alphabet.charAt(random.nextInt(alphabet.length()));
+      }
+      final String json = new String(chars);
+      assertEquals(json, naiveStructurals(json), structurals(json));
+    }
+  }
+
+  private static String pad(String json) {
+    final StringBuilder padded = new StringBuilder(json);
+    while (padded.length() % JsonStructuralIndex.BLOCK_SIZE != 0) {
+      padded.append(' ');
+    }
+    return padded.toString();
+  }
+
+  private static List<Integer> structurals(String json) {
+    final byte[] bytes = json.getBytes(UTF_8);
+    final JsonStructuralIndex index = new JsonStructuralIndex();
+    index.build(bytes, bytes.length);
+    final List<Integer> positions = new ArrayList<>();
+    for (int i = index.next(0); i >= 0; i = index.next(i + 1)) {
+      positions.add(i);
+    }
+    return positions;
+  }
+
+  private static List<Integer> naiveStructurals(String json) {
+    final List<Integer> positions = new ArrayList<>();
+    boolean inString = false;
+    boolean escaped = false;
+    for (int i = 0; i < json.length(); i++) {
+      final char c = json.charAt(i);
+      if (escaped) {
+        escaped = false;
+        if (inString || c == '"' || c == '\\') {
+          continue;
+        }
+      }
+      if (c == '\\') {
+        escaped = true;
+      } else if (c == '"') {
+        positions.add(i);
+        inString = !inString;
+      } else if (!inString && "{}[]:,/".indexOf(c) >= 0) {
+        positions.add(i);
+      }
+    }
+    return positions;
+  }
+}
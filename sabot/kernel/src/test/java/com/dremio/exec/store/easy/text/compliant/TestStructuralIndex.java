@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.text.compliant;
+
+import static org.junit.Assert.assertEquals;
+
+import com.dremio.test.AllocatorRule;
+import java.util.Random;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/** Tests for {@link StructuralIndex} */
+public class TestStructuralIndex {
+  private static final byte[] STRUCTURAL = {'\r', '\n', ','};
+
+  @Rule public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BufferAllocator allocator;
+
+  @Before
+  public void setup() {
+    allocator = allocatorRule.newAllocator("test-structural-index", 0, Long.MAX_VALUE);
+  }
+
+  @After
+  public void cleanup() {
+    allocator.close();
+  }
+
+  @Test
+  public void testStructuralMask() {
+    final StructuralIndex index = new StructuralIndex(STRUCTURAL);
+    // bytes in memory order of a little endian word: "a,b\ncd\re"
+    assertEquals(0b01001010L, index.structuralMask(0x650D64630A622C61L));
+    assertEquals(0L, index.structuralMask(0x6867666564636261L));
+    assertEquals(0xFFL, index.structuralMask(0x2C2C2C2C2C2C2C2CL));
+  }
+
+  @Test
+  public void testNextStructural() {
+    final byte[] data =
+        "abc,defghijklmnopqrstuvwxyz0123456789abcdefghijklmnopqrstuvwxyz\r\nlast".getBytes();
+    final StructuralIndex index = new StructuralIndex(STRUCTURAL);
+    try (ArrowBuf buf = allocator.buffer(data.length)) {
+      buf.setBytes(0, data);
+      index.build(buf.memoryAddress(), data.length);
+      assertEquals(3, index.nextStructural(0));
+      assertEquals(3, index.nextStructural(3));
+      assertEquals(63, index.nextStructural(4));
+      assertEquals(64, index.nextStructural(64));
+      assertEquals(data.length, index.nextStructural(65));
+      assertEquals(data.length, index.nextStructural(data.length));
+    }
+  }
+
+  @Test
+  public void testMatchesByteByByteScan() {
+    final Random random = new Random(42);
+    final StructuralIndex index = new StructuralIndex(STRUCTURAL);
+    try (ArrowBuf buf = allocator.buffer(4096)) {
+      // rebuilding over shorter regions checks that the previous index is cleared
+      for (int length : new int[] {4096, 4000, 1, 0, 777}) {
+        final byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+          // mostly ordinary bytes, including negative ones, with a few structural ones
+          data[i] =
+              random.nextInt(20) == 0
+                  ? STRUCTURAL[random.nextInt(STRUCTURAL.length)]
+                  : (byte) (random.nextInt(256) | 0x30);
+        }
+        buf.setBytes(0, data);
+        index.build(buf.memoryAddress(), length);
+        for (int from = 0; from <= length; from++) {
+          assertEquals(nextStructural(data, from), index.nextStructural(from));
+        }
+      }
+    }
+  }
+
+  private static int nextStructural(byte[] data, int from) {
+    for (int i = from; i < data.length; i++) {
+      for (byte b : STRUCTURAL) {
+        if (data[i] == b) {
+          return i;
+        }
+      }
+    }
+    return data.length;
+  }
+}
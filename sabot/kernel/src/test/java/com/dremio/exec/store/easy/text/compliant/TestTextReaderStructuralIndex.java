@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.text.compliant;
+
+import com.dremio.BaseTestQuery;
+import com.dremio.exec.ExecConstants;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that text files are read the same with and without the structural index of the input, see
+ * {@link ExecConstants#TEXT_STRUCTURAL_INDEX}.
+ */
+public class TestTextReaderStructuralIndex extends BaseTestQuery {
+  private static final String LF_FILE = "structural_index_lf.csv";
+  private static final String CRLF_FILE = "structural_index_crlf.csv";
+  private static final String ENABLE =
+      "alter session set \"" + ExecConstants.TEXT_STRUCTURAL_INDEX.getOptionName() + "\" = true";
+  private static final String DISABLE =
+      "alter session set \"" + ExecConstants.TEXT_STRUCTURAL_INDEX.getOptionName() + "\" = false";
+
+  private static File lfFile;
+  private static File crlfFile;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    lfFile = new File(getDfsTestTmpSchemaLocation(), LF_FILE);
+    crlfFile = new File(getDfsTestTmpSchemaLocation(), CRLF_FILE);
+    // larger than the 1MB read buffer so that values span buffer boundaries
+    writeFile(lfFile, "\n", 40_000);
+    writeFile(crlfFile, "\r\n", 40_000);
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    FileUtils.deleteQuietly(lfFile);
+    FileUtils.deleteQuietly(crlfFile);
+  }
+
+  private static void writeFile(File file, String lineDelimiter, int rows) throws Exception {
+    final Random random = new Random(7);
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.append("a,b,c,d").append(lineDelimiter);
+      for (int i = 0; i < rows; i++) {
+        writer.append(Integer.toString(i)).append(',');
+        // unquoted value of varying length, with whitespaces, quotes and multi-byte characters
+        writer.append('v');
+        for (int j = random.nextInt(40); j > 0; j--) {
+          writer.append("x y\"é".charAt(random.nextInt(5)));
+        }
+        writer.append(',');
+        // quoted value with delimiters in it
+        writer.append("\"q,").append(Integer.toString(random.nextInt())).append("\r\nz\"\"\"");
+        // value that may be empty or end the line early
+        if (random.nextBoolean()) {
+          writer.append(",  trailing  ");
+        }
+        writer.append(lineDelimiter);
+      }
+    }
+  }
+
+  private static String query(String file, String lineDelimiter) {
+    return String.format(
+        "select * from table(%s.\"%s\" (type => 'text', fieldDelimiter => ',', "
+            + "lineDelimiter => '%s', extractHeader => true))",
+        TEMP_SCHEMA, file, lineDelimiter);
+  }
+
+  private static String columnsQuery(String file) {
+    return String.format(
+        "select columns from table(%s.\"%s\" (type => 'text', fieldDelimiter => ',', "
+            + "lineDelimiter => '\n'))",
+        TEMP_SCHEMA, file);
+  }
+
+  @Test
+  public void testLineFeed() throws Exception {
+    compare(query(LF_FILE, "\n"));
+  }
+
+  @Test
+  public void testCarriageReturnLineFeed() throws Exception {
+    compare(query(CRLF_FILE, "\r\n"));
+  }
+
+  @Test
+  public void testRepeatedVarChar() throws Exception {
+    compare(columnsQuery(LF_FILE));
+  }
+
+  @Test
+  public void testCount() throws Exception {
+    compare(String.format("select count(*) as c from (%s)", query(LF_FILE, "\n")));
+  }
+
+  private static void compare(String query) throws Exception {
+    testBuilder()
+        .optionSettingQueriesForTestQuery(ENABLE)
+        .optionSettingQueriesForBaseline(DISABLE)
+        .unOrdered()
+        .sqlQuery(query)
+        .sqlBaselineQuery(query)
+        .go();
+  }
+}
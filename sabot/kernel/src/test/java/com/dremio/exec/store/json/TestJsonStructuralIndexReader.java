@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.json;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.dremio.BaseTestQuery;
+import com.dremio.exec.ExecConstants;
+import java.io.File;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that JSON files are read the same with and without the structural index reader, see {@link
+ * ExecConstants#JSON_STRUCTURAL_INDEX}.
+ */
+public class TestJsonStructuralIndexReader extends BaseTestQuery {
+  private static final String FLAT_FILE = "structural_index_flat.json";
+  private static final String NESTED_FILE = "structural_index_nested.json";
+  private static final String ARRAY_FILE = "structural_index_array.json";
+  private static final String ENABLE =
+      "alter session set \"" + ExecConstants.JSON_STRUCTURAL_INDEX.getOptionName() + "\" = true";
+  private static final String DISABLE =
+      "alter session set \"" + ExecConstants.JSON_STRUCTURAL_INDEX.getOptionName() + "\" = false";
+
+  private static File flatFile;
+  private static File nestedFile;
+  private static File arrayFile;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    flatFile = new File(getDfsTestTmpSchemaLocation(), FLAT_FILE);
+    nestedFile = new File(getDfsTestTmpSchemaLocation(), NESTED_FILE);
+    arrayFile = new File(getDfsTestTmpSchemaLocation(), ARRAY_FILE);
+    // larger than the 1MB read buffer so that documents span buffer boundaries
+    writeFlatFile(flatFile, 40_000);
+    writeNestedFile(nestedFile, 20_000);
+    Files.write(
+        arrayFile.toPath(),
+        "[{\"a\": 1, \"b\": \"x\"},\n {\"a\": 2, \"b\": null}]".getBytes(UTF_8));
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    FileUtils.deleteQuietly(flatFile);
+    FileUtils.deleteQuietly(nestedFile);
+    FileUtils.deleteQuietly(arrayFile);
+  }
+
+  private static void writeFlatFile(File file, int rows) throws Exception {
+    final Random random = new Random(7);
+    try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), UTF_8)) {
+      for (int i = 0; i < rows; i++) {
+        writer.append("{\"id\": ").append(Integer.toString(i));
+        // strings with escapes and multi-byte characters, or null
+        writer.append(", \"s\": ");
+        if (random.nextInt(10) == 0) {
+          writer.append("null");
+        } else {
+          writer.append('"');
+          for (int j = random.nextInt(30); j > 0; j--) {
+            writer.append(
+                new String[] {"x", " ", "é", "\\\"", "\\\\", "\\n", "\\u00e8", "{", ","}
+                    [random.nextInt(9)]);
+          }
+          writer.append('"');
+        }
+        writer.append(",\"L\":").append(Long.toString(random.nextLong() >> random.nextInt(64)));
+        writer.append(" , \"d\" :").append(Double.toString(random.nextGaussian() * 1e6));
+        if (random.nextBoolean()) {
+          writer.append(", \"b\": ").append(Boolean.toString(random.nextBoolean()));
+        }
+        // fields only found in a few documents, or not selected
+        if (random.nextInt(1000) == 0) {
+          writer.append(", \"rare\": \"r").append(Integer.toString(i)).append('"');
+        }
+        if (random.nextInt(100) == 0) {
+          writer.append(", \"m\": {\"x\": [1, 2]}");
+        }
+        writer.append('}').append(random.nextBoolean() ? "\n" : "\r\n\t ");
+      }
+    }
+  }
+
+  private static void writeNestedFile(File file, int rows) throws Exception {
+    final Random random = new Random(13);
+    try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), UTF_8)) {
+      for (int i = 0; i < rows; i++) {
+        writer.append("{\"id\": ").append(Integer.toString(i));
+        writer.append(", \"name\": \"n").append(Integer.toString(random.nextInt())).append('"');
+        writer.append(", \"tags\": [\"a\", \"b").append(Integer.toString(i % 7)).append("\"]");
+        writer.append(", \"address\": {\"zip\": ").append(Integer.toString(random.nextInt(99999)));
+        writer.append(", \"geo\": {\"lat\": ").append(Double.toString(random.nextDouble()));
+        writer.append("}}}\n");
+      }
+    }
+  }
+
+  private static String query(String file) {
+    return String.format("select * from %s.\"%s\"", TEMP_SCHEMA, file);
+  }
+
+  @Test
+  public void testFlat() throws Exception {
+    compare(query(FLAT_FILE));
+  }
+
+  @Test
+  public void testProjection() throws Exception {
+    compare(String.format("select L, s, rare from %s.\"%s\"", TEMP_SCHEMA, FLAT_FILE));
+  }
+
+  @Test
+  public void testNested() throws Exception {
+    compare(query(NESTED_FILE));
+  }
+
+  @Test
+  public void testTopLevelArray() throws Exception {
+    compare(query(ARRAY_FILE));
+  }
+
+  private static void compare(String query) throws Exception {
+    testBuilder()
+        .optionSettingQueriesForTestQuery(ENABLE)
+        .optionSettingQueriesForBaseline(DISABLE)
+        .unOrdered()
+        .sqlQuery(query)
+        .sqlBaselineQuery(query)
+        .go();
+  }
+}
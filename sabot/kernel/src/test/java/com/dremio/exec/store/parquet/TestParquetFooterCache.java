@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.FileMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+import org.junit.Test;
+
+/** Tests for {@link ParquetFooterCache} */
+public class TestParquetFooterCache {
+
+  private static final MessageType SCHEMA =
+      Types.buildMessage()
+          .required(PrimitiveTypeName.INT32)
+          .named("a")
+          .required(PrimitiveTypeName.INT64)
+          .named("b")
+          .named("test");
+
+  private static ParquetMetadata newFooter(int numRowGroups) {
+    final List<BlockMetaData> blocks = new ArrayList<>();
+    for (int i = 0; i < numRowGroups; i++) {
+      final BlockMetaData block = new BlockMetaData();
+      block.setRowCount(100);
+      blocks.add(block);
+    }
+    return new ParquetMetadata(new FileMetaData(SCHEMA, Collections.emptyMap(), "test"), blocks);
+  }
+
+  @Test
+  public void testHitsAndMisses() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024);
+    final AtomicInteger loads = new AtomicInteger();
+    final ParquetFooterCache.FooterLoader loader =
+        () -> {
+          loads.incrementAndGet();
+          return newFooter(4);
+        };
+
+    final ParquetFooterCache.FooterKey key = new ParquetFooterCache.FooterKey("/a", 100, 1);
+    assertEquals(4, cache.get(key, loader, null).getBlocks().size());
+    assertEquals(4, cache.get(key, loader, null).getBlocks().size());
+    assertEquals(1, loads.get());
+
+    // a new version of the file is a different entry
+    cache.get(new ParquetFooterCache.FooterKey("/a", 100, 2), loader, null);
+    cache.get(new ParquetFooterCache.FooterKey("/a", 200, 1), loader, null);
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  public void testCallersGetTheirOwnRowGroups() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024);
+    final ParquetFooterCache.FooterKey key = new ParquetFooterCache.FooterKey("/a", 100, 1);
+
+    final ParquetMetadata first = cache.get(key, () -> newFooter(4), null);
+    final ParquetMetadata second = cache.get(key, () -> newFooter(4), null);
+    assertNotSame(first.getBlocks(), second.getBlocks());
+
+    final MutableParquetMetadata mutable = new MutableParquetMetadata(first, "a");
+    assertEquals(4, mutable.removeUnusedRowGroups(Collections.emptySet()));
+    assertNull(first.getBlocks().get(0));
+    assertNotNull(second.getBlocks().get(0));
+    assertNotNull(cache.get(key, () -> newFooter(4), null).getBlocks().get(0));
+  }
+
+  @Test
+  public void testEvictionBySize() throws Exception {
+    final long footerSize = ParquetFooterCache.estimateSize(newFooter(16));
+    final ParquetFooterCache cache = new ParquetFooterCache(footerSize * 4);
+    for (int i = 0; i < 32; i++) {
+      cache.get(new ParquetFooterCache.FooterKey("/f" + i, 100, 1), () -> newFooter(16), null);
+    }
+    cache.getCache().cleanUp();
+    assertTrue(cache.getCache().estimatedSize() <= 4);
+  }
+
+  @Test
+  public void testEstimatedSizeGrowsWithRowGroups() {
+    assertTrue(
+        ParquetFooterCache.estimateSize(newFooter(10))
+            > ParquetFooterCache.estimateSize(newFooter(1)));
+  }
+}
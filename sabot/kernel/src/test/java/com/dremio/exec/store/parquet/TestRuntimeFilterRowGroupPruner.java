@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.dremio.exec.util.ValueListFilter;
+import com.dremio.exec.util.ValueListFilterBuilder;
+import com.dremio.test.AllocatorRule;
+import com.dremio.test.DremioTest;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.types.Types.MinorType;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.internal.column.columnindex.ColumnIndex;
+import org.apache.parquet.internal.column.columnindex.ColumnIndexBuilder;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/** Tests for {@link RuntimeFilterRowGroupPruner} */
+public class TestRuntimeFilterRowGroupPruner extends DremioTest {
+  private static final PrimitiveType INT32 = Types.optional(PrimitiveTypeName.INT32).named("a");
+  private static final PrimitiveType INT64 = Types.optional(PrimitiveTypeName.INT64).named("a");
+
+  @Rule public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BufferAllocator allocator;
+
+  @Before
+  public void setup() {
+    allocator = allocatorRule.newAllocator("test-runtime-filter-pruner", 0, Long.MAX_VALUE);
+  }
+
+  @After
+  public void cleanup() {
+    allocator.close();
+  }
+
+  @Test
+  public void testRowGroupStatistics() throws Exception {
+    try (ValueListFilter filter = intFilter(false, 1, 50, 100)) {
+      assertTrue(RuntimeFilterRowGroupPruner.isSupported(filter, INT32));
+      assertTrue(RuntimeFilterRowGroupPruner.canSkip(filter, intStats(2, 49, 0), 100));
+      assertTrue(RuntimeFilterRowGroupPruner.canSkip(filter, intStats(101, 200, 3), 100));
+      assertTrue(RuntimeFilterRowGroupPruner.canSkip(filter, intStats(-10, 0, 0), 100));
+      assertFalse(RuntimeFilterRowGroupPruner.canSkip(filter, intStats(40, 60, 0), 100));
+      assertFalse(RuntimeFilterRowGroupPruner.canSkip(filter, intStats(100, 100, 0), 100));
+      assertFalse(RuntimeFilterRowGroupPruner.canSkip(filter, intStats(-5, 1, 0), 100));
+      // no min and max, and not only nulls
+      assertFalse(RuntimeFilterRowGroupPruner.canSkip(filter, Statistics.createStats(INT32), 100));
+
+      final Statistics<?> onlyNulls = Statistics.createStats(INT32);
+      onlyNulls.incrementNumNulls(10);
+      assertTrue(RuntimeFilterRowGroupPruner.canSkip(filter, onlyNulls, 10));
+      assertFalse(RuntimeFilterRowGroupPruner.canSkip(filter, onlyNulls, 20));
+    }
+  }
+
+  @Test
+  public void testNullsInFilter() throws Exception {
+    try (ValueListFilter filter = intFilter(true, 1, 50, 100)) {
+      assertTrue(RuntimeFilterRowGroupPruner.canSkip(filter, intStats(2, 49, 0), 100));
+      assertFalse(RuntimeFilterRowGroupPruner.canSkip(filter, intStats(2, 49, 1), 100));
+
+      final Statistics<?> onlyNulls = Statistics.createStats(INT32);
+      onlyNulls.incrementNumNulls(10);
+      assertFalse(RuntimeFilterRowGroupPruner.canSkip(filter, onlyNulls, 10));
+    }
+  }
+
+  @Test
+  public void testBigIntFilter() throws Exception {
+    try (ValueListFilter filter = bigIntFilter(-(1L << 40), 7, 1L << 40)) {
+      assertTrue(RuntimeFilterRowGroupPruner.isSupported(filter, INT64));
+      final Statistics<?> stats = Statistics.createStats(INT64);
+      stats.updateStats(8L);
+      stats.updateStats(1L << 39);
+      assertTrue(RuntimeFilterRowGroupPruner.canSkip(filter, stats, 100));
+      stats.updateStats(1L << 41);
+      assertFalse(RuntimeFilterRowGroupPruner.canSkip(filter, stats, 100));
+    }
+  }
+
+  @Test
+  public void testPageIndex() throws Exception {
+    try (ValueListFilter filter = intFilter(false, 15, 50)) {
+      final ColumnIndexBuilder builder = ColumnIndexBuilder.getBuilder(INT32, Integer.MAX_VALUE);
+      builder.add(intStats(0, 10, 0));
+      builder.add(intStats(20, 30, 2));
+      builder.add(intStats(60, 70, 0));
+      final Statistics<?> nullPage = Statistics.createStats(INT32);
+      nullPage.incrementNumNulls(5);
+      builder.add(nullPage);
+      final ColumnIndex skippable = builder.build();
+      assertTrue(RuntimeFilterRowGroupPruner.canSkipAllPages(filter, INT32, skippable));
+
+      builder.add(intStats(45, 55, 0));
+      final ColumnIndex notSkippable = builder.build();
+      assertFalse(RuntimeFilterRowGroupPruner.canSkipAllPages(filter, INT32, notSkippable));
+    }
+  }
+
+  @Test
+  public void testUnsupportedTypes() throws Exception {
+    try (ValueListFilter filter = intFilter(false, 1, 2)) {
+      assertFalse(
+          RuntimeFilterRowGroupPruner.isSupported(
+              filter,
+              Types.optional(PrimitiveTypeName.INT32)
+                  .as(LogicalTypeAnnotation.dateType())
+                  .named("d")));
+      assertFalse(
+          RuntimeFilterRowGroupPruner.isSupported(
+              filter,
+              Types.optional(PrimitiveTypeName.INT32)
+                  .as(LogicalTypeAnnotation.intType(32, false))
+                  .named("u")));
+      assertFalse(
+          RuntimeFilterRowGroupPruner.isSupported(
+              filter, Types.optional(PrimitiveTypeName.BINARY).named("s")));
+    }
+  }
+
+  private static Statistics<?> intStats(int min, int max, int nulls) {
+    final Statistics<?> stats = Statistics.createStats(INT32);
+    stats.updateStats(min);
+    stats.updateStats(max);
+    stats.incrementNumNulls(nulls);
+    return stats;
+  }
+
+  private ValueListFilter intFilter(boolean containsNull, int... values) throws Exception {
+    try (ValueListFilterBuilder builder =
+            new ValueListFilterBuilder(allocator, values.length, (byte) 4, false);
+        ArrowBuf keyBuf = allocator.buffer(4)) {
+      builder.setup();
+      builder.setName("Test").setFieldType(MinorType.INT, (byte) 0, (byte) 0).setFieldName("a");
+      for (int value : values) {
+        keyBuf.setInt(0, value);
+        builder.insert(keyBuf);
+      }
+      if (containsNull) {
+        builder.insertNull();
+      }
+      return builder.build();
+    }
+  }
+
+  private ValueListFilter bigIntFilter(long... values) throws Exception {
+    try (ValueListFilterBuilder builder =
+            new ValueListFilterBuilder(allocator, values.length, (byte) 8, false);
+        ArrowBuf keyBuf = allocator.buffer(8)) {
+      builder.setup();
+      builder.setName("Test").setFieldType(MinorType.BIGINT, (byte) 0, (byte) 0).setFieldName("a");
+      for (long value : values) {
+        keyBuf.setLong(0, value);
+        builder.insert(keyBuf);
+      }
+      return builder.build();
+    }
+  }
+}
@@ -62,6 +62,7 @@ import com.dremio.exec.physical.config.Screen;
 import com.dremio.exec.physical.config.UnionAll;
 import com.dremio.exec.planner.fragment.EndpointsIndex;
 import com.dremio.exec.planner.physical.PlannerSettings;
+import com.dremio.exec.proto.CoordExecRPC.MajorFragmentAssignment;
 import com.dremio.exec.proto.CoordExecRPC.QueryContextInformation;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
@@ -323,6 +324,47 @@ public class BaseTestOperator extends ExecTest {
       TunnelProvider tunnelProvider,
       final RawFragmentBatchProvider[]... batchProviders)
       throws Exception {
+    return newOperatorWithStats(
+        clazz,
+        pop,
+        targetBatchSize,
+        endpointsIndex,
+        ImmutableList.of(),
+        tunnelProvider,
+        batchProviders);
+  }
+
+  /**
+   * Creates an operator whose context knows the assignments of other major fragments, for the
+   * operators sending OOB messages to them.
+   */
+  protected <T extends Operator> T newOperator(
+      Class<T> clazz,
+      PhysicalOperator pop,
+      int targetBatchSize,
+      final EndpointsIndex endpointsIndex,
+      List<MajorFragmentAssignment> extMajorFragmentAssignments,
+      TunnelProvider tunnelProvider)
+      throws Exception {
+    return newOperatorWithStats(
+            clazz,
+            pop,
+            targetBatchSize,
+            endpointsIndex,
+            extMajorFragmentAssignments,
+            tunnelProvider)
+        .first;
+  }
+
+  private <T extends Operator> Pair<T, OperatorStats> newOperatorWithStats(
+      Class<T> clazz,
+      PhysicalOperator pop,
+      int targetBatchSize,
+      final EndpointsIndex endpointsIndex,
+      List<MajorFragmentAssignment> extMajorFragmentAssignments,
+      TunnelProvider tunnelProvider,
+      final RawFragmentBatchProvider[]... batchProviders)
+      throws Exception {
 
     final BatchStreamProvider provider =
         new BatchStreamProvider() {
@@ -357,7 +399,8 @@ public class BaseTestOperator extends ExecTest {
 
     // we don't close child allocator as the operator context will manage this.
     final OperatorContextImpl context =
-        testContext.getNewOperatorContext(childAllocator, pop, targetBatchSize, endpointsIndex);
+        testContext.getNewOperatorContext(
+            childAllocator, pop, targetBatchSize, endpointsIndex, extMajorFragmentAssignments);
     testCloseables.add(context);
 
     CreatorVisitor visitor = new CreatorVisitor(fec, provider, tunnelProvider);
@@ -469,6 +512,16 @@ public class BaseTestOperator extends ExecTest {
         int targetBatchSize,
         EndpointsIndex endpointsIndex)
         throws Exception {
+      return getNewOperatorContext(child, pop, targetBatchSize, endpointsIndex, ImmutableList.of());
+    }
+
+    public OperatorContextImpl getNewOperatorContext(
+        BufferAllocator child,
+        PhysicalOperator pop,
+        int targetBatchSize,
+        EndpointsIndex endpointsIndex,
+        List<MajorFragmentAssignment> extMajorFragmentAssignments)
+        throws Exception {
 
       OperatorStats stats = new OperatorStats(new OpProfileDef(1, 1, 1), child);
       final DremioConfig dremioConfig = DremioConfig.create(null, config);
@@ -503,7 +556,7 @@ public class BaseTestOperator extends ExecTest {
           targetBatchSize,
           Mockito.mock(TunnelProvider.class),
           ImmutableList.of(),
-          ImmutableList.of(),
+          extMajorFragmentAssignments,
           null,
           endpointsIndex,
           null,
@@ -441,6 +441,17 @@ public class ITSpillingHashAgg extends BaseTestOperator {
         Fixtures.Table table = generator.getExpectedGroupsAndAggregations();
         validateSingle(agg, VectorizedHashAggOperator.class, generator, table, 3000);
       }
+      /* run with several threads inserting into the partitions */
+      try (CustomHashAggDataGenerator generator =
+              new CustomHashAggDataGenerator(3000, getTestAllocator(), true);
+          AutoCloseable options =
+              with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_PARALLEL_WORKERS, 4);
+          AutoCloseable options2 =
+              with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_PARALLEL_MIN_RECORDS, 1)) {
+        Fixtures.Table table = generator.getExpectedGroupsAndAggregations();
+        validateSingle(agg, VectorizedHashAggOperator.class, generator, table, 3000);
+        assertTrue(agg.getSpillStats().getSpills() > 0);
+      }
     }
   }
 
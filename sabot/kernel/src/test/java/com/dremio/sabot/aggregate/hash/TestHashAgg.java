@@ -87,6 +87,25 @@ public class TestHashAgg extends BaseTestOperator {
       }
     }
 
+    /* test with vectorized hashagg operator inserting and accumulating with several threads */
+    try (AutoCloseable options1 =
+            with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_USE_SPILLING_OPERATOR, true);
+        AutoCloseable options2 =
+            with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_PARALLEL_WORKERS, 4);
+        AutoCloseable options3 =
+            with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_PARALLEL_MIN_RECORDS, 1)) {
+      HashAggregate vectorizedConf =
+          new HashAggregate(
+              OpProps.prototype(),
+              conf.getChild(),
+              conf.getGroupByExprs(),
+              conf.getAggrExprs(),
+              true,
+              true,
+              conf.getCardinality());
+      validateSingle(vectorizedConf, VectorizedHashAggOperator.class, table, scale, expectedResult);
+    }
+
     /* test with old vectorized hashagg operator -- that does not support spilling */
     try (AutoCloseable options =
         with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_USE_SPILLING_OPERATOR, false)) {
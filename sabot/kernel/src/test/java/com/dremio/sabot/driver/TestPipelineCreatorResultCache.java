@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.physical.base.OpProps;
+import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.physical.config.EmptyValues;
+import com.dremio.exec.physical.config.FragmentResultCachePOP;
+import com.dremio.exec.physical.config.Screen;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.exec.context.SharedResourcesContext;
+import com.dremio.sabot.exec.fragment.FragmentExecutionContext;
+import com.dremio.sabot.exec.rpc.TunnelProvider;
+import com.dremio.sabot.op.receiver.IncomingBuffers;
+import com.dremio.sabot.op.resultcache.FragmentResultCache;
+import com.dremio.sabot.op.resultcache.FragmentResultCacheKeys;
+import com.dremio.sabot.op.spi.ProducerOperator;
+import com.dremio.sabot.op.spi.TerminalOperator;
+import com.dremio.test.DremioTest;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+/** Tests the fragment result cache hit and miss paths of {@link PipelineCreator} */
+public class TestPipelineCreatorResultCache extends DremioTest {
+  private static final String KEY = "key";
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final OperatorCreator creator = mock(OperatorCreator.class);
+  private final OperatorContext.Creator contextCreator = mock(OperatorContext.Creator.class);
+  private final OptionManager options = mock(OptionManager.class);
+  private final FragmentResultCacheKeys keys = mock(FragmentResultCacheKeys.class);
+
+  private final EmptyValues values =
+      new EmptyValues(
+          OpProps.prototype(OpProps.buildOperatorId(1, 1), 0, Long.MAX_VALUE), BatchSchema.EMPTY);
+  private final Screen screen =
+      new Screen(OpProps.prototype(OpProps.buildOperatorId(1, 0), 0, Long.MAX_VALUE), values);
+
+  private FragmentResultCache cache;
+
+  @Before
+  public void setup() throws Exception {
+    cache = new FragmentResultCache(temporaryFolder.newFolder().toPath(), () -> Long.MAX_VALUE);
+
+    final OperatorContext context = mock(OperatorContext.class);
+    when(context.getOptions()).thenReturn(options);
+    when(context.getStats()).thenReturn(mock(OperatorStats.class));
+    when(contextCreator.newOperatorContext(any())).thenReturn(context);
+    when(options.getOption(ExecConstants.FRAGMENT_RESULT_CACHE_ENABLED)).thenReturn(true);
+    when(creator.getTerminalOperator(any(), any(), any())).thenReturn(mock(TerminalOperator.class));
+    when(creator.getProducerOperator(any(), any(), any())).thenReturn(mock(ProducerOperator.class));
+    when(keys.getKey(values)).thenReturn(KEY);
+  }
+
+  @Test
+  public void testMiss() throws Exception {
+    try (Pipeline pipeline = newPipeline()) {
+      verify(creator, times(1)).getProducerOperator(any(), any(), any());
+      final List<FragmentResultCachePOP> cacheOperators = cacheOperators();
+      assertEquals(1, cacheOperators.size());
+      // the writer gets a new operator id in the fragment
+      assertEquals(2, cacheOperators.get(0).getProps().getLocalOperatorId());
+      assertEquals(1, cache.getMisses());
+    }
+  }
+
+  @Test
+  public void testHit() throws Exception {
+    try (FragmentResultCache.Writer writer = cache.newWriter(KEY, Long.MAX_VALUE)) {
+      writer.getOutputStream().write(new byte[10]);
+      assertTrue(writer.commit());
+    }
+
+    try (Pipeline pipeline = newPipeline()) {
+      // the input of the screen is read from the cache instead of being computed
+      verify(creator, never()).getProducerOperator(any(), any(), any());
+      final List<FragmentResultCachePOP> cacheOperators = cacheOperators();
+      assertEquals(1, cacheOperators.size());
+      assertEquals(
+          values.getProps().getOperatorId(), cacheOperators.get(0).getProps().getOperatorId());
+      assertEquals(1, cache.getHits());
+    }
+  }
+
+  @Test
+  public void testNotCacheable() throws Exception {
+    when(keys.getKey(values)).thenReturn(null);
+    try (Pipeline pipeline = newPipeline()) {
+      verify(creator, times(1)).getProducerOperator(any(), any(), any());
+      assertTrue(cacheOperators().isEmpty());
+      assertEquals(0, cache.getMisses());
+    }
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    when(options.getOption(ExecConstants.FRAGMENT_RESULT_CACHE_ENABLED)).thenReturn(false);
+    try (Pipeline pipeline = newPipeline()) {
+      verify(creator, times(1)).getProducerOperator(any(), any(), any());
+      assertTrue(cacheOperators().isEmpty());
+      verify(keys, never()).getKey(any());
+    }
+  }
+
+  private Pipeline newPipeline() throws Exception {
+    return PipelineCreator.get(
+        mock(FragmentExecutionContext.class),
+        mock(IncomingBuffers.class),
+        creator,
+        contextCreator,
+        null,
+        screen,
+        mock(TunnelProvider.class),
+        mock(SharedResourcesContext.class),
+        cache,
+        keys);
+  }
+
+  private List<FragmentResultCachePOP> cacheOperators() throws Exception {
+    final ArgumentCaptor<PhysicalOperator> configs =
+        ArgumentCaptor.forClass(PhysicalOperator.class);
+    verify(contextCreator, atLeastOnce()).newOperatorContext(configs.capture());
+    return configs.getAllValues().stream()
+        .filter(FragmentResultCachePOP.class::isInstance)
+        .map(FragmentResultCachePOP.class::cast)
+        .collect(Collectors.toList());
+  }
+}
@@ -164,6 +164,8 @@ public class TestFragmentExecutor {
         exception,
         eventProvider,
         spillService,
-        nodeDebugContextProvider);
+        nodeDebugContextProvider,
+        null,
+        null);
   }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.compression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/** Tests for {@link AdaptiveCompressionPolicy} */
+public class TestAdaptiveCompressionPolicy {
+
+  @Test
+  public void testSmallBuffersNotCompressed() {
+    final AdaptiveCompressionPolicy policy = new AdaptiveCompressionPolicy();
+    assertFalse(policy.shouldCompress(0, 1023));
+    assertTrue(policy.shouldCompress(0, 1024));
+    assertEquals(0, policy.getBypassedBuffers());
+  }
+
+  @Test
+  public void testBypassSlot() {
+    final AdaptiveCompressionPolicy policy = new AdaptiveCompressionPolicy();
+    assertTrue(policy.shouldCompress(3, 4096));
+    assertFalse(policy.compressed(3, 4096, 4000));
+
+    for (int i = 0; i < 32; i++) {
+      assertFalse(policy.shouldCompress(3, 4096));
+      // other slots are not affected
+      assertTrue(policy.shouldCompress(0, 4096));
+      assertTrue(policy.compressed(0, 4096, 100));
+    }
+    assertEquals(32, policy.getBypassedBuffers());
+    assertTrue(policy.shouldCompress(3, 4096));
+  }
+
+  @Test
+  public void testWorthCompressing() {
+    assertTrue(AdaptiveCompressionPolicy.isWorthCompressing(1000, 900));
+    assertFalse(AdaptiveCompressionPolicy.isWorthCompressing(1000, 901));
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.ht2;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.dremio.test.AllocatorRule;
+import com.dremio.test.DremioTest;
+import com.koloboke.collect.hash.HashConfig;
+import java.util.BitSet;
+import java.util.Random;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Checks that the batched hash and probe path of {@link LBlockHashTable} matches the scalar one.
+ */
+public class TestBatchedProbe extends DremioTest {
+  private static final int BUILD_RECORDS = 5000;
+  private static final int PROBE_RECORDS = 4000;
+  private static final int MAX_VALUES_PER_BATCH = 1024;
+
+  @Rule public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  @Test
+  public void testFixedWidthHashes() {
+    final Random random = new Random(1234);
+    try (BufferAllocator allocator = allocatorRule.newAllocator("test-batched-probe", 0, 1 << 20);
+        ArrowBuf keys = allocator.buffer(16)) {
+      for (int i = 0; i < 1000; i++) {
+        final long key1 = random.nextLong();
+        final long key2 = random.nextLong();
+        final long seed = i % 2 == 0 ? 0 : random.nextLong();
+        keys.setLong(0, key1);
+        keys.setLong(8, key2);
+        assertEquals(
+            XXH64.xxHash64(keys.memoryAddress(), 8, seed), XXH64.xxHash64Fixed8(key1, seed));
+        assertEquals(
+            XXH64.xxHash64(keys.memoryAddress(), 16, seed),
+            XXH64.xxHash64Fixed16(key1, key2, seed));
+      }
+    }
+  }
+
+  @Test
+  public void testEightByteKeys() throws Exception {
+    try (BufferAllocator allocator =
+            allocatorRule.newAllocator("test-batched-probe", 0, Long.MAX_VALUE);
+        IntVector buildInts = new IntVector("build", allocator);
+        IntVector probeInts = new IntVector("probe", allocator)) {
+      fillInts(buildInts, BUILD_RECORDS, new Random(1), 0);
+      fillInts(probeInts, PROBE_RECORDS, new Random(2), 7);
+      final PivotDef buildPivot = pivot(buildInts);
+      final PivotDef probePivot = pivot(probeInts);
+      assertEquals(8, buildPivot.getBlockWidth());
+      compare(allocator, buildPivot, probePivot, BUILD_RECORDS, PROBE_RECORDS);
+    }
+  }
+
+  @Test
+  public void testSixteenByteKeys() throws Exception {
+    try (BufferAllocator allocator =
+            allocatorRule.newAllocator("test-batched-probe", 0, Long.MAX_VALUE);
+        BigIntVector buildLongs = new BigIntVector("build1", allocator);
+        IntVector buildInts = new IntVector("build2", allocator);
+        BigIntVector probeLongs = new BigIntVector("probe1", allocator);
+        IntVector probeInts = new IntVector("probe2", allocator)) {
+      fillLongs(buildLongs, BUILD_RECORDS, new Random(1), 0);
+      fillInts(buildInts, BUILD_RECORDS, new Random(3), 0);
+      fillLongs(probeLongs, PROBE_RECORDS, new Random(2), 5);
+      fillInts(probeInts, PROBE_RECORDS, new Random(4), 11);
+      final PivotDef buildPivot = pivot(buildLongs, buildInts);
+      final PivotDef probePivot = pivot(probeLongs, probeInts);
+      assertEquals(16, buildPivot.getBlockWidth());
+      compare(allocator, buildPivot, probePivot, BUILD_RECORDS, PROBE_RECORDS);
+    }
+  }
+
+  private void compare(
+      BufferAllocator allocator,
+      PivotDef buildPivot,
+      PivotDef probePivot,
+      int buildRecords,
+      int probeRecords)
+      throws Exception {
+    final BitSet requiredBits = new BitSet();
+    for (VectorPivotDef def : probePivot.getFixedPivots()) {
+      requiredBits.set(def.getNullBitOffset());
+    }
+
+    for (NullComparator comparator :
+        new NullComparator[] {null, new NullComparator(requiredBits, probePivot.getBitCount())}) {
+      try (FixedBlockVector buildKeys =
+              new FixedBlockVector(allocator, buildPivot.getBlockWidth());
+          FixedBlockVector probeKeys = new FixedBlockVector(allocator, probePivot.getBlockWidth());
+          VariableBlockVector buildVar = new VariableBlockVector(allocator, 0);
+          VariableBlockVector probeVar = new VariableBlockVector(allocator, 0);
+          LBlockHashTable scalar = newTable(allocator, buildPivot, comparator, false);
+          LBlockHashTable batched = newTable(allocator, buildPivot, comparator, true);
+          ArrowBuf scalarHashes = allocator.buffer(buildRecords * 8L);
+          ArrowBuf batchedHashes = allocator.buffer(buildRecords * 8L);
+          ArrowBuf scalarOrdinals = allocator.buffer(buildRecords * 4L);
+          ArrowBuf batchedOrdinals = allocator.buffer(buildRecords * 4L)) {
+        Pivots.pivot(buildPivot, buildRecords, buildKeys, buildVar);
+        Pivots.pivot(probePivot, probeRecords, probeKeys, probeVar);
+
+        scalar.computeHash(buildRecords, buildKeys.getBuf(), null, 0, scalarHashes);
+        batched.computeHash(buildRecords, buildKeys.getBuf(), null, 0, batchedHashes);
+        assertArrayEquals(longs(scalarHashes, buildRecords), longs(batchedHashes, buildRecords));
+
+        assertEquals(
+            buildRecords,
+            scalar.add(buildRecords, buildKeys.getBuf(), null, scalarHashes, scalarOrdinals));
+        assertEquals(
+            buildRecords,
+            batched.add(buildRecords, buildKeys.getBuf(), null, batchedHashes, batchedOrdinals));
+        assertEquals(scalar.size(), batched.size());
+
+        scalar.computeHash(probeRecords, probeKeys.getBuf(), null, 0, scalarHashes);
+        batched.computeHash(probeRecords, probeKeys.getBuf(), null, 0, batchedHashes);
+        assertArrayEquals(longs(scalarHashes, probeRecords), longs(batchedHashes, probeRecords));
+
+        scalar.find(probeRecords, probeKeys.getBuf(), null, scalarHashes, scalarOrdinals);
+        batched.find(probeRecords, probeKeys.getBuf(), null, batchedHashes, batchedOrdinals);
+        assertArrayEquals(ints(scalarOrdinals, probeRecords), ints(batchedOrdinals, probeRecords));
+      }
+    }
+  }
+
+  private static LBlockHashTable newTable(
+      BufferAllocator allocator, PivotDef pivot, NullComparator comparator, boolean batched) {
+    // start small, so that the table is rehashed while inserting
+    return new LBlockHashTable(
+        HashConfig.getDefault(),
+        pivot,
+        allocator,
+        16,
+        10,
+        false,
+        MAX_VALUES_PER_BATCH,
+        comparator,
+        batched);
+  }
+
+  private static PivotDef pivot(FieldVector... vectors) {
+    final FieldVectorPair[] pairs = new FieldVectorPair[vectors.length];
+    for (int i = 0; i < vectors.length; i++) {
+      pairs[i] = new FieldVectorPair(vectors[i], vectors[i]);
+    }
+    return PivotBuilder.getBlockDefinition(pairs);
+  }
+
+  // values are drawn from a small range so that keys repeat, and every nullInterval-th one is null
+  private static void fillInts(IntVector vector, int count, Random random, int nullInterval) {
+    vector.allocateNew(count);
+    for (int i = 0; i < count; i++) {
+      if (nullInterval > 0 && i % nullInterval == 0) {
+        vector.setNull(i);
+      } else {
+        vector.set(i, random.nextInt(3000));
+      }
+    }
+    vector.setValueCount(count);
+  }
+
+  private static void fillLongs(BigIntVector vector, int count, Random random, int nullInterval) {
+    vector.allocateNew(count);
+    for (int i = 0; i < count; i++) {
+      if (nullInterval > 0 && i % nullInterval == 0) {
+        vector.setNull(i);
+      } else {
+        vector.set(i, random.nextInt(3) * (1L << 40));
+      }
+    }
+    vector.setValueCount(count);
+  }
+
+  private static long[] longs(ArrowBuf buf, int count) {
+    final long[] values = new long[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = buf.getLong(i * 8L);
+    }
+    return values;
+  }
+
+  private static int[] ints(ArrowBuf buf, int count) {
+    final int[] values = new int[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = buf.getInt(i * 4L);
+    }
+    return values;
+  }
+}
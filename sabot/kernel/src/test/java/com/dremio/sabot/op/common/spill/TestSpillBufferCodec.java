@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.spill;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.dremio.test.AllocatorRule;
+import com.dremio.test.DremioTest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/** Tests for {@link SpillBufferCodec} */
+public class TestSpillBufferCodec extends DremioTest {
+  @Rule public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BufferAllocator allocator;
+
+  @Before
+  public void setup() {
+    allocator = allocatorRule.newAllocator("test-spill-buffer-codec", 0, Long.MAX_VALUE);
+  }
+
+  @After
+  public void cleanup() {
+    allocator.close();
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    final Random random = new Random(1);
+    final byte[][] buffers = {
+      new byte[0],
+      compressible(100),
+      compressible(64 * 1024),
+      random(random, 64 * 1024),
+      new byte[7]
+    };
+
+    final SpillBufferCodec codec = new SpillBufferCodec();
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    for (int i = 0; i < buffers.length; i++) {
+      try (ArrowBuf buf = toArrowBuf(buffers[i])) {
+        codec.write(buf, buffers[i].length, i, output);
+      }
+    }
+    assertEquals(output.size(), codec.getStoredBytes());
+    assertEquals(100 + 64 * 1024 + 64 * 1024 + 7, codec.getRawBytes());
+    // the compressible buffer is much smaller, the random one is stored as is
+    assertTrue(codec.getStoredBytes() < 64 * 1024 + 16 * 1024);
+
+    final InputStream input = new ByteArrayInputStream(output.toByteArray());
+    for (byte[] expected : buffers) {
+      try (ArrowBuf buf = allocator.buffer(expected.length)) {
+        buf.writerIndex(0);
+        codec.read(buf, expected.length, input);
+        assertEquals(expected.length, buf.writerIndex());
+        final byte[] actual = new byte[expected.length];
+        buf.getBytes(0, actual);
+        assertArrayEquals(expected, actual);
+      }
+    }
+    assertEquals(-1, input.read());
+  }
+
+  @Test
+  public void testBypassIncompressibleSlot() throws Exception {
+    final Random random = new Random(2);
+    final SpillBufferCodec codec = new SpillBufferCodec();
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    for (int i = 0; i < 10; i++) {
+      try (ArrowBuf incompressible = toArrowBuf(random(random, 4096));
+          ArrowBuf compressible = toArrowBuf(compressible(4096))) {
+        codec.write(incompressible, 4096, 0, output);
+        codec.write(compressible, 4096, 1, output);
+      }
+    }
+    // only the first incompressible buffer was compressed, the compressible slot is not affected
+    assertEquals(9, codec.getBypassedBuffers());
+    assertTrue(codec.getStoredBytes() < 11 * 4096);
+  }
+
+  @Test(expected = EOFException.class)
+  public void testTruncatedStream() throws Exception {
+    final SpillBufferCodec codec = new SpillBufferCodec();
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (ArrowBuf buf = toArrowBuf(compressible(8192))) {
+      codec.write(buf, 8192, 0, output);
+    }
+    final byte[] truncated = Arrays.copyOf(output.toByteArray(), output.size() - 1);
+    try (ArrowBuf buf = allocator.buffer(8192)) {
+      buf.writerIndex(0);
+      codec.read(buf, 8192, new ByteArrayInputStream(truncated));
+    }
+  }
+
+  private ArrowBuf toArrowBuf(byte[] bytes) {
+    final ArrowBuf buf = allocator.buffer(bytes.length);
+    buf.setBytes(0, bytes);
+    buf.writerIndex(bytes.length);
+    return buf;
+  }
+
+  private static byte[] compressible(int length) {
+    final byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = (byte) (i % 16);
+    }
+    return bytes;
+  }
+
+  private static byte[] random(Random random, int length) {
+    final byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+}
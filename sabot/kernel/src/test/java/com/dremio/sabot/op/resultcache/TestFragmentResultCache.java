@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.resultcache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.dremio.test.DremioTest;
+import com.google.common.io.ByteStreams;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestFragmentResultCache extends DremioTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final AtomicLong maxSize = new AtomicLong(100);
+  private Path directory;
+  private FragmentResultCache cache;
+
+  @Before
+  public void setup() throws Exception {
+    directory = temporaryFolder.newFolder().toPath();
+    cache = new FragmentResultCache(directory, maxSize::get);
+  }
+
+  @Test
+  public void testCommitAndLookup() throws Exception {
+    assertNull(cache.lookup("a"));
+    assertTrue(put("a", 10));
+
+    try (InputStream input = cache.lookup("a")) {
+      assertArrayEquals(bytes(10), ByteStreams.toByteArray(input));
+    }
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(10, cache.getCachedBytes());
+  }
+
+  @Test
+  public void testAbort() throws Exception {
+    try (FragmentResultCache.Writer writer = cache.newWriter("a", 100)) {
+      writer.getOutputStream().write(bytes(10));
+      writer.abort();
+    }
+    assertNull(cache.lookup("a"));
+    assertEquals(0, cache.getCachedBytes());
+    assertEquals(0, fileCount());
+  }
+
+  @Test
+  public void testCloseWithoutCommit() throws Exception {
+    try (FragmentResultCache.Writer writer = cache.newWriter("a", 100)) {
+      writer.getOutputStream().write(bytes(10));
+    }
+    assertNull(cache.lookup("a"));
+    assertEquals(0, fileCount());
+  }
+
+  @Test
+  public void testOverEntryLimit() throws Exception {
+    try (FragmentResultCache.Writer writer = cache.newWriter("a", 5)) {
+      writer.getOutputStream().write(bytes(10));
+      assertTrue(writer.isOverLimit());
+      assertFalse(writer.commit());
+    }
+    assertNull(cache.lookup("a"));
+    assertEquals(0, fileCount());
+  }
+
+  @Test
+  public void testEvictLeastRecentlyUsed() throws Exception {
+    assertTrue(put("a", 40));
+    assertTrue(put("b", 40));
+    // a is now the most recently used
+    cache.lookup("a").close();
+
+    assertTrue(put("c", 40));
+    assertNull(cache.lookup("b"));
+    cache.lookup("a").close();
+    cache.lookup("c").close();
+    assertEquals(1, cache.getEvictions());
+    assertEquals(80, cache.getCachedBytes());
+    assertEquals(2, fileCount());
+  }
+
+  @Test
+  public void testEntryLargerThanCache() throws Exception {
+    assertTrue(put("a", 40));
+    assertFalse(put("b", 200));
+    assertNull(cache.lookup("a"));
+    assertNull(cache.lookup("b"));
+    assertEquals(0, cache.getCachedBytes());
+    assertEquals(0, fileCount());
+  }
+
+  @Test
+  public void testConcurrentWritersOfSameKey() throws Exception {
+    try (FragmentResultCache.Writer first = cache.newWriter("a", 100);
+        FragmentResultCache.Writer second = cache.newWriter("a", 100)) {
+      first.getOutputStream().write(bytes(10));
+      second.getOutputStream().write(bytes(10));
+      assertTrue(first.commit());
+      assertFalse(second.commit());
+    }
+    assertEquals(10, cache.getCachedBytes());
+    assertEquals(1, fileCount());
+  }
+
+  @Test
+  public void testStaleFilesDeleted() throws Exception {
+    Files.write(directory.resolve("result-stale"), bytes(10));
+    Files.write(directory.resolve(".tmp-result-1234-stale"), bytes(10));
+    assertNull(cache.lookup("stale"));
+    assertEquals(0, fileCount());
+  }
+
+  @Test
+  public void testOtherFilesKept() throws Exception {
+    Files.write(directory.resolve("other"), bytes(10));
+    Files.createDirectory(directory.resolve("result-dir"));
+    assertNull(cache.lookup("other"));
+    assertTrue(Files.exists(directory.resolve("other")));
+    assertTrue(Files.isDirectory(directory.resolve("result-dir")));
+  }
+
+  private boolean put(String key, int size) throws Exception {
+    try (FragmentResultCache.Writer writer = cache.newWriter(key, Long.MAX_VALUE)) {
+      writer.getOutputStream().write(bytes(size));
+      return writer.commit();
+    }
+  }
+
+  private long fileCount() throws Exception {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  private static byte[] bytes(int size) {
+    final byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) i;
+    }
+    return bytes;
+  }
+}
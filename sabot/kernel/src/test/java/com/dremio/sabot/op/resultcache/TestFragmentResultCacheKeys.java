@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.resultcache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.dremio.common.expression.FieldReference;
+import com.dremio.common.expression.FunctionCall;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.logical.data.NamedExpression;
+import com.dremio.exec.expr.fn.AbstractFunctionHolder;
+import com.dremio.exec.expr.fn.BaseFunctionHolder;
+import com.dremio.exec.expr.fn.FunctionImplementationRegistry;
+import com.dremio.exec.physical.base.OpProps;
+import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.physical.base.SubScan;
+import com.dremio.exec.physical.config.Filter;
+import com.dremio.exec.physical.config.Project;
+import com.dremio.exec.planner.PhysicalPlanReader;
+import com.dremio.exec.proto.CoordExecRPC.FragmentCodec;
+import com.dremio.exec.store.SplitAndPartitionInfo;
+import com.dremio.exec.store.parquet.ParquetSubScan;
+import com.dremio.sabot.exec.store.parquet.proto.ParquetProtobuf.ParquetDatasetSplitScanXAttr;
+import com.dremio.service.namespace.dataset.proto.PartitionProtobuf.NormalizedDatasetSplitInfo;
+import com.dremio.service.namespace.dataset.proto.PartitionProtobuf.NormalizedPartitionInfo;
+import com.dremio.test.DremioTest;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestFragmentResultCacheKeys extends DremioTest {
+  private static final OpProps PROPS = OpProps.prototype(1, 0, Long.MAX_VALUE);
+
+  private final ArrayListMultimap<String, AbstractFunctionHolder> registeredFunctions =
+      ArrayListMultimap.create();
+  private FragmentResultCacheKeys keys;
+
+  @Before
+  public void setup() throws Exception {
+    final PhysicalPlanReader planReader = mock(PhysicalPlanReader.class);
+    when(planReader.writeJsonBytes(any(PhysicalOperator.class), any(FragmentCodec.class)))
+        .thenReturn(ByteString.copyFromUtf8("{\"pop\":\"project\",\"props\":{\"operatorId\":1}}"));
+    final FunctionImplementationRegistry functions = mock(FunctionImplementationRegistry.class);
+    when(functions.getRegisteredFunctions()).thenReturn(registeredFunctions);
+    keys = new FragmentResultCacheKeys(planReader, functions);
+
+    registeredFunctions.put("add", function(true, false));
+    registeredFunctions.put("random", function(false, false));
+    registeredFunctions.put("now", function(true, true));
+  }
+
+  @Test
+  public void testSameKey() {
+    assertNotNull(keys.getKey(scan(split("/a", 1))));
+    assertEquals(keys.getKey(scan(split("/a", 1))), keys.getKey(scan(split("/a", 1))));
+    assertEquals(
+        keys.getKey(project(scan(split("/a", 1)), "add")),
+        keys.getKey(project(scan(split("/a", 1)), "add")));
+  }
+
+  @Test
+  public void testKeyChangesWithSplits() {
+    final String key = keys.getKey(scan(split("/a", 1)));
+    assertNotEquals(key, keys.getKey(scan(split("/b", 1))));
+    assertNotEquals(key, keys.getKey(scan(split("/a", 1), split("/b", 1))));
+  }
+
+  @Test
+  public void testKeyChangesWithModificationTime() {
+    assertNotEquals(keys.getKey(scan(split("/a", 1))), keys.getKey(scan(split("/a", 2))));
+  }
+
+  @Test
+  public void testNondeterministicFunctions() {
+    assertNotNull(keys.getKey(project(scan(split("/a", 1)), "add")));
+    assertNull(keys.getKey(project(scan(split("/a", 1)), "random")));
+    assertNull(keys.getKey(project(scan(split("/a", 1)), "now")));
+    // not a java function
+    assertNull(keys.getKey(project(scan(split("/a", 1)), "unknown")));
+  }
+
+  @Test
+  public void testNonFileScan() {
+    final SubScan scan = mock(SubScan.class);
+    when(scan.getProps()).thenReturn(PROPS);
+    assertNull(keys.getKey(scan));
+    assertNull(keys.getKey(project(scan, "add")));
+  }
+
+  @Test
+  public void testSelectionVectorOutput() {
+    final Filter filter = new Filter(PROPS, scan(split("/a", 1)), call("add"), 0.5f);
+    assertNull(keys.getKey(filter));
+    assertNotNull(
+        keys.getKey(
+            new Project(
+                PROPS,
+                filter,
+                ImmutableList.of(new NamedExpression(call("add"), new FieldReference("x"))))));
+  }
+
+  private static ParquetSubScan scan(SplitAndPartitionInfo... splits) {
+    final ParquetSubScan scan = mock(ParquetSubScan.class);
+    when(scan.getProps()).thenReturn(PROPS);
+    when(scan.getSplits()).thenReturn(ImmutableList.copyOf(splits));
+    return scan;
+  }
+
+  private static Project project(PhysicalOperator child, String function) {
+    return new Project(
+        PROPS,
+        child,
+        ImmutableList.of(new NamedExpression(call(function), new FieldReference("x"))));
+  }
+
+  private static LogicalExpression call(String function) {
+    return new FunctionCall(function, ImmutableList.of(SchemaPath.getSimplePath("a")));
+  }
+
+  private static SplitAndPartitionInfo split(String path, long modificationTime) {
+    final NormalizedPartitionInfo partition =
+        NormalizedPartitionInfo.newBuilder().setId("1").build();
+    final NormalizedDatasetSplitInfo split =
+        NormalizedDatasetSplitInfo.newBuilder()
+            .setPartitionId("1")
+            .setExtendedProperty(
+                ParquetDatasetSplitScanXAttr.newBuilder()
+                    .setPath(path)
+                    .setLastModificationTime(modificationTime)
+                    .build()
+                    .toByteString())
+            .build();
+    return new SplitAndPartitionInfo(partition, split);
+  }
+
+  private static BaseFunctionHolder function(boolean deterministic, boolean dynamic) {
+    final BaseFunctionHolder holder = mock(BaseFunctionHolder.class);
+    when(holder.isDeterministic()).thenReturn(deterministic);
+    when(holder.isDynamic()).thenReturn(dynamic);
+    return holder;
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.resultcache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.dremio.common.expression.CompleteType;
+import com.dremio.exec.physical.config.FragmentResultCachePOP;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.exec.context.OperatorContextImpl;
+import com.dremio.sabot.op.scan.ScanOperator;
+import com.dremio.sabot.op.spi.ProducerOperator;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.apache.arrow.vector.IntVector;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link FragmentResultCacheWriter} and {@link CachedResultProducer} */
+public class TestFragmentResultCacheOperators extends BaseTestOperator {
+  private static final String KEY = "key";
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private FragmentResultCache cache;
+
+  @Before
+  public void setupCache() throws Exception {
+    cache = new FragmentResultCache(temporaryFolder.newFolder().toPath(), () -> Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testWriteAndRead() throws Exception {
+    write(ImmutableList.of(), true);
+    assertEquals(1, cache.getEntryCount());
+
+    try (CachedResultProducer producer =
+        new CachedResultProducer(newContext(), cache, cache.lookup(KEY))) {
+      final VectorAccessible output = producer.setup();
+      final IntVector values = (IntVector) output.iterator().next().getValueVector();
+
+      assertEquals(5, producer.outputData());
+      assertValues(values, 0, 5);
+      assertEquals(3, producer.outputData());
+      assertValues(values, 5, 3);
+      assertEquals(0, producer.outputData());
+      assertEquals(ProducerOperator.State.DONE, producer.getState());
+    }
+  }
+
+  @Test
+  public void testRuntimeFilterAborts() throws Exception {
+    final ScanOperator scan = mock(ScanOperator.class);
+    when(scan.hasRuntimeFilters()).thenReturn(true);
+
+    write(ImmutableList.of(scan), true);
+    assertEquals(0, cache.getEntryCount());
+    assertNull(cache.lookup(KEY));
+  }
+
+  @Test
+  public void testPartialInputAborts() throws Exception {
+    write(ImmutableList.of(), false);
+    assertEquals(0, cache.getEntryCount());
+    assertNull(cache.lookup(KEY));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSelectionVectorInput() throws Exception {
+    try (VectorContainer input = new VectorContainer(getTestAllocator());
+        FragmentResultCacheWriter writer =
+            new FragmentResultCacheWriter(newContext(), cache, KEY, ImmutableList.of())) {
+      input.addOrGet(CompleteType.INT.toField("a"));
+      input.buildSchema(SelectionVectorMode.TWO_BYTE);
+      writer.setup(input);
+    }
+  }
+
+  /** Writes two batches through the writer, values 0 to 4 and 5 to 7. */
+  private void write(List<ScanOperator> scans, boolean complete) throws Exception {
+    try (VectorContainer input = new VectorContainer(getTestAllocator());
+        FragmentResultCacheWriter writer =
+            new FragmentResultCacheWriter(newContext(), cache, KEY, scans)) {
+      final IntVector inputValues = input.addOrGet(CompleteType.INT.toField("a"));
+      input.buildSchema();
+      final VectorAccessible output = writer.setup(input);
+      final IntVector outputValues = (IntVector) output.iterator().next().getValueVector();
+
+      fill(input, inputValues, 0, 5);
+      writer.consumeData(5);
+      assertEquals(5, writer.outputData());
+      assertValues(outputValues, 0, 5);
+
+      fill(input, inputValues, 5, 3);
+      writer.consumeData(3);
+      assertEquals(3, writer.outputData());
+      assertValues(outputValues, 5, 3);
+
+      if (complete) {
+        writer.noMoreToConsume();
+      }
+    }
+  }
+
+  private OperatorContextImpl newContext() throws Exception {
+    final OperatorContextImpl context =
+        testContext.getNewOperatorContext(
+            getTestAllocator(), new FragmentResultCachePOP(PROPS), 4095, null);
+    testCloseables.add(context);
+    return context;
+  }
+
+  private static void fill(VectorContainer container, IntVector vector, int start, int count) {
+    vector.allocateNew(count);
+    for (int i = 0; i < count; i++) {
+      vector.set(i, start + i);
+    }
+    container.setAllCount(count);
+  }
+
+  private static void assertValues(IntVector vector, int start, int count) {
+    assertEquals(count, vector.getValueCount());
+    for (int i = 0; i < count; i++) {
+      assertEquals(start + i, vector.get(i));
+    }
+  }
+}
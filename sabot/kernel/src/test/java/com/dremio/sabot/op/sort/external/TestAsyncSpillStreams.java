@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.dremio.test.DremioTest;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link AsyncSpillOutputStream} and {@link AsyncSpillInputStream} */
+public class TestAsyncSpillStreams extends DremioTest {
+  private static final int BUFFER_SIZE = 1000;
+
+  private ExecutorService executor;
+
+  @Before
+  public void setup() {
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    executor.shutdownNow();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    for (int size : new int[] {0, 1, BUFFER_SIZE - 1, BUFFER_SIZE, BUFFER_SIZE + 1, 123_457}) {
+      final byte[] data = new byte[size];
+      new Random(size).nextBytes(data);
+
+      final ByteArrayOutputStream file = new ByteArrayOutputStream();
+      try (OutputStream out = new AsyncSpillOutputStream(file, executor, BUFFER_SIZE)) {
+        writeInPieces(out, data, new Random(1));
+      }
+      assertArrayEquals(data, file.toByteArray());
+
+      try (InputStream in =
+          new AsyncSpillInputStream(new ByteArrayInputStream(data), executor, BUFFER_SIZE)) {
+        assertArrayEquals(data, readInPieces(in, new Random(2)));
+        assertEquals(-1, in.read());
+      }
+    }
+  }
+
+  @Test
+  public void testExecutorShutdown() throws Exception {
+    executor.shutdown();
+    final byte[] data = new byte[5 * BUFFER_SIZE + 7];
+    new Random(3).nextBytes(data);
+
+    final ByteArrayOutputStream file = new ByteArrayOutputStream();
+    try (OutputStream out = new AsyncSpillOutputStream(file, executor, BUFFER_SIZE)) {
+      writeInPieces(out, data, new Random(4));
+    }
+    assertArrayEquals(data, file.toByteArray());
+
+    try (InputStream in =
+        new AsyncSpillInputStream(new ByteArrayInputStream(data), executor, BUFFER_SIZE)) {
+      assertArrayEquals(data, readInPieces(in, new Random(5)));
+    }
+  }
+
+  @Test
+  public void testWriteFailure() throws Exception {
+    final OutputStream failing =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("disk full");
+          }
+
+          @Override
+          public void write(byte[] b, int off, int len) throws IOException {
+            throw new IOException("disk full");
+          }
+        };
+
+    final AsyncSpillOutputStream out = new AsyncSpillOutputStream(failing, executor, BUFFER_SIZE);
+    try {
+      out.write(new byte[3 * BUFFER_SIZE]);
+      out.close();
+      fail("expected the write to fail");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("disk full"));
+    }
+  }
+
+  @Test
+  public void testReadFailure() throws Exception {
+    final InputStream failing =
+        new InputStream() {
+          @Override
+          public int read() throws IOException {
+            throw new IOException("bad sector");
+          }
+        };
+
+    try (InputStream in = new AsyncSpillInputStream(failing, executor, BUFFER_SIZE)) {
+      in.read();
+      fail("expected the read to fail");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("bad sector"));
+    }
+  }
+
+  @Test
+  public void testInterruptedWhileWriting() throws Exception {
+    final CountDownLatch writing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final ByteArrayOutputStream file = new ByteArrayOutputStream();
+    final OutputStream slow =
+        new OutputStream() {
+          @Override
+          public void write(int b) {
+            file.write(b);
+          }
+
+          @Override
+          public void write(byte[] b, int off, int len) {
+            writing.countDown();
+            Uninterruptibles.awaitUninterruptibly(release);
+            file.write(b, off, len);
+          }
+        };
+
+    final AsyncSpillOutputStream out = new AsyncSpillOutputStream(slow, executor, BUFFER_SIZE);
+    final byte[] data = new byte[BUFFER_SIZE + 1];
+    new Random(6).nextBytes(data);
+    out.write(data);
+    writing.await();
+
+    final Thread releaser =
+        new Thread(
+            () -> {
+              Uninterruptibles.sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+              release.countDown();
+            });
+    releaser.start();
+    Thread.currentThread().interrupt();
+    try {
+      out.flush();
+      fail("expected the flush to be interrupted");
+    } catch (InterruptedIOException e) {
+      // the write in flight still used the buffer, it must be done before the caller gives up
+      assertEquals(0, release.getCount());
+      assertTrue(Thread.interrupted());
+    }
+    releaser.join();
+
+    out.close();
+    assertArrayEquals(data, file.toByteArray());
+  }
+
+  private static void writeInPieces(OutputStream out, byte[] data, Random random)
+      throws IOException {
+    int offset = 0;
+    while (offset < data.length) {
+      if (random.nextInt(10) == 0) {
+        out.write(data[offset++]);
+        continue;
+      }
+      final int length = Math.min(data.length - offset, random.nextInt(3 * BUFFER_SIZE));
+      out.write(data, offset, length);
+      offset += length;
+    }
+  }
+
+  private static byte[] readInPieces(InputStream in, Random random) throws IOException {
+    final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    final byte[] piece = new byte[3 * BUFFER_SIZE];
+    while (true) {
+      if (random.nextInt(10) == 0) {
+        final int b = in.read();
+        if (b == -1) {
+          break;
+        }
+        result.write(b);
+        continue;
+      }
+      final int read = in.read(piece, 0, 1 + random.nextInt(piece.length - 1));
+      if (read == -1) {
+        break;
+      }
+      result.write(piece, 0, read);
+    }
+    return result.toByteArray();
+  }
+}
@@ -255,6 +255,31 @@ public class TestSortOp extends BaseTestOperator {
     }
   }
 
+  @Test
+  public void testQuickSorterSpillSortWithMappedRead() throws Exception {
+    try (AutoCloseable option = with(ExecConstants.EXTERNAL_SORT_ENABLE_SPLAY_SORT, false);
+        AutoCloseable uncompressed = with(ExecConstants.EXTERNAL_SORT_COMPRESS_SPILL_FILES, false);
+        AutoCloseable mappedRead = with(ExecConstants.EXTERNAL_SORT_MMAP_READ, true)) {
+      ExternalSort sort =
+          new ExternalSort(
+              PROPS.cloneWithNewReserve(1_000_000),
+              null,
+              singletonList(ordering(ID.getName(), ASCENDING, FIRST)),
+              false);
+      sort.getProps().setMemLimit(2_000_000); // this can't go below sort's initialAllocation (20K)
+      Fixtures.Table table = generator.getExpectedSortedTable();
+      OperatorStats stats =
+          validateSingle(sort, ExternalSortOperator.class, generator, table, 1000);
+
+      final long mappedBytesRead = stats.getLongStat(ExternalSortStats.Metric.MAPPED_BYTES_READ);
+      assertTrue(mappedBytesRead > 0);
+      // the mapped bytes are part of the spill read stats
+      assertEquals(mappedBytesRead, stats.getLongStat(ExternalSortStats.Metric.IO_BYTES_READ));
+      assertEquals(
+          mappedBytesRead, stats.getLongStat(ExternalSortStats.Metric.UNCOMPRESSED_BYTES_READ));
+    }
+  }
+
   @Test
   public void testMicroSpillBatches() throws Exception {
     try (AutoCloseable option = with(ExecConstants.EXTERNAL_SORT_ENABLE_MICRO_SPILL, true)) {
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.sender;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.dremio.common.expression.CompleteType;
+import com.dremio.exec.physical.config.BroadcastSender;
+import com.dremio.exec.planner.fragment.EndpointsIndex;
+import com.dremio.exec.proto.CoordExecRPC.MinorFragmentIndexEndpoint;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.record.ArrowRecordBatchLoader;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.FragmentWritableBatch;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
+import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
+import com.dremio.sabot.exec.rpc.TunnelProvider;
+import com.dremio.sabot.op.receiver.ExchangeDecompressor;
+import com.dremio.sabot.op.receiver.RawFragmentBatch;
+import com.dremio.sabot.op.sender.ExchangeCompressor;
+import com.dremio.sabot.op.sender.broadcast.BroadcastOperator;
+import io.airlift.tpch.GenerationDefinition.TpchTable;
+import io.airlift.tpch.TpchGenerator;
+import io.netty.buffer.ByteBuf;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.apache.arrow.flatbuf.RecordBatch;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.Test;
+
+public class TestExchangeCompression extends BaseTestOperator {
+  private static final NodeEndpoint LOCAL =
+      NodeEndpoint.newBuilder().setAddress("a").setFabricPort(1).build();
+  private static final NodeEndpoint REMOTE =
+      NodeEndpoint.newBuilder().setAddress("b").setFabricPort(2).build();
+
+  @Test
+  public void testBroadcastCompressesForRemoteReceiversOnly() throws Exception {
+    final List<RawFragmentBatch> localBatches = new ArrayList<>();
+    final List<RawFragmentBatch> remoteBatches = new ArrayList<>();
+    final TunnelProvider provider = mock(TunnelProvider.class);
+    final AccountingExecTunnel localTunnel = newTunnel(localBatches);
+    when(localTunnel.isInProcess()).thenReturn(true);
+    when(provider.getExecTunnel(LOCAL)).thenReturn(localTunnel);
+    when(provider.getExecTunnel(REMOTE)).thenReturn(newTunnel(remoteBatches));
+
+    try (AutoCloseable ignored =
+            with(
+                ExchangeCompressor.EXCHANGE_COMPRESSION_CODEC,
+                ExchangeCompressor.Codec.LZ4_FRAME.name());
+        TpchGenerator g =
+            TpchGenerator.singleGenerator(TpchTable.LINEITEM, 0.01, getTestAllocator())) {
+      final BroadcastSender sender =
+          new BroadcastSender(
+              PROPS,
+              g.getOutput().getSchema(),
+              null,
+              1,
+              Arrays.asList(
+                  MinorFragmentIndexEndpoint.newBuilder()
+                      .setMinorFragmentId(1)
+                      .setEndpointIndex(0)
+                      .build(),
+                  MinorFragmentIndexEndpoint.newBuilder()
+                      .setMinorFragmentId(2)
+                      .setEndpointIndex(1)
+                      .build()));
+      final BroadcastOperator op =
+          newOperator(
+              BroadcastOperator.class,
+              sender,
+              DEFAULT_BATCH,
+              new EndpointsIndex(Arrays.asList(LOCAL, REMOTE)),
+              provider);
+      op.setup(g.getOutput());
+      op.consumeData(g.next(DEFAULT_BATCH));
+      op.noMoreToConsume();
+
+      final BatchSchema schema = g.getOutput().getSchema();
+      assertEquals(1, localBatches.size());
+      assertEquals(1, remoteBatches.size());
+      final RawFragmentBatch local = localBatches.get(0);
+      final RawFragmentBatch remote = remoteBatches.get(0);
+      assertNull(getRecordBatch(local).compression());
+      assertNotNull(getRecordBatch(remote).compression());
+      assertTrue(remote.getByteCount() < local.getByteCount());
+
+      final ExchangeDecompressor decompressor = new ExchangeDecompressor(getTestAllocator());
+      try (RawFragmentBatch decompressed = decompressor.decompress(remote)) {
+        assertSame(local, decompressor.decompress(local));
+        assertNull(getRecordBatch(decompressed).compression());
+        assertEquals(getValues(schema, local), getValues(schema, decompressed));
+      } finally {
+        local.close();
+      }
+      assertEquals(1, decompressor.getDecompressedBatches());
+    }
+  }
+
+  @Test
+  public void testIncompressibleBatchesAreSentAsIs() throws Exception {
+    final Field field = CompleteType.BIGINT.toField("random");
+    final AccountingExecTunnel tunnel = mock(AccountingExecTunnel.class);
+    try (AutoCloseable ignored =
+            with(
+                ExchangeCompressor.EXCHANGE_COMPRESSION_CODEC,
+                ExchangeCompressor.Codec.LZ4_FRAME.name());
+        VectorContainer container =
+            VectorContainer.create(
+                getTestAllocator(), BatchSchema.newBuilder().addField(field).build())) {
+      final BigIntVector vector = container.addOrGet(field);
+      final Random random = new Random(1);
+      container.allocateNew();
+      for (int i = 0; i < DEFAULT_BATCH; i++) {
+        vector.setSafe(i, random.nextLong());
+      }
+      container.setAllCount(DEFAULT_BATCH);
+
+      final ExchangeCompressor compressor =
+          new ExchangeCompressor(getTestAllocator(), testContext.getOptions());
+      final ArrowRecordBatch batch = FragmentWritableBatch.getArrowRecordBatch(container);
+      try (ArrowRecordBatch sent = compressor.compress(batch, tunnel)) {
+        assertSame(batch, sent);
+      }
+      assertEquals(0, compressor.getCompressedBatches());
+    }
+  }
+
+  private AccountingExecTunnel newTunnel(List<RawFragmentBatch> received) {
+    final AccountingExecTunnel tunnel = mock(AccountingExecTunnel.class);
+    doAnswer(
+            invocation -> {
+              final FragmentWritableBatch batch =
+                  (FragmentWritableBatch) invocation.getArguments()[0];
+              // serialized as a single body, like the batches received over the network
+              try (ArrowBuf body = getTestAllocator().buffer(batch.getByteCount())) {
+                long offset = 0;
+                for (ByteBuf b : batch.getBuffers()) {
+                  body.setBytes(offset, b.nioBuffer());
+                  offset += b.readableBytes();
+                  b.release();
+                }
+                body.writerIndex(offset);
+                received.add(new RawFragmentBatch(batch.getHeader(), body, null));
+              }
+              return null;
+            })
+        .when(tunnel)
+        .sendRecordBatch(any(FragmentWritableBatch.class), any());
+    return tunnel;
+  }
+
+  private static RecordBatch getRecordBatch(RawFragmentBatch batch) {
+    return RecordBatch.getRootAsRecordBatch(
+        batch.getHeader().getArrowRecordBatch().asReadOnlyByteBuffer());
+  }
+
+  private List<List<Object>> getValues(BatchSchema schema, RawFragmentBatch batch) {
+    final ArrowRecordBatchLoader loader = new ArrowRecordBatchLoader(getTestAllocator(), schema);
+    try {
+      loader.load(batch);
+      return getValues(loader);
+    } finally {
+      loader.close();
+    }
+  }
+
+  private static List<List<Object>> getValues(VectorAccessible accessible) {
+    final List<List<Object>> rows = new ArrayList<>();
+    for (int i = 0; i < accessible.getRecordCount(); i++) {
+      final List<Object> row = new ArrayList<>();
+      for (VectorWrapper<?> wrapper : accessible) {
+        row.add(wrapper.getValueVector().getObject(i));
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.sender.partition;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.expression.CompleteType;
+import com.dremio.exec.physical.config.HashPartitionSender;
+import com.dremio.exec.physical.config.HashPartitionSender.SkewJoinRole;
+import com.dremio.exec.planner.fragment.EndpointsIndex;
+import com.dremio.exec.proto.CoordExecRPC.FragmentAssignment;
+import com.dremio.exec.proto.CoordExecRPC.MajorFragmentAssignment;
+import com.dremio.exec.proto.CoordExecRPC.MinorFragmentIndexEndpoint;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.proto.ExecProtos;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.FragmentWritableBatch;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.Generator;
+import com.dremio.sabot.exec.fragment.OutOfBandMessage;
+import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
+import com.dremio.sabot.exec.rpc.TunnelProvider;
+import com.dremio.sabot.op.sender.partition.PartitionSenderOperator.Metric;
+import com.dremio.sabot.op.sender.partition.vectorized.SkewAwarePartitionSenderOperator;
+import com.google.common.collect.ImmutableList;
+import io.netty.buffer.ByteBuf;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.Test;
+
+public class TestSkewAwarePartitionSender extends BaseTestOperator {
+  private static final int NUM_FRAGMENTS = 3;
+  private static final int PEER_MAJOR_FRAGMENT = 2;
+  private static final int NUM_PEER_FRAGMENTS = 2;
+  private static final int BATCH_SIZE = 1000;
+  private static final int HOT = 7;
+
+  private static final Field HASH = CompleteType.INT.toField("hash");
+  private static final Field PAYLOAD = CompleteType.VARCHAR.toField("payload");
+  private static final BatchSchema SCHEMA =
+      BatchSchema.newBuilder().addField(HASH).addField(PAYLOAD).build();
+
+  private final int[] rowCountPerFragment = new int[NUM_FRAGMENTS];
+
+  @Test
+  public void testBuildBroadcastsConfirmedKeys() throws Exception {
+    final int[] values = values(4 * BATCH_SIZE, 0.3);
+    try (ValuesGenerator generator = new ValuesGenerator(getTestAllocator(), values)) {
+      final SkewAwarePartitionSenderOperator op = newSender(SkewJoinRole.BUILD, generator);
+      op.workOnOOB(keysMessage(0, HOT));
+      consumeAll(op, generator);
+
+      final int hotRows = count(values, HOT);
+      final int[] expected = hashDistribution(values);
+      for (int f = 0; f < NUM_FRAGMENTS; f++) {
+        if (f != home(HOT)) {
+          expected[f] += hotRows;
+        }
+      }
+      assertArrayEquals(expected, rowCountPerFragment);
+      assertEquals(1, getStat(op, Metric.SKEW_JOIN_HOT_KEYS));
+      assertEquals((NUM_FRAGMENTS - 1) * hotRows, getStat(op, Metric.SKEW_JOIN_BROADCAST_RECORDS));
+    }
+  }
+
+  @Test
+  public void testBuildDoesNotConfirmKeysAlreadySent() throws Exception {
+    final int[] values = values(4 * BATCH_SIZE, 0.3);
+    try (ValuesGenerator generator = new ValuesGenerator(getTestAllocator(), values)) {
+      final SkewAwarePartitionSenderOperator op = newSender(SkewJoinRole.BUILD, generator);
+      op.consumeData(generator.next(BATCH_SIZE));
+      op.workOnOOB(keysMessage(0, HOT));
+      consumeAll(op, generator);
+
+      assertArrayEquals(hashDistribution(values), rowCountPerFragment);
+      assertEquals(0, getStat(op, Metric.SKEW_JOIN_HOT_KEYS));
+    }
+  }
+
+  @Test
+  public void testProbeSpreadsKeysConfirmedByAllBuildSenders() throws Exception {
+    final int[] values = values(4 * BATCH_SIZE, 0.5);
+    try (ValuesGenerator generator = new ValuesGenerator(getTestAllocator(), values);
+        AutoCloseable ignored =
+            with(SkewAwarePartitionSenderOperator.SKEW_JOIN_SAMPLE_ROWS, BATCH_SIZE)) {
+      final SkewAwarePartitionSenderOperator op = newSender(SkewJoinRole.PROBE, generator);
+      // the first batch is the sample, its hot key is proposed once it is consumed
+      op.consumeData(generator.next(BATCH_SIZE));
+      for (int f = 0; f < NUM_PEER_FRAGMENTS; f++) {
+        op.workOnOOB(keysMessage(f, HOT));
+      }
+      consumeAll(op, generator);
+
+      // after the sample, the hot rows are sent round robin
+      final int[] expected = new int[NUM_FRAGMENTS];
+      int nextReceiver = 0;
+      for (int i = 0; i < values.length; i++) {
+        if (i >= BATCH_SIZE && values[i] == HOT) {
+          expected[nextReceiver]++;
+          nextReceiver = (nextReceiver + 1) % NUM_FRAGMENTS;
+        } else {
+          expected[home(values[i])]++;
+        }
+      }
+      assertArrayEquals(expected, rowCountPerFragment);
+      assertEquals(
+          count(values, HOT) - count(values, HOT, BATCH_SIZE),
+          getStat(op, Metric.SKEW_JOIN_SPREAD_RECORDS));
+    }
+  }
+
+  @Test
+  public void testProbeKeepsHashDistributionWithoutAllConfirmations() throws Exception {
+    final int[] values = values(4 * BATCH_SIZE, 0.5);
+    try (ValuesGenerator generator = new ValuesGenerator(getTestAllocator(), values);
+        AutoCloseable ignored =
+            with(SkewAwarePartitionSenderOperator.SKEW_JOIN_SAMPLE_ROWS, BATCH_SIZE)) {
+      final SkewAwarePartitionSenderOperator op = newSender(SkewJoinRole.PROBE, generator);
+      op.consumeData(generator.next(BATCH_SIZE));
+      // one build sender confirms the key, the other one already sent rows for it
+      op.workOnOOB(keysMessage(0, HOT));
+      op.workOnOOB(keysMessage(1));
+      consumeAll(op, generator);
+
+      assertArrayEquals(hashDistribution(values), rowCountPerFragment);
+      assertEquals(0, getStat(op, Metric.SKEW_JOIN_SPREAD_RECORDS));
+    }
+  }
+
+  private SkewAwarePartitionSenderOperator newSender(SkewJoinRole role, ValuesGenerator generator)
+      throws Exception {
+    final HashPartitionSender sender =
+        new HashPartitionSender(
+            PROPS,
+            SCHEMA,
+            null,
+            1,
+            getIndexEndpoints(),
+            f(HASH.getName()),
+            false,
+            role,
+            PEER_MAJOR_FRAGMENT);
+
+    final AccountingExecTunnel tunnel = mock(AccountingExecTunnel.class);
+    doAnswer(
+            invocation -> {
+              final FragmentWritableBatch batch =
+                  (FragmentWritableBatch) invocation.getArguments()[0];
+              for (int fragId : batch.getHeader().getReceivingMinorFragmentIdList()) {
+                rowCountPerFragment[fragId] += batch.getRecordCount();
+              }
+              for (ByteBuf b : batch.getBuffers()) {
+                b.release();
+              }
+              return null;
+            })
+        .when(tunnel)
+        .sendRecordBatch(any(FragmentWritableBatch.class), any());
+
+    final TunnelProvider provider = mock(TunnelProvider.class);
+    when(provider.getExecTunnel(any(NodeEndpoint.class))).thenReturn(tunnel);
+
+    final MajorFragmentAssignment peers =
+        MajorFragmentAssignment.newBuilder()
+            .setMajorFragmentId(PEER_MAJOR_FRAGMENT)
+            .addAllAssignment(
+                FragmentAssignment.newBuilder()
+                    .addMinorFragmentId(0)
+                    .addMinorFragmentId(1)
+                    .setAssignmentIndex(0))
+            .build();
+    final SkewAwarePartitionSenderOperator op =
+        newOperator(
+            SkewAwarePartitionSenderOperator.class,
+            sender,
+            BATCH_SIZE,
+            new EndpointsIndex(getEndpoints()),
+            ImmutableList.of(peers),
+            provider);
+    op.setup(generator.getOutput());
+    op.getOperatorContext().getStats().startProcessing();
+    return op;
+  }
+
+  private static void consumeAll(SkewAwarePartitionSenderOperator op, ValuesGenerator generator)
+      throws Exception {
+    int count;
+    while ((count = generator.next(BATCH_SIZE)) != 0) {
+      op.consumeData(count);
+    }
+    op.noMoreToConsume();
+  }
+
+  private static long getStat(SkewAwarePartitionSenderOperator op, Metric metric) {
+    return op.getOperatorContext().getStats().getLongStat(metric);
+  }
+
+  private static OutOfBandMessage keysMessage(int sendingMinorFragmentId, int... hashValues) {
+    final ExecProtos.SkewedJoinKeys.Builder keys = ExecProtos.SkewedJoinKeys.newBuilder();
+    for (int hash : hashValues) {
+      keys.addHashValues(hash);
+    }
+    return new OutOfBandMessage(
+        null,
+        0,
+        ImmutableList.of(0),
+        0,
+        PEER_MAJOR_FRAGMENT,
+        sendingMinorFragmentId,
+        0,
+        new OutOfBandMessage.Payload(keys.build()),
+        null,
+        null,
+        true);
+  }
+
+  /** Random values with the given share of hot rows. */
+  private static int[] values(int count, double hotShare) {
+    final Random random = new Random(1);
+    final int[] values = new int[count];
+    for (int i = 0; i < count; i++) {
+      if (random.nextDouble() < hotShare) {
+        values[i] = HOT;
+      } else {
+        int value;
+        do {
+          value = random.nextInt(1000);
+        } while (value == HOT);
+        values[i] = value;
+      }
+    }
+    return values;
+  }
+
+  private static int count(int[] values, int value) {
+    return count(values, value, values.length);
+  }
+
+  private static int count(int[] values, int value, int limit) {
+    int count = 0;
+    for (int i = 0; i < limit; i++) {
+      if (values[i] == value) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Receiver of a row with the plain hash distribution, the hash column being used as is. */
+  private static int home(int hash) {
+    final int modSize = 8 * 4; // PARTITION_MULTIPLE * next power of 2 of the number of receivers
+    return ((hash & 0x7FFFFFFF) & (modSize - 1)) % NUM_FRAGMENTS;
+  }
+
+  private static int[] hashDistribution(int[] values) {
+    final int[] counts = new int[NUM_FRAGMENTS];
+    for (int value : values) {
+      counts[home(value)]++;
+    }
+    return counts;
+  }
+
+  private static List<MinorFragmentIndexEndpoint> getIndexEndpoints() {
+    List<MinorFragmentIndexEndpoint> l = new ArrayList<>();
+    for (int i = 0; i < NUM_FRAGMENTS; i++) {
+      l.add(
+          MinorFragmentIndexEndpoint.newBuilder()
+              .setMinorFragmentId(i)
+              .setEndpointIndex(0)
+              .build());
+    }
+    return l;
+  }
+
+  private static List<NodeEndpoint> getEndpoints() {
+    List<NodeEndpoint> l = new ArrayList<>();
+    for (int i = 0; i < NUM_FRAGMENTS; i++) {
+      l.add(
+          NodeEndpoint.newBuilder().setAddress(String.format("a_%d", i)).setFabricPort(1).build());
+    }
+    return l;
+  }
+
+  /** Generates the given values in the hash column, and a VARCHAR payload. */
+  private static class ValuesGenerator implements Generator {
+    private final VectorContainer container;
+    private final IntVector hash;
+    private final VarCharVector payload;
+    private final int[] values;
+    private int position;
+
+    ValuesGenerator(BufferAllocator allocator, int[] values) {
+      this.values = values;
+      container = VectorContainer.create(allocator, SCHEMA);
+      hash = container.addOrGet(HASH);
+      payload = container.addOrGet(PAYLOAD);
+    }
+
+    @Override
+    public VectorAccessible getOutput() {
+      return container;
+    }
+
+    @Override
+    public int next(int records) {
+      final int count = Math.min(records, values.length - position);
+      if (count == 0) {
+        return 0;
+      }
+      container.allocateNew();
+      for (int i = 0; i < count; i++) {
+        hash.setSafe(i, values[position + i]);
+        final byte[] bytes = ("row " + (position + i)).getBytes();
+        payload.setSafe(i, bytes, 0, bytes.length);
+      }
+      position += count;
+      return container.setAllCount(count);
+    }
+
+    @Override
+    public void close() throws Exception {
+      AutoCloseables.close(container);
+    }
+  }
+}
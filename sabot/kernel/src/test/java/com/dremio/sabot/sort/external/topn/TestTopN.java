@@ -15,6 +15,8 @@
  */
 package com.dremio.sabot.sort.external.topn;
 
+import static com.dremio.sabot.Fixtures.NULL_DOUBLE;
+import static com.dremio.sabot.Fixtures.NULL_INT;
 import static com.dremio.sabot.Fixtures.t;
 import static com.dremio.sabot.Fixtures.tb;
 import static com.dremio.sabot.Fixtures.th;
@@ -24,10 +26,14 @@ import com.dremio.common.config.SabotConfig;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.physical.config.TopN;
 import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.Fixtures.DataBatch;
+import com.dremio.sabot.Fixtures.DataRow;
 import com.dremio.sabot.Fixtures.Table;
 import com.dremio.sabot.op.sort.topn.TopNOperator;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Properties;
+import java.util.Random;
 import org.apache.calcite.rel.RelFieldCollation.Direction;
 import org.apache.calcite.rel.RelFieldCollation.NullDirection;
 import org.junit.Test;
@@ -81,4 +87,102 @@ public class TestTopN extends BaseTestOperator {
             false);
     validateSingle(topn, TopNOperator.class, input, output);
   }
+
+  @Test
+  public void topNDescendingNullsFirst() throws Exception {
+    Table input =
+        t(
+            th("c0"),
+            tb(tr(35), tr(NULL_INT), tr(8)),
+            tb(tr(22), tr(17), tr(15)),
+            tb(tr(12), tr(NULL_INT), tr(-18), tr(11), tr(94), tr(106)));
+
+    Table output = t(th("c0"), tr(NULL_INT), tr(NULL_INT), tr(106), tr(94), tr(35));
+
+    TopN topn =
+        new TopN(
+            PROPS,
+            null,
+            5,
+            Collections.singletonList(ordering("c0", Direction.DESCENDING, NullDirection.FIRST)),
+            false);
+    validateWithAndWithoutFixedWidthKey(topn, input, output);
+  }
+
+  @Test
+  public void topNDoubleNullsLast() throws Exception {
+    Table input =
+        t(
+            th("c0"),
+            tb(tr(3.5d), tr(NULL_DOUBLE), tr(-0.5d)),
+            tb(tr(Double.NEGATIVE_INFINITY), tr(-17.25d), tr(NULL_DOUBLE)),
+            tb(tr(1e300d), tr(-18d), tr(0d)));
+
+    Table output =
+        t(th("c0"), tr(Double.NEGATIVE_INFINITY), tr(-18d), tr(-17.25d), tr(-0.5d), tr(0d));
+
+    TopN topn =
+        new TopN(
+            PROPS,
+            null,
+            5,
+            Collections.singletonList(ordering("c0", Direction.ASCENDING, NullDirection.LAST)),
+            false);
+    validateWithAndWithoutFixedWidthKey(topn, input, output);
+  }
+
+  @Test
+  public void topNManyBatchesWithPurge() throws Exception {
+    {
+      final Properties props = new Properties();
+      props.put(ExecConstants.BATCH_PURGE_THRESHOLD, "3");
+      testContext.updateConfig(SabotConfig.create(props));
+    }
+
+    // the values decrease slowly, so that most batches contribute rows to the heap and the batches
+    // they evict rows from are released, with a few random batches that don't contribute at all.
+    final Random random = new Random(4);
+    final int batches = 40;
+    final int rowsPerBatch = 50;
+    final int limit = 70;
+    final long[] values = new long[batches * rowsPerBatch];
+    final DataBatch[] input = new DataBatch[batches];
+    for (int b = 0; b < batches; b++) {
+      final DataRow[] rows = new DataRow[rowsPerBatch];
+      for (int r = 0; r < rowsPerBatch; r++) {
+        final long value =
+            b % 7 == 3
+                ? 1_000_000L + random.nextInt(1000)
+                : (batches - b) * 100L + random.nextInt(1000);
+        values[b * rowsPerBatch + r] = value;
+        rows[r] = tr(value);
+      }
+      input[b] = tb(rows);
+    }
+
+    Arrays.sort(values);
+    final DataRow[] output = new DataRow[limit];
+    for (int i = 0; i < limit; i++) {
+      output[i] = tr(values[i]);
+    }
+
+    TopN topn =
+        new TopN(
+            PROPS,
+            null,
+            limit,
+            Collections.singletonList(ordering("c0", Direction.ASCENDING, NullDirection.FIRST)),
+            false);
+    validateWithAndWithoutFixedWidthKey(topn, t(th("c0"), input), t(th("c0"), output));
+  }
+
+  private void validateWithAndWithoutFixedWidthKey(TopN topn, Table input, Table output)
+      throws Exception {
+    try (AutoCloseable ignored = with(TopNOperator.TOPN_FIXED_WIDTH_KEY, true)) {
+      validateSingle(topn, TopNOperator.class, input, output);
+    }
+    try (AutoCloseable ignored = with(TopNOperator.TOPN_FIXED_WIDTH_KEY, false)) {
+      validateSingle(topn, TopNOperator.class, input, output);
+    }
+  }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.dremio.sabot.task.AsyncTask;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.Task.State;
+import com.dremio.sabot.task.TaskDescriptor;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+import com.dremio.sabot.task.TaskPool;
+import com.dremio.sabot.threads.AvailabilityCallback;
+import com.dremio.sabot.threads.sharedres.SharedResourceType;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class TestSlicingTaskPool {
+
+  /** Task that runs for a given number of steps, blocking on upstream every other step. */
+  private static class TestAsyncTask implements AsyncTask {
+    private final int numSteps;
+    private final boolean blocking;
+    private final ExecutorService unblocker;
+    private final AtomicLong runNanos = new AtomicLong();
+    private volatile State state = State.RUNNABLE;
+    private int step;
+
+    TestAsyncTask(int numSteps, boolean blocking, ExecutorService unblocker) {
+      this.numSteps = numSteps;
+      this.blocking = blocking;
+      this.unblocker = unblocker;
+    }
+
+    @Override
+    public void run() {
+      final long start = System.nanoTime();
+      // burn some cpu
+      while (System.nanoTime() - start < TimeUnit.MICROSECONDS.toNanos(100)) {
+        Thread.onSpinWait();
+      }
+      runNanos.addAndGet(System.nanoTime() - start);
+      step++;
+      if (step >= numSteps) {
+        state = State.DONE;
+      } else if (blocking && step % 2 == 0) {
+        state = State.BLOCKED_ON_UPSTREAM;
+      }
+    }
+
+    @Override
+    public void refreshState() {
+      state = State.RUNNABLE;
+    }
+
+    @Override
+    public State getState() {
+      return state;
+    }
+
+    @Override
+    public String getTaskId() {
+      return "test";
+    }
+
+    @Override
+    public SharedResourceType getFirstBlockedResource() {
+      return SharedResourceType.UNKNOWN;
+    }
+
+    @Override
+    public void updateSleepDuration(long duration) {}
+
+    @Override
+    public void updateBlockedOnDownstreamDuration(long duration) {}
+
+    @Override
+    public void updateBlockedOnUpstreamDuration(long duration) {}
+
+    @Override
+    public void updateBlockedOnMemoryDuration(long duration) {}
+
+    @Override
+    public void addBlockedOnSharedResourceDuration(SharedResourceType resource, long duration) {}
+
+    @Override
+    public void setWakeupCallback(AvailabilityCallback callback) {
+      unblocker.submit(callback::nowAvailable);
+    }
+
+    @Override
+    public void setTaskDescriptor(TaskDescriptor descriptor) {}
+
+    long getRunNanos() {
+      return runNanos.get();
+    }
+  }
+
+  private static AsyncTaskWrapper newTask(
+      SchedulingGroup<AsyncTaskWrapper> group, TestAsyncTask task, CountDownLatch done) {
+    return new AsyncTaskWrapper(1, group, task, done::countDown, Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void testTasksRunToCompletion() throws Exception {
+    final ExecutorService unblocker = Executors.newSingleThreadExecutor();
+    final int numTasks = 64;
+    final CountDownLatch done = new CountDownLatch(numTasks);
+    try (TaskPool pool = new SlicingTaskPool(4, 1, Long.MAX_VALUE / 1_000_000)) {
+      final SchedulingGroup<AsyncTaskWrapper> group = pool.getGroupManager().newGroup(100);
+      for (int i = 0; i < numTasks; i++) {
+        final TestAsyncTask task = new TestAsyncTask(20, i % 2 == 0, unblocker);
+        pool.execute(newTask(group.addGroup(1 + i % 4, true), task, done));
+      }
+
+      assertTrue("All tasks should complete", done.await(30, TimeUnit.SECONDS));
+      assertTrue(pool.areAllThreadsAlive());
+      int numAssigned = 0;
+      for (TaskPool.ThreadInfo info : pool.getSlicingThreads()) {
+        numAssigned += info.numTasks;
+      }
+      assertEquals(0, numAssigned);
+      assertEquals(0, ((SlicingGroup) group).getActiveTasks());
+    } finally {
+      unblocker.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testFailedTaskIsCleanedUp() throws Exception {
+    final ExecutorService unblocker = Executors.newSingleThreadExecutor();
+    final CountDownLatch done = new CountDownLatch(1);
+    try (TaskPool pool = new SlicingTaskPool(2, 1, Long.MAX_VALUE / 1_000_000)) {
+      final SchedulingGroup<AsyncTaskWrapper> group = pool.getGroupManager().newGroup(100);
+      final TestAsyncTask task =
+          new TestAsyncTask(10, false, unblocker) {
+            @Override
+            public void run() {
+              throw new IllegalStateException("test failure");
+            }
+          };
+      pool.execute(newTask(group, task, done));
+
+      assertTrue("The failed task should be cleaned up", done.await(30, TimeUnit.SECONDS));
+      assertTrue(pool.areAllThreadsAlive());
+      assertEquals(0, ((SlicingGroup) group).getActiveTasks());
+    } finally {
+      unblocker.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testGroupWeightsAreHonored() throws Exception {
+    final ExecutorService unblocker = Executors.newSingleThreadExecutor();
+    final CountDownLatch done = new CountDownLatch(2);
+    try (TaskPool pool = new SlicingTaskPool(1, 1, Long.MAX_VALUE / 1_000_000)) {
+      final SchedulingGroup<AsyncTaskWrapper> light = pool.getGroupManager().newGroup(1);
+      final SchedulingGroup<AsyncTaskWrapper> heavy = pool.getGroupManager().newGroup(9);
+      final TestAsyncTask lightTask = new TestAsyncTask(Integer.MAX_VALUE, false, unblocker);
+      final TestAsyncTask heavyTask = new TestAsyncTask(10_000, false, unblocker);
+      pool.execute(newTask(light, lightTask, done));
+      pool.execute(newTask(heavy, heavyTask, done));
+
+      // wait for the heavy task to finish, the light one should have been running much less
+      final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+      while (done.getCount() == 2 && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertTrue(
+          String.format(
+              "heavy task ran %dns, light task ran %dns",
+              heavyTask.getRunNanos(), lightTask.getRunNanos()),
+          heavyTask.getRunNanos() > 3 * lightTask.getRunNanos());
+    } finally {
+      unblocker.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testTasksFromForeignGroupsRunInRootGroup() throws Exception {
+    final ExecutorService unblocker = Executors.newSingleThreadExecutor();
+    final CountDownLatch done = new CountDownLatch(1);
+    final AtomicInteger added = new AtomicInteger();
+    final SchedulingGroup<AsyncTaskWrapper> foreign =
+        new SchedulingGroup<AsyncTaskWrapper>() {
+          @Override
+          public SchedulingGroup<AsyncTaskWrapper> addGroup(
+              long weight, boolean weightBasedScheduler) {
+            return this;
+          }
+
+          @Override
+          public TaskHandle<AsyncTaskWrapper> addTask(
+              AsyncTaskWrapper asyncTaskWrapper, long weight) {
+            added.incrementAndGet();
+            throw new IllegalStateException();
+          }
+        };
+    try (TaskPool pool = new SlicingTaskPool(2, 1, Long.MAX_VALUE / 1_000_000)) {
+      pool.execute(newTask(foreign, new TestAsyncTask(10, true, unblocker), done));
+      assertTrue(done.await(30, TimeUnit.SECONDS));
+      assertEquals(0, added.get());
+    } finally {
+      unblocker.shutdownNow();
+    }
+  }
+}
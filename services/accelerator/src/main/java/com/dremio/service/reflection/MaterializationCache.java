@@ -18,16 +18,21 @@ package com.dremio.service.reflection;
 import static com.dremio.service.reflection.ExternalReflectionStatus.STATUS.OUT_OF_SYNC;
 import static com.dremio.service.reflection.ReflectionMetrics.TAG_SOURCE_DOWN;
 import static com.dremio.service.reflection.ReflectionOptions.MATERIALIZATION_CACHE_ENABLED;
+import static com.dremio.service.reflection.ReflectionOptions.MATERIALIZATION_CACHE_EXPANSION_PARALLELISM;
 import static com.dremio.service.reflection.ReflectionOptions.MATERIALIZATION_CACHE_INIT_TIMEOUT_SECONDS;
 
+import com.dremio.common.concurrent.NamedThreadFactory;
 import com.dremio.common.util.DremioVersionInfo;
 import com.dremio.exec.calcite.logical.ScanCrel;
 import com.dremio.exec.catalog.Catalog;
 import com.dremio.exec.catalog.CatalogUtil;
 import com.dremio.exec.catalog.EntityExplorer;
 import com.dremio.exec.planner.acceleration.DremioMaterialization;
+import com.dremio.exec.planner.acceleration.MaterializationDescriptorIndex;
 import com.dremio.exec.planner.acceleration.descriptor.ExpandedMaterializationDescriptor;
 import com.dremio.exec.planner.acceleration.descriptor.MaterializationDescriptor;
+import com.dremio.exec.planner.acceleration.substitution.SubstitutionUtils.ExternalQueryDescriptor;
+import com.dremio.exec.planner.acceleration.substitution.SubstitutionUtils.VersionedPath;
 import com.dremio.exec.planner.common.PlannerMetrics;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.store.CatalogService;
@@ -47,6 +52,8 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
@@ -56,15 +63,26 @@ import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Timer;
 import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 import io.protostuff.ByteString;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.RelShuttleImpl;
@@ -78,15 +96,23 @@ class MaterializationCache {
   private static final org.slf4j.Logger logger =
       org.slf4j.LoggerFactory.getLogger(MaterializationCache.class);
 
-  private static final Map<String, ExpandedMaterializationDescriptor> EMPTY_MAP = ImmutableMap.of();
+  // materialization cache sync phases
+  private static final String MAT_CACHE_PHASE_VALIDATE = "validate";
+  private static final String MAT_CACHE_PHASE_EXPAND = "expand";
+  private static final String MAT_CACHE_PHASE_EXTERNAL = "external";
 
-  private final AtomicReference<Map<String, ExpandedMaterializationDescriptor>> cached =
-      new AtomicReference<>(EMPTY_MAP);
+  private static final CacheState EMPTY_STATE =
+      new CacheState(ImmutableMap.of(), MaterializationDescriptorIndex.EMPTY);
+
+  private final AtomicReference<CacheState> cached = new AtomicReference<>(EMPTY_STATE);
 
   private final CountDownLatch latch;
 
   private final Meter.MeterProvider<Timer> syncHistogram;
 
+  // Time spent in each phase of a materialization cache sync
+  private final Meter.MeterProvider<Timer> phaseHistogram;
+
   // Error with expanding materialization that may be retried
   private final Meter.MeterProvider<Counter> errorCounter;
 
@@ -149,6 +175,16 @@ class MaterializationCache {
     boolean isInitialized();
   }
 
+  // threads expanding materializations, only kept alive while a sync is expanding them
+  private final ThreadPoolExecutor expansionExecutor =
+      new ThreadPoolExecutor(
+          1,
+          1,
+          60,
+          TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(),
+          new NamedThreadFactory("materialization-cache-expansion-"));
+
   private final CacheHelper provider;
   private final ReflectionStatusService reflectionStatusService;
   private final CatalogService catalogService;
@@ -167,15 +203,21 @@ class MaterializationCache {
     this.catalogService = Preconditions.checkNotNull(catalogService, "catalog service required");
     this.optionManager = Preconditions.checkNotNull(optionManager, "option manager required");
     this.materializationStore = materializationStore;
+    expansionExecutor.allowCoreThreadTimeOut(true);
     latch = new CountDownLatch(1);
     syncHistogram =
         Timer.builder(ReflectionMetrics.createName(ReflectionMetrics.MAT_CACHE_SYNC))
             .description("Histogram of reflection materialization cache sync times")
             .publishPercentileHistogram()
             .withRegistry(Metrics.globalRegistry);
+    phaseHistogram =
+        Timer.builder(ReflectionMetrics.createName(ReflectionMetrics.MAT_CACHE_SYNC_PHASE))
+            .description("Histogram of reflection materialization cache sync times per phase")
+            .publishPercentileHistogram()
+            .withRegistry(Metrics.globalRegistry);
     Gauge.builder(
             ReflectionMetrics.createName(ReflectionMetrics.MAT_CACHE_ENTRIES),
-            () -> cached.get().size())
+            () -> cached.get().descriptors.size())
         .description("Number of materialization cache entries")
         .register(Metrics.globalRegistry);
     errorCounter =
@@ -214,13 +256,14 @@ class MaterializationCache {
     try {
       boolean exchanged;
       do {
-        Map<String, ExpandedMaterializationDescriptor> old = cached.get();
-        Map<String, ExpandedMaterializationDescriptor> updated = updateMaterializationCache(old);
-        exchanged = cached.compareAndSet(old, updated);
+        CacheState old = cached.get();
+        Map<String, ExpandedMaterializationDescriptor> updated =
+            updateMaterializationCache(old.descriptors);
+        exchanged = cached.compareAndSet(old, old.update(updated));
         if (!exchanged) {
           logger.warn(
               "Unable to compare and set cache.  Old count: {}.  Updated count: {}",
-              old.size(),
+              old.descriptors.size(),
               updated.size());
         }
       } while (!exchanged);
@@ -229,18 +272,23 @@ class MaterializationCache {
         logger.info(
             "Materialization Cache Initialization: Cold cache update took {} ms: expanded={} version={}",
             Duration.between(coldStart, Instant.now()).toMillis(),
-            cached.get().size(),
+            cached.get().descriptors.size(),
             DremioVersionInfo.getVersion());
       }
       latch.countDown();
     }
   }
 
+  /** Stops the threads expanding materializations. */
+  void close() {
+    expansionExecutor.shutdownNow();
+  }
+
   void resetCache() {
     boolean exchanged;
     do {
-      Map<String, ExpandedMaterializationDescriptor> old = cached.get();
-      exchanged = cached.compareAndSet(old, EMPTY_MAP);
+      CacheState old = cached.get();
+      exchanged = cached.compareAndSet(old, EMPTY_STATE);
     } while (!exchanged);
   }
 
@@ -256,10 +304,12 @@ class MaterializationCache {
   private Map<String, ExpandedMaterializationDescriptor> updateMaterializationCache(
       Map<String, ExpandedMaterializationDescriptor> old) {
 
+    final Stopwatch stopwatch = Stopwatch.createStarted();
     // new list of descriptors
     final Iterable<Materialization> provided = provider.getValidMaterializations();
-    // this will hold the updated cache
-    final Map<String, ExpandedMaterializationDescriptor> updated = Maps.newHashMap();
+    // this will hold the updated cache, materializations are expanded concurrently into it
+    final Map<String, ExpandedMaterializationDescriptor> updated = Maps.newConcurrentMap();
+    final List<Materialization> toExpand = new ArrayList<>();
 
     int materializationExpandCount = 0;
     int materializationReuseCount = 0;
@@ -273,11 +323,7 @@ class MaterializationCache {
       final ExpandedMaterializationDescriptor cachedDescriptor =
           old.get(materialization.getId().getId());
       if (cachedDescriptor == null || schemaChanged(cachedDescriptor, materialization, catalog)) {
-        if (updateMaterializationEntry(updated, materialization, catalog)) {
-          materializationExpandCount++;
-        } else {
-          materializationErrorCount++;
-        }
+        toExpand.add(materialization);
       } else {
         // Descriptor already in the cache, we can just reuse it.
         // If materialization staleness changes after materialization is expanded and cached,
@@ -293,6 +339,11 @@ class MaterializationCache {
         materializationReuseCount++;
       }
     }
+    recordPhase(MAT_CACHE_PHASE_VALIDATE, stopwatch);
+
+    materializationExpandCount = expandMaterializations(updated, toExpand);
+    materializationErrorCount = toExpand.size() - materializationExpandCount;
+    recordPhase(MAT_CACHE_PHASE_EXPAND, stopwatch);
 
     int externalExpandCount = 0;
     int externalReuseCount = 0;
@@ -314,6 +365,7 @@ class MaterializationCache {
         externalReuseCount++;
       }
     }
+    recordPhase(MAT_CACHE_PHASE_EXTERNAL, stopwatch);
     logger.info(
         "Materialization cache updated. Materializations: "
             + "reused={} expanded={} errors={}. External: "
@@ -343,6 +395,94 @@ class MaterializationCache {
     return updated;
   }
 
+  /**
+   * Expands the given materializations into the cache, on up to {@link
+   * ReflectionOptions#MATERIALIZATION_CACHE_EXPANSION_PARALLELISM} threads. Each thread uses its
+   * own catalog as catalogs are not thread-safe.
+   *
+   * @return number of materializations successfully expanded
+   */
+  private int expandMaterializations(
+      Map<String, ExpandedMaterializationDescriptor> cache,
+      List<Materialization> materializations) {
+    if (materializations.isEmpty()) {
+      return 0;
+    }
+    final int parallelism =
+        (int)
+            Math.min(
+                optionManager.getOption(MATERIALIZATION_CACHE_EXPANSION_PARALLELISM),
+                materializations.size());
+    final Queue<Materialization> pending = new ConcurrentLinkedQueue<>(materializations);
+    final AtomicInteger expanded = new AtomicInteger();
+    final Runnable worker =
+        () -> {
+          final Catalog catalog =
+              CatalogUtil.getSystemCatalogForMaterializationCache(catalogService);
+          try {
+            Materialization materialization;
+            while ((materialization = pending.poll()) != null) {
+              if (updateMaterializationEntry(cache, materialization, catalog)) {
+                expanded.incrementAndGet();
+              }
+            }
+          } finally {
+            CatalogUtil.clearAllDatasetCache(catalog);
+          }
+        };
+
+    if (parallelism <= 1) {
+      worker.run();
+      return expanded.get();
+    }
+
+    resizeExpansionExecutor(parallelism);
+    final List<Future<?>> futures = new ArrayList<>(parallelism);
+    try {
+      for (int i = 0; i < parallelism; i++) {
+        // the workers are traced as part of the sync
+        futures.add(expansionExecutor.submit(Context.current().wrap(worker)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while expanding materializations", e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    } finally {
+      for (Future<?> future : futures) {
+        future.cancel(true);
+      }
+    }
+    return expanded.get();
+  }
+
+  /** Sets the number of threads expanding materializations, which may change between syncs. */
+  private synchronized void resizeExpansionExecutor(int size) {
+    // the core pool size can't exceed the maximum pool size
+    if (size > expansionExecutor.getMaximumPoolSize()) {
+      expansionExecutor.setMaximumPoolSize(size);
+      expansionExecutor.setCorePoolSize(size);
+    } else {
+      expansionExecutor.setCorePoolSize(size);
+      expansionExecutor.setMaximumPoolSize(size);
+    }
+  }
+
+  private void recordPhase(String phase, Stopwatch stopwatch) {
+    phaseHistogram
+        .withTags(
+            ReflectionMetrics.TAG_MAT_CACHE_INITIAL,
+            latch.getCount() > 0 ? "true" : "false",
+            ReflectionMetrics.TAG_MAT_CACHE_PHASE,
+            phase)
+        .record(stopwatch.elapsed());
+    stopwatch.reset().start();
+  }
+
   private boolean isExternalReflectionMetadataUpdated(
       ExpandedMaterializationDescriptor descriptor, EntityExplorer catalog) {
     DremioMaterialization materialization = descriptor.getMaterialization();
@@ -521,16 +661,16 @@ class MaterializationCache {
   void invalidate(MaterializationId mId) {
     boolean exchanged;
     do {
-      Map<String, ExpandedMaterializationDescriptor> old = cached.get();
-      if (!old.containsKey(mId.getId())) {
+      CacheState old = cached.get();
+      if (!old.descriptors.containsKey(mId.getId())) {
         break; // entry not present in the cache, nothing more to do
       }
       // copy over everything
-      Map<String, ExpandedMaterializationDescriptor> updated = Maps.newHashMap(old);
+      Map<String, ExpandedMaterializationDescriptor> updated = Maps.newHashMap(old.descriptors);
       // remove the specific materialization.
       updated.remove(mId.getId());
       // update the cache.
-      exchanged = cached.compareAndSet(old, updated);
+      exchanged = cached.compareAndSet(old, old.update(updated));
     } while (!exchanged);
   }
 
@@ -553,11 +693,11 @@ class MaterializationCache {
     if (descriptor != null) {
       boolean exchanged;
       do {
-        Map<String, ExpandedMaterializationDescriptor> old = cached.get();
+        CacheState old = cached.get();
         Map<String, ExpandedMaterializationDescriptor> updated =
-            Maps.newHashMap(old); // copy over everything
+            Maps.newHashMap(old.descriptors); // copy over everything
         updated.put(m.getId().getId(), descriptor);
-        exchanged = cached.compareAndSet(old, updated); // update the cache.
+        exchanged = cached.compareAndSet(old, old.update(updated)); // update the cache.
       } while (!exchanged);
     }
   }
@@ -567,6 +707,29 @@ class MaterializationCache {
    * the materialization cache.
    */
   Iterable<MaterializationDescriptor> getAll() {
+    awaitInitialization();
+    return Iterables.unmodifiableIterable(cached.get().descriptors.values());
+  }
+
+  /**
+   * Returns the cached materialization descriptors of the reflections that reference at least one
+   * of the given tables, views or external queries. Blocks on initialization of the materialization
+   * cache.
+   */
+  Iterable<MaterializationDescriptor> getCandidates(
+      Set<VersionedPath> tables,
+      Set<VersionedPath> vdsPaths,
+      Set<ExternalQueryDescriptor> externalQueries) {
+    awaitInitialization();
+    final CacheState state = cached.get();
+    final List<MaterializationDescriptor> candidates = new ArrayList<>();
+    for (String id : state.index.getCandidates(tables, vdsPaths, externalQueries)) {
+      candidates.add(state.descriptors.get(id));
+    }
+    return candidates;
+  }
+
+  private void awaitInitialization() {
     boolean success;
     try {
       success =
@@ -580,7 +743,6 @@ class MaterializationCache {
       throw new MaterializationCacheTimeoutException(
           "Timed out waiting for materialization cache to initialize.");
     }
-    return Iterables.unmodifiableIterable(cached.get().values());
   }
 
   boolean isInitialized() {
@@ -592,14 +754,55 @@ class MaterializationCache {
 
   /** Returns descriptor for default raw reflection matching during convertToRel */
   MaterializationDescriptor get(MaterializationId mId) {
-    return cached.get().get(mId.getId());
+    return cached.get().descriptors.get(mId.getId());
   }
 
   /**
    * Callers can check whether a particular reflection is "online" and available for the planner.
    */
   boolean contains(MaterializationId mId) {
-    return cached.get().containsKey(mId.getId());
+    return cached.get().descriptors.containsKey(mId.getId());
+  }
+
+  /**
+   * Immutable snapshot of the cached descriptors along with the index of the tables, views and
+   * external queries they reference, so that both are swapped together.
+   */
+  private static final class CacheState {
+    private final Map<String, ExpandedMaterializationDescriptor> descriptors;
+    private final MaterializationDescriptorIndex index;
+
+    private CacheState(
+        Map<String, ExpandedMaterializationDescriptor> descriptors,
+        MaterializationDescriptorIndex index) {
+      this.descriptors = descriptors;
+      this.index = index;
+    }
+
+    /**
+     * Builds the state holding the given descriptors. Only the descriptors that are not already in
+     * this state are indexed, the others keep their existing index entries.
+     */
+    private CacheState update(Map<String, ExpandedMaterializationDescriptor> updated) {
+      final MaterializationDescriptorIndex.Builder builder = index.toBuilder();
+      for (Map.Entry<String, ExpandedMaterializationDescriptor> entry : descriptors.entrySet()) {
+        if (!updated.containsKey(entry.getKey())) {
+          builder.remove(entry.getKey());
+        }
+      }
+      for (Map.Entry<String, ExpandedMaterializationDescriptor> entry : updated.entrySet()) {
+        final ExpandedMaterializationDescriptor previous = descriptors.get(entry.getKey());
+        final ExpandedMaterializationDescriptor descriptor = entry.getValue();
+        if (previous == null || previous.getMaterialization() != descriptor.getMaterialization()) {
+          builder.put(
+              entry.getKey(),
+              descriptor.getLayoutId(),
+              MaterializationDescriptorIndex.References.of(
+                  descriptor.getMaterialization().getQueryRel()));
+        }
+      }
+      return new CacheState(updated, builder.build());
+    }
   }
 
   public static class MaterializationCacheTimeoutException extends RuntimeException {
@@ -36,6 +36,8 @@ public class ReflectionMetrics {
   // Metric names
   // Histogram for materialization cache sync time
   public static final String MAT_CACHE_SYNC = "materialization_cache_sync";
+  // Histogram for materialization cache sync time of each phase
+  public static final String MAT_CACHE_SYNC_PHASE = "materialization_cache_sync_phase";
   // Gauge for entries in materialization cache
   public static final String MAT_CACHE_ENTRIES = "materialization_cache_entries";
   // Counter for any materialization cache error (may retry)
@@ -48,6 +50,8 @@ public class ReflectionMetrics {
   // Metric tags
   // Whether the materialization cache error was on startup
   public static final String TAG_MAT_CACHE_INITIAL = "initial";
+  // Phase of the materialization cache sync
+  public static final String TAG_MAT_CACHE_PHASE = "phase";
   // Whether the source was in a bad state
   public static final String TAG_SOURCE_DOWN = "source_down";
   // Whether the dataset is versioned
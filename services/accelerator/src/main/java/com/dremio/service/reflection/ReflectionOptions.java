@@ -56,6 +56,9 @@ public interface ReflectionOptions {
   PositiveLongValidator MATERIALIZATION_CACHE_INIT_TIMEOUT_SECONDS =
       new PositiveLongValidator(
           "reflection.materialization.cache.init_timeout_seconds", Long.MAX_VALUE, 60);
+  // how many materializations the materialization cache expands concurrently
+  PositiveLongValidator MATERIALIZATION_CACHE_EXPANSION_PARALLELISM =
+      new PositiveLongValidator("reflection.materialization.cache.expansion.parallelism", 64, 8);
   int MAX_RETRY_HOURS = 3;
   // how long materialization cache will keep retrying a materialization before marking it as FAILED
   PositiveLongValidator MATERIALIZATION_CACHE_RETRY_MINUTES =
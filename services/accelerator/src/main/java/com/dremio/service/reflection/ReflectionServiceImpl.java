@@ -50,6 +50,8 @@ import com.dremio.exec.planner.acceleration.MaterializationExpander;
 import com.dremio.exec.planner.acceleration.descriptor.ExpandedMaterializationDescriptor;
 import com.dremio.exec.planner.acceleration.descriptor.MaterializationDescriptor;
 import com.dremio.exec.planner.acceleration.descriptor.UnexpandedMaterializationDescriptor;
+import com.dremio.exec.planner.acceleration.substitution.SubstitutionUtils.ExternalQueryDescriptor;
+import com.dremio.exec.planner.acceleration.substitution.SubstitutionUtils.VersionedPath;
 import com.dremio.exec.planner.logical.ViewTable;
 import com.dremio.exec.planner.observer.AbstractAttemptObserver;
 import com.dremio.exec.planner.observer.AttemptObservers;
@@ -541,6 +543,9 @@ public class ReflectionServiceImpl extends BaseReflectionService {
 
   @Override
   public void close() throws Exception {
+    if (materializationCache != null) {
+      materializationCache.close();
+    }
     allocator.close();
   }
 
@@ -1161,20 +1166,10 @@ public class ReflectionServiceImpl extends BaseReflectionService {
         return Collections.emptyList();
       }
 
-      final long currentTime = System.currentTimeMillis();
       final Set<String> activeHosts = getActiveHosts();
       FluentIterable<MaterializationDescriptor> descriptors;
       if (isCacheEnabled()) {
-        descriptors =
-            FluentIterable.from(materializationCache.getAll())
-                .filter(
-                    new Predicate<MaterializationDescriptor>() {
-                      @Override
-                      public boolean apply(MaterializationDescriptor descriptor) {
-                        return descriptor.getExpirationTimestamp() > currentTime
-                            && activeHosts.containsAll(descriptor.getPartition());
-                      }
-                    });
+        descriptors = filterCached(materializationCache.getAll(), activeHosts);
       } else {
         final Catalog catalog =
             CatalogUtil.getSystemCatalogForMaterializationCache(catalogService.get());
@@ -1225,7 +1220,44 @@ public class ReflectionServiceImpl extends BaseReflectionService {
 
         descriptors = descriptors.append(externalDescriptors).filter(notNull());
       }
+      return latestPerReflection(descriptors);
+    }
+
+    /**
+     * Uses the index of the materialization cache to only return the materializations of the
+     * reflections referencing the query tables, views or external queries. Falls back to all the
+     * materializations when the cache is disabled.
+     */
+    @Override
+    public List<MaterializationDescriptor> getCandidates(
+        Set<VersionedPath> tables,
+        Set<VersionedPath> vdsPaths,
+        Set<ExternalQueryDescriptor> externalQueries) {
+      if (!isSubstitutionEnabled() || !isCacheEnabled()) {
+        return get();
+      }
+      return latestPerReflection(
+          filterCached(
+              materializationCache.getCandidates(tables, vdsPaths, externalQueries),
+              getActiveHosts()));
+    }
+
+    private FluentIterable<MaterializationDescriptor> filterCached(
+        Iterable<MaterializationDescriptor> cached, Set<String> activeHosts) {
+      final long currentTime = System.currentTimeMillis();
+      return FluentIterable.from(cached)
+          .filter(
+              new Predicate<MaterializationDescriptor>() {
+                @Override
+                public boolean apply(MaterializationDescriptor descriptor) {
+                  return descriptor.getExpirationTimestamp() > currentTime
+                      && activeHosts.containsAll(descriptor.getPartition());
+                }
+              });
+    }
 
+    private List<MaterializationDescriptor> latestPerReflection(
+        FluentIterable<MaterializationDescriptor> descriptors) {
       if (Iterables.isEmpty(descriptors)) {
         return Collections.emptyList();
       }
@@ -189,6 +189,11 @@ public class ReflectionRecordingObserver implements AttemptObserver {
     calls.add(observer -> observer.planFindMaterializations(millisTaken));
   }
 
+  @Override
+  public void planMaterializationCandidates(int candidateCount, long microsTaken) {
+    calls.add(observer -> observer.planMaterializationCandidates(candidateCount, microsTaken));
+  }
+
   @Override
   public void planNormalized(long millisTaken, List<RelWithInfo> normalizedQueryPlans) {
     calls.add(observer -> observer.planNormalized(millisTaken, normalizedQueryPlans));
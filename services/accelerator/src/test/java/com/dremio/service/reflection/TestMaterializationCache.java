@@ -16,18 +16,22 @@
 package com.dremio.service.reflection;
 
 import static com.dremio.service.reflection.ReflectionOptions.MATERIALIZATION_CACHE_ENABLED;
+import static com.dremio.service.reflection.ReflectionOptions.MATERIALIZATION_CACHE_EXPANSION_PARALLELISM;
 import static com.dremio.service.reflection.ReflectionOptions.MATERIALIZATION_CACHE_RETRY_MINUTES;
 import static com.dremio.service.reflection.proto.MaterializationState.DONE;
 import static com.dremio.service.reflection.proto.MaterializationState.FAILED;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
 import com.dremio.common.exceptions.UserException;
 import com.dremio.exec.catalog.Catalog;
+import com.dremio.exec.planner.acceleration.DremioMaterialization;
 import com.dremio.exec.planner.acceleration.descriptor.ExpandedMaterializationDescriptor;
+import com.dremio.exec.planner.acceleration.substitution.SubstitutionUtils.VersionedPath;
 import com.dremio.exec.planner.serialization.DeserializationException;
 import com.dremio.exec.store.CatalogService;
 import com.dremio.options.OptionManager;
@@ -36,9 +40,19 @@ import com.dremio.service.reflection.proto.MaterializationId;
 import com.dremio.service.reflection.proto.ReflectionId;
 import com.dremio.service.reflection.store.MaterializationStore;
 import com.dremio.test.DremioTest;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.Scope;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.rel.RelShuttle;
+import org.apache.calcite.rel.core.TableScan;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -92,6 +106,7 @@ public class TestMaterializationCache extends DremioTest {
     m2.setId(mId2);
 
     // For materializationCache.refresh()
+    stubMaterialization(descriptor, "r1", "t1");
     when(provider.expand(m1, catalog)).thenReturn(descriptor);
     when(provider.getValidMaterializations()).thenReturn(Arrays.asList(m1));
     when(provider.getExternalReflections()).thenReturn(Collections.emptyList());
@@ -143,6 +158,7 @@ public class TestMaterializationCache extends DremioTest {
     assertThat(materializationCache.getRetryMap().getIfPresent(m1.getId())).isNotNull();
 
     // Second sync will succeed
+    stubMaterialization(descriptor, "r1", "t1");
     reset(provider);
     when(provider.getValidMaterializations()).thenReturn(Arrays.asList(m1));
     when(provider.getExternalReflections()).thenReturn(Collections.emptyList());
@@ -203,4 +219,120 @@ public class TestMaterializationCache extends DremioTest {
     assertThat(m1.getState()).isEqualTo(DONE);
     assertThat(materializationCache.getRetryMap().getIfPresent(m1.getId())).isNotNull();
   }
+
+  @Test
+  public void testGetCandidates() throws Exception {
+    MaterializationCache materializationCache =
+        new MaterializationCache(
+            provider, reflectionStatusService, catalogService, optionManager, materializationStore);
+    Materialization m2 = new Materialization();
+    m2.setReflectionId(new ReflectionId("r2"));
+    m2.setId(new MaterializationId("def"));
+    ExpandedMaterializationDescriptor descriptor2 = mock(ExpandedMaterializationDescriptor.class);
+    stubMaterialization(descriptor, "r1", "t1");
+    stubMaterialization(descriptor2, "r2", "t2");
+
+    when(provider.getValidMaterializations()).thenReturn(Arrays.asList(m1, m2));
+    when(provider.getExternalReflections()).thenReturn(Collections.emptyList());
+    when(provider.expand(m1, catalog)).thenReturn(descriptor);
+    when(provider.expand(m2, catalog)).thenReturn(descriptor2);
+    materializationCache.refreshMaterializationCache();
+
+    ImmutableSet<VersionedPath> t2 = ImmutableSet.of(VersionedPath.of(ImmutableList.of("s", "t2")));
+    assertThat(materializationCache.getCandidates(t2, ImmutableSet.of(), ImmutableSet.of()))
+        .containsExactly(descriptor2);
+
+    // invalidated materializations are removed from the index
+    materializationCache.invalidate(m2.getId());
+    assertThat(materializationCache.getCandidates(t2, ImmutableSet.of(), ImmutableSet.of()))
+        .isEmpty();
+  }
+
+  @Test
+  public void testParallelExpansion() throws Exception {
+    MaterializationCache materializationCache =
+        new MaterializationCache(
+            provider, reflectionStatusService, catalogService, optionManager, materializationStore);
+    when(optionManager.getOption(MATERIALIZATION_CACHE_EXPANSION_PARALLELISM)).thenReturn(4L);
+
+    Materialization m2 = new Materialization();
+    m2.setReflectionId(new ReflectionId("r2"));
+    m2.setId(new MaterializationId("def"));
+    Materialization m3 = new Materialization();
+    m3.setReflectionId(new ReflectionId("r3"));
+    m3.setId(new MaterializationId("ghi"));
+    ExpandedMaterializationDescriptor descriptor2 = mock(ExpandedMaterializationDescriptor.class);
+    stubMaterialization(descriptor, "r1", "t1");
+    stubMaterialization(descriptor2, "r2", "t2");
+
+    when(provider.getValidMaterializations()).thenReturn(Arrays.asList(m1, m2, m3));
+    when(provider.getExternalReflections()).thenReturn(Collections.emptyList());
+    when(provider.expand(m1, catalog)).thenReturn(descriptor);
+    when(provider.expand(m2, catalog)).thenReturn(descriptor2);
+    // a failing expansion doesn't prevent the others from being cached
+    when(provider.expand(m3, catalog)).thenThrow(UserException.sourceInBadState().buildSilently());
+    materializationCache.refreshMaterializationCache();
+
+    assertThat(materializationCache.get(m1.getId())).isEqualTo(descriptor);
+    assertThat(materializationCache.get(m2.getId())).isEqualTo(descriptor2);
+    assertThat(materializationCache.contains(m3.getId())).isFalse();
+  }
+
+  @Test
+  public void testParallelExpansionContext() throws Exception {
+    MaterializationCache materializationCache =
+        new MaterializationCache(
+            provider, reflectionStatusService, catalogService, optionManager, materializationStore);
+    when(optionManager.getOption(MATERIALIZATION_CACHE_EXPANSION_PARALLELISM)).thenReturn(2L);
+
+    Materialization m2 = new Materialization();
+    m2.setReflectionId(new ReflectionId("r2"));
+    m2.setId(new MaterializationId("def"));
+    ExpandedMaterializationDescriptor descriptor2 = mock(ExpandedMaterializationDescriptor.class);
+    stubMaterialization(descriptor, "r1", "t1");
+    stubMaterialization(descriptor2, "r2", "t2");
+
+    ContextKey<String> key = ContextKey.named("sync");
+    Queue<String> expansionContexts = new ConcurrentLinkedQueue<>();
+    when(provider.getValidMaterializations()).thenReturn(Arrays.asList(m1, m2));
+    when(provider.getExternalReflections()).thenReturn(Collections.emptyList());
+    when(provider.expand(m1, catalog))
+        .thenAnswer(
+            invocation -> {
+              expansionContexts.add(Context.current().get(key));
+              return descriptor;
+            });
+    when(provider.expand(m2, catalog))
+        .thenAnswer(
+            invocation -> {
+              expansionContexts.add(Context.current().get(key));
+              return descriptor2;
+            });
+
+    // the expansion threads are kept between syncs, and run in the context of the current sync
+    for (String sync : ImmutableList.of("first", "second")) {
+      materializationCache.resetCache();
+      try (Scope scope = Context.current().with(key, sync).makeCurrent()) {
+        materializationCache.refreshMaterializationCache();
+      }
+      assertThat(materializationCache.get(m1.getId())).isEqualTo(descriptor);
+      assertThat(materializationCache.get(m2.getId())).isEqualTo(descriptor2);
+      assertThat(expansionContexts).containsExactly(sync, sync);
+      expansionContexts.clear();
+    }
+    materializationCache.close();
+  }
+
+  private static void stubMaterialization(
+      ExpandedMaterializationDescriptor descriptor, String reflectionId, String tableName) {
+    DremioMaterialization materialization = mock(DremioMaterialization.class);
+    TableScan scan = mock(TableScan.class);
+    RelOptTable table = mock(RelOptTable.class);
+    when(descriptor.getLayoutId()).thenReturn(reflectionId);
+    when(descriptor.getMaterialization()).thenReturn(materialization);
+    when(materialization.getQueryRel()).thenReturn(scan);
+    when(scan.accept(any(RelShuttle.class))).thenCallRealMethod();
+    when(scan.getTable()).thenReturn(table);
+    when(table.getQualifiedName()).thenReturn(ImmutableList.of("s", tableName));
+  }
 }
@@ -117,6 +117,13 @@ abstract class CoreBaseTimedStore<K, V> implements CoreKVStore<K, V> {
     }
   }
 
+  @Override
+  public void bulkPut(Map<KVStoreTuple<K>, KVStoreTuple<V>> documents, PutOption... options) {
+    try (TimedBlock b = time(name + ".bulkPut")) {
+      kvStore.bulkPut(documents, options);
+    }
+  }
+
   /**
    * Basic timed store.
    *
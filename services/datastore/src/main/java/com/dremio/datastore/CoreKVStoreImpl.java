@@ -25,6 +25,7 @@ import com.google.common.base.Strings;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import java.util.ConcurrentModificationException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -157,6 +158,20 @@ public class CoreKVStoreImpl<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
     rawStore.bulkDelete(convertedKeys, deleteOptions);
   }
 
+  @Override
+  public void bulkPut(Map<KVStoreTuple<KEY>, KVStoreTuple<VALUE>> documents, PutOption... options) {
+    if (VersionOption.getTagInfo(options).hasVersionOption()) {
+      // versions are validated one document at a time
+      CoreKVStore.super.bulkPut(documents, options);
+      return;
+    }
+    final Map<byte[], byte[]> convertedDocuments = new LinkedHashMap<>(documents.size());
+    documents.forEach(
+        (key, value) ->
+            convertedDocuments.put(key.getSerializedBytes(), value.getSerializedBytes()));
+    rawStore.bulkPut(convertedDocuments, options);
+  }
+
   @Override
   public Iterable<Document<KVStoreTuple<KEY>, KVStoreTuple<VALUE>>> find(FindOption... options) {
     return Iterables.transform(rawStore.find(options), this::fromDocument);
@@ -45,8 +45,10 @@ import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -67,6 +69,8 @@ import org.rocksdb.FlushOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
 import org.xerial.snappy.SnappyInputStream;
 import org.xerial.snappy.SnappyOutputStream;
 
@@ -355,6 +359,42 @@ class RocksDBStore implements ByteStore {
     return lock;
   }
 
+  /**
+   * Opens the shared locks of the stripes of all the keys, in the order of the stripes so that two
+   * bulk operations can't deadlock.
+   */
+  private StripeLocks sharedLocks(List<byte[]> keys) {
+    final boolean[] stripes = new boolean[parallel];
+    for (byte[] key : keys) {
+      Preconditions.checkNotNull(key);
+      stripes[Math.abs(Arrays.hashCode(key) % parallel)] = true;
+    }
+    final StripeLocks locks = new StripeLocks();
+    for (int i = 0; i < parallel; i++) {
+      if (stripes[i]) {
+        locks.open(sharedLocks[i]);
+      }
+    }
+    return locks;
+  }
+
+  /** The locks of several stripes, closed in the reverse order they were opened. */
+  private static final class StripeLocks implements AutoCloseable {
+    private final ArrayDeque<AutoCloseableLock> opened = new ArrayDeque<>();
+
+    private void open(AutoCloseableLock lock) {
+      lock.open();
+      opened.push(lock);
+    }
+
+    @Override
+    public void close() {
+      while (!opened.isEmpty()) {
+        opened.pop().close();
+      }
+    }
+  }
+
   private AutoCloseableLock exclusiveLock(byte[] key) {
     Preconditions.checkNotNull(key);
     final int hash = Arrays.hashCode(key);
@@ -536,11 +576,65 @@ class RocksDBStore implements ByteStore {
 
   @Override
   public Iterable<Document<byte[], byte[]>> get(List<byte[]> keys, GetOption... options) {
-    final List<Document<byte[], byte[]>> results = new ArrayList<>();
-    for (byte[] key : keys) {
-      results.add(get(key, options));
+    if (keys.isEmpty()) {
+      return new ArrayList<>();
+    }
+    try (StripeLocks ac = sharedLocks(keys)) {
+      throwIfClosed();
+      final List<byte[]> valuesOrPtrs = multiGet(keys);
+      final List<Document<byte[], byte[]>> results = new ArrayList<>(keys.size());
+      for (int i = 0; i < keys.size(); i++) {
+        final RocksEntry result = resolvePtrOrValue(valuesOrPtrs.get(i));
+        if (result == null) {
+          results.add(null);
+          continue;
+        }
+        final byte[] value = result.getData();
+        results.add(toDocument(keys.get(i), value, toTag(result.getMeta(), value)));
+      }
+      return results;
+    } catch (RocksDBException | BlobNotFoundException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Puts all the entries in a single write batch, so that they are either all written or none are.
+   */
+  @Override
+  public void bulkPut(Map<byte[], byte[]> entries, PutOption... options) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    final List<byte[]> keys = new ArrayList<>(entries.keySet());
+    final List<BlobHolder> blobs = new ArrayList<>(keys.size());
+    try (StripeLocks ac = sharedLocks(keys);
+        WriteBatch batch = new WriteBatch();
+        WriteOptions writeOptions = new WriteOptions()) {
+      throwIfClosed();
+      final List<byte[]> oldValuesOrPtrs = multiGet(keys);
+      for (byte[] key : keys) {
+        final byte[] newValue = entries.get(key);
+        if (newValue == null) {
+          throw new NullPointerException("null values are not allowed in kvstore");
+        }
+        final BlobHolder blob =
+            metaManager.filterPut(newValue, ByteStore.generateTagFromBytes(newValue));
+        blobs.add(blob);
+        batch.put(handle, key, blob.ptrOrValue());
+      }
+      db.write(writeOptions, batch);
+
+      for (int i = 0; i < keys.size(); i++) {
+        metaManager.deleteTranslation(meta(oldValuesOrPtrs.get(i)));
+        blobs.get(i).commit();
+      }
+    } catch (RocksDBException | IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      // blobs that were not committed are deleted
+      AutoCloseables.closeNoChecked(AutoCloseables.all(blobs));
     }
-    return results;
   }
 
   @Override
@@ -662,13 +756,44 @@ class RocksDBStore implements ByteStore {
     throw new UnsupportedOperationException("BulkIncrement is not supported in RocksDB.");
   }
 
+  /** Deletes all the keys in a single write batch. */
   @Override
   public void bulkDelete(List<byte[]> keysToDelete, DeleteOption... deleteOptions) {
-    for (byte[] key : keysToDelete) {
-      delete(key, deleteOptions);
+    if (keysToDelete.isEmpty()) {
+      return;
+    }
+    try (StripeLocks ac = sharedLocks(keysToDelete);
+        WriteBatch batch = new WriteBatch();
+        WriteOptions writeOptions = new WriteOptions()) {
+      throwIfClosed();
+      final List<byte[]> oldValuesOrPtrs =
+          KVStoreOptionUtility.canSkipMeta(deleteOptions) ? null : multiGet(keysToDelete);
+      for (int i = 0; i < keysToDelete.size(); i++) {
+        if (oldValuesOrPtrs == null || oldValuesOrPtrs.get(i) != null) {
+          batch.delete(handle, keysToDelete.get(i));
+        }
+      }
+      if (batch.count() == 0) {
+        return;
+      }
+      db.write(writeOptions, batch);
+
+      if (oldValuesOrPtrs != null) {
+        for (byte[] oldValueOrPtr : oldValuesOrPtrs) {
+          if (oldValueOrPtr != null) {
+            metaManager.deleteTranslation(meta(oldValueOrPtr));
+          }
+        }
+      }
+    } catch (RocksDBException e) {
+      throw new RuntimeException(e);
     }
   }
 
+  private List<byte[]> multiGet(List<byte[]> keys) throws RocksDBException {
+    return db.multiGetAsList(Collections.nCopies(keys.size(), handle), keys);
+  }
+
   @Override
   public Iterable<Document<byte[], byte[]>> find(FindOption... options) {
     cleanReferences();
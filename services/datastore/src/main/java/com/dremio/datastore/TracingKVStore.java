@@ -110,6 +110,11 @@ class TracingKVStore<K, V> implements KVStore<K, V> {
     trace("bulkDelete", () -> delegate.bulkDelete(keysToDelete, deleteOptions));
   }
 
+  @Override
+  public void bulkPut(Map<K, V> documents, PutOption... options) {
+    trace("bulkPut", () -> delegate.bulkPut(documents, options));
+  }
+
   @Override
   public void delete(K key, DeleteOption... options) {
     trace("delete", () -> delegate.delete(key, options));
@@ -201,6 +201,21 @@ public interface KVStore<K, V> {
    */
   void bulkDelete(List<K> keysToDelete, DeleteOption... deleteOptions);
 
+  /**
+   * Puts all the documents. If the underlying store supports write batches, the documents are
+   * written atomically in a single batch, otherwise the method iterates and does point puts.
+   *
+   * @param documents the keys and values to store.
+   * @param options extra options for PUT operations.
+   * @throws com.dremio.datastore.DatastoreException when one or more runtime failures are
+   *     encountered.
+   */
+  default void bulkPut(Map<K, V> documents, PutOption... options) {
+    for (Map.Entry<K, V> document : documents.entrySet()) {
+      put(document.getKey(), document.getValue(), options);
+    }
+  }
+
   /**
    * Get the name of the KV Store.
    *
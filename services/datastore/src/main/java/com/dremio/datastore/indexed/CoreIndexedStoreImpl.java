@@ -415,6 +415,9 @@ public class CoreIndexedStoreImpl<K, V> implements CoreIndexedStore<K, V> {
   @Override
   public void bulkDelete(List<KVStoreTuple<K>> keysToDelete, DeleteOption... deleteOptions) {
     base.bulkDelete(keysToDelete, deleteOptions);
+    for (KVStoreTuple<K> key : keysToDelete) {
+      index.deleteDocuments(keyAsTerm(key));
+    }
   }
 
   @Override
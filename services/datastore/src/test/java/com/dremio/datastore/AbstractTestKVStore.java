@@ -58,6 +58,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -234,6 +236,40 @@ public abstract class AbstractTestKVStore<K, V> {
     assertNull(Iterables.get(resultWithDeletedKey, 0));
   }
 
+  @Test
+  public void testBulkPutAndDelete() {
+    final Map<K, V> documents = new LinkedHashMap<>();
+    for (int i = 0; i < SAMPLING_SIZE / 2; i++) {
+      documents.put(gen.newKey(), gen.newVal());
+    }
+    kvStore.bulkPut(documents);
+
+    final List<K> keys = new ArrayList<>(documents.keySet());
+    final Iterable<Document<K, V>> result = kvStore.get(keys);
+    assertEquals(keys.size(), Iterables.size(result));
+    int i = 0;
+    for (Document<K, V> document : result) {
+      gen.assertKeyEquals(keys.get(i), document.getKey());
+      gen.assertValueEquals(documents.get(keys.get(i)), document.getValue());
+      assertFalse(TAG_ASSERT_FAILURE_MSG, Strings.isNullOrEmpty(document.getTag()));
+      i++;
+    }
+
+    // Overwrite the first key, and delete every other key.
+    final V newValue = gen.newVal();
+    kvStore.bulkPut(Collections.singletonMap(keys.get(0), newValue));
+    gen.assertValueEquals(newValue, kvStore.get(keys.get(0)).getValue());
+
+    final List<K> deletedKeys = new ArrayList<>();
+    for (int j = 1; j < keys.size(); j += 2) {
+      deletedKeys.add(keys.get(j));
+    }
+    kvStore.bulkDelete(deletedKeys);
+    for (int j = 0; j < keys.size(); j++) {
+      assertEquals(j % 2 == 0, kvStore.contains(keys.get(j)));
+    }
+  }
+
   @Test
   public void testContainsMissingKey() {
     final K key = gen.newKey();
@@ -41,7 +41,9 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -278,6 +280,57 @@ public class TestRocksDBStore {
     assertEquals(null, store.get(randomKey));
   }
 
+  @Test
+  public void checkBulkBlobOps() throws IOException {
+    Random r = new Random(123);
+    final Map<byte[], byte[]> entries = new LinkedHashMap<>();
+    for (int i = 0; i < 10; i++) {
+      byte[] key = new byte[5];
+      r.nextBytes(key);
+      // every other value is large enough to be stored as a blob
+      byte[] value = new byte[i % 2 == 0 ? (int) BLOB_FILTER_SIZE + 1 : 10];
+      r.nextBytes(value);
+      value[0] = META_MARKER + 1;
+      entries.put(key, value);
+    }
+    store.bulkPut(entries);
+
+    final List<byte[]> keys = new ArrayList<>(entries.keySet());
+    final List<byte[]> keysWithMissing = new ArrayList<>(keys);
+    keysWithMissing.add("missing".getBytes(UTF_8));
+    final List<Document<byte[], byte[]>> documents = new ArrayList<>();
+    store.get(keysWithMissing).forEach(documents::add);
+    assertEquals(keys.size() + 1, documents.size());
+    for (int i = 0; i < keys.size(); i++) {
+      assertArrayEquals(keys.get(i), documents.get(i).getKey());
+      assertArrayEquals(entries.get(keys.get(i)), documents.get(i).getValue());
+      assertEquals(store.get(keys.get(i)).getTag(), documents.get(i).getTag());
+    }
+    assertEquals(null, documents.get(keys.size()));
+
+    // overwrite the values, blobs are swapped with inline values and the other way around
+    final Map<byte[], byte[]> overwrites = new LinkedHashMap<>();
+    for (int i = 0; i < keys.size(); i++) {
+      overwrites.put(keys.get(i), entries.get(keys.get(keys.size() - 1 - i)));
+    }
+    store.bulkPut(overwrites);
+    for (byte[] key : keys) {
+      assertArrayEquals(overwrites.get(key), store.get(key).getValue());
+    }
+
+    store.bulkDelete(keysWithMissing);
+    for (byte[] key : keys) {
+      assertEquals(null, store.get(key));
+    }
+
+    // no orphan blobs are left behind
+    Path blobDir = Paths.get(rocksDBResource.getDbDir(), "blob", "test");
+    try (Stream<Path> stream = Files.list(blobDir)) {
+      List<Path> remainingBlobFiles = stream.collect(Collectors.toList());
+      assertEquals("Expected zero remaining files.", Collections.EMPTY_LIST, remainingBlobFiles);
+    }
+  }
+
   @Test()
   public void testNotClosed() throws InterruptedException, ExecutionException {
     ExecutorService executor = Executors.newFixedThreadPool(4);
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.jobs;
+
+import com.dremio.exec.store.easy.arrow.ArrowFileBatch;
+import com.dremio.exec.store.easy.arrow.ArrowFileReader.BatchCache;
+import com.dremio.exec.store.easy.arrow.ArrowFileReader.BatchLoader;
+import com.dremio.io.file.Path;
+import com.dremio.service.job.proto.JobId;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.util.Objects;
+import org.apache.arrow.memory.BufferAllocator;
+
+/**
+ * Coordinator side cache of the record batches read from job results files, so that paging through
+ * the results of a job reads each batch from storage once. Batches are keyed by job ID, file and
+ * batch index, and the cache is bounded by the direct memory held by their buffers.
+ */
+class JobResultsBatchCache implements AutoCloseable {
+  private final BufferAllocator allocator;
+  private final long maxSizeInBytes;
+  private final Cache<BatchKey, ArrowFileBatch> cache;
+
+  JobResultsBatchCache(BufferAllocator parentAllocator, long maxSizeInBytes) {
+    // the cache is bounded by the weights of its entries rather than by the allocator. The results
+    // loaded from the batches are transferred to the allocators of the readers, so the buffers of
+    // evicted batches still held by results are accounted there and the cache can be closed
+    this.allocator =
+        parentAllocator.newChildAllocator("job-results-batch-cache", 0, Long.MAX_VALUE);
+    this.maxSizeInBytes = maxSizeInBytes;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumWeight(maxSizeInBytes)
+            .weigher(
+                (BatchKey key, ArrowFileBatch batch) ->
+                    (int) Math.min(Integer.MAX_VALUE, batch.getSizeInBytes()))
+            // release the buffers of removed batches right away rather than on a pool thread
+            .executor(Runnable::run)
+            .removalListener(
+                (BatchKey key, ArrowFileBatch batch, RemovalCause cause) -> batch.close())
+            .build();
+  }
+
+  /** Gets a view of the cache for the results files of the given job. */
+  BatchCache forJob(JobId jobId) {
+    return (path, batchIndex, loader) -> get(new BatchKey(jobId.getId(), path, batchIndex), loader);
+  }
+
+  private ArrowFileBatch get(BatchKey key, BatchLoader loader) throws IOException {
+    final ArrowFileBatch cached = cache.getIfPresent(key);
+    if (cached != null && cached.tryRetain()) {
+      return cached;
+    }
+
+    final ArrowFileBatch batch = loader.load(allocator);
+    // batches larger than the whole cache are not kept, they would be evicted right away
+    if (batch.getSizeInBytes() <= maxSizeInBytes && batch.tryRetain()) {
+      cache.put(key, batch);
+    }
+    return batch;
+  }
+
+  /** Removes the batches of the given job, whose results are being deleted. */
+  void invalidate(JobId jobId) {
+    cache.asMap().keySet().removeIf(key -> key.jobId.equals(jobId.getId()));
+  }
+
+  @VisibleForTesting
+  long getCachedBatchCount() {
+    return cache.estimatedSize();
+  }
+
+  @VisibleForTesting
+  long getAllocatedMemory() {
+    return allocator.getAllocatedMemory();
+  }
+
+  @Override
+  public void close() {
+    cache.invalidateAll();
+    cache.cleanUp();
+    allocator.close();
+  }
+
+  private static final class BatchKey {
+    private final String jobId;
+    private final Path path;
+    private final int batchIndex;
+
+    private BatchKey(String jobId, Path path, int batchIndex) {
+      this.jobId = jobId;
+      this.path = path;
+      this.batchIndex = batchIndex;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof BatchKey)) {
+        return false;
+      }
+      final BatchKey that = (BatchKey) o;
+      return batchIndex == that.batchIndex && jobId.equals(that.jobId) && path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(jobId, path, batchIndex);
+    }
+  }
+}
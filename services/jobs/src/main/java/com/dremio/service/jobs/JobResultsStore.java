@@ -62,11 +62,27 @@ public class JobResultsStore implements Service {
   private final BufferAllocator allocator;
   private final LegacyIndexedStore<JobId, JobResult> store;
 
+  /** Cache of the batches read from the results files, null if disabled. */
+  private final JobResultsBatchCache batchCache;
+
   public JobResultsStore(
       final JobResultsStoreConfig resultsStoreConfig,
       final LegacyIndexedStore<JobId, JobResult> store,
       final BufferAllocator allocator)
       throws IOException {
+    this(resultsStoreConfig, store, allocator, 0);
+  }
+
+  /**
+   * @param batchCacheSizeInBytes direct memory used to cache the batches read from the results
+   *     files, 0 to disable the cache
+   */
+  public JobResultsStore(
+      final JobResultsStoreConfig resultsStoreConfig,
+      final LegacyIndexedStore<JobId, JobResult> store,
+      final BufferAllocator allocator,
+      final long batchCacheSizeInBytes)
+      throws IOException {
     this.storageName = resultsStoreConfig.getStorageName();
     this.dfs = resultsStoreConfig.getFileSystem();
     this.jobStoreLocation = resultsStoreConfig.getStoragePath();
@@ -74,6 +90,10 @@ public class JobResultsStore implements Service {
 
     this.store = store;
     this.allocator = allocator;
+    this.batchCache =
+        batchCacheSizeInBytes > 0
+            ? new JobResultsBatchCache(allocator, batchCacheSizeInBytes)
+            : null;
   }
 
   /** Get the output table path for the given id */
@@ -93,6 +113,9 @@ public class JobResultsStore implements Service {
   }
 
   public boolean cleanup(JobId jobId) {
+    if (batchCache != null) {
+      batchCache.invalidate(jobId);
+    }
     final Path jobOutputDir = getJobOutputDir(jobId);
     try {
       if (doesQueryResultsDirExists(jobOutputDir, jobId)) {
@@ -203,7 +226,8 @@ public class JobResultsStore implements Service {
         // when the query returns no results at all or the requested range is invalid, return an
         // empty record batch
         // for metadata purposes.
-        batchHolders.addAll(getQueryResults(jobOutputDir, resultMetadata.get(0), allocator, 0, 0));
+        batchHolders.addAll(
+            getQueryResults(jobId, jobOutputDir, resultMetadata.get(0), allocator, 0, 0));
 
       } else {
         runningFileRecordCount = 0;
@@ -218,7 +242,7 @@ public class JobResultsStore implements Service {
           final long fileLimit = Math.min(file.getRecordCount() - fileOffset, remaining);
 
           batchHolders.addAll(
-              getQueryResults(jobOutputDir, file, allocator, fileOffset, fileLimit));
+              getQueryResults(jobId, jobOutputDir, file, allocator, fileOffset, fileLimit));
           remaining -= fileLimit;
 
           runningFileRecordCount += file.getRecordCount();
@@ -246,6 +270,7 @@ public class JobResultsStore implements Service {
   }
 
   protected List<RecordBatchHolder> getQueryResults(
+      JobId jobId,
       Path jobOutputDir,
       ArrowFileMetadata arrowFileMetadata,
       BufferAllocator allocator,
@@ -253,7 +278,12 @@ public class JobResultsStore implements Service {
       long fileLimit)
       throws IOException {
     try (ArrowFileReader fileReader =
-        new ArrowFileReader(dfs, jobOutputDir, arrowFileMetadata, allocator)) {
+        new ArrowFileReader(
+            dfs,
+            jobOutputDir,
+            arrowFileMetadata,
+            allocator,
+            batchCache == null ? null : batchCache.forJob(jobId))) {
       return fileReader.read(fileOffset, fileLimit);
     }
   }
@@ -364,7 +394,11 @@ public class JobResultsStore implements Service {
   }
 
   @Override
-  public void close() throws Exception {}
+  public void close() throws Exception {
+    if (batchCache != null) {
+      batchCache.close();
+    }
+  }
 
   protected Set<NodeEndpoint> getNodeEndpoints(JobId jobId) {
     JobResult jobResult = store.get(jobId);
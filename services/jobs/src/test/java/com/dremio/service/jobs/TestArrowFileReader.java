@@ -47,10 +47,12 @@ import com.dremio.exec.store.easy.arrow.ArrowFileReader;
 import com.dremio.exec.store.easy.arrow.ArrowFormatPluginConfig;
 import com.dremio.exec.store.easy.arrow.ArrowRecordWriter;
 import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.service.job.proto.JobId;
 import com.dremio.test.AllocatorRule;
 import com.dremio.test.DremioTest;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.arrow.memory.BufferAllocator;
@@ -374,6 +376,107 @@ public class TestArrowFileReader extends DremioTest {
     }
   }
 
+  @Test
+  public void readingMultiBatchFileWithBatchCache() throws Exception {
+    List<VectorContainer> containers = Lists.newArrayList();
+    try (final BufferAllocator allocator =
+            allocatorRule.newAllocator("test-arrow-file-reader", 0, Long.MAX_VALUE);
+        final JobResultsBatchCache batchCache = new JobResultsBatchCache(allocator, 1 << 20)) {
+      // generate a test file with multiple record batches each containing 5 records.
+      containers.add(createBatch(5, testBitVector(allocator), testVarCharVector(allocator)));
+      containers.add(createBatch(5, testBitVector(allocator), testVarCharVector(allocator)));
+      containers.add(createBatch(5, testBitVector(allocator), testVarCharVector(allocator)));
+
+      Path basePath = new Path(dateGenFolder.getRoot().getPath());
+      ArrowFileMetadata metadata = writeArrowFile(containers.toArray(new VectorContainer[3]));
+      JobId jobId = new JobId("cached-job");
+
+      // the second read is served from the cache, even once the file is deleted
+      for (int i = 0; i < 2; i++) {
+        try (ArrowFileReader reader =
+            new ArrowFileReader(
+                HadoopFileSystem.getLocal(FS_CONF),
+                com.dremio.io.file.Path.of(basePath.toUri()),
+                metadata,
+                allocator,
+                batchCache.forJob(jobId))) {
+          List<RecordBatchHolder> batchHolders = reader.read(7, 5);
+          assertEquals(2, batchHolders.size());
+
+          verifyBatchHolder(batchHolders.get(0), 2, 5);
+          VectorAccessible batchContainer = batchHolders.get(0).getData().getVectorAccessible();
+          assertEquals(TEST_BIT_VALUES.subList(2, 5), getBitValues(batchContainer, 2, 5));
+          assertEquals(TEST_VARCHAR_VALUES.subList(2, 5), getVarCharValues(batchContainer, 2, 5));
+
+          verifyBatchHolder(batchHolders.get(1), 0, 2);
+          batchContainer = batchHolders.get(1).getData().getVectorAccessible();
+          assertEquals(TEST_BIT_VALUES.subList(0, 2), getBitValues(batchContainer, 0, 2));
+          assertEquals(TEST_VARCHAR_VALUES.subList(0, 2), getVarCharValues(batchContainer, 0, 2));
+
+          releaseBatches(batchHolders);
+        }
+        assertEquals(2, batchCache.getCachedBatchCount());
+        if (i == 0) {
+          assertTrue(new File(dateGenFolder.getRoot(), metadata.getPath()).delete());
+        }
+      }
+
+      batchCache.invalidate(jobId);
+      assertEquals(0, batchCache.getCachedBatchCount());
+      assertEquals(0, batchCache.getAllocatedMemory());
+    } finally {
+      for (VectorContainer container : containers) {
+        if (container != null) {
+          container.clear();
+        }
+      }
+    }
+  }
+
+  @Test
+  public void readBatchesOutliveBatchCache() throws Exception {
+    List<VectorContainer> containers = Lists.newArrayList();
+    try (final BufferAllocator allocator =
+            allocatorRule.newAllocator("test-arrow-file-reader", 0, Long.MAX_VALUE);
+        final BufferAllocator readerAllocator =
+            allocator.newChildAllocator("test-arrow-file-reader-results", 0, Long.MAX_VALUE)) {
+      containers.add(createBatch(5, testBitVector(allocator), testVarCharVector(allocator)));
+
+      Path basePath = new Path(dateGenFolder.getRoot().getPath());
+      ArrowFileMetadata metadata = writeArrowFile(containers.toArray(new VectorContainer[1]));
+
+      final List<RecordBatchHolder> batchHolders;
+      try (final JobResultsBatchCache batchCache = new JobResultsBatchCache(allocator, 1 << 20);
+          ArrowFileReader reader =
+              new ArrowFileReader(
+                  HadoopFileSystem.getLocal(FS_CONF),
+                  com.dremio.io.file.Path.of(basePath.toUri()),
+                  metadata,
+                  readerAllocator,
+                  batchCache.forJob(new JobId("closed-cache-job")))) {
+        batchHolders = reader.read(0, 5);
+        assertEquals(1, batchCache.getCachedBatchCount());
+      }
+
+      // the returned data was transferred to the allocator of the reader
+      assertTrue(readerAllocator.getAllocatedMemory() > 0);
+      assertEquals(1, batchHolders.size());
+      verifyBatchHolder(batchHolders.get(0), 0, 5);
+      VectorAccessible batchContainer = batchHolders.get(0).getData().getVectorAccessible();
+      assertEquals(TEST_BIT_VALUES, getBitValues(batchContainer, 0, 5));
+      assertEquals(TEST_VARCHAR_VALUES, getVarCharValues(batchContainer, 0, 5));
+
+      releaseBatches(batchHolders);
+      assertEquals(0, readerAllocator.getAllocatedMemory());
+    } finally {
+      for (VectorContainer container : containers) {
+        if (container != null) {
+          container.clear();
+        }
+      }
+    }
+  }
+
   @Test
   public void writeAndReadEmptyListVectors() throws Exception {
     try (final BufferAllocator allocator =
@@ -102,6 +102,7 @@ import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -137,6 +138,7 @@ public class NamespaceServiceImpl implements NamespaceService {
   public static final int LATEST_VERSION = 1;
   public static final int MAX_ENTITIES_PER_QUERY = 1000;
   private static final int MAX_EXCEPTIONS_ALLOWED = 100;
+  private static final int DELETE_SPLITS_BATCH_SIZE = 1000;
   private static final int NUM_EXAMINED_SPLITS_BEFORE_LOGGING = 1_000_000;
   private static final int MAX_DELETE_SPLIT_RETRIES = 1;
 
@@ -858,6 +860,10 @@ public class NamespaceServiceImpl implements NamespaceService {
 
   /** Accumulate metadata, then save it in the K/V store. */
   private class DatasetMetadataSaverImpl implements DatasetMetadataSaver {
+    // multi-splits are written in batches of at most this many entries or bytes
+    private static final int MULTI_SPLIT_BATCH_SIZE = 100;
+    private static final long MULTI_SPLIT_BATCH_BYTES = 16L * 1024 * 1024;
+
     private final NamespaceKey datasetPath;
     private final EntityId datasetId;
     private final long nextDatasetVersion;
@@ -870,6 +876,8 @@ public class NamespaceServiceImpl implements NamespaceService {
     private long accumulatedSizeInBytes;
     private long accumulatedRecordCount;
     private List<DatasetSplit> accumulatedSplits;
+    private final Map<PartitionChunkId, MultiSplit> pendingMultiSplits = new LinkedHashMap<>();
+    private long pendingMultiSplitBytes;
     private int totalNumSplits;
     private final boolean datasetMetadataConsistencyValidate;
 
@@ -957,13 +965,28 @@ public class NamespaceServiceImpl implements NamespaceService {
       // and remove
       // any matching multi-splits
       if (accumulatedSplits.size() > 1 || !singleSplitPartitionAllowed) {
-        NamespaceServiceImpl.this.multiSplitStore.put(
-            chunkId, createMultiSplitFromAccumulated(splitKey));
+        final MultiSplit multiSplit = createMultiSplitFromAccumulated(splitKey);
+        pendingMultiSplits.put(chunkId, multiSplit);
+        pendingMultiSplitBytes += multiSplit.getSplitData().size();
+        if (pendingMultiSplits.size() >= MULTI_SPLIT_BATCH_SIZE
+            || pendingMultiSplitBytes >= MULTI_SPLIT_BATCH_BYTES) {
+          flushMultiSplits();
+        }
       }
       totalNumSplits += accumulatedSplits.size();
       resetSplitAccumulation();
     }
 
+    /** Writes the pending multi-splits in a single batch. */
+    private void flushMultiSplits() {
+      if (pendingMultiSplits.isEmpty()) {
+        return;
+      }
+      NamespaceServiceImpl.this.multiSplitStore.bulkPut(pendingMultiSplits);
+      pendingMultiSplits.clear();
+      pendingMultiSplitBytes = 0;
+    }
+
     private OutputStream wrapIfNeeded(OutputStream o) throws IOException {
       switch (splitCompression) {
         case UNCOMPRESSED:
@@ -1019,6 +1042,7 @@ public class NamespaceServiceImpl implements NamespaceService {
       Objects.requireNonNull(datasetConfig.getReadDefinition(), "read_definition is required");
       datasetConfig.getReadDefinition().setSplitVersion(nextDatasetVersion);
       datasetConfig.setTotalNumSplits(totalNumSplits);
+      flushMultiSplits();
       while (true) {
         try {
           NamespaceServiceImpl.this.addOrUpdateDataset(datasetPath, datasetConfig, attributes);
@@ -1158,9 +1182,11 @@ public class NamespaceServiceImpl implements NamespaceService {
 
   @Override
   public void deleteSplits(Iterable<PartitionChunkId> splits) {
-    for (PartitionChunkId split : splits) {
-      partitionChunkStore.delete(split);
-      multiSplitStore.delete(split);
+    // Partition chunks are deleted before their multi-splits, so that a failure can only leave
+    // orphan multi-splits behind, which are removed by the expired splits cleanup.
+    for (List<PartitionChunkId> batch : Iterables.partition(splits, DELETE_SPLITS_BATCH_SIZE)) {
+      partitionChunkStore.bulkDelete(batch);
+      multiSplitStore.bulkDelete(batch);
     }
   }
 
@@ -15,11 +15,21 @@
  */
 package com.dremio.service.statistics;
 
+import com.dremio.exec.expr.fn.ItemsSketch.ItemsSketchFunctions;
+import com.dremio.exec.expr.fn.hll.StatisticsAggrFunctions;
 import com.dremio.service.statistics.proto.StatisticMessage;
+import com.google.common.base.Preconditions;
+import com.tdunning.math.stats.MergingDigest;
+import com.tdunning.math.stats.TDigest;
 import io.protostuff.ByteString;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.datasketches.ArrayOfItemsSerDe;
+import org.apache.datasketches.frequencies.ItemsSketch;
+import org.apache.datasketches.hll.HllSketch;
+import org.apache.datasketches.hll.Union;
+import org.apache.datasketches.memory.Memory;
 
 /** Statistic */
 public class Statistic {
@@ -30,7 +40,8 @@ public class Statistic {
     COLRCOUNT,
     NDV,
     TDIGEST,
-    ITEMSSKETCH;
+    ITEMSSKETCH,
+    HLL;
   }
 
   private final StatisticMessage statisticMessage;
@@ -71,6 +82,37 @@ public class Statistic {
     statisticMessage.setCreatedAt(currentTimeMillis);
   }
 
+  /** Iceberg snapshot of the table the statistic was computed at, null if unknown. */
+  public Long getSnapshotId() {
+    return statisticMessage.getSnapshotId();
+  }
+
+  public void setSnapshotId(Long snapshotId) {
+    statisticMessage.setSnapshotId(snapshotId);
+  }
+
+  /**
+   * Whether the statistic holds the state needed to merge in a statistic of the given type computed
+   * over new data, see {@link StatisticBuilder#merge}.
+   */
+  public boolean isMergeable(StatisticType type) {
+    switch (type) {
+      case RCOUNT:
+        return statisticMessage.getRowCount() != null;
+      case COLRCOUNT:
+        return statisticMessage.getColumnRowCount() != null;
+      case NDV:
+      case HLL:
+        return statisticMessage.getSerializedHll() != null;
+      case TDIGEST:
+        return statisticMessage.getSerializedTdigest() != null;
+      case ITEMSSKETCH:
+        return statisticMessage.getSerializedItemsSketch() != null;
+      default:
+        return false;
+    }
+  }
+
   public HistogramImpl getHistogram(SqlTypeName sqlTypeName) {
     ByteBuffer serializedTDigest = null;
     ByteBuffer serializedItemsSketch = null;
@@ -134,12 +176,83 @@ public class Statistic {
             statistic.statisticMessage.setSerializedItemsSketch(ByteString.copyFrom(byteArray));
           }
           break;
+        case HLL:
+          {
+            byte[] byteArray = (byte[]) value;
+            statistic.statisticMessage.setSerializedHll(ByteString.copyFrom(byteArray));
+          }
+          break;
         default:
           throw new UnsupportedOperationException(
               "Statistics type, " + type.toString() + ", is not supported");
       }
     }
 
+    /**
+     * Merges a statistic computed over data appended to the table into this one. Counts are added
+     * and sketches are unioned, the NDV being re-estimated from the union of the HLL sketches.
+     *
+     * @param delta statistic of the appended data
+     * @param sqlTypeName type of the column, needed to merge items sketches
+     */
+    public void merge(Statistic delta, SqlTypeName sqlTypeName) {
+      final StatisticMessage base = statistic.statisticMessage;
+      final StatisticMessage increment = delta.statisticMessage;
+      if (increment.getRowCount() != null) {
+        checkMergeable(StatisticType.RCOUNT);
+        base.setRowCount(base.getRowCount() + increment.getRowCount());
+      }
+      if (increment.getColumnRowCount() != null) {
+        checkMergeable(StatisticType.COLRCOUNT);
+        base.setColumnRowCount(base.getColumnRowCount() + increment.getColumnRowCount());
+      }
+      if (increment.getSerializedHll() != null) {
+        checkMergeable(StatisticType.HLL);
+        final Union union = new Union(StatisticsAggrFunctions.HLL_ACCURACY);
+        union.update(HllSketch.heapify(base.getSerializedHll().toByteArray()));
+        union.update(HllSketch.heapify(increment.getSerializedHll().toByteArray()));
+        base.setSerializedHll(ByteString.copyFrom(union.toCompactByteArray()));
+        base.setNdv((long) union.getEstimate());
+      }
+      if (increment.getSerializedTdigest() != null) {
+        checkMergeable(StatisticType.TDIGEST);
+        final TDigest tDigest =
+            MergingDigest.fromBytes(base.getSerializedTdigest().asReadOnlyByteBuffer());
+        tDigest.add(
+            MergingDigest.fromBytes(increment.getSerializedTdigest().asReadOnlyByteBuffer()));
+        final ByteBuffer buffer = ByteBuffer.allocate(tDigest.smallByteSize());
+        tDigest.asSmallBytes(buffer);
+        base.setSerializedTdigest(ByteString.copyFrom(buffer.array()));
+      }
+      if (increment.getSerializedItemsSketch() != null) {
+        checkMergeable(StatisticType.ITEMSSKETCH);
+        base.setSerializedItemsSketch(
+            ByteString.copyFrom(
+                mergeItemsSketches(
+                    base.getSerializedItemsSketch(),
+                    increment.getSerializedItemsSketch(),
+                    sqlTypeName)));
+      }
+    }
+
+    private void checkMergeable(StatisticType type) {
+      Preconditions.checkState(
+          statistic.isMergeable(type), "Statistic has no %s to merge into", type);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static byte[] mergeItemsSketches(
+        ByteString base, ByteString increment, SqlTypeName sqlTypeName) {
+      final ArrayOfItemsSerDe serde = ItemsSketchFunctions.getSerdeFromSqlTypeName(sqlTypeName);
+      final ItemsSketch sketch =
+          ItemsSketch.getInstance(
+              Memory.wrap(base.asReadOnlyByteBuffer().order(ByteOrder.nativeOrder())), serde);
+      sketch.merge(
+          ItemsSketch.getInstance(
+              Memory.wrap(increment.asReadOnlyByteBuffer().order(ByteOrder.nativeOrder())), serde));
+      return sketch.toByteArray(serde);
+    }
+
     public Statistic build() {
       return statistic;
     }
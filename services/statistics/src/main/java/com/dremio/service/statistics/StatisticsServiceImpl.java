@@ -18,15 +18,23 @@ package com.dremio.service.statistics;
 import static com.dremio.service.statistics.StatisticsUtil.createRowCountStatisticId;
 import static com.dremio.service.statistics.StatisticsUtil.createStatisticId;
 
+import com.dremio.catalog.model.CatalogEntityKey;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.common.expression.CompleteType;
 import com.dremio.common.utils.PathUtils;
 import com.dremio.config.DremioConfig;
 import com.dremio.datastore.api.LegacyKVStoreProvider;
+import com.dremio.exec.catalog.CatalogUser;
+import com.dremio.exec.catalog.MetadataRequestOptions;
+import com.dremio.exec.catalog.TableMetadataVerifyAppendOnlyRequest;
+import com.dremio.exec.catalog.TableMetadataVerifyAppendOnlyResult;
+import com.dremio.exec.catalog.TableMetadataVerifyResult;
 import com.dremio.exec.planner.physical.PlannerSettings;
 import com.dremio.exec.planner.sql.TypeInferenceUtils;
+import com.dremio.exec.planner.sql.parser.DremioHint;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.server.SabotContext;
+import com.dremio.exec.store.SchemaConfig;
 import com.dremio.exec.store.TableMetadata;
 import com.dremio.exec.store.sys.statistics.StatisticsListManager;
 import com.dremio.exec.store.sys.statistics.StatisticsService;
@@ -78,6 +86,8 @@ public class StatisticsServiceImpl implements StatisticsService {
       org.slf4j.LoggerFactory.getLogger(StatisticsServiceImpl.class);
 
   private static final String TABLE_COLUMN_NAME = "TABLE_PATH";
+  private static final String SNAPSHOT_ID_COLUMN_NAME = "SNAPSHOT_ID";
+  private static final String BASE_SNAPSHOT_ID_COLUMN_NAME = "BASE_SNAPSHOT_ID";
   private static final long HEAVY_HITTERS_THRESHOLD = 3;
   public static final String ROW_COUNT_IDENTIFIER = "null";
   public static final String SAMPLE_COL_NAME = "SAMPLE";
@@ -348,6 +358,9 @@ public class StatisticsServiceImpl implements StatisticsService {
   @Override
   public String requestStatistics(List<Field> fields, NamespaceKey key, Double samplingRate) {
     validateDataset(key);
+    final Long snapshotId = getIcebergSnapshotId(key);
+    final Long baseSnapshotId =
+        snapshotId == null ? null : getIncrementalBaseSnapshotId(fields, key, snapshotId);
     final JobSubmittedListener listener = new JobSubmittedListener();
     final JobId jobId =
         jobsService
@@ -357,7 +370,13 @@ public class StatisticsServiceImpl implements StatisticsService {
                     .setQueryType(QueryType.UI_INTERNAL_RUN)
                     .setSqlQuery(
                         com.dremio.service.job.SqlQuery.newBuilder()
-                            .setSql(getSql(fields, key.toString(), samplingRate))
+                            .setSql(
+                                getSql(
+                                    fields,
+                                    key.toString(),
+                                    samplingRate,
+                                    snapshotId,
+                                    baseSnapshotId))
                             .setUsername(SystemUser.SYSTEM_USERNAME))
                     .build(),
                 listener)
@@ -367,6 +386,115 @@ public class StatisticsServiceImpl implements StatisticsService {
     return jobId.getId();
   }
 
+  /** Returns the current snapshot of the dataset if it is an Iceberg table, null otherwise. */
+  private Long getIcebergSnapshotId(NamespaceKey key) {
+    try {
+      final DatasetConfig dataset = namespaceService.get().getDataset(key);
+      if (!DatasetHelper.isIcebergDataset(dataset)) {
+        return null;
+      }
+      return dataset.getPhysicalDataset().getIcebergMetadata().getSnapshotId();
+    } catch (Exception e) {
+      logger.warn("Unable to get the current snapshot of dataset {}", key, e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the snapshot the stored statistics of the dataset can be incrementally updated from,
+   * null if the statistics have to be recomputed over the whole dataset. Statistics are updated
+   * incrementally when all the requested statistics were computed at the same snapshot, hold
+   * mergeable sketches, and only data files were appended to the table since that snapshot.
+   */
+  @VisibleForTesting
+  Long getIncrementalBaseSnapshotId(List<Field> fields, NamespaceKey key, long snapshotId) {
+    final OptionManager optionManager = getOptionManager();
+    if (!optionManager.getOption(PlannerSettings.COMPUTE_STATISTICS_INCREMENTALLY)) {
+      return null;
+    }
+
+    final Set<Long> storedSnapshotIds = new HashSet<>();
+    if (optionManager.getOption(PlannerSettings.COMPUTE_ROWCOUNT_STAT)) {
+      final Statistic rowCount = statisticStore.get(createRowCountStatisticId(key));
+      if (rowCount == null || !rowCount.isMergeable(Statistic.StatisticType.RCOUNT)) {
+        return null;
+      }
+      storedSnapshotIds.add(rowCount.getSnapshotId());
+    }
+    for (Field field : fields) {
+      final Statistic statistic = statisticStore.get(createStatisticId(field.getName(), key));
+      if (statistic == null) {
+        return null;
+      }
+      for (Statistic.StatisticType type : getComputedTypes(field)) {
+        if (!statistic.isMergeable(type)) {
+          return null;
+        }
+      }
+      storedSnapshotIds.add(statistic.getSnapshotId());
+    }
+    if (storedSnapshotIds.size() != 1 || storedSnapshotIds.contains(null)) {
+      return null;
+    }
+
+    final long baseSnapshotId = storedSnapshotIds.iterator().next();
+    if (baseSnapshotId == snapshotId) {
+      // nothing was appended, an explicit request recomputes the statistics from scratch
+      return null;
+    }
+    final Optional<TableMetadataVerifyResult> verifyResult =
+        sabotContext
+            .get()
+            .getCatalogService()
+            .getCatalog(
+                MetadataRequestOptions.of(
+                    SchemaConfig.newBuilder(CatalogUser.from(SystemUser.SYSTEM_USERNAME)).build()))
+            .verifyTableMetadata(
+                CatalogEntityKey.fromNamespaceKey(key),
+                new TableMetadataVerifyAppendOnlyRequest(
+                    String.valueOf(baseSnapshotId), String.valueOf(snapshotId)));
+    final TableMetadataVerifyAppendOnlyResult appendOnlyResult =
+        verifyResult
+            .filter(TableMetadataVerifyAppendOnlyResult.class::isInstance)
+            .map(TableMetadataVerifyAppendOnlyResult.class::cast)
+            .orElse(null);
+    // a single range means no data files were rewritten, by optimize or deletes, in between
+    if (appendOnlyResult == null
+        || appendOnlyResult.getResultCode()
+            != TableMetadataVerifyAppendOnlyResult.ResultCode.APPEND_ONLY
+        || appendOnlyResult.getSnapshotRanges().size() != 1) {
+      logger.info(
+          "Recomputing statistics of dataset {}, changes between snapshots {} and {} are not append-only: {}",
+          key,
+          baseSnapshotId,
+          snapshotId,
+          appendOnlyResult == null ? null : appendOnlyResult.getResultCode());
+      return null;
+    }
+    return baseSnapshotId;
+  }
+
+  /** Column statistics the compute statistics job computes for the field. */
+  private List<Statistic.StatisticType> getComputedTypes(Field field) {
+    final OptionManager optionManager = getOptionManager();
+    final List<Statistic.StatisticType> types = new ArrayList<>();
+    if (optionManager.getOption(PlannerSettings.COMPUTE_NDV_STAT)) {
+      types.add(Statistic.StatisticType.HLL);
+    }
+    if (optionManager.getOption(PlannerSettings.COMPUTE_COUNT_COL_STAT)) {
+      types.add(Statistic.StatisticType.COLRCOUNT);
+    }
+    if (optionManager.getOption(PlannerSettings.COMPUTE_TDIGEST_STAT)
+        && isSupportedTypeForTDigest(field.getFieldType())) {
+      types.add(Statistic.StatisticType.TDIGEST);
+    }
+    if (optionManager.getOption(PlannerSettings.COMPUTE_ITEMSSKETCH_STAT)
+        && isSupportedTypeForItemsSketch(field.getFieldType())) {
+      types.add(Statistic.StatisticType.ITEMSSKETCH);
+    }
+    return types;
+  }
+
   @Override
   public void setNdv(String column, Long val, NamespaceKey key) {
     String normalizedColumn = column.toLowerCase();
@@ -385,14 +513,41 @@ public class StatisticsServiceImpl implements StatisticsService {
   }
 
   public String getSql(List<Field> fields, String table, Double samplingRate) {
+    return getSql(fields, table, samplingRate, null, null);
+  }
+
+  /**
+   * Returns the compute statistics query.
+   *
+   * @param snapshotId Iceberg snapshot to compute the statistics at, null for non Iceberg tables
+   * @param baseSnapshotId snapshot of the stored statistics when computing them over the data
+   *     appended since, null to compute them over the whole table
+   */
+  public String getSql(
+      List<Field> fields, String table, Double samplingRate, Long snapshotId, Long baseSnapshotId) {
     StringBuilder stringBuilder = new StringBuilder("SELECT '");
     stringBuilder.append(table).append("' as ").append(TABLE_COLUMN_NAME);
+    if (snapshotId != null) {
+      stringBuilder
+          .append(", CAST(")
+          .append(snapshotId)
+          .append(" AS BIGINT) as ")
+          .append(SNAPSHOT_ID_COLUMN_NAME);
+    }
+    if (baseSnapshotId != null) {
+      stringBuilder
+          .append(", CAST(")
+          .append(baseSnapshotId)
+          .append(" AS BIGINT) as ")
+          .append(BASE_SNAPSHOT_ID_COLUMN_NAME);
+    }
     populateNdvSql(stringBuilder, fields);
     populateCountStarSql(stringBuilder);
     populateCountColumnSql(stringBuilder, fields);
     populateTDigestSql(stringBuilder, fields, samplingRate != null);
     populateItemsSketchSql(stringBuilder, fields);
-    populateFromClause(stringBuilder, fields, table, samplingRate);
+    populateFromClause(
+        stringBuilder, fields, getTableRef(table, snapshotId, baseSnapshotId), samplingRate);
     return stringBuilder.toString();
   }
 
@@ -400,6 +555,22 @@ public class StatisticsServiceImpl implements StatisticsService {
     sb.append("\"").append(NON_SAMPLE_COL_PREFIX).append("_").append(name).append("\"");
   }
 
+  /**
+   * Pins the table to the snapshot the statistics are recorded at, and restricts it to the data
+   * files appended since the stored statistics when updating them incrementally.
+   */
+  private String getTableRef(String table, Long snapshotId, Long baseSnapshotId) {
+    if (snapshotId == null) {
+      return table;
+    }
+    if (baseSnapshotId == null) {
+      return String.format("%s AT SNAPSHOT '%d'", table, snapshotId);
+    }
+    return String.format(
+        "%s /*+ %s('%d', '%d') */",
+        table, DremioHint.APPENDED_SINCE.getHintName(), baseSnapshotId, snapshotId);
+  }
+
   private void populateFromClause(
       StringBuilder sb, List<Field> fields, String table, Double samplingRate) {
     sb.append("FROM (Select ");
@@ -433,6 +604,12 @@ public class StatisticsServiceImpl implements StatisticsService {
       stringBuilder.append(") as \"");
       populateColumnName(stringBuilder, Statistic.StatisticType.NDV, column);
       stringBuilder.append("\" ");
+      stringBuilder.append(", ");
+      stringBuilder.append("hll(");
+      populateNonSampleColName(stringBuilder, column);
+      stringBuilder.append(") as \"");
+      populateColumnName(stringBuilder, Statistic.StatisticType.HLL, column);
+      stringBuilder.append("\" ");
     }
   }
 
@@ -571,6 +748,8 @@ public class StatisticsServiceImpl implements StatisticsService {
             : new Statistic();
     Statistic.StatisticBuilder statisticBuilder = new Statistic.StatisticBuilder(statistic);
     statisticBuilder.update(type, value);
+    // a manually set value no longer matches the sketches, the next update must recompute them
+    statistic.setSnapshotId(null);
     statisticStore.save(statisticId, statisticBuilder.build());
   }
 
@@ -606,9 +785,18 @@ public class StatisticsServiceImpl implements StatisticsService {
                   Preconditions.checkArgument(fields.get(0).getName().equals(TABLE_COLUMN_NAME));
                   String table = data.extractValue(fields.get(0).getName(), 0).toString();
                   StatisticsInputBuilder statisticsInputBuilder = new StatisticsInputBuilder(table);
+                  Long baseSnapshotId = null;
                   for (int i = 1; i < fields.size(); i++) {
                     String name = fields.get(i).getName();
                     Object value = data.extractValue(name, 0);
+                    if (name.equals(SNAPSHOT_ID_COLUMN_NAME)) {
+                      statisticsInputBuilder.setSnapshotId(((Number) value).longValue());
+                      continue;
+                    }
+                    if (name.equals(BASE_SNAPSHOT_ID_COLUMN_NAME)) {
+                      baseSnapshotId = ((Number) value).longValue();
+                      continue;
+                    }
                     String[] names = name.split("_", 2);
                     Statistic.StatisticType type = Statistic.StatisticType.valueOf(names[0]);
                     String columnName = names[1];
@@ -616,6 +804,10 @@ public class StatisticsServiceImpl implements StatisticsService {
                   }
                   Map<StatisticId, Statistic> statisticIdStatisticHashMap =
                       statisticsInputBuilder.build();
+                  if (baseSnapshotId != null) {
+                    statisticIdStatisticHashMap =
+                        mergeIntoStored(table, baseSnapshotId, statisticIdStatisticHashMap);
+                  }
                   statisticIdStatisticHashMap.forEach(statisticStore::save);
                 }
                 // fall through
@@ -643,6 +835,46 @@ public class StatisticsServiceImpl implements StatisticsService {
     }
   }
 
+  /**
+   * Merges statistics computed over the data appended since the base snapshot into the stored
+   * statistics. Nothing is merged if the stored statistics no longer reflect the base snapshot, as
+   * when they were recomputed or manually set while the incremental job ran.
+   */
+  private Map<StatisticId, Statistic> mergeIntoStored(
+      String table, long baseSnapshotId, Map<StatisticId, Statistic> increments) {
+    final Map<StatisticId, Statistic> merged = new HashMap<>();
+    BatchSchema schema = null;
+    for (Map.Entry<StatisticId, Statistic> entry : increments.entrySet()) {
+      final Statistic stored = statisticStore.get(entry.getKey());
+      if (stored == null || !Long.valueOf(baseSnapshotId).equals(stored.getSnapshotId())) {
+        logger.warn(
+            "Statistics of dataset {} changed since snapshot {}, discarding incremental update.",
+            table,
+            baseSnapshotId);
+        return new HashMap<>();
+      }
+      SqlTypeName sqlTypeName = null;
+      if (entry.getValue().getStatisticMessage().getSerializedItemsSketch() != null) {
+        if (schema == null) {
+          schema =
+              BatchSchema.deserialize(
+                  namespaceService
+                      .get()
+                      .getDataset(new NamespaceKey(PathUtils.parseFullPath(table)))
+                      .getRecordSchema()
+                      .toByteArray());
+        }
+        sqlTypeName = getSqlTypeNameFromColumn(entry.getKey().getColumn(), schema);
+      }
+      final Statistic.StatisticBuilder builder = new Statistic.StatisticBuilder(stored);
+      builder.merge(entry.getValue(), sqlTypeName);
+      final Statistic statistic = builder.build();
+      statistic.setSnapshotId(entry.getValue().getSnapshotId());
+      merged.put(entry.getKey(), statistic);
+    }
+    return merged;
+  }
+
   @Override
   public void close() throws Exception {}
 
@@ -650,6 +882,7 @@ public class StatisticsServiceImpl implements StatisticsService {
   public static class StatisticsInputBuilder {
     private final String table;
     private final Map<StatisticId, Statistic.StatisticBuilder> builderMap;
+    private Long snapshotId;
 
     public StatisticsInputBuilder(String table) {
       this.builderMap = new HashMap<>();
@@ -664,11 +897,18 @@ public class StatisticsServiceImpl implements StatisticsService {
       builderMap.get(statisticId).update(type, value);
     }
 
+    /** Sets the Iceberg snapshot the statistics were computed at. */
+    public void setSnapshotId(Long snapshotId) {
+      this.snapshotId = snapshotId;
+    }
+
     public Map<StatisticId, Statistic> build() {
       Map<StatisticId, Statistic> statisticIdStatisticHashMap = new HashMap<>();
       builderMap.forEach(
           (k, v) -> {
-            statisticIdStatisticHashMap.put(k, v.build());
+            Statistic statistic = v.build();
+            statistic.setSnapshotId(snapshotId);
+            statisticIdStatisticHashMap.put(k, statistic);
           });
       return statisticIdStatisticHashMap;
     }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import com.dremio.exec.expr.fn.hll.StatisticsAggrFunctions;
+import com.tdunning.math.stats.MergingDigest;
+import com.tdunning.math.stats.TDigest;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.datasketches.ArrayOfLongsSerDe;
+import org.apache.datasketches.frequencies.ItemsSketch;
+import org.apache.datasketches.hll.HllSketch;
+import org.apache.datasketches.memory.Memory;
+import org.junit.Test;
+
+/** Tests for {@link Statistic.StatisticBuilder#merge} */
+public class TestStatistic {
+
+  @Test
+  public void testMergeCounts() {
+    final Statistic base = statistic(Statistic.StatisticType.RCOUNT, 100L);
+    new Statistic.StatisticBuilder(base).update(Statistic.StatisticType.COLRCOUNT, 90L);
+    final Statistic delta = statistic(Statistic.StatisticType.RCOUNT, 20L);
+    new Statistic.StatisticBuilder(delta).update(Statistic.StatisticType.COLRCOUNT, 15L);
+
+    new Statistic.StatisticBuilder(base).merge(delta, SqlTypeName.BIGINT);
+
+    assertThat(base.getRowCount()).isEqualTo(120L);
+    assertThat(base.getColumnRowCount()).isEqualTo(105L);
+  }
+
+  @Test
+  public void testMergeHll() {
+    final Statistic base = statistic(Statistic.StatisticType.HLL, hll(0, 1000));
+    new Statistic.StatisticBuilder(base).update(Statistic.StatisticType.NDV, 1000L);
+    final Statistic delta = statistic(Statistic.StatisticType.HLL, hll(500, 1500));
+
+    new Statistic.StatisticBuilder(base).merge(delta, SqlTypeName.BIGINT);
+
+    // overlapping values are only counted once
+    assertThat(base.getNdv()).isCloseTo(1500L, within(75L));
+    assertThat(
+            HllSketch.heapify(base.getStatisticMessage().getSerializedHll().toByteArray())
+                .getEstimate())
+        .isCloseTo(1500d, within(75d));
+  }
+
+  @Test
+  public void testMergeTDigest() {
+    final Statistic base = statistic(Statistic.StatisticType.TDIGEST, tDigest(0, 100));
+    final Statistic delta = statistic(Statistic.StatisticType.TDIGEST, tDigest(100, 300));
+
+    new Statistic.StatisticBuilder(base).merge(delta, SqlTypeName.BIGINT);
+
+    final TDigest merged =
+        MergingDigest.fromBytes(
+            base.getStatisticMessage().getSerializedTdigest().asReadOnlyByteBuffer());
+    assertThat(merged.size()).isEqualTo(300L);
+    assertThat(merged.quantile(0.5)).isCloseTo(150d, within(5d));
+  }
+
+  @Test
+  public void testMergeItemsSketch() {
+    final Statistic base =
+        statistic(Statistic.StatisticType.ITEMSSKETCH, itemsSketch(1L, 1L, 1L, 2L));
+    final Statistic delta = statistic(Statistic.StatisticType.ITEMSSKETCH, itemsSketch(2L, 2L, 3L));
+
+    new Statistic.StatisticBuilder(base).merge(delta, SqlTypeName.BIGINT);
+
+    final ItemsSketch<Long> merged =
+        ItemsSketch.getInstance(
+            Memory.wrap(
+                base.getStatisticMessage()
+                    .getSerializedItemsSketch()
+                    .asReadOnlyByteBuffer()
+                    .order(ByteOrder.nativeOrder())),
+            new ArrayOfLongsSerDe());
+    assertThat(merged.getStreamLength()).isEqualTo(7L);
+    assertThat(merged.getEstimate(1L)).isEqualTo(3L);
+    assertThat(merged.getEstimate(2L)).isEqualTo(3L);
+    assertThat(merged.getEstimate(3L)).isEqualTo(1L);
+  }
+
+  @Test
+  public void testMergeIntoMissingSketch() {
+    final Statistic base = statistic(Statistic.StatisticType.NDV, 1000L);
+    final Statistic delta = statistic(Statistic.StatisticType.HLL, hll(0, 10));
+
+    assertThat(base.isMergeable(Statistic.StatisticType.HLL)).isFalse();
+    assertThatThrownBy(() -> new Statistic.StatisticBuilder(base).merge(delta, SqlTypeName.BIGINT))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  private static Statistic statistic(Statistic.StatisticType type, Object value) {
+    final Statistic.StatisticBuilder builder = new Statistic.StatisticBuilder();
+    builder.update(type, value);
+    return builder.build();
+  }
+
+  private static byte[] hll(long start, long end) {
+    final HllSketch sketch = new HllSketch(StatisticsAggrFunctions.HLL_ACCURACY);
+    for (long i = start; i < end; i++) {
+      sketch.update(i);
+    }
+    return sketch.toCompactByteArray();
+  }
+
+  private static byte[] tDigest(int start, int end) {
+    final TDigest tDigest = new MergingDigest(100);
+    for (int i = start; i < end; i++) {
+      tDigest.add(i);
+    }
+    final ByteBuffer buffer = ByteBuffer.allocate(tDigest.smallByteSize());
+    tDigest.asSmallBytes(buffer);
+    return buffer.array();
+  }
+
+  private static byte[] itemsSketch(Long... values) {
+    final ItemsSketch<Long> sketch = new ItemsSketch<>(32);
+    for (Long value : values) {
+      sketch.update(value);
+    }
+    return sketch.toByteArray(new ArrayOfLongsSerDe());
+  }
+}
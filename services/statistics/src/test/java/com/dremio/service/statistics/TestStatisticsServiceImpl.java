@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.statistics;
+
+import static com.dremio.service.statistics.StatisticsUtil.createRowCountStatisticId;
+import static com.dremio.service.statistics.StatisticsUtil.createStatisticId;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dremio.common.expression.CompleteType;
+import com.dremio.config.DremioConfig;
+import com.dremio.datastore.api.LegacyKVStore;
+import com.dremio.datastore.api.LegacyKVStoreProvider;
+import com.dremio.exec.catalog.Catalog;
+import com.dremio.exec.catalog.TableMetadataVerifyAppendOnlyResult;
+import com.dremio.exec.planner.physical.PlannerSettings;
+import com.dremio.exec.server.SabotContext;
+import com.dremio.exec.store.CatalogService;
+import com.dremio.options.OptionManager;
+import com.dremio.service.jobs.JobsService;
+import com.dremio.service.namespace.NamespaceKey;
+import com.dremio.service.namespace.NamespaceService;
+import com.dremio.service.scheduler.SchedulerService;
+import com.dremio.service.statistics.proto.StatisticMessage;
+import com.google.common.collect.ImmutableList;
+import io.protostuff.ByteString;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the compute statistics query and incremental updates of {@link StatisticsServiceImpl}
+ */
+public class TestStatisticsServiceImpl {
+  private static final NamespaceKey KEY = new NamespaceKey(ImmutableList.of("s", "t"));
+  private static final List<Field> FIELDS = ImmutableList.of(CompleteType.BIGINT.toField("a"));
+
+  private final LegacyKVStore<Object, Object> kvStore = mock(LegacyKVStore.class);
+  private final OptionManager optionManager = mock(OptionManager.class);
+  private final Catalog catalog = mock(Catalog.class);
+  private final TableMetadataVerifyAppendOnlyResult verifyResult =
+      mock(TableMetadataVerifyAppendOnlyResult.class);
+
+  private StatisticsServiceImpl service;
+
+  @Before
+  public void setup() throws Exception {
+    final LegacyKVStoreProvider storeProvider = mock(LegacyKVStoreProvider.class);
+    doReturn(kvStore).when(storeProvider).getStore(any());
+    when(kvStore.find()).thenReturn(Collections.emptyList());
+
+    final CatalogService catalogService = mock(CatalogService.class);
+    when(catalogService.getCatalog(any())).thenReturn(catalog);
+    doReturn(Optional.of(verifyResult)).when(catalog).verifyTableMetadata(any(), any());
+    when(verifyResult.getResultCode())
+        .thenReturn(TableMetadataVerifyAppendOnlyResult.ResultCode.APPEND_ONLY);
+    when(verifyResult.getSnapshotRanges()).thenReturn(ImmutableList.of(Pair.of("3", "5")));
+
+    final SabotContext sabotContext = mock(SabotContext.class);
+    when(sabotContext.getDremioConfig()).thenReturn(DremioConfig.create());
+    when(sabotContext.getOptionManager()).thenReturn(optionManager);
+    when(sabotContext.getCatalogService()).thenReturn(catalogService);
+
+    when(optionManager.getOption(PlannerSettings.COMPUTE_STATISTICS_INCREMENTALLY))
+        .thenReturn(true);
+    when(optionManager.getOption(PlannerSettings.COMPUTE_NDV_STAT)).thenReturn(true);
+    when(optionManager.getOption(PlannerSettings.COMPUTE_ROWCOUNT_STAT)).thenReturn(true);
+    when(optionManager.getOption(PlannerSettings.COMPUTE_COUNT_COL_STAT)).thenReturn(true);
+    when(optionManager.getOption(PlannerSettings.COMPUTE_TDIGEST_STAT)).thenReturn(true);
+    when(optionManager.getOption(PlannerSettings.COMPUTE_ITEMSSKETCH_STAT)).thenReturn(true);
+
+    service =
+        new StatisticsServiceImpl(
+            () -> storeProvider,
+            () -> mock(SchedulerService.class),
+            () -> mock(JobsService.class),
+            () -> mock(NamespaceService.class),
+            () -> mock(BufferAllocator.class),
+            () -> sabotContext);
+    service.start();
+  }
+
+  @Test
+  public void testSql() {
+    final String sql = service.getSql(FIELDS, KEY.toString(), null);
+    assertThat(sql)
+        .contains("ndv(\"ORIGINAL_a\")")
+        .contains("count(*)")
+        .endsWith("from s.t)")
+        .doesNotContain("SNAPSHOT");
+  }
+
+  @Test
+  public void testSqlAtSnapshot() {
+    final String sql = service.getSql(FIELDS, KEY.toString(), null, 5L, null);
+    assertThat(sql)
+        .contains("CAST(5 AS BIGINT) as SNAPSHOT_ID")
+        .doesNotContain("BASE_SNAPSHOT_ID")
+        .endsWith("from s.t AT SNAPSHOT '5')");
+  }
+
+  @Test
+  public void testSqlAppendedSince() {
+    final String sql = service.getSql(FIELDS, KEY.toString(), null, 5L, 3L);
+    assertThat(sql)
+        .contains("CAST(5 AS BIGINT) as SNAPSHOT_ID")
+        .contains("CAST(3 AS BIGINT) as BASE_SNAPSHOT_ID")
+        .endsWith("from s.t /*+ APPENDED_SINCE('3', '5') */)");
+  }
+
+  @Test
+  public void testIncremental() {
+    storeRowCount(3L);
+    storeColumn(3L, true);
+    assertThat(service.getIncrementalBaseSnapshotId(FIELDS, KEY, 5L)).isEqualTo(3L);
+  }
+
+  @Test
+  public void testDisabled() {
+    when(optionManager.getOption(PlannerSettings.COMPUTE_STATISTICS_INCREMENTALLY))
+        .thenReturn(false);
+    storeRowCount(3L);
+    storeColumn(3L, true);
+    assertThat(service.getIncrementalBaseSnapshotId(FIELDS, KEY, 5L)).isNull();
+  }
+
+  @Test
+  public void testSameSnapshot() {
+    storeRowCount(5L);
+    storeColumn(5L, true);
+    assertThat(service.getIncrementalBaseSnapshotId(FIELDS, KEY, 5L)).isNull();
+    verify(catalog, never()).verifyTableMetadata(any(), any());
+  }
+
+  @Test
+  public void testNoStoredStatistics() {
+    storeRowCount(3L);
+    assertThat(service.getIncrementalBaseSnapshotId(FIELDS, KEY, 5L)).isNull();
+  }
+
+  @Test
+  public void testMixedSnapshots() {
+    storeRowCount(3L);
+    storeColumn(4L, true);
+    assertThat(service.getIncrementalBaseSnapshotId(FIELDS, KEY, 5L)).isNull();
+  }
+
+  @Test
+  public void testUnknownSnapshot() {
+    storeRowCount(null);
+    storeColumn(null, true);
+    assertThat(service.getIncrementalBaseSnapshotId(FIELDS, KEY, 5L)).isNull();
+  }
+
+  @Test
+  public void testNotMergeable() {
+    storeRowCount(3L);
+    storeColumn(3L, false);
+    assertThat(service.getIncrementalBaseSnapshotId(FIELDS, KEY, 5L)).isNull();
+  }
+
+  @Test
+  public void testNotAppendOnly() {
+    storeRowCount(3L);
+    storeColumn(3L, true);
+    when(verifyResult.getResultCode())
+        .thenReturn(TableMetadataVerifyAppendOnlyResult.ResultCode.NOT_APPEND_ONLY);
+    assertThat(service.getIncrementalBaseSnapshotId(FIELDS, KEY, 5L)).isNull();
+  }
+
+  @Test
+  public void testRewrittenDataFiles() {
+    storeRowCount(3L);
+    storeColumn(3L, true);
+    when(verifyResult.getSnapshotRanges())
+        .thenReturn(ImmutableList.of(Pair.of("3", "4"), Pair.of("4", "5")));
+    assertThat(service.getIncrementalBaseSnapshotId(FIELDS, KEY, 5L)).isNull();
+  }
+
+  private void storeRowCount(Long snapshotId) {
+    when(kvStore.get(createRowCountStatisticId(KEY)))
+        .thenReturn(new StatisticMessage().setRowCount(100L).setSnapshotId(snapshotId));
+  }
+
+  /** Stores the statistic of the column, with or without the sketches needed to merge into it. */
+  private void storeColumn(Long snapshotId, boolean sketches) {
+    final StatisticMessage message =
+        new StatisticMessage().setNdv(10L).setColumnRowCount(90L).setSnapshotId(snapshotId);
+    if (sketches) {
+      message
+          .setSerializedHll(ByteString.copyFrom(new byte[1]))
+          .setSerializedTdigest(ByteString.copyFrom(new byte[1]))
+          .setSerializedItemsSketch(ByteString.copyFrom(new byte[1]));
+    }
+    when(kvStore.get(createStatisticId("a", KEY))).thenReturn(message);
+  }
+}